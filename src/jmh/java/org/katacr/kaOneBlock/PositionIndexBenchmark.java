@@ -0,0 +1,129 @@
+package org.katacr.kaOneBlock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former record-keyed {@link ConcurrentHashMap} with {@link PositionIndex} for the lookup done on every
+ * block break, where almost every broken block is not a OneBlock: misses next to an island share its chunk, far misses
+ * land in chunks without any OneBlock and are rejected by the chunk filter. Run with {@code -prof gc} to see that the
+ * index's miss paths allocate nothing while the map allocates one position per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionIndexBenchmark {
+    private static final int PROBES = 4096;
+    private static final UUID WORLD = new UUID(1, 1);
+
+    @Param({"10000", "1000000"})
+    public int blocks;
+
+    private final Map<BlockPosition, UUID> map = new ConcurrentHashMap<>();
+    private final PositionIndex index = new PositionIndex();
+    private int[][] hits;
+    private int[][] misses;
+    private int[][] farMisses;
+    private int cursor;
+
+    /**
+     * Registers the same OneBlocks in both structures, spread out like islands, and picks hit and miss coordinates.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int[][] registered = new int[blocks][];
+        for (int block = 0; block < blocks; block++) {
+            int[] coordinates = {(block % 1000) * 512, 64, (block / 1000) * 512};
+            registered[block] = coordinates;
+            BlockPosition position = new BlockPosition(WORLD, coordinates[0], coordinates[1], coordinates[2]);
+            UUID owner = new UUID(2, block);
+            map.put(position, owner);
+            index.put(position, owner);
+        }
+        hits = new int[PROBES][];
+        misses = new int[PROBES][];
+        farMisses = new int[PROBES][];
+        for (int probe = 0; probe < PROBES; probe++) {
+            int[] hit = registered[random.nextInt(blocks)];
+            hits[probe] = hit;
+            misses[probe] = new int[]{hit[0] + 1 + random.nextInt(8), 60 + random.nextInt(8), hit[2] + random.nextInt(8)};
+            farMisses[probe] = new int[]{hit[0] + 64 + random.nextInt(384), random.nextInt(128), hit[2] + 64 + random.nextInt(384)};
+        }
+    }
+
+    /**
+     * Looks up a plain block through the map, as the listener did before.
+     */
+    @Benchmark
+    public UUID mapMiss() {
+        int[] probe = misses[next()];
+        return map.get(new BlockPosition(WORLD, probe[0], probe[1], probe[2]));
+    }
+
+    /**
+     * Looks up a plain block through the packed index.
+     */
+    @Benchmark
+    public UUID indexMiss() {
+        int[] probe = misses[next()];
+        return index.get(WORLD, probe[0], probe[1], probe[2]);
+    }
+
+    /**
+     * Looks up a block far from any island through the map.
+     */
+    @Benchmark
+    public UUID mapFarMiss() {
+        int[] probe = farMisses[next()];
+        return map.get(new BlockPosition(WORLD, probe[0], probe[1], probe[2]));
+    }
+
+    /**
+     * Looks up a block far from any island through the packed index and its chunk filter.
+     */
+    @Benchmark
+    public UUID indexFarMiss() {
+        int[] probe = farMisses[next()];
+        return index.get(WORLD, probe[0], probe[1], probe[2]);
+    }
+
+    /**
+     * Looks up a OneBlock through the map.
+     */
+    @Benchmark
+    public UUID mapHit() {
+        int[] probe = hits[next()];
+        return map.get(new BlockPosition(WORLD, probe[0], probe[1], probe[2]));
+    }
+
+    /**
+     * Looks up a OneBlock through the packed index.
+     */
+    @Benchmark
+    public UUID indexHit() {
+        int[] probe = hits[next()];
+        return index.get(WORLD, probe[0], probe[1], probe[2]);
+    }
+
+    /**
+     * Advances through the probe coordinates so each lookup lands on a different cache line.
+     */
+    private int next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+}
@@ -0,0 +1,93 @@
+package org.katacr.kaOneBlock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares three ways to draw from the same weighted list: the former linear scan over cumulative weights, a binary
+ * search over the same array, and the alias table behind {@link WeightedRandom}. Weights are skewed like real block
+ * lists, with a few common entries and a long tail of rare ones.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WeightedRandomBenchmark {
+    @Param({"8", "64", "1024", "16384"})
+    public int entries;
+
+    private final SplittableRandom random = new SplittableRandom(7);
+    private double[] cumulative;
+    private Integer[] items;
+    private WeightedRandom<Integer> alias;
+
+    /**
+     * Builds the cumulative array and the frozen alias selector from one set of weights.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom weights = new SplittableRandom(42);
+        cumulative = new double[entries];
+        items = new Integer[entries];
+        alias = new WeightedRandom<>();
+        double total = 0;
+        for (int index = 0; index < entries; index++) {
+            double weight = index < 4 ? 100 : 1 + weights.nextDouble() * 10;
+            total += weight;
+            cumulative[index] = total;
+            items[index] = index;
+            alias.add(index, weight);
+        }
+        alias.freeze();
+    }
+
+    /**
+     * Scans the cumulative weights from the start, as the former selector did.
+     */
+    @Benchmark
+    public Integer linearScan() {
+        double value = random.nextDouble(cumulative[entries - 1]);
+        for (int index = 0; index < entries; index++) {
+            if (value < cumulative[index]) {
+                return items[index];
+            }
+        }
+        return items[entries - 1];
+    }
+
+    /**
+     * Binary-searches the cumulative weights.
+     */
+    @Benchmark
+    public Integer binarySearch() {
+        double value = random.nextDouble(cumulative[entries - 1]);
+        int low = 0;
+        int high = entries - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (value < cumulative[middle]) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return items[low];
+    }
+
+    /**
+     * Draws through the frozen alias table.
+     */
+    @Benchmark
+    public Integer alias() {
+        return alias.getRandom(random);
+    }
+}
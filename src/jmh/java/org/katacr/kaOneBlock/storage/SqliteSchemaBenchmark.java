@@ -0,0 +1,233 @@
+package org.katacr.kaOneBlock.storage;
+
+import org.katacr.kaOneBlock.BlockPosition;
+import org.katacr.kaOneBlock.GeneratedBlockRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the version 1 text schema with the compact schema on a large record set: full scans as done by eager
+ * loading, and 1000-record batch upserts as done by periodic flushes. The database file size is printed per schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SqliteSchemaBenchmark {
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final int UPSERT_BATCH_SIZE = 1000;
+    private static final String[] BLOCK_TYPES = {"STONE", "DIRT", "GRASS_BLOCK", "OAK_LOG", "COBBLESTONE", "IRON_ORE",
+            "COAL_ORE", "GOLD_ORE", "DIAMOND_ORE", "SAND", "GRAVEL", "CLAY", "NETHERRACK", "OBSIDIAN", "END_STONE"};
+    private static final String[] STAGES = {"normal.yml", "cave.yml", "nether.yml", "ocean.yml", "end.yml"};
+    private static final UUID[] WORLDS = {new UUID(1, 1), new UUID(1, 2), new UUID(1, 3)};
+
+    @Param({"text", "compact"})
+    public String schema;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private File directory;
+    private SqliteBlockStorage compactStorage;
+    private TextSchema textSchema;
+    private int upsertCursor;
+    private int round;
+
+    /**
+     * Creates and fills a fresh database with the selected schema.
+     */
+    @Setup(Level.Trial)
+    public void createDatabase() throws Exception {
+        directory = Files.createTempDirectory("kaoneblock-bench").toFile();
+        File file = new File(directory, "data.db");
+        if (schema.equals("compact")) {
+            compactStorage = new SqliteBlockStorage(file);
+            compactStorage.initialize();
+        } else {
+            textSchema = new TextSchema(file);
+        }
+        for (int start = 0; start < rows; start += LOAD_BATCH_SIZE) {
+            upsert(records(start, Math.min(LOAD_BATCH_SIZE, rows - start), 0));
+        }
+        System.out.printf("%n%s schema: %,d rows, %,d bytes including the WAL%n", schema, rows, databaseBytes());
+    }
+
+    /**
+     * Closes the database and deletes its files.
+     */
+    @TearDown(Level.Trial)
+    public void deleteDatabase() throws SQLException {
+        if (compactStorage != null) {
+            compactStorage.close();
+        }
+        if (textSchema != null) {
+            textSchema.connection.close();
+        }
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Reads and maps every row, as eager loading does on startup.
+     */
+    @Benchmark
+    public void scanAll(Blackhole blackhole) throws SQLException {
+        if (compactStorage != null) {
+            compactStorage.loadAll(record -> {
+                blackhole.consume(record);
+                return true;
+            });
+        } else {
+            textSchema.scan(blackhole);
+        }
+    }
+
+    /**
+     * Updates 1000 existing records in one transaction, as a periodic flush does.
+     */
+    @Benchmark
+    public void upsertBatch() throws SQLException {
+        if (upsertCursor + UPSERT_BATCH_SIZE > rows) {
+            upsertCursor = 0;
+        }
+        upsert(records(upsertCursor, UPSERT_BATCH_SIZE, ++round));
+        upsertCursor += UPSERT_BATCH_SIZE;
+    }
+
+    /**
+     * Sums the database file and its WAL and shared-memory files.
+     */
+    private long databaseBytes() {
+        long bytes = 0;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                bytes += file.length();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes records through the selected schema.
+     */
+    private void upsert(List<GeneratedBlockRecord> records) throws SQLException {
+        if (compactStorage != null) {
+            compactStorage.upsertAll(records);
+        } else {
+            textSchema.upsert(records);
+        }
+    }
+
+    /**
+     * Builds deterministic records for consecutive player indexes.
+     */
+    private static List<GeneratedBlockRecord> records(int start, int count, int round) {
+        List<GeneratedBlockRecord> records = new ArrayList<>(count);
+        for (int index = start; index < start + count; index++) {
+            UUID world = WORLDS[index % WORLDS.length];
+            records.add(new GeneratedBlockRecord(
+                    new UUID(0x4b4f42L, index),
+                    "Player" + index,
+                    new BlockPosition(world, (index % 2000) * 512, 64, (index / 2000) * 512),
+                    "world_" + (index % WORLDS.length),
+                    BLOCK_TYPES[(index + round) % BLOCK_TYPES.length],
+                    STAGES[(index / 1000 + round) % STAGES.length],
+                    index % 5000 + round
+            ));
+        }
+        return records;
+    }
+
+    /**
+     * The version 1 text schema written with the statements the plugin used before the compact schema.
+     */
+    private static final class TextSchema {
+        private static final String UPSERT_SQL = "INSERT INTO generated_blocks (" + BlockRows.COLUMNS + ") VALUES "
+                + BlockRows.PLACEHOLDERS + " ON CONFLICT(player_uuid) DO UPDATE SET player_name = excluded.player_name, "
+                + "world_uuid = excluded.world_uuid, world_name = excluded.world_name, x = excluded.x, y = excluded.y, "
+                + "z = excluded.z, block_type = excluded.block_type, stage_file = excluded.stage_file, "
+                + "blocks_broken = excluded.blocks_broken";
+
+        private final Connection connection;
+        private final PreparedStatement upsert;
+
+        private TextSchema(File file) throws SQLException {
+            connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("""
+                        CREATE TABLE generated_blocks (
+                            id INTEGER PRIMARY KEY AUTOINCREMENT,
+                            player_uuid TEXT NOT NULL UNIQUE,
+                            player_name TEXT NOT NULL,
+                            world_uuid TEXT,
+                            world_name TEXT,
+                            x INTEGER NOT NULL,
+                            y INTEGER NOT NULL,
+                            z INTEGER NOT NULL,
+                            block_type TEXT NOT NULL DEFAULT 'STONE',
+                            stage_file TEXT NOT NULL DEFAULT 'normal.yml',
+                            blocks_broken INTEGER NOT NULL DEFAULT 0,
+                            generated_time DATETIME DEFAULT CURRENT_TIMESTAMP
+                        )
+                        """);
+                statement.execute("CREATE INDEX idx_generated_blocks_location ON generated_blocks(world_uuid, x, y, z)");
+            }
+            upsert = connection.prepareStatement(UPSERT_SQL);
+        }
+
+        /**
+         * Upserts records in one transaction.
+         */
+        private void upsert(List<GeneratedBlockRecord> records) throws SQLException {
+            Transactions.run(connection, () -> {
+                for (GeneratedBlockRecord record : records) {
+                    BlockRows.bind(upsert, 0, record);
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+                return true;
+            });
+        }
+
+        /**
+         * Reads and maps every row by column name.
+         */
+        private void scan(Blackhole blackhole) throws SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT * FROM generated_blocks")) {
+                while (result.next()) {
+                    blackhole.consume(BlockRows.map(result));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.katacr.kaOneBlock;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples indexes in proportion to fixed positive weights in constant time using Vose's alias method.
+ *
+ * <p>Building the table takes linear time. Each sample then reads one column chosen by the integer part of a single
+ * random double and compares its fractional part with the column's own probability, falling back to the column's
+ * alias otherwise.</p>
+ */
+final class AliasTable {
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * Builds the table for weights that must all be positive and finite, with at least one weight.
+     */
+    AliasTable(double[] weights) {
+        int size = weights.length;
+        if (size == 0) {
+            throw new IllegalArgumentException("Alias table needs at least one weight");
+        }
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        probability = new double[size];
+        alias = new int[size];
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int index = size - 1; index >= 0; index--) {
+            scaled[index] = weights[index] * size / total;
+            if (scaled[index] < 1) {
+                small[smallCount++] = index;
+            } else {
+                large[largeCount++] = index;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            probability[index] = 1;
+            alias[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            probability[index] = 1;
+            alias[index] = index;
+        }
+    }
+
+    /**
+     * Returns one index drawn with a single random double.
+     */
+    int sample(RandomGenerator random) {
+        double scaled = random.nextDouble() * probability.length;
+        int column = Math.min((int) scaled, probability.length - 1);
+        return scaled - column < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Returns the number of weights.
+     */
+    int size() {
+        return probability.length;
+    }
+}
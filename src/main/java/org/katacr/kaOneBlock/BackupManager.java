@@ -0,0 +1,182 @@
+package org.katacr.kaOneBlock;
+
+import org.katacr.kaOneBlock.storage.SqliteBlockStorage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Takes timed and on-demand online snapshots of the SQLite database on a dedicated thread and prunes old ones.
+ */
+public class BackupManager {
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+    private static final Pattern FILE_NAME = Pattern.compile("data-(\\d{8}-\\d{6})\\.db");
+
+    private final KaOneBlock plugin;
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "KaOneBlock-Backup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private SqliteBlockStorage storage;
+    private Path directory;
+    private int pagesPerStep;
+    private int busyRetryMillis;
+    private BackupRetention retention;
+
+    public BackupManager(KaOneBlock plugin) {
+        this.plugin = plugin;
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Reads the backup settings and schedules timed snapshots when the SQLite backend is in use.
+     */
+    public void start() {
+        storage = plugin.getDatabaseManager().getSqliteStorage().orElse(null);
+        if (storage == null) {
+            plugin.debug(DebugTracer.Subsystem.STORAGE, () -> "Database backups are disabled because storage is not SQLite");
+            return;
+        }
+        directory = plugin.getDataFolder().toPath().resolve(plugin.getConfig().getString("backup.directory", "backups"));
+        pagesPerStep = plugin.getConfig().getInt("backup.pages-per-step", 256);
+        busyRetryMillis = Math.max(1, plugin.getConfig().getInt("backup.busy-retry-ms", 50));
+        retention = new BackupRetention(
+                Math.max(0, plugin.getConfig().getInt("backup.keep-last", 10)),
+                TimeUnit.DAYS.toMillis(Math.max(0, plugin.getConfig().getLong("backup.keep-days", 7)))
+        );
+
+        long intervalMinutes = plugin.getConfig().getLong("backup.interval-minutes", 360);
+        if (intervalMinutes > 0) {
+            executor.scheduleWithFixedDelay(() -> {
+                if (running.compareAndSet(false, true)) {
+                    backup();
+                }
+            }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Reports whether snapshots can be taken with the configured storage backend.
+     */
+    public boolean isAvailable() {
+        return storage != null;
+    }
+
+    /**
+     * Starts a snapshot on the backup thread and reports its result on the main thread; returns false when backups
+     * are unavailable or one is already running.
+     */
+    public boolean requestBackup(Consumer<Result> callback) {
+        if (storage == null || !running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(() -> {
+            Result result = backup();
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> callback.accept(result));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Stops scheduling snapshots and waits briefly for a running snapshot to finish.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out while waiting for a database backup to finish");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Copies the database to a temporary file, verifies it, publishes it under its final name and applies retention.
+     */
+    private Result backup() {
+        long startedAt = System.nanoTime();
+        String name = "data-" + LocalDateTime.now().format(FILE_TIME) + ".db";
+        Path target = directory.resolve(name);
+        Path partial = directory.resolve(name + ".part");
+        try {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(partial);
+            int pages = storage.backupTo(partial, pagesPerStep, busyRetryMillis);
+            if (!SqliteBlockStorage.verifyBackup(partial)) {
+                throw new SQLException("Backup copy failed the integrity check");
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            int pruned = pruneSnapshots();
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            plugin.getLogger().info("Backed up " + pages + " database pages to " + name + " in " + millis + " ms"
+                    + (pruned > 0 ? ", removed " + pruned + " old backups" : ""));
+            return new Result(true, name, pages, millis);
+        } catch (SQLException | IOException | RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to back up the database", exception);
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException cleanupException) {
+                plugin.getLogger().log(Level.WARNING, "Failed to remove incomplete backup " + partial, cleanupException);
+            }
+            return new Result(false, name, 0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Deletes snapshots expired by the retention rules and returns how many were removed.
+     */
+    private int pruneSnapshots() throws IOException {
+        List<BackupRetention.Snapshot> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "data-*.db")) {
+            for (Path file : files) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                try {
+                    long createdMillis = LocalDateTime.parse(matcher.group(1), FILE_TIME)
+                            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    snapshots.add(new BackupRetention.Snapshot(file, createdMillis));
+                } catch (DateTimeParseException exception) {
+                    plugin.debug(DebugTracer.Subsystem.STORAGE, () -> "Ignoring backup with an invalid timestamp: " + file.getFileName());
+                }
+            }
+        }
+        List<Path> expired = retention.expired(snapshots, System.currentTimeMillis());
+        for (Path file : expired) {
+            Files.deleteIfExists(file);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Outcome of one snapshot for the command that requested it.
+     */
+    public record Result(boolean success, String fileName, int pages, long durationMillis) {
+    }
+}
@@ -0,0 +1,38 @@
+package org.katacr.kaOneBlock;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Decides which database snapshots to delete by count and age while always keeping the newest snapshot.
+ *
+ * @param keepLast number of newest snapshots to keep, or zero for no count limit
+ * @param maxAgeMillis age after which snapshots are deleted, or zero for no age limit
+ */
+record BackupRetention(int keepLast, long maxAgeMillis) {
+    /**
+     * Returns the snapshots that either rule expires, newest first.
+     */
+    List<Path> expired(List<Snapshot> snapshots, long nowMillis) {
+        List<Snapshot> newestFirst = new ArrayList<>(snapshots);
+        newestFirst.sort(Comparator.comparingLong(Snapshot::createdMillis).reversed());
+        List<Path> expired = new ArrayList<>();
+        for (int index = 1; index < newestFirst.size(); index++) {
+            Snapshot snapshot = newestFirst.get(index);
+            boolean beyondCount = keepLast > 0 && index >= keepLast;
+            boolean tooOld = maxAgeMillis > 0 && nowMillis - snapshot.createdMillis() > maxAgeMillis;
+            if (beyondCount || tooOld) {
+                expired.add(snapshot.file());
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * One completed backup file and the time it was taken.
+     */
+    record Snapshot(Path file, long createdMillis) {
+    }
+}
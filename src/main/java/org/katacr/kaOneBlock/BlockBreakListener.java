@@ -4,6 +4,7 @@ import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.block.Chest;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -13,8 +14,8 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -29,70 +30,81 @@ public class BlockBreakListener implements Listener {
     }
 
     /**
-     * Logs chest contents only after other plugins have accepted the break.
+     * Traces chest contents only after other plugins have accepted the break.
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onChestBreak(BlockBreakEvent event) {
-        if (!plugin.isDebugEnabled() || event.getBlock().getType() != Material.CHEST) {
+        DebugTracer tracer = plugin.getDebugTracer();
+        if (!tracer.isEnabled(DebugTracer.Subsystem.CHEST, DebugTracer.Level.TRACE)
+                || event.getBlock().getType() != Material.CHEST
+                || !tracer.targets(event.getPlayer())) {
             return;
         }
         Chest chest = (Chest) event.getBlock().getState();
-        plugin.debug("宝箱被破坏: " + chest.getLocation());
+        tracer.write(DebugTracer.Subsystem.CHEST, "宝箱被破坏: " + chest.getLocation());
         for (ItemStack item : chest.getInventory().getContents()) {
             if (item != null && item.getType() != Material.AIR) {
-                plugin.debug("掉落物品: " + item.getType() + " x" + item.getAmount());
+                tracer.write(DebugTracer.Subsystem.CHEST, "掉落物品: " + item.getType() + " x" + item.getAmount());
             }
         }
     }
 
     /**
-     * Handles only an uncancelled block owned by the breaking player in the exact recorded world.
+     * Handles only an uncancelled block owned by the breaking player in the exact recorded world, cancelling breaks
+     * beyond the player's rate limit before any stage or storage work.
      */
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
         Player player = event.getPlayer();
         Block brokenBlock = event.getBlock();
-        Location location = brokenBlock.getLocation();
-        GeneratedBlockRecord record = plugin.getDatabaseManager().findBlockByLocation(location).orElse(null);
-        if (record == null) {
+        UUID owner = plugin.getDatabaseManager().findOwnerAt(brokenBlock).orElse(null);
+        if (owner == null) {
             return;
         }
+        Location location = brokenBlock.getLocation();
 
-        if (!record.isOwnedBy(player.getUniqueId())) {
+        if (!owner.equals(player.getUniqueId())) {
+            event.setCancelled(true);
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "not-block-owner"));
+            return;
+        }
+        BreakRateLimiter.Decision decision = plugin.getBreakRateLimiter().acquire(owner);
+        if (decision != BreakRateLimiter.Decision.ALLOWED) {
             event.setCancelled(true);
-            player.sendMessage(plugin.getLanguageManager().getMessage("not-block-owner"));
+            if (decision == BreakRateLimiter.Decision.REJECTED_NOTIFY) {
+                player.sendMessage(plugin.getLanguageManager().getMessage(player, "break-throttled"));
+            }
+            return;
+        }
+        GeneratedBlockRecord record = plugin.getDatabaseManager().findBlockByPlayer(owner).orElse(null);
+        if (record == null) {
+            event.setCancelled(true);
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "database-error"));
             return;
         }
 
-        StageManager.PlayerStageProgress progress = plugin.getStageManager().incrementBlocksBroken(player);
-        StageConfig stage = plugin.getStageManager().getCurrentStageConfig(player.getUniqueId());
+        DebugTracer tracer = plugin.getDebugTracer();
+        boolean traced = tracer.sampleBreak(player);
+        // 调试关闭时直接调用，避免每次破坏都创建捕获型 lambda
+        boolean debugging = tracer.isEnabled();
+        StageManager.PlayerStageProgress progress = debugging
+                ? tracer.call(traced, () -> plugin.getStageManager().incrementBlocksBroken(player))
+                : plugin.getStageManager().incrementBlocksBroken(player);
+        StageConfig stage = plugin.getStageManager().stageConfig(progress);
         if (stage == null) {
             event.setCancelled(true);
             plugin.getStageManager().restoreProgress(player.getUniqueId(), record.stageFile(), record.blocksBroken());
-            player.sendMessage(plugin.getLanguageManager().getMessage("stage-config-error"));
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "stage-config-error"));
             return;
         }
 
-        GenerationSelector.Selection selection = GenerationSelector.select(
-                ThreadLocalRandom.current(),
-                stage.entityChance,
-                stage.chestChances
-        );
-        Object selectedBlock = plugin.getBlockGenerator().selectRandomBlock(progress.stageFile());
-
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> replaceAfterBreak(
-                player,
-                location,
-                record,
-                progress,
-                stage,
-                selection,
-                selectedBlock
-        ), 1L);
+        StageOutcomeTable.Outcome outcome = stage.outcomes.select(ThreadLocalRandom.current());
+        Runnable replacement = () -> replaceAfterBreak(player, location, record, progress, stage, outcome);
+        plugin.getGenerationScheduler().submit(debugging ? () -> tracer.run(traced, replacement) : replacement);
     }
 
     /**
-     * Applies the selected outcome after Bukkit has removed the original block.
+     * Applies the selected outcome from the generation queue after Bukkit has removed the original block.
      */
     private void replaceAfterBreak(
             Player player,
@@ -100,21 +112,21 @@ public class BlockBreakListener implements Listener {
             GeneratedBlockRecord previousRecord,
             StageManager.PlayerStageProgress progress,
             StageConfig stage,
-            GenerationSelector.Selection selection,
-            Object selectedBlock
+            StageOutcomeTable.Outcome outcome
     ) {
         if (location.getBlock().getType() != Material.AIR) {
             plugin.getStageManager().restoreProgress(player.getUniqueId(), previousRecord.stageFile(), previousRecord.blocksBroken());
-            plugin.debug("debug-position-not-empty", KaOneBlock.createDebugReplacements(location));
+            plugin.debugMessage(DebugTracer.Subsystem.BREAK, "debug-position-not-empty",
+                    message -> KaOneBlock.withLocation(message, location));
             return;
         }
 
-        if (selection.type() == GenerationSelector.OutcomeType.CHEST) {
-            placeChest(player, location, selection.chestConfig(), progress);
+        if (outcome.type() == GenerationSelector.OutcomeType.CHEST) {
+            placeChest(player, location, outcome.chestConfig(), progress);
             return;
         }
 
-        String actualBlockType = plugin.getBlockGenerator().placeGeneratedBlock(location.getBlock(), selectedBlock);
+        String actualBlockType = plugin.getBlockGenerator().placeGeneratedBlock(location.getBlock(), outcome.block());
         plugin.getDatabaseManager().updateState(
                 player.getUniqueId(),
                 actualBlockType,
@@ -122,28 +134,32 @@ public class BlockBreakListener implements Listener {
                 progress.blocksBroken()
         );
         plugin.getLogManager().logBlockReplacement(player.getName(), location, actualBlockType);
-        plugin.debug("debug-replaced-block", KaOneBlock.createDebugReplacements(location, actualBlockType));
+        plugin.debugMessage(DebugTracer.Subsystem.BREAK, "debug-replaced-block",
+                message -> KaOneBlock.withLocation(message, location).with("block", actualBlockType));
 
-        if (selection.type() == GenerationSelector.OutcomeType.ENTITY && !stage.entityPack.isBlank()) {
-            LivingEntity entity = plugin.getEntityManager().spawnEntity(location.clone().add(0.5, 1, 0.5), stage.entityPack);
+        LivingEntity entity = null;
+        if (outcome.type() == GenerationSelector.OutcomeType.ENTITY && !stage.entityPack.isBlank()) {
+            entity = plugin.getEntityManager().spawnEntity(location.clone().add(0.5, 1, 0.5), stage.entityPack);
             if (entity != null) {
                 plugin.getLogManager().logEntityGeneration(player.getName(), location, entity.getType().name(), stage.entityPack);
-                plugin.debug("debug-generated-entity", Map.of(
-                        "world", location.getWorld() == null ? "unknown" : location.getWorld().getName(),
-                        "x", String.valueOf(location.getBlockX()),
-                        "y", String.valueOf(location.getBlockY()),
-                        "z", String.valueOf(location.getBlockZ()),
-                        "entityName", entity.getType().name(),
-                        "entityPack", stage.entityPack
-                ));
+                EntityType entityType = entity.getType();
+                plugin.debugMessage(DebugTracer.Subsystem.ENTITY, "debug-generated-entity", message -> KaOneBlock.withLocation(message, location)
+                        .with("entityName", entityType.name())
+                        .with("entityPack", stage.entityPack));
             }
         }
 
+        if (entity != null) {
+            recordOutcome(player, progress, GenerationSelector.OutcomeType.ENTITY, entity.getType().name());
+        } else {
+            recordOutcome(player, progress, GenerationSelector.OutcomeType.BLOCK, actualBlockType);
+        }
         sendDebugTransformation(player, actualBlockType);
     }
 
     /**
-     * Places, records and fills a generated chest while preventing duplicate fill tasks.
+     * Places, records and fills a generated chest while preventing duplicate fill tasks; in lazy mode the chest only
+     * records its configuration and its loot is rolled on first open or break.
      */
     private void placeChest(Player player, Location location, String chestConfig, StageManager.PlayerStageProgress progress) {
         BlockPosition position = BlockPosition.from(location);
@@ -159,30 +175,60 @@ public class BlockBreakListener implements Listener {
                 progress.blocksBroken()
         );
         plugin.getLogManager().logChestGeneration(player.getName(), location, chestConfig);
+        recordOutcome(player, progress, GenerationSelector.OutcomeType.CHEST, chestConfig);
+
+        if (plugin.getEnhancedChestManager().isLazyFill() && !plugin.getEnhancedChestManager().feedsHopper(location.getBlock())) {
+            if (location.getBlock().getState() instanceof Chest chest) {
+                plugin.getEnhancedChestManager().markForLazyFill(chest, chestConfig);
+                plugin.debugMessage(DebugTracer.Subsystem.CHEST, "debug-generated-enhanced-chest",
+                        message -> KaOneBlock.withLocation(message, location).with("chestConfig", chestConfig));
+            }
+            pendingChests.remove(position);
+            sendDebugTransformation(player, "CHEST");
+            return;
+        }
 
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+        DebugTracer tracer = plugin.getDebugTracer();
+        boolean traced = tracer.isTracing();
+        plugin.getGenerationScheduler().submit(() -> tracer.run(traced, () -> {
             try {
                 if (location.getBlock().getState() instanceof Chest chest) {
                     plugin.getEnhancedChestManager().fillChest(chest, chestConfig);
-                    plugin.debug("debug-generated-enhanced-chest", KaOneBlock.createDebugReplacements(location, null, chestConfig));
+                    plugin.debugMessage(DebugTracer.Subsystem.CHEST, "debug-generated-enhanced-chest",
+                            message -> KaOneBlock.withLocation(message, location).with("chestConfig", chestConfig));
                 }
             } finally {
                 pendingChests.remove(position);
             }
-        }, 1L);
+        }));
         sendDebugTransformation(player, "CHEST");
     }
 
+    /**
+     * Adds the generated outcome of one break to the break history.
+     */
+    private void recordOutcome(Player player, StageManager.PlayerStageProgress progress,
+                               GenerationSelector.OutcomeType type, String outcomeId) {
+        plugin.getDatabaseManager().recordOutcome(new BreakOutcome(
+                player.getUniqueId(),
+                progress.stageFile(),
+                type,
+                outcomeId,
+                System.currentTimeMillis()
+        ));
+    }
+
     /**
      * Sends the optional per-break debug result without doing work when debug mode is disabled.
      */
     private void sendDebugTransformation(Player player, String blockType) {
-        if (!plugin.isDebugEnabled() || !player.hasPermission("kaoneblock.debug")) {
+        if (!plugin.getDebugTracer().isEnabled(DebugTracer.Subsystem.BREAK, DebugTracer.Level.DEBUG)
+                || !player.hasPermission("kaoneblock.debug")) {
             return;
         }
         String formatted = blockType.regionMatches(true, 0, "ia:", 0, 3) ? blockType.substring(3) : blockType;
-        player.sendMessage(plugin.getLanguageManager().getMessage("block-transformed", Map.of(
-                "block", formatted.toLowerCase().replace('_', ' ')
-        )));
+        player.sendMessage(plugin.getLanguageManager().message(player, "block-transformed")
+                .with("block", formatted.toLowerCase().replace('_', ' '))
+                .render());
     }
 }
@@ -7,8 +7,6 @@ import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 
-import java.util.Map;
-
 /**
  * Creates, replaces and safely removes the physical block represented by a database record.
  */
@@ -20,11 +18,12 @@ public class BlockGenerator {
     }
 
     /**
-     * Generates a player's initial block below their feet and persists its world-aware record.
+     * Generates a player's initial block below their feet and persists its world-aware record asynchronously,
+     * removing the block again if the record cannot be stored.
      */
     public boolean generateBlockAtPlayerLocation(Player player) {
         if (plugin.getDatabaseManager().hasBlock(player.getUniqueId())) {
-            player.sendMessage(plugin.getLanguageManager().getMessage("already-generated"));
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "already-generated"));
             return false;
         }
 
@@ -33,10 +32,10 @@ public class BlockGenerator {
         Block targetBlock = blockLocation.getBlock();
         if (targetBlock.getType() != Material.AIR) {
             String locationInfo = String.format("(%d, %d, %d)", blockLocation.getBlockX(), blockLocation.getBlockY(), blockLocation.getBlockZ());
-            player.sendMessage(plugin.getLanguageManager().getMessage("position-not-air", Map.of(
-                    "location", locationInfo,
-                    "block", plugin.formatMaterialName(targetBlock.getType())
-            )));
+            player.sendMessage(plugin.getLanguageManager().message(player, "position-not-air")
+                    .with("location", locationInfo)
+                    .with("block", plugin.formatMaterialName(targetBlock.getType()))
+                    .render());
             return false;
         }
 
@@ -57,17 +56,25 @@ public class BlockGenerator {
                 progress.stageFile(),
                 progress.blocksBroken()
         );
-        if (!plugin.getDatabaseManager().createBlock(record)) {
+        boolean reserved = plugin.getDatabaseManager().createBlock(record, created -> {
+            if (!created) {
+                targetBlock.setType(Material.AIR);
+                player.sendMessage(plugin.getLanguageManager().getMessage(player, "database-error"));
+                return;
+            }
+            plugin.getLogManager().logBlockGeneration(player.getName(), blockLocation, actualBlockType);
+            player.sendMessage(plugin.getLanguageManager().message(player, "block-generated")
+                    .with("block", formatBlockType(actualBlockType))
+                    .render());
+            plugin.getStageManager().sendCurrentStageMessage(player);
+            plugin.debugMessage(DebugTracer.Subsystem.BREAK, "debug-generated-block",
+                    message -> KaOneBlock.withLocation(message, blockLocation).with("block", actualBlockType));
+        });
+        if (!reserved) {
             targetBlock.setType(Material.AIR);
-            player.sendMessage(plugin.getLanguageManager().getMessage("database-error"));
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "database-error"));
             return false;
         }
-
-        plugin.getLogManager().logBlockGeneration(player.getName(), blockLocation, actualBlockType);
-        player.sendMessage(plugin.getLanguageManager().getMessage("block-generated", Map.of(
-                "block", formatBlockType(actualBlockType)
-        )));
-        plugin.debug("debug-generated-block", KaOneBlock.createDebugReplacements(blockLocation, actualBlockType));
         return true;
     }
 
@@ -104,31 +111,38 @@ public class BlockGenerator {
     }
 
     /**
-     * Removes the block from its recorded world only after its database record is deleted.
+     * Removes the block from its recorded world only after its record deletion has been confirmed asynchronously.
      */
     public void removePlayerBlock(Player player) {
         GeneratedBlockRecord record = plugin.getDatabaseManager().findBlockByPlayer(player.getUniqueId()).orElse(null);
         if (record == null) {
-            player.sendMessage(plugin.getLanguageManager().getMessage("no-blocks"));
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "no-blocks"));
             return;
         }
 
         World world = Bukkit.getWorld(record.position().worldId());
         if (world == null) {
-            player.sendMessage(plugin.getLanguageManager().getMessage("block-world-unavailable", Map.of(
-                    "world", record.worldName()
-            )));
+            player.sendMessage(plugin.getLanguageManager().message(player, "block-world-unavailable")
+                    .with("world", record.worldName())
+                    .render());
             return;
         }
 
-        if (!plugin.getDatabaseManager().deleteBlock(player.getUniqueId())) {
-            player.sendMessage(plugin.getLanguageManager().getMessage("remove-failed"));
-            return;
+        boolean accepted = plugin.getDatabaseManager().deleteBlock(player.getUniqueId(), deleted -> {
+            if (!deleted) {
+                player.sendMessage(plugin.getLanguageManager().getMessage(player, "remove-failed"));
+                return;
+            }
+            World recordedWorld = Bukkit.getWorld(record.position().worldId());
+            if (recordedWorld != null) {
+                record.position().toLocation(recordedWorld).getBlock().setType(Material.AIR);
+            }
+            plugin.getStageManager().clearPlayerProgress(player.getUniqueId());
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "block-removed"));
+        });
+        if (!accepted) {
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "remove-failed"));
         }
-
-        record.position().toLocation(world).getBlock().setType(Material.AIR);
-        plugin.getStageManager().clearPlayerProgress(player.getUniqueId());
-        player.sendMessage(plugin.getLanguageManager().getMessage("block-removed"));
     }
 
     /**
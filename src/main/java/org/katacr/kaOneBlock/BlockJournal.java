@@ -0,0 +1,457 @@
+package org.katacr.kaOneBlock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Appends block updates to two alternating memory-mapped segments so unflushed progress survives crashes.
+ *
+ * <p>Each entry is written as length, CRC32 and payload, followed by a zero terminator. Compaction rewrites the
+ * still-pending state into the inactive segment and only then publishes it with a higher generation, so a crash
+ * during compaction leaves the previous segment authoritative. The rewrite and its disk sync run without the append
+ * lock; appends only wait while entries written in the meantime are copied over and the segments are swapped.</p>
+ */
+final class BlockJournal implements AutoCloseable {
+    static final int DEFAULT_CAPACITY = 4 * 1024 * 1024;
+    private static final int MAGIC = 0x4B4F424A;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_OVERHEAD = 8;
+    private static final int TERMINATOR_SIZE = 4;
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+
+    private final Segment[] segments;
+    private final CRC32 checksum = new CRC32();
+    // 追加在日志锁内使用 appender，压缩在锁外使用 compactor，两者互不共享缓冲区
+    private final Encoder appender = new Encoder();
+    private final Encoder compactor = new Encoder();
+    private final Object compactionLock = new Object();
+    private int active;
+    private long appends;
+    private long compactions;
+
+    private BlockJournal(Segment[] segments, int active) {
+        this.segments = segments;
+        this.active = active;
+    }
+
+    /**
+     * Opens or creates both journal segments in a directory and selects the newest valid one.
+     */
+    static BlockJournal open(Path directory, int capacity) throws IOException {
+        Files.createDirectories(directory);
+        Segment[] segments = {
+                Segment.open(directory.resolve("journal-0.dat"), capacity),
+                Segment.open(directory.resolve("journal-1.dat"), capacity)
+        };
+        int active = segments[1].generation > segments[0].generation ? 1 : 0;
+        BlockJournal journal = new BlockJournal(segments, active);
+        Segment current = segments[active];
+        if (current.generation == 0) {
+            current.publish(1);
+        }
+        current.position = journal.findEnd(current);
+        return journal;
+    }
+
+    /**
+     * Appends the latest state of one player's block.
+     */
+    synchronized void appendUpsert(GeneratedBlockRecord record) {
+        append(appender.encode(record));
+    }
+
+    /**
+     * Appends a deletion marker so replay cannot resurrect a removed block.
+     */
+    synchronized void appendDelete(UUID playerId) {
+        append(appender.encodeDelete(playerId));
+    }
+
+    /**
+     * Returns the last journaled state per player, where a null record means the block was deleted.
+     */
+    synchronized Map<UUID, GeneratedBlockRecord> replay() {
+        Map<UUID, GeneratedBlockRecord> entries = new LinkedHashMap<>();
+        Segment current = segments[active];
+        int position = HEADER_SIZE;
+        ByteBuffer buffer = current.buffer;
+        while (true) {
+            int length = readEntryLength(current, position);
+            if (length <= 0) {
+                break;
+            }
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(position + ENTRY_OVERHEAD).limit(position + ENTRY_OVERHEAD + length);
+            byte type = payload.get();
+            UUID playerId = new UUID(payload.getLong(), payload.getLong());
+            entries.remove(playerId);
+            entries.put(playerId, type == UPSERT ? decodeRecord(playerId, payload) : null);
+            position += ENTRY_OVERHEAD + length;
+        }
+        return entries;
+    }
+
+    /**
+     * Replaces the journal contents with the supplied still-unpersisted records.
+     *
+     * <p>The supplier is read while holding the journal lock together with the current end of the active segment.
+     * The records are then written and synced to the inactive segment without the lock, and entries appended in the
+     * meantime are copied after them before the segments are swapped, so no update is lost and appends never wait
+     * for a disk sync.</p>
+     */
+    void compact(PendingSnapshot pending) throws IOException {
+        synchronized (compactionLock) {
+            Segment source;
+            Segment target;
+            int mark;
+            Collection<GeneratedBlockRecord> records;
+            synchronized (this) {
+                source = segments[active];
+                target = segments[1 - active];
+                mark = source.position;
+                records = pending.records();
+            }
+
+            // 非活动段只由压缩线程访问，重写和同步都在锁外进行
+            target.invalidate();
+            target.position = HEADER_SIZE;
+            target.buffer.putInt(HEADER_SIZE, 0);
+            for (GeneratedBlockRecord record : records) {
+                writeEntry(target, compactor.encode(record), compactor.checksum);
+            }
+            target.buffer.force();
+
+            MappedByteBuffer published;
+            synchronized (this) {
+                copyEntries(source, mark, target);
+                target.writeHeader(source.generation + 1);
+                active = 1 - active;
+                compactions++;
+                published = target.buffer;
+            }
+            published.force();
+        }
+    }
+
+    /**
+     * Doubles the mapping of the active segment ahead of need; the file is mapped without the append lock, which is
+     * only taken to swap in the larger buffer.
+     */
+    void grow() throws IOException {
+        synchronized (compactionLock) {
+            Segment segment;
+            long grown;
+            synchronized (this) {
+                segment = segments[active];
+                grown = (long) segment.buffer.capacity() * 2;
+            }
+            if (grown > Integer.MAX_VALUE) {
+                throw new IOException("Block journal segment exceeds 2 GiB");
+            }
+            MappedByteBuffer mapping = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, grown);
+            synchronized (this) {
+                if (mapping.capacity() > segment.buffer.capacity()) {
+                    segment.buffer = mapping;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the fraction of the active segment's mapped capacity in use.
+     */
+    synchronized double usage() {
+        Segment current = segments[active];
+        return (double) current.position / current.buffer.capacity();
+    }
+
+    /**
+     * Returns the number of bytes used by the active segment.
+     */
+    synchronized int size() {
+        return segments[active].position;
+    }
+
+    /**
+     * Returns the mapped capacity of the active segment.
+     */
+    synchronized int capacity() {
+        return segments[active].buffer.capacity();
+    }
+
+    /**
+     * Summarizes journal usage for administrative diagnostics.
+     */
+    synchronized String describe() {
+        Segment current = segments[active];
+        return "journal: generation=" + current.generation
+                + ", used=" + current.position + "/" + current.buffer.capacity()
+                + ", appends=" + appends
+                + ", compactions=" + compactions;
+    }
+
+    /**
+     * Forces mapped journal pages to stable storage.
+     */
+    synchronized void force() {
+        segments[active].buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+    }
+
+    /**
+     * Writes one encoded entry to the active segment; the mapping is normally grown ahead of time by {@link #grow()},
+     * and is only remapped here when appends outran it.
+     */
+    private void append(ByteBuffer payload) {
+        try {
+            writeEntry(segments[active], payload, appender.checksum);
+            appends++;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Cannot grow block journal", exception);
+        }
+    }
+
+    /**
+     * Writes payload, checksum and then the length so a torn write is never mistaken for a valid entry.
+     */
+    private static void writeEntry(Segment segment, ByteBuffer payload, CRC32 checksum) throws IOException {
+        int length = payload.remaining();
+        segment.ensureCapacity(segment.position + ENTRY_OVERHEAD + length + TERMINATOR_SIZE);
+        MappedByteBuffer buffer = segment.buffer;
+        int start = segment.position;
+        checksum.reset();
+        checksum.update(payload.duplicate());
+        buffer.put(start + ENTRY_OVERHEAD, payload, payload.position(), length);
+        buffer.putInt(start + ENTRY_OVERHEAD + length, 0);
+        buffer.putInt(start + 4, (int) checksum.getValue());
+        buffer.putInt(start, length);
+        segment.position = start + ENTRY_OVERHEAD + length;
+    }
+
+    /**
+     * Copies the entries appended to a segment after a mark to the end of another, keeping the zero terminator.
+     */
+    private static void copyEntries(Segment source, int mark, Segment target) throws IOException {
+        int length = source.position - mark;
+        if (length == 0) {
+            return;
+        }
+        target.ensureCapacity(target.position + length + TERMINATOR_SIZE);
+        target.buffer.putInt(target.position + length, 0);
+        target.buffer.put(target.position, source.buffer, mark, length);
+        target.position += length;
+    }
+
+    /**
+     * Scans a segment for the first missing, truncated or corrupt entry.
+     */
+    private int findEnd(Segment segment) {
+        int position = HEADER_SIZE;
+        while (true) {
+            int length = readEntryLength(segment, position);
+            if (length <= 0) {
+                segment.buffer.putInt(position, 0);
+                return position;
+            }
+            position += ENTRY_OVERHEAD + length;
+        }
+    }
+
+    /**
+     * Returns the payload length of a checksummed entry, or zero at the end of valid data.
+     */
+    private int readEntryLength(Segment segment, int position) {
+        MappedByteBuffer buffer = segment.buffer;
+        if (position + ENTRY_OVERHEAD > buffer.capacity()) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > buffer.capacity() || position + ENTRY_OVERHEAD + length + TERMINATOR_SIZE > buffer.capacity()) {
+            return 0;
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(position + ENTRY_OVERHEAD).limit(position + ENTRY_OVERHEAD + length);
+        checksum.reset();
+        checksum.update(payload);
+        return (int) checksum.getValue() == buffer.getInt(position + 4) ? length : 0;
+    }
+
+    /**
+     * Decodes the record fields that follow the entry type and player UUID.
+     */
+    private static GeneratedBlockRecord decodeRecord(UUID playerId, ByteBuffer payload) {
+        String playerName = getString(payload);
+        UUID worldId = new UUID(payload.getLong(), payload.getLong());
+        String worldName = getString(payload);
+        BlockPosition position = new BlockPosition(worldId, payload.getInt(), payload.getInt(), payload.getInt());
+        String blockType = getString(payload);
+        String stageFile = getString(payload);
+        return new GeneratedBlockRecord(playerId, playerName, position, worldName, blockType, stageFile, payload.getInt());
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reusable scratch buffer and checksum for encoding entries on one thread at a time.
+     */
+    private static final class Encoder {
+        private final CRC32 checksum = new CRC32();
+        private ByteBuffer scratch = ByteBuffer.allocate(512);
+
+        /**
+         * Encodes a full block record into the scratch buffer.
+         */
+        ByteBuffer encode(GeneratedBlockRecord record) {
+            byte[] playerName = record.playerName().getBytes(StandardCharsets.UTF_8);
+            byte[] worldName = record.worldName().getBytes(StandardCharsets.UTF_8);
+            byte[] blockType = record.blockType().getBytes(StandardCharsets.UTF_8);
+            byte[] stageFile = record.stageFile().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer payload = prepareScratch(1 + 16 + 16 + 16 + 4
+                    + 8 + playerName.length + worldName.length + blockType.length + stageFile.length);
+            payload.put(UPSERT);
+            payload.putLong(record.playerId().getMostSignificantBits());
+            payload.putLong(record.playerId().getLeastSignificantBits());
+            putString(payload, playerName);
+            payload.putLong(record.position().worldId().getMostSignificantBits());
+            payload.putLong(record.position().worldId().getLeastSignificantBits());
+            putString(payload, worldName);
+            payload.putInt(record.position().x());
+            payload.putInt(record.position().y());
+            payload.putInt(record.position().z());
+            putString(payload, blockType);
+            putString(payload, stageFile);
+            payload.putInt(record.blocksBroken());
+            payload.flip();
+            return payload;
+        }
+
+        /**
+         * Encodes a deletion marker into the scratch buffer.
+         */
+        ByteBuffer encodeDelete(UUID playerId) {
+            ByteBuffer payload = prepareScratch(17);
+            payload.put(DELETE);
+            payload.putLong(playerId.getMostSignificantBits());
+            payload.putLong(playerId.getLeastSignificantBits());
+            payload.flip();
+            return payload;
+        }
+
+        /**
+         * Clears the scratch buffer and grows it when one entry needs more space.
+         */
+        private ByteBuffer prepareScratch(int required) {
+            if (scratch.capacity() < required) {
+                scratch = ByteBuffer.allocate(Math.max(required, scratch.capacity() * 2));
+            }
+            scratch.clear();
+            return scratch;
+        }
+    }
+
+    /**
+     * Supplies the records that must remain journaled after a compaction.
+     */
+    @FunctionalInterface
+    interface PendingSnapshot {
+        Collection<GeneratedBlockRecord> records();
+    }
+
+    /**
+     * One memory-mapped journal file with its header generation and append position.
+     */
+    private static final class Segment {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long generation;
+        private int position = HEADER_SIZE;
+
+        private Segment(FileChannel channel, MappedByteBuffer buffer, long generation) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.generation = generation;
+        }
+
+        /**
+         * Maps a segment file and reads its generation, treating an unknown header as empty.
+         */
+        static Segment open(Path path, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int mappedSize = (int) Math.max(capacity, Math.min(Integer.MAX_VALUE, channel.size()));
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+            boolean valid = buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION;
+            return new Segment(channel, buffer, valid ? buffer.getLong(8) : 0);
+        }
+
+        /**
+         * Remaps the file with at least the requested size; both mappings share the file's pages, so nothing has to
+         * be synced first.
+         */
+        void ensureCapacity(int required) throws IOException {
+            if (required <= buffer.capacity()) {
+                return;
+            }
+            long grown = Math.max(required, (long) buffer.capacity() * 2);
+            if (grown > Integer.MAX_VALUE) {
+                throw new IOException("Block journal segment exceeds 2 GiB");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, grown);
+        }
+
+        /**
+         * Marks the segment as not authoritative before it is rewritten.
+         */
+        void invalidate() {
+            buffer.putInt(0, 0);
+            buffer.force();
+            generation = 0;
+        }
+
+        /**
+         * Writes a valid header with a new generation and forces it to disk.
+         */
+        void publish(long newGeneration) {
+            writeHeader(newGeneration);
+            buffer.force();
+        }
+
+        /**
+         * Writes a valid header with a new generation, leaving the sync to the caller.
+         */
+        void writeHeader(long newGeneration) {
+            buffer.putInt(4, VERSION);
+            buffer.putLong(8, newGeneration);
+            buffer.putInt(0, MAGIC);
+            generation = newGeneration;
+        }
+    }
+}
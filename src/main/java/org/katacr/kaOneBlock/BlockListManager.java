@@ -2,16 +2,10 @@ package org.katacr.kaOneBlock;
 
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 
-import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
 
 public class BlockListManager {
     private final KaOneBlock plugin;
-    private final Map<String, WeightedRandom<Object>> blockLists = new HashMap<>();
 
     public BlockListManager(KaOneBlock plugin) {
         this.plugin = plugin;
@@ -21,54 +15,25 @@ public class BlockListManager {
      * 获取指定阶段的方块列表
      */
     public WeightedRandom<Object> getBlockList(String stageFile) {
+        String fileName;
         try {
-            stageFile = StageConfigManager.normalizeStageFile(stageFile);
+            fileName = StageConfigManager.normalizeStageFile(stageFile);
         } catch (IllegalArgumentException exception) {
             plugin.getLogger().warning("非法方块列表名称: " + stageFile);
             return null;
         }
 
-        // 检查缓存
-        if (blockLists.containsKey(stageFile)) {
-            return blockLists.get(stageFile);
-        }
-
-        File blockFile = new File(plugin.getDataFolder(), "blocks/" + stageFile);
-        plugin.debug("加载方块列表: " + blockFile.getAbsolutePath());
-
-        if (!blockFile.exists()) {
-            plugin.getLogger().warning("方块列表文件不存在: " + blockFile.getAbsolutePath());
-
-            // 列出可用文件
-            File blocksDir = new File(plugin.getDataFolder(), "blocks");
-            if (blocksDir.exists() && blocksDir.isDirectory()) {
-                File[] files = blocksDir.listFiles((dir, name) -> name.endsWith(".yml"));
-                if (files != null) {
-                    StringBuilder availableFiles = new StringBuilder("可用方块列表文件: ");
-                    for (File file : files) {
-                        availableFiles.append(file.getName()).append(", ");
-                    }
-                    plugin.debug(availableFiles.toString());
-                }
-            }
-            return null;
-        }
-        // 加载方块列表
-        WeightedRandom<Object> blockList = loadBlockList(stageFile);
-        if (blockList != null) {
-            blockLists.put(stageFile, blockList);
+        WeightedRandom<Object> blockList = plugin.getConfigSnapshot().blockLists().get(fileName);
+        if (blockList == null) {
+            plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "方块列表不存在: " + fileName);
         }
         return blockList;
     }
 
-    private WeightedRandom<Object> loadBlockList(String fileName) {
-        File blockFile = new File(plugin.getDataFolder(), "blocks/" + fileName);
-        if (!blockFile.exists()) {
-            plugin.getLogger().warning("Block list not found: " + fileName);
-            return null;
-        }
-
-        FileConfiguration blockConfig = YamlConfiguration.loadConfiguration(blockFile);
+    /**
+     * 解析一个方块列表文件，缺少 blocks 节点时返回 null
+     */
+    public WeightedRandom<Object> parseBlockList(String fileName, ConfigurationSection blockConfig) {
         ConfigurationSection blocksSection = blockConfig.getConfigurationSection("blocks");
         if (blocksSection == null) {
             plugin.getLogger().warning("No 'blocks' section in file: " + fileName);
@@ -85,7 +50,7 @@ public class BlockListManager {
                 // ItemsAdder 方块 - 使用原始名称（包含命名空间）
                 double weight = blocksSection.getDouble(materialName, 1);
                 weightedRandom.add(materialName, weight);
-                plugin.debug("Added ItemsAdder block to list: " + materialName + " (weight: " + weight + ")");
+                plugin.trace(DebugTracer.Subsystem.CONFIG, () -> "Added ItemsAdder block to list: " + materialName + " (weight: " + weight + ")");
             } else {
                 try {
                     // 尝试匹配原版方块（不区分大小写）
@@ -93,7 +58,7 @@ public class BlockListManager {
                     if (material != null) {
                         double weight = blocksSection.getDouble(materialName, 1);
                         weightedRandom.add(material, weight);
-                        plugin.debug("Added material to list: " + material.name() + " (weight: " + weight + ")");
+                        plugin.trace(DebugTracer.Subsystem.CONFIG, () -> "Added material to list: " + material.name() + " (weight: " + weight + ")");
                     } else {
                         plugin.getLogger().warning("Invalid material name: " + materialName + " in " + fileName);
                     }
@@ -103,15 +68,8 @@ public class BlockListManager {
             }
         }
 
-        plugin.debug("Loaded block list for stage: " + fileName);
+        weightedRandom.freeze();
+        plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "Loaded block list for stage: " + fileName);
         return weightedRandom;
     }
-
-    /**
-     * 清除缓存
-     */
-    public void clearCache() {
-        blockLists.clear();
-        plugin.debug("Cleared block list cache");
-    }
 }
@@ -10,6 +10,11 @@ import java.util.UUID;
  * Identifies one block position without conflating equal coordinates in different worlds.
  */
 public record BlockPosition(UUID worldId, int x, int y, int z) {
+    private static final int HORIZONTAL_BITS = 26;
+    private static final int VERTICAL_BITS = 12;
+    private static final long HORIZONTAL_MASK = (1L << HORIZONTAL_BITS) - 1;
+    private static final long VERTICAL_MASK = (1L << VERTICAL_BITS) - 1;
+
     /**
      * Creates a block position from a Bukkit location whose world must be available.
      */
@@ -18,6 +23,44 @@ public record BlockPosition(UUID worldId, int x, int y, int z) {
         return new BlockPosition(world.getUID(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
     }
 
+    /**
+     * Rebuilds a position from coordinates packed by {@link #pack(int, int, int)}.
+     */
+    public static BlockPosition unpack(UUID worldId, long packed) {
+        int y = (int) (packed << (HORIZONTAL_BITS * 2) >> (HORIZONTAL_BITS * 2));
+        return new BlockPosition(worldId, unpackX(packed), y, unpackZ(packed));
+    }
+
+    /**
+     * Extracts the x coordinate from coordinates packed by {@link #pack(int, int, int)}.
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed >> (HORIZONTAL_BITS + VERTICAL_BITS));
+    }
+
+    /**
+     * Extracts the z coordinate from coordinates packed by {@link #pack(int, int, int)}.
+     */
+    public static int unpackZ(long packed) {
+        return (int) (packed << HORIZONTAL_BITS >> (HORIZONTAL_BITS + VERTICAL_BITS));
+    }
+
+    /**
+     * Packs block coordinates into one long using 26 bits for x and z and 12 bits for y, like vanilla block positions.
+     */
+    public static long pack(int x, int y, int z) {
+        return ((x & HORIZONTAL_MASK) << (HORIZONTAL_BITS + VERTICAL_BITS))
+                | ((z & HORIZONTAL_MASK) << VERTICAL_BITS)
+                | (y & VERTICAL_MASK);
+    }
+
+    /**
+     * Returns this position's coordinates packed without the world.
+     */
+    public long packed() {
+        return pack(x, y, z);
+    }
+
     /**
      * Converts this position to a location after verifying the supplied world.
      */
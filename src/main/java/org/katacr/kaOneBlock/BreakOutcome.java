@@ -0,0 +1,33 @@
+package org.katacr.kaOneBlock;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records what one OneBlock break produced for the append-only break history.
+ *
+ * @param outcomeId generated block type, chest configuration or entity type, depending on the outcome type
+ */
+public record BreakOutcome(
+        UUID playerId,
+        String stageFile,
+        GenerationSelector.OutcomeType outcomeType,
+        String outcomeId,
+        long occurredAtMillis
+) {
+    public static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Returns the start of the hourly rollup bucket containing this outcome.
+     */
+    public long hourStart() {
+        return hourStart(occurredAtMillis);
+    }
+
+    /**
+     * Truncates an epoch timestamp to the start of its UTC hour.
+     */
+    public static long hourStart(long epochMillis) {
+        return epochMillis - Math.floorMod(epochMillis, HOUR_MILLIS);
+    }
+}
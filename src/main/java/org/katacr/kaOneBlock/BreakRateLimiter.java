@@ -0,0 +1,145 @@
+package org.katacr.kaOneBlock;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how often each player can run the generation pipeline with one token bucket per player on the server
+ * thread: a full bucket allows a short burst of breaks, after which breaks are accepted at the sustained rate and the
+ * rest are rejected before any stage, storage or generation work.
+ */
+final class BreakRateLimiter {
+    static final long WINDOW_NANOS = 60_000_000_000L;
+    private static final long NOTIFY_INTERVAL_NANOS = 3_000_000_000L;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final LongSupplier nanoClock;
+    private final Map<UUID, Bucket> buckets = new HashMap<>();
+    private boolean enabled;
+    private double burst = 1;
+    private double tokensPerNano;
+
+    BreakRateLimiter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Applies new limits; existing buckets keep their tokens up to the new burst size.
+     */
+    void configure(boolean enabled, double burst, double breaksPerSecond) {
+        this.enabled = enabled;
+        this.burst = Math.max(1, burst);
+        this.tokensPerNano = Math.max(0, breaksPerSecond) / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Takes one token for a break and reports whether it is allowed, or rejected with or without a due notice.
+     */
+    Decision acquire(UUID playerId) {
+        if (!enabled) {
+            return Decision.ALLOWED;
+        }
+        long now = nanoClock.getAsLong();
+        Bucket bucket = buckets.computeIfAbsent(playerId, id -> new Bucket(burst, now));
+        bucket.tokens = Math.min(burst, bucket.tokens + (now - bucket.refilledAt) * tokensPerNano);
+        bucket.refilledAt = now;
+        if (bucket.tokens >= 1) {
+            bucket.tokens -= 1;
+            return Decision.ALLOWED;
+        }
+
+        if (now - bucket.windowStartedAt > WINDOW_NANOS) {
+            bucket.windowStartedAt = now;
+            bucket.recentRejections = 0;
+        }
+        bucket.recentRejections++;
+        bucket.totalRejections++;
+        if (now - bucket.notifiedAt < NOTIFY_INTERVAL_NANOS) {
+            return Decision.REJECTED;
+        }
+        bucket.notifiedAt = now;
+        return Decision.REJECTED_NOTIFY;
+    }
+
+    /**
+     * Drops a player's bucket when the player leaves.
+     */
+    void forget(UUID playerId) {
+        buckets.remove(playerId);
+    }
+
+    /**
+     * Returns whether breaks are limited.
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the bucket size.
+     */
+    double burst() {
+        return burst;
+    }
+
+    /**
+     * Returns the sustained rate in breaks per second.
+     */
+    double breaksPerSecond() {
+        return tokensPerNano * NANOS_PER_SECOND;
+    }
+
+    /**
+     * Returns up to {@code limit} players rejected within the last minute, most rejected first.
+     */
+    List<Throttled> throttled(int limit) {
+        long now = nanoClock.getAsLong();
+        List<Throttled> throttled = new ArrayList<>();
+        buckets.forEach((playerId, bucket) -> {
+            if (bucket.recentRejections > 0 && now - bucket.windowStartedAt <= WINDOW_NANOS) {
+                throttled.add(new Throttled(playerId, bucket.recentRejections, bucket.totalRejections));
+            }
+        });
+        throttled.sort(Comparator.comparingLong(Throttled::recentRejections).reversed());
+        return throttled.subList(0, Math.min(limit, throttled.size()));
+    }
+
+    /**
+     * The outcome of one break against its player's bucket.
+     */
+    enum Decision {
+        ALLOWED,
+        REJECTED,
+        REJECTED_NOTIFY
+    }
+
+    /**
+     * One throttled player with rejections in the current minute and since the player joined.
+     */
+    record Throttled(UUID playerId, long recentRejections, long totalRejections) {
+    }
+
+    /**
+     * Token and rejection state of one player.
+     */
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+        private long windowStartedAt;
+        private long notifiedAt;
+        private long recentRejections;
+        private long totalRejections;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+            this.windowStartedAt = now;
+            this.notifiedAt = now - NOTIFY_INTERVAL_NANOS;
+        }
+    }
+}
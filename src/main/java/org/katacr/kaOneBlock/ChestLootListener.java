@@ -0,0 +1,112 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.Chest;
+import org.bukkit.block.DoubleChest;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Rolls the loot of lazily filled chests once other plugins have allowed a player to open or break them, an explosion
+ * destroys them or a hopper is placed to pull from them.
+ */
+public class ChestLootListener implements Listener {
+    private final KaOneBlock plugin;
+
+    public ChestLootListener(KaOneBlock plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Fills an unopened generated chest, or both halves of a double chest, just before its inventory is shown.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChestOpen(InventoryOpenEvent event) {
+        if (event.getInventory().getType() != InventoryType.CHEST) {
+            return;
+        }
+        InventoryHolder holder = event.getInventory().getHolder();
+        if (holder instanceof Chest chest) {
+            plugin.getEnhancedChestManager().fillDeferred(chest);
+        } else if (holder instanceof DoubleChest doubleChest) {
+            if (doubleChest.getLeftSide() instanceof Chest left) {
+                plugin.getEnhancedChestManager().fillDeferred(left);
+            }
+            if (doubleChest.getRightSide() instanceof Chest right) {
+                plugin.getEnhancedChestManager().fillDeferred(right);
+            }
+        }
+    }
+
+    /**
+     * Drops freshly rolled loot for an unopened generated chest instead of filling it first.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChestBreak(BlockBreakEvent event) {
+        if (event.isDropItems()) {
+            dropDeferredLoot(event.getBlock());
+        }
+    }
+
+    /**
+     * Drops rolled loot for unopened generated chests destroyed by an exploding entity, as their contents would spill.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        event.blockList().forEach(this::dropDeferredLoot);
+    }
+
+    /**
+     * Drops rolled loot for unopened generated chests destroyed by an exploding block such as a bed or respawn anchor.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        event.blockList().forEach(this::dropDeferredLoot);
+    }
+
+    /**
+     * Fills an unopened generated chest when a hopper is placed below it; hoppers skip empty containers, so the
+     * chest would otherwise never be drained.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onHopperPlace(BlockPlaceEvent event) {
+        if (event.getBlockPlaced().getType() != Material.HOPPER) {
+            return;
+        }
+        Block above = event.getBlockPlaced().getRelative(BlockFace.UP);
+        if (above.getType() == Material.CHEST && above.getState() instanceof Chest chest) {
+            plugin.getEnhancedChestManager().fillDeferred(chest);
+        }
+    }
+
+    /**
+     * Rolls and drops the loot of a chest block that is about to be destroyed while its loot is still deferred.
+     */
+    private void dropDeferredLoot(Block block) {
+        if (block.getType() != Material.CHEST || !(block.getState() instanceof Chest chest)) {
+            return;
+        }
+        ItemStack[] drops = plugin.getEnhancedChestManager().rollDeferredDrops(chest);
+        if (drops == null) {
+            return;
+        }
+        Location location = block.getLocation();
+        for (ItemStack drop : drops) {
+            if (drop != null && drop.getType() != Material.AIR) {
+                block.getWorld().dropItemNaturally(location, drop);
+            }
+        }
+    }
+}
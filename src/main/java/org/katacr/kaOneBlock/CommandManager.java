@@ -7,13 +7,18 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
 import org.bukkit.entity.Player;
+import org.katacr.kaOneBlock.chest.LootPools;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.logging.Level;
 
 /**
@@ -21,6 +26,9 @@ import java.util.logging.Level;
  */
 public class CommandManager implements TabExecutor {
     private static final Map<String, String> SUBCOMMAND_PERMISSIONS = createSubcommandPermissions();
+    private static final int DEFAULT_HISTORY_HOURS = 168;
+    private static final int HISTORY_ENTRIES = 10;
+    private static final int THROTTLE_ENTRIES = 10;
     private final KaOneBlock plugin;
 
     public CommandManager(KaOneBlock plugin) {
@@ -32,11 +40,11 @@ public class CommandManager implements TabExecutor {
         String subcommand = args.length == 0 ? "help" : args[0].toLowerCase(Locale.ROOT);
         String permission = SUBCOMMAND_PERMISSIONS.get(subcommand);
         if (permission == null) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("unknown-command"));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "unknown-command"));
             return true;
         }
         if (!sender.hasPermission(permission)) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("no-permission"));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "no-permission"));
             return true;
         }
 
@@ -52,6 +60,12 @@ public class CommandManager implements TabExecutor {
             case "debugchest" -> withPlayer(sender, this::handleDebugChest);
             case "ia-status" -> handleItemsAdderStatus(sender);
             case "checkdb" -> handleDatabaseCheck(sender);
+            case "stats" -> handleStats(sender);
+            case "backup" -> handleBackup(sender);
+            case "export" -> handleExport(sender, args);
+            case "import" -> handleImport(sender, args);
+            case "history" -> handleHistory(sender, args);
+            case "throttle" -> handleThrottle(sender);
             default -> true;
         };
     }
@@ -79,6 +93,25 @@ public class CommandManager implements TabExecutor {
                     .filter(name -> name.toLowerCase(Locale.ROOT).startsWith(partial))
                     .toList();
         }
+        if (args.length == 2 && args[0].equalsIgnoreCase("export") && sender.hasPermission("kaoneblock.admin")) {
+            return Arrays.stream(RecordFormat.values())
+                    .map(RecordFormat::extension)
+                    .filter(name -> name.startsWith(args[1].toLowerCase(Locale.ROOT)))
+                    .toList();
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("import") && sender.hasPermission("kaoneblock.admin")) {
+            return plugin.getDataTransferManager().listImportFiles().stream()
+                    .filter(name -> name.startsWith(args[1]))
+                    .toList();
+        }
+        if (args.length == 2 && args[0].equalsIgnoreCase("history") && sender.hasPermission("kaoneblock.admin")) {
+            String partial = args[1].toLowerCase(Locale.ROOT);
+            List<String> options = new ArrayList<>(getAvailableStageFiles());
+            options.add(0, "all");
+            return options.stream()
+                    .filter(name -> name.toLowerCase(Locale.ROOT).startsWith(partial))
+                    .toList();
+        }
         if (args.length == 2 && (args[0].equalsIgnoreCase("log") || args[0].equalsIgnoreCase("debug"))) {
             return List.of("on", "off").stream()
                     .filter(option -> option.startsWith(args[1].toLowerCase(Locale.ROOT)))
@@ -92,31 +125,37 @@ public class CommandManager implements TabExecutor {
      */
     private boolean handleHelp(CommandSender sender) {
         LanguageManager language = plugin.getLanguageManager();
-        sender.sendMessage(language.getMessage("help-header"));
-        sender.sendMessage(language.getMessage("help-help"));
+        sender.sendMessage(language.getMessage(sender, "help-header"));
+        sender.sendMessage(language.getMessage(sender, "help-help"));
         if (sender.hasPermission("kaoneblock.start")) {
-            sender.sendMessage(language.getMessage("help-start"));
+            sender.sendMessage(language.getMessage(sender, "help-start"));
         }
         if (sender.hasPermission("kaoneblock.stop")) {
-            sender.sendMessage(language.getMessage("help-stop"));
+            sender.sendMessage(language.getMessage(sender, "help-stop"));
         }
         if (sender.hasPermission("kaoneblock.reload")) {
-            sender.sendMessage(language.getMessage("help-reload"));
+            sender.sendMessage(language.getMessage(sender, "help-reload"));
         }
         if (sender.hasPermission("kaoneblock.log")) {
-            sender.sendMessage(language.getMessage("help-log"));
+            sender.sendMessage(language.getMessage(sender, "help-log"));
         }
         if (sender.hasPermission("kaoneblock.debug")) {
-            sender.sendMessage(language.getMessage("help-debug"));
-            sender.sendMessage(language.getMessage("help-debugchest"));
-            sender.sendMessage(language.getMessage("help-ia-status"));
+            sender.sendMessage(language.getMessage(sender, "help-debug"));
+            sender.sendMessage(language.getMessage(sender, "help-debugchest"));
+            sender.sendMessage(language.getMessage(sender, "help-ia-status"));
         }
         if (sender.hasPermission("kaoneblock.admin")) {
-            sender.sendMessage(language.getMessage("help-set"));
-            sender.sendMessage(language.getMessage("help-reset-stage"));
-            sender.sendMessage(language.getMessage("help-checkdb"));
+            sender.sendMessage(language.getMessage(sender, "help-set"));
+            sender.sendMessage(language.getMessage(sender, "help-reset-stage"));
+            sender.sendMessage(language.getMessage(sender, "help-checkdb"));
+            sender.sendMessage(language.getMessage(sender, "help-stats"));
+            sender.sendMessage(language.getMessage(sender, "help-backup"));
+            sender.sendMessage(language.getMessage(sender, "help-export"));
+            sender.sendMessage(language.getMessage(sender, "help-import"));
+            sender.sendMessage(language.getMessage(sender, "help-history"));
+            sender.sendMessage(language.getMessage(sender, "help-throttle"));
         }
-        sender.sendMessage(language.getMessage("help-more"));
+        sender.sendMessage(language.getMessage(sender, "help-more"));
         return true;
     }
 
@@ -125,10 +164,10 @@ public class CommandManager implements TabExecutor {
      */
     private boolean handleReload(CommandSender sender) {
         try {
-            plugin.reloadPlugin();
-            sender.sendMessage(plugin.getLanguageManager().getMessage("config-reloaded"));
+            plugin.reloadPlugin(sender);
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "config-reloading"));
         } catch (RuntimeException exception) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("reload-error"));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "reload-error"));
             plugin.getLogger().log(Level.SEVERE, "Failed to reload KaOneBlock", exception);
         }
         return true;
@@ -138,9 +177,7 @@ public class CommandManager implements TabExecutor {
      * Creates an initial OneBlock and announces its stage only after successful persistence.
      */
     private boolean handleStart(Player player) {
-        if (plugin.getBlockGenerator().generateBlockAtPlayerLocation(player)) {
-            plugin.getStageManager().sendCurrentStageMessage(player);
-        }
+        plugin.getBlockGenerator().generateBlockAtPlayerLocation(player);
         return true;
     }
 
@@ -158,14 +195,14 @@ public class CommandManager implements TabExecutor {
     private boolean handleToggle(CommandSender sender, String[] args, boolean debug) {
         if (args.length < 2) {
             boolean enabled = debug ? plugin.isDebugEnabled() : plugin.getConfig().getBoolean("log", true);
-            sender.sendMessage(plugin.getLanguageManager().getMessage(enabled
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, enabled
                     ? (debug ? "debug-enabled" : "logging-enabled")
                     : (debug ? "debug-disabled" : "logging-disabled")));
             return true;
         }
 
         if (!args[1].equalsIgnoreCase("on") && !args[1].equalsIgnoreCase("off")) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("toggle-usage"));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "toggle-usage"));
             return true;
         }
         boolean enabled = args[1].equalsIgnoreCase("on");
@@ -173,11 +210,11 @@ public class CommandManager implements TabExecutor {
         plugin.getConfig().set(configPath, enabled);
         plugin.saveConfig();
         if (debug) {
-            plugin.debugMode = enabled;
+            plugin.getDebugTracer().setEnabled(enabled);
         } else {
             plugin.getLogManager().setEnabled(enabled);
         }
-        sender.sendMessage(plugin.getLanguageManager().getMessage(enabled
+        sender.sendMessage(plugin.getLanguageManager().getMessage(sender, enabled
                 ? (debug ? "debug-enabled" : "logging-enabled")
                 : (debug ? "debug-disabled" : "logging-disabled")));
         return true;
@@ -188,31 +225,31 @@ public class CommandManager implements TabExecutor {
      */
     private boolean handleSet(CommandSender sender, String[] args) {
         if (args.length < 3) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("set-stage-usage"));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "set-stage-usage"));
             return true;
         }
         Player target = Bukkit.getPlayerExact(args[1]);
         if (target == null) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("player-not-found", Map.of("player", args[1])));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "player-not-found", Map.of("player", args[1])));
             return true;
         }
         if (!plugin.getDatabaseManager().hasBlock(target.getUniqueId())) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("player-has-no-block", Map.of("player", target.getName())));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "player-has-no-block", Map.of("player", target.getName())));
             return true;
         }
 
         try {
             String stageFile = StageConfigManager.normalizeStageFile(args[2]);
             if (!plugin.getStageManager().setPlayerStage(target, stageFile)) {
-                sender.sendMessage(plugin.getLanguageManager().getMessage("invalid-stage"));
+                sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "invalid-stage"));
                 return true;
             }
-            sender.sendMessage(plugin.getLanguageManager().getMessage("stage-set", Map.of(
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "stage-set", Map.of(
                     "player", target.getName(),
                     "stage", stageFile
             )));
         } catch (IllegalArgumentException exception) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("invalid-stage"));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "invalid-stage"));
         }
         return true;
     }
@@ -223,9 +260,9 @@ public class CommandManager implements TabExecutor {
     private boolean handleResetStage(Player player) {
         String startingStage = plugin.getConfig().getString("start-list", "normal");
         if (plugin.getStageManager().resetPlayerStage(player, startingStage)) {
-            player.sendMessage(plugin.getLanguageManager().getMessage("stage-reset"));
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "stage-reset"));
         } else {
-            player.sendMessage(plugin.getLanguageManager().getMessage("invalid-stage"));
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "invalid-stage"));
         }
         return true;
     }
@@ -237,9 +274,9 @@ public class CommandManager implements TabExecutor {
         Block target = player.getTargetBlockExact(5);
         if (target != null && target.getState() instanceof Chest chest) {
             plugin.getEnhancedChestManager().debugChestContents(chest);
-            player.sendMessage(plugin.getLanguageManager().getMessage("debug-chest-success"));
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "debug-chest-success"));
         } else {
-            player.sendMessage(plugin.getLanguageManager().getMessage("debug-chest-target"));
+            player.sendMessage(plugin.getLanguageManager().getMessage(player, "debug-chest-target"));
         }
         return true;
     }
@@ -248,7 +285,7 @@ public class CommandManager implements TabExecutor {
      * Displays optional ItemsAdder detection and data readiness state.
      */
     private boolean handleItemsAdderStatus(CommandSender sender) {
-        sender.sendMessage(plugin.getLanguageManager().getMessage("ia-status", Map.of(
+        sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "ia-status", Map.of(
                 "enabled", String.valueOf(plugin.isItemsAdderEnabled()),
                 "loaded", String.valueOf(plugin.isItemsAdderLoaded())
         )));
@@ -260,16 +297,229 @@ public class CommandManager implements TabExecutor {
      */
     private boolean handleDatabaseCheck(CommandSender sender) {
         plugin.getDatabaseManager().checkTableStructure();
-        sender.sendMessage(plugin.getLanguageManager().getMessage("database-checked"));
+        sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "database-checked"));
         return true;
     }
 
+    /**
+     * Shows the durability mode, the storage write rate it currently produces, the generation queue load and the
+     * pre-rolled chest loot pools.
+     */
+    private boolean handleStats(CommandSender sender) {
+        DatabaseManager database = plugin.getDatabaseManager();
+        WriteMetrics.Snapshot metrics = database.getWriteMetrics();
+        LanguageManager language = plugin.getLanguageManager();
+        sender.sendMessage(language.getMessage(sender, "stats-header"));
+        sender.sendMessage(language.getMessage(sender, "stats-durability", Map.of(
+                "mode", database.getDurability().name().toLowerCase(Locale.ROOT),
+                "pending", String.valueOf(database.getPendingWriteCount())
+        )));
+        sender.sendMessage(language.getMessage(sender, "stats-rates", Map.of(
+                "updates", formatRate(metrics.updatesPerSecond()),
+                "transactions", formatRate(metrics.transactionsPerSecond()),
+                "records", formatRate(metrics.recordsPerSecond())
+        )));
+        sender.sendMessage(language.getMessage(sender, "stats-totals", Map.of(
+                "updates", String.valueOf(metrics.totalUpdates()),
+                "transactions", String.valueOf(metrics.totalTransactions()),
+                "records", String.valueOf(metrics.totalRecords())
+        )));
+        GenerationScheduler.Snapshot generation = plugin.getGenerationScheduler().snapshot();
+        sender.sendMessage(language.getMessage(sender, "stats-generation-queue", Map.of(
+                "depth", String.valueOf(generation.queueDepth()),
+                "peak", String.valueOf(generation.peakDepth()),
+                "deferred", String.valueOf(generation.deferredTicks())
+        )));
+        sender.sendMessage(language.getMessage(sender, "stats-generation-time", Map.of(
+                "average", formatRate(generation.averageTickMillis()),
+                "max", formatRate(generation.maxTickMillis()),
+                "budget", formatRate(generation.budgetMillis())
+        )));
+        LootPools.Snapshot loot = plugin.getEnhancedChestManager().getLootPools().snapshot();
+        sender.sendMessage(language.getMessage(sender, "stats-loot-pools", Map.of(
+                "ready", String.valueOf(loot.ready()),
+                "capacity", String.valueOf(loot.capacity()),
+                "pools", String.valueOf(loot.pools()),
+                "rate", formatRate(loot.rollsPerSecond()),
+                "hits", String.valueOf(loot.hits()),
+                "misses", String.valueOf(loot.misses())
+        )));
+        return true;
+    }
+
+    /**
+     * Starts an online database snapshot and reports its outcome when the backup thread finishes.
+     */
+    private boolean handleBackup(CommandSender sender) {
+        BackupManager backups = plugin.getBackupManager();
+        LanguageManager language = plugin.getLanguageManager();
+        if (!backups.isAvailable()) {
+            sender.sendMessage(language.getMessage(sender, "backup-unavailable"));
+            return true;
+        }
+        boolean started = backups.requestBackup(result -> {
+            if (!result.success()) {
+                sender.sendMessage(language.getMessage(sender, "backup-failed"));
+                return;
+            }
+            sender.sendMessage(language.getMessage(sender, "backup-complete", Map.of(
+                    "file", result.fileName(),
+                    "pages", String.valueOf(result.pages()),
+                    "millis", String.valueOf(result.durationMillis())
+            )));
+        });
+        sender.sendMessage(language.getMessage(sender, started ? "backup-started" : "backup-busy"));
+        return true;
+    }
+
+    /**
+     * Starts streaming every record to a new file in the exports folder, defaulting to NDJSON.
+     */
+    private boolean handleExport(CommandSender sender, String[] args) {
+        LanguageManager language = plugin.getLanguageManager();
+        Optional<RecordFormat> format = RecordFormat.fromName(args.length > 1 ? args[1] : RecordFormat.NDJSON.extension());
+        if (format.isEmpty()) {
+            sender.sendMessage(language.getMessage(sender, "transfer-unknown-format"));
+            return true;
+        }
+        boolean started = plugin.getDataTransferManager().startExport(format.get(), sender);
+        sender.sendMessage(language.getMessage(sender, started ? "export-started" : "transfer-busy"));
+        return true;
+    }
+
+    /**
+     * Starts importing an NDJSON or CSV file from the exports folder.
+     */
+    private boolean handleImport(CommandSender sender, String[] args) {
+        LanguageManager language = plugin.getLanguageManager();
+        if (args.length < 2) {
+            sender.sendMessage(language.getMessage(sender, "help-import"));
+            return true;
+        }
+        DataTransferManager transfers = plugin.getDataTransferManager();
+        Optional<Path> file = transfers.resolveImportFile(args[1]);
+        if (file.isEmpty()) {
+            sender.sendMessage(language.getMessage(sender, "import-not-found", Map.of("file", args[1])));
+            return true;
+        }
+        Optional<RecordFormat> format = RecordFormat.fromFileName(args[1]);
+        if (format.isEmpty()) {
+            sender.sendMessage(language.getMessage(sender, "transfer-unknown-format"));
+            return true;
+        }
+        boolean started = transfers.startImport(file.get(), format.get(), sender);
+        sender.sendMessage(language.getMessage(sender, started ? "import-started" : "transfer-busy", Map.of("file", args[1])));
+        return true;
+    }
+
+    /**
+     * Shows how often each outcome was generated during the last whole hours, for one stage or all stages, from the
+     * hourly rollups.
+     */
+    private boolean handleHistory(CommandSender sender, String[] args) {
+        LanguageManager language = plugin.getLanguageManager();
+        DatabaseManager database = plugin.getDatabaseManager();
+        if (!database.isHistoryEnabled()) {
+            sender.sendMessage(language.getMessage(sender, "history-disabled"));
+            return true;
+        }
+        String stageFile = null;
+        if (args.length > 1 && !args[1].equalsIgnoreCase("all")) {
+            try {
+                stageFile = StageConfigManager.normalizeStageFile(args[1]);
+            } catch (IllegalArgumentException exception) {
+                sender.sendMessage(language.getMessage(sender, "invalid-stage"));
+                return true;
+            }
+        }
+        int hours = DEFAULT_HISTORY_HOURS;
+        if (args.length > 2) {
+            try {
+                hours = Integer.parseInt(args[2]);
+            } catch (NumberFormatException exception) {
+                hours = 0;
+            }
+            if (hours <= 0) {
+                sender.sendMessage(language.getMessage(sender, "help-history"));
+                return true;
+            }
+        }
+
+        long fromMillis = BreakOutcome.hourStart(System.currentTimeMillis()) - (hours - 1L) * BreakOutcome.HOUR_MILLIS;
+        String stageLabel = stageFile == null ? language.getMessage(sender, "history-all-stages") : stageFile;
+        String hourLabel = String.valueOf(hours);
+        database.countOutcomes(stageFile, fromMillis, result -> {
+            if (result.isEmpty()) {
+                sender.sendMessage(language.getMessage(sender, "history-failed"));
+                return;
+            }
+            List<OutcomeCount> counts = result.get();
+            sender.sendMessage(language.getMessage(sender, "history-header", Map.of("stage", stageLabel, "hours", hourLabel)));
+            if (counts.isEmpty()) {
+                sender.sendMessage(language.getMessage(sender, "history-empty"));
+                return;
+            }
+            Map<GenerationSelector.OutcomeType, Long> totals = new EnumMap<>(GenerationSelector.OutcomeType.class);
+            counts.forEach(count -> totals.merge(count.outcomeType(), count.count(), Long::sum));
+            sender.sendMessage(language.getMessage(sender, "history-totals", Map.of(
+                    "blocks", String.valueOf(totals.getOrDefault(GenerationSelector.OutcomeType.BLOCK, 0L)),
+                    "chests", String.valueOf(totals.getOrDefault(GenerationSelector.OutcomeType.CHEST, 0L)),
+                    "entities", String.valueOf(totals.getOrDefault(GenerationSelector.OutcomeType.ENTITY, 0L))
+            )));
+            for (OutcomeCount count : counts.subList(0, Math.min(HISTORY_ENTRIES, counts.size()))) {
+                sender.sendMessage(language.getMessage(sender, "history-entry", Map.of(
+                        "type", count.outcomeType().name().toLowerCase(Locale.ROOT),
+                        "outcome", count.outcomeId(),
+                        "count", String.valueOf(count.count())
+                )));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Shows the break rate limits and the players rejected most within the last minute.
+     */
+    private boolean handleThrottle(CommandSender sender) {
+        LanguageManager language = plugin.getLanguageManager();
+        BreakRateLimiter limiter = plugin.getBreakRateLimiter();
+        if (!limiter.isEnabled()) {
+            sender.sendMessage(language.getMessage(sender, "throttle-disabled"));
+            return true;
+        }
+        sender.sendMessage(language.getMessage(sender, "throttle-header", Map.of(
+                "burst", formatRate(limiter.burst()),
+                "rate", formatRate(limiter.breaksPerSecond())
+        )));
+        List<BreakRateLimiter.Throttled> throttled = limiter.throttled(THROTTLE_ENTRIES);
+        if (throttled.isEmpty()) {
+            sender.sendMessage(language.getMessage(sender, "throttle-empty"));
+            return true;
+        }
+        for (BreakRateLimiter.Throttled entry : throttled) {
+            Player player = Bukkit.getPlayer(entry.playerId());
+            sender.sendMessage(language.getMessage(sender, "throttle-entry", Map.of(
+                    "player", player == null ? entry.playerId().toString() : player.getName(),
+                    "recent", String.valueOf(entry.recentRejections()),
+                    "total", String.valueOf(entry.totalRejections())
+            )));
+        }
+        return true;
+    }
+
+    /**
+     * Formats a per-second rate with two decimals independent of the server locale.
+     */
+    private static String formatRate(double rate) {
+        return String.format(Locale.ROOT, "%.2f", rate);
+    }
+
     /**
      * Runs a player-only handler or sends the standard console rejection message.
      */
     private boolean withPlayer(CommandSender sender, PlayerCommand handler) {
         if (!(sender instanceof Player player)) {
-            sender.sendMessage(plugin.getLanguageManager().getMessage("player-only"));
+            sender.sendMessage(plugin.getLanguageManager().getMessage(sender, "player-only"));
             return true;
         }
         return handler.execute(player);
@@ -306,6 +556,12 @@ public class CommandManager implements TabExecutor {
         permissions.put("reset-stage", "kaoneblock.admin");
         permissions.put("set", "kaoneblock.admin");
         permissions.put("checkdb", "kaoneblock.admin");
+        permissions.put("stats", "kaoneblock.admin");
+        permissions.put("backup", "kaoneblock.admin");
+        permissions.put("export", "kaoneblock.admin");
+        permissions.put("import", "kaoneblock.admin");
+        permissions.put("history", "kaoneblock.admin");
+        permissions.put("throttle", "kaoneblock.admin");
         return java.util.Collections.unmodifiableMap(permissions);
     }
 
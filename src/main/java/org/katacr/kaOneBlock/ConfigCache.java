@@ -0,0 +1,329 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.bukkit.inventory.EquipmentSlot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Versioned binary cache of compiled stage files and entity packs, keyed by each source file's size and checksum, so
+ * startup only parses YAML for files that changed since the cache was written.
+ *
+ * <p>The cache is memory-mapped for reading. It is discarded as a whole when its format version or the plugin and
+ * server versions it was written for differ, because material and entity names are resolved against them. Chest
+ * tables are not cached: their items carry arbitrary item metadata that only Bukkit's own serialization can
+ * represent.</p>
+ */
+final class ConfigCache {
+    static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x4B4F4243;
+    private static final byte VANILLA_BLOCK = 0;
+    private static final byte CUSTOM_BLOCK = 1;
+
+    private final Path file;
+    private final String environment;
+    private final Logger logger;
+
+    ConfigCache(Path file, String environment, Logger logger) {
+        this.file = file;
+        this.environment = environment;
+        this.logger = logger;
+    }
+
+    /**
+     * Returns the checksum used together with the file size to detect a changed source file.
+     */
+    static int checksum(byte[] content) {
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Maps and decodes the cache, returning empty contents when it is missing, stale or unreadable.
+     */
+    Contents load() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !environment.equals(readString(buffer))) {
+                return Contents.empty();
+            }
+            Map<String, Cached<StageFile>> stageFiles = new HashMap<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                String path = readString(buffer);
+                long size = buffer.getLong();
+                int checksum = buffer.getInt();
+                stageFiles.put(path, new Cached<>(size, checksum, readStageFile(buffer)));
+            }
+            Map<String, Cached<WeightedRandom<EntityManager.EntityConfig>>> entityPacks = new HashMap<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                String path = readString(buffer);
+                long size = buffer.getLong();
+                int checksum = buffer.getInt();
+                entityPacks.put(path, new Cached<>(size, checksum, readEntityPack(buffer)));
+            }
+            return new Contents(stageFiles, entityPacks);
+        } catch (NoSuchFileException exception) {
+            return Contents.empty();
+        } catch (IOException | RuntimeException exception) {
+            logger.log(Level.WARNING, "配置缓存无法读取，将重新解析全部文件: " + file, exception);
+            return Contents.empty();
+        }
+    }
+
+    /**
+     * Writes the contents to a temporary file and moves it over the cache; a failure only costs a slower next start.
+     */
+    void save(Contents contents) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                writeString(output, environment);
+                output.writeInt(contents.stageFiles().size());
+                for (Map.Entry<String, Cached<StageFile>> entry : contents.stageFiles().entrySet()) {
+                    writeHeader(output, entry.getKey(), entry.getValue());
+                    writeStageFile(output, entry.getValue().value());
+                }
+                output.writeInt(contents.entityPacks().size());
+                for (Map.Entry<String, Cached<WeightedRandom<EntityManager.EntityConfig>>> entry : contents.entityPacks().entrySet()) {
+                    writeHeader(output, entry.getKey(), entry.getValue());
+                    writeEntityPack(output, entry.getValue().value());
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            logger.log(Level.WARNING, "无法写入配置缓存: " + file, exception);
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // The next save overwrites the temporary file anyway.
+            }
+        }
+    }
+
+    /**
+     * Writes the source path, size and checksum that key one cached file.
+     */
+    private static void writeHeader(DataOutputStream output, String path, Cached<?> cached) throws IOException {
+        writeString(output, path);
+        output.writeLong(cached.size());
+        output.writeInt(cached.checksum());
+    }
+
+    /**
+     * Writes a stage file's block list and, for a valid stage name, its stage settings.
+     */
+    private static void writeStageFile(DataOutputStream output, StageFile stageFile) throws IOException {
+        writeBlocks(output, stageFile.blocks());
+        StageConfig stage = stageFile.stage();
+        output.writeBoolean(stage != null);
+        if (stage == null) {
+            return;
+        }
+        output.writeInt(stage.amount);
+        writeString(output, stage.nextStage);
+        writeString(output, stage.message);
+        writeString(output, stage.entityPack);
+        output.writeDouble(stage.entityChance);
+        output.writeInt(stage.chestChances.size());
+        for (Map.Entry<String, Double> chest : stage.chestChances.entrySet()) {
+            writeString(output, chest.getKey());
+            output.writeDouble(chest.getValue());
+        }
+    }
+
+    /**
+     * Reads a stage file and recompiles its outcome table from the decoded settings.
+     */
+    private static StageFile readStageFile(ByteBuffer buffer) {
+        WeightedRandom<Object> blocks = readBlocks(buffer);
+        if (buffer.get() == 0) {
+            return new StageFile(blocks, null);
+        }
+        StageConfig stage = new StageConfig();
+        stage.amount = buffer.getInt();
+        stage.nextStage = readString(buffer);
+        stage.message = readString(buffer);
+        stage.entityPack = readString(buffer);
+        stage.entityChance = buffer.getDouble();
+        Map<String, Double> chestChances = new LinkedHashMap<>();
+        for (int count = buffer.getInt(); count > 0; count--) {
+            chestChances.put(readString(buffer), buffer.getDouble());
+        }
+        stage.chestChances = Collections.unmodifiableMap(chestChances);
+        stage.outcomes = StageConfigManager.compileOutcomes(stage, blocks);
+        return new StageFile(blocks, stage);
+    }
+
+    /**
+     * Writes a block list as tagged vanilla material or ItemsAdder names with weights; a missing list has count -1.
+     */
+    private static void writeBlocks(DataOutputStream output, WeightedRandom<Object> blocks) throws IOException {
+        if (blocks == null) {
+            output.writeInt(-1);
+            return;
+        }
+        output.writeInt(blocks.size());
+        IOException[] failure = new IOException[1];
+        blocks.forEachWeight((block, weight) -> {
+            try {
+                if (block instanceof Material material) {
+                    output.writeByte(VANILLA_BLOCK);
+                    writeString(output, material.name());
+                } else {
+                    output.writeByte(CUSTOM_BLOCK);
+                    writeString(output, block.toString());
+                }
+                output.writeDouble(weight);
+            } catch (IOException exception) {
+                failure[0] = exception;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Reads a frozen block list, or null when the source file had no blocks section.
+     */
+    private static WeightedRandom<Object> readBlocks(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0) {
+            return null;
+        }
+        WeightedRandom<Object> blocks = new WeightedRandom<>();
+        for (; count > 0; count--) {
+            byte tag = buffer.get();
+            String name = readString(buffer);
+            blocks.add(tag == VANILLA_BLOCK ? Material.valueOf(name) : name, buffer.getDouble());
+        }
+        blocks.freeze();
+        return blocks;
+    }
+
+    /**
+     * Writes an entity pack's entries with their names, weights and equipment.
+     */
+    private static void writeEntityPack(DataOutputStream output, WeightedRandom<EntityManager.EntityConfig> pack) throws IOException {
+        output.writeInt(pack.size());
+        IOException[] failure = new IOException[1];
+        pack.forEachWeight((config, weight) -> {
+            try {
+                writeString(output, config.name());
+                writeString(output, config.nameTag());
+                writeString(output, config.type().name());
+                output.writeInt(config.weight());
+                output.writeInt(config.equipment().size());
+                for (Map.Entry<EquipmentSlot, Material> item : config.equipment().entrySet()) {
+                    writeString(output, item.getKey().name());
+                    writeString(output, item.getValue().name());
+                }
+            } catch (IOException exception) {
+                failure[0] = exception;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    /**
+     * Reads a frozen entity pack.
+     */
+    private static WeightedRandom<EntityManager.EntityConfig> readEntityPack(ByteBuffer buffer) {
+        WeightedRandom<EntityManager.EntityConfig> pack = new WeightedRandom<>();
+        for (int count = buffer.getInt(); count > 0; count--) {
+            String name = readString(buffer);
+            String nameTag = readString(buffer);
+            EntityType type = EntityType.valueOf(readString(buffer));
+            int weight = buffer.getInt();
+            Map<EquipmentSlot, Material> equipment = new EnumMap<>(EquipmentSlot.class);
+            for (int items = buffer.getInt(); items > 0; items--) {
+                equipment.put(EquipmentSlot.valueOf(readString(buffer)), Material.valueOf(readString(buffer)));
+            }
+            pack.add(new EntityManager.EntityConfig(name, nameTag, type, weight, Map.copyOf(equipment)), weight);
+        }
+        pack.freeze();
+        return pack;
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     */
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compiled stage files and entity packs keyed by their path relative to the data folder.
+     */
+    record Contents(
+            Map<String, Cached<StageFile>> stageFiles,
+            Map<String, Cached<WeightedRandom<EntityManager.EntityConfig>>> entityPacks
+    ) {
+        /**
+         * Returns contents without any cached file.
+         */
+        static Contents empty() {
+            return new Contents(new HashMap<>(), new HashMap<>());
+        }
+    }
+
+    /**
+     * One compiled file with the size and checksum of the source it was compiled from.
+     */
+    record Cached<T>(long size, int checksum, T value) {
+        /**
+         * Returns whether this entry was compiled from a source with this size and checksum.
+         */
+        boolean matches(long sourceSize, int sourceChecksum) {
+            return size == sourceSize && checksum == sourceChecksum;
+        }
+    }
+
+    /**
+     * A compiled file from the {@code blocks} folder: its block list, or null without a blocks section, and its stage
+     * settings, or null when the file name is not a valid stage name.
+     */
+    record StageFile(WeightedRandom<Object> blocks, StageConfig stage) {
+    }
+}
@@ -0,0 +1,384 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.katacr.kaOneBlock.chest.EnhancedChestManager.ChestConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Parses stage, block, entity and chest files into a {@link ConfigSnapshot} on a background thread and swaps it in on
+ * the server thread, keeping the previous snapshot when any file cannot be read.
+ *
+ * <p>A full reload compiles every file, taking stage files and entity packs from the {@link ConfigCache} when their
+ * source is unchanged. A file reload starts from the latest snapshot and parses only the named files;
+ * the stage graph is recompiled from the already parsed stages when a stage file changed, while chest tables and
+ * entity packs are referenced by name and need no further work.</p>
+ */
+public class ConfigReloader {
+    static final String BLOCKS = "blocks";
+    static final String CHESTS = "chests";
+    static final String ENTITIES = "entities";
+    private static final String LEGACY_ENTITIES = "entitys";
+
+    private final KaOneBlock plugin;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "KaOneBlock-Config");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConfigCache configCache;
+    private ConfigSnapshot latest = ConfigSnapshot.EMPTY;
+
+    public ConfigReloader(KaOneBlock plugin) {
+        this.plugin = plugin;
+        this.configCache = new ConfigCache(
+                plugin.getDataFolder().toPath().resolve("cache").resolve("content.bin"),
+                plugin.getDescription().getVersion() + "/" + plugin.getServer().getBukkitVersion(),
+                plugin.getLogger()
+        );
+    }
+
+    /**
+     * Loads the first snapshot on the server thread during startup, accepting it even when some files are broken.
+     */
+    public ConfigSnapshot loadInitial() {
+        List<String> failedFiles = new ArrayList<>();
+        latest = loadAll(failedFiles);
+        if (!failedFiles.isEmpty()) {
+            plugin.getLogger().warning("以下配置文件无法解析，已跳过: " + String.join(", ", failedFiles));
+        }
+        return latest;
+    }
+
+    /**
+     * Queues a background reload of every file and reports its outcome to the sender, if any, once it is applied.
+     */
+    public void reload(CommandSender sender) {
+        submit(sender, this::loadAll, "config-reloaded");
+    }
+
+    /**
+     * Queues a background reload of only the given files, named relative to the data folder such as
+     * {@code blocks/normal.yml}; files that no longer exist are removed from the configuration.
+     */
+    public void reloadFiles(Set<String> files) {
+        submit(null, failedFiles -> loadFiles(files, failedFiles), null);
+    }
+
+    /**
+     * Stops accepting reloads and waits briefly for a running one to finish parsing.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out while waiting for a configuration reload to finish");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs one load on the reload thread and applies or rejects its snapshot on the server thread.
+     */
+    private void submit(CommandSender sender, Function<List<String>, ConfigSnapshot> loader, String successKey) {
+        executor.execute(() -> {
+            long started = System.nanoTime();
+            List<String> failedFiles = new ArrayList<>();
+            ConfigSnapshot snapshot;
+            try {
+                snapshot = loader.apply(failedFiles);
+            } catch (RuntimeException exception) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to reload KaOneBlock content files", exception);
+                send(sender, "reload-error", Map.of());
+                return;
+            }
+            if (!failedFiles.isEmpty()) {
+                plugin.getLogger().warning("配置重载已取消，仍使用旧配置。无法解析: " + String.join(", ", failedFiles));
+                send(sender, "reload-rejected", Map.of("files", String.join(", ", failedFiles)));
+                return;
+            }
+            latest = snapshot;
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                plugin.applyConfigSnapshot(snapshot);
+                if (successKey == null) {
+                    plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "配置文件已重新编译，用时 " + elapsedMillis + " ms");
+                    return;
+                }
+                plugin.getLogger().info(plugin.getLanguageManager().getMessage(successKey));
+                if (sender != null) {
+                    sender.sendMessage(plugin.getLanguageManager().getMessage(sender, successKey));
+                }
+            });
+        });
+    }
+
+    /**
+     * Compiles every content file into a new snapshot, reusing cached stage files and entity packs whose source is
+     * unchanged and rewriting the cache when any of them had to be parsed; packs in the legacy {@code entitys} folder
+     * are used unless {@code entities} has a pack with the same name.
+     */
+    private ConfigSnapshot loadAll(List<String> failedFiles) {
+        ConfigCache.Contents cached = configCache.load();
+        ConfigCache.Contents current = ConfigCache.Contents.empty();
+        Changes changes = new Changes();
+        int parsedFiles = 0;
+        for (String directory : List.of(LEGACY_ENTITIES, BLOCKS, ENTITIES, CHESTS)) {
+            File[] files = new File(plugin.getDataFolder(), directory).listFiles((dir, name) -> name.endsWith(".yml"));
+            if (files == null) {
+                continue;
+            }
+            if (directory.equals(LEGACY_ENTITIES) && files.length > 0) {
+                plugin.getLogger().warning("正在使用旧 entitys 目录，请迁移到 entities: "
+                        + String.join(", ", Arrays.stream(files).map(File::getName).sorted().toList()));
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                String path = directory + "/" + file.getName();
+                byte[] content = readBytes(path, file, failedFiles);
+                if (content == null) {
+                    continue;
+                }
+                if (directory.equals(CHESTS)) {
+                    YamlConfiguration yaml = parseYaml(path, content, failedFiles);
+                    if (yaml != null) {
+                        compile(changes, CHESTS, file.getName(), yaml, failedFiles);
+                    }
+                    continue;
+                }
+
+                int checksum = ConfigCache.checksum(content);
+                if (directory.equals(BLOCKS)) {
+                    ConfigCache.Cached<ConfigCache.StageFile> entry = cached.stageFiles().get(path);
+                    if (entry == null || !entry.matches(content.length, checksum)) {
+                        YamlConfiguration yaml = parseYaml(path, content, failedFiles);
+                        if (yaml == null) {
+                            continue;
+                        }
+                        entry = new ConfigCache.Cached<>(content.length, checksum, compileStageFile(file.getName(), yaml));
+                        parsedFiles++;
+                    }
+                    current.stageFiles().put(path, entry);
+                    changes.stageFiles.put(file.getName(), entry.value());
+                } else {
+                    ConfigCache.Cached<WeightedRandom<EntityManager.EntityConfig>> entry = cached.entityPacks().get(path);
+                    if (entry == null || !entry.matches(content.length, checksum)) {
+                        YamlConfiguration yaml = parseYaml(path, content, failedFiles);
+                        WeightedRandom<EntityManager.EntityConfig> pack = yaml == null ? null
+                                : plugin.getEntityManager().parseEntityPack(baseName(file.getName()), yaml);
+                        if (pack == null) {
+                            continue;
+                        }
+                        entry = new ConfigCache.Cached<>(content.length, checksum, pack);
+                        parsedFiles++;
+                    }
+                    current.entityPacks().put(path, entry);
+                    changes.entityPacks.put(baseName(file.getName()), entry.value());
+                }
+            }
+        }
+
+        if (parsedFiles > 0 || current.stageFiles().size() != cached.stageFiles().size()
+                || current.entityPacks().size() != cached.entityPacks().size()) {
+            configCache.save(current);
+        }
+        int parsed = parsedFiles;
+        plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "配置缓存命中 " + (current.stageFiles().size() + current.entityPacks().size() - parsed)
+                + " 个文件，重新解析 " + parsed + " 个");
+        return rebuild(ConfigSnapshot.EMPTY, changes);
+    }
+
+    /**
+     * Compiles only the given files on top of the latest snapshot.
+     */
+    private ConfigSnapshot loadFiles(Set<String> files, List<String> failedFiles) {
+        Changes changes = new Changes();
+        for (String path : files) {
+            File file = new File(plugin.getDataFolder(), path);
+            if (!file.isFile()) {
+                changes.removed.add(path);
+                continue;
+            }
+            byte[] content = readBytes(path, file, failedFiles);
+            YamlConfiguration yaml = content == null ? null : parseYaml(path, content, failedFiles);
+            if (yaml != null) {
+                compile(changes, directoryOf(path), fileNameOf(path), yaml, failedFiles);
+            }
+        }
+        ConfigSnapshot snapshot = rebuild(latest, changes);
+        plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "重新编译配置文件: " + String.join(", ", files));
+        return snapshot;
+    }
+
+    /**
+     * Compiles one parsed file into the matching change set; a file that yields nothing usable is recorded as null
+     * so that it replaces the previous entry.
+     */
+    private void compile(Changes changes, String directory, String fileName, YamlConfiguration yaml, List<String> failedFiles) {
+        switch (directory) {
+            case BLOCKS -> changes.stageFiles.put(fileName, compileStageFile(fileName, yaml));
+            case ENTITIES -> changes.entityPacks.put(baseName(fileName),
+                    plugin.getEntityManager().parseEntityPack(baseName(fileName), yaml));
+            case CHESTS -> changes.chests.put(baseName(fileName),
+                    plugin.getEnhancedChestManager().parseChestConfig(fileName, yaml, failedFiles));
+            default -> plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "忽略配置目录之外的文件: " + directory + "/" + fileName);
+        }
+    }
+
+    /**
+     * Parses a file of the {@code blocks} folder into its block list and, for a valid stage name, its stage.
+     */
+    private ConfigCache.StageFile compileStageFile(String fileName, YamlConfiguration yaml) {
+        WeightedRandom<Object> blocks = plugin.getBlockListManager().parseBlockList(fileName, yaml);
+        StageConfig stage = StageConfigManager.isStageFile(fileName)
+                ? plugin.getStageConfigManager().parseStageConfig(fileName, yaml, blocks)
+                : null;
+        return new ConfigCache.StageFile(blocks, stage);
+    }
+
+    /**
+     * Applies a change set to a base snapshot and recompiles the stage graph only when a stage changed.
+     */
+    private ConfigSnapshot rebuild(ConfigSnapshot base, Changes changes) {
+        Map<String, WeightedRandom<Object>> blockLists = new HashMap<>(base.blockLists());
+        Map<String, WeightedRandom<EntityManager.EntityConfig>> entityPacks = new HashMap<>(base.entityPacks());
+        Map<String, ChestConfig> chests = new HashMap<>(base.chests());
+        Map<String, StageConfig> stages = new HashMap<>();
+        for (int id = 0; id < base.stages().size(); id++) {
+            StageGraph.Stage stage = base.stages().stage(id);
+            stages.put(stage.file(), stage.config());
+        }
+        boolean stagesChanged = base == ConfigSnapshot.EMPTY;
+
+        for (String path : changes.removed) {
+            String fileName = fileNameOf(path);
+            switch (directoryOf(path)) {
+                case BLOCKS -> {
+                    blockLists.remove(fileName);
+                    stagesChanged |= stages.remove(fileName) != null;
+                }
+                case ENTITIES -> entityPacks.remove(baseName(fileName));
+                case CHESTS -> chests.remove(baseName(fileName));
+                default -> plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "忽略配置目录之外的文件: " + path);
+            }
+        }
+        for (Map.Entry<String, ConfigCache.StageFile> entry : changes.stageFiles.entrySet()) {
+            putOrRemove(blockLists, entry.getKey(), entry.getValue().blocks());
+            if (entry.getValue().stage() != null) {
+                stages.put(entry.getKey(), entry.getValue().stage());
+                stagesChanged = true;
+            }
+        }
+        changes.entityPacks.forEach((packName, pack) -> putOrRemove(entityPacks, packName, pack));
+        changes.chests.forEach((chestName, chest) -> putOrRemove(chests, chestName, chest));
+        if (!chests.containsKey("fallback")) {
+            chests.put("fallback", plugin.getEnhancedChestManager().createFallbackConfig());
+        }
+
+        StageGraph graph = stagesChanged ? plugin.getStageConfigManager().compileGraph(stages) : base.stages();
+        return new ConfigSnapshot(graph, blockLists, entityPacks, chests);
+    }
+
+    /**
+     * Reads a file's bytes, recording it as failed and returning null when it cannot be read.
+     */
+    private byte[] readBytes(String path, File file, List<String> failedFiles) {
+        try {
+            return Files.readAllBytes(file.toPath());
+        } catch (IOException exception) {
+            failedFiles.add(path);
+            plugin.getLogger().log(Level.SEVERE, "无法读取配置文件: " + path, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Parses YAML strictly, recording the file as failed and returning null on a syntax error.
+     */
+    private YamlConfiguration parseYaml(String path, byte[] content, List<String> failedFiles) {
+        YamlConfiguration yaml = new YamlConfiguration();
+        try {
+            yaml.loadFromString(new String(content, StandardCharsets.UTF_8));
+            return yaml;
+        } catch (InvalidConfigurationException exception) {
+            failedFiles.add(path);
+            plugin.getLogger().log(Level.SEVERE, "无法解析配置文件: " + path, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a parsed value, or removes the key when parsing produced nothing usable.
+     */
+    private static <T> void putOrRemove(Map<String, T> values, String key, T value) {
+        if (value == null) {
+            values.remove(key);
+        } else {
+            values.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the content directory of a data-relative path.
+     */
+    private static String directoryOf(String path) {
+        int separator = path.indexOf('/');
+        return separator < 0 ? "" : path.substring(0, separator);
+    }
+
+    /**
+     * Returns the file name of a data-relative path.
+     */
+    private static String fileNameOf(String path) {
+        return path.substring(path.indexOf('/') + 1);
+    }
+
+    /**
+     * Strips the {@code .yml} suffix from a file name.
+     */
+    private static String baseName(String fileName) {
+        return fileName.substring(0, fileName.length() - ".yml".length());
+    }
+
+    /**
+     * Sends a localized message from the server thread while the plugin is still enabled.
+     */
+    private void send(CommandSender sender, String key, Map<String, String> replacements) {
+        if (sender != null && plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin,
+                    () -> sender.sendMessage(plugin.getLanguageManager().getMessage(sender, key, replacements)));
+        }
+    }
+
+    /**
+     * Compiled files of one load by name within their folder, plus data-relative paths of deleted files.
+     */
+    private static final class Changes {
+        private final Map<String, ConfigCache.StageFile> stageFiles = new LinkedHashMap<>();
+        private final Map<String, WeightedRandom<EntityManager.EntityConfig>> entityPacks = new LinkedHashMap<>();
+        private final Map<String, ChestConfig> chests = new LinkedHashMap<>();
+        private final List<String> removed = new ArrayList<>();
+    }
+}
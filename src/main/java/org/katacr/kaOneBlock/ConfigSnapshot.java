@@ -0,0 +1,24 @@
+package org.katacr.kaOneBlock;
+
+import org.katacr.kaOneBlock.chest.EnhancedChestManager.ChestConfig;
+
+import java.util.Map;
+
+/**
+ * Immutable set of every parsed stage, block list, entity pack and chest table; a reload builds a complete new
+ * snapshot off the server thread and gameplay switches to it in one reference swap.
+ */
+public record ConfigSnapshot(
+        StageGraph stages,
+        Map<String, WeightedRandom<Object>> blockLists,
+        Map<String, WeightedRandom<EntityManager.EntityConfig>> entityPacks,
+        Map<String, ChestConfig> chests
+) {
+    static final ConfigSnapshot EMPTY = new ConfigSnapshot(StageGraph.EMPTY, Map.of(), Map.of(), Map.of());
+
+    public ConfigSnapshot {
+        blockLists = Map.copyOf(blockLists);
+        entityPacks = Map.copyOf(entityPacks);
+        chests = Map.copyOf(chests);
+    }
+}
@@ -0,0 +1,118 @@
+package org.katacr.kaOneBlock;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Optionally watches the stage, chest and entity folders and, once edits have been quiet for the debounce period,
+ * asks the {@link ConfigReloader} to recompile only the files that changed.
+ */
+public class ConfigWatcher {
+    private static final List<String> DIRECTORIES = List.of(ConfigReloader.BLOCKS, ConfigReloader.CHESTS, ConfigReloader.ENTITIES);
+
+    private final KaOneBlock plugin;
+    private WatchService watchService;
+    private Thread thread;
+
+    public ConfigWatcher(KaOneBlock plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts watching when {@code config-watch.enabled} is set, replacing a watcher started with older settings.
+     */
+    public void start() {
+        close();
+        if (!plugin.getConfig().getBoolean("config-watch.enabled", false)) {
+            return;
+        }
+        long debounceMillis = Math.max(50, plugin.getConfig().getLong("config-watch.debounce-ms", 500));
+        try {
+            watchService = plugin.getDataFolder().toPath().getFileSystem().newWatchService();
+            for (String directory : DIRECTORIES) {
+                Path path = plugin.getDataFolder().toPath().resolve(directory);
+                if (Files.isDirectory(path)) {
+                    path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                }
+            }
+        } catch (IOException exception) {
+            plugin.getLogger().log(Level.WARNING, "无法监听配置目录，自动重载已关闭", exception);
+            close();
+            return;
+        }
+        WatchService service = watchService;
+        thread = new Thread(() -> watch(service, debounceMillis), "KaOneBlock-ConfigWatch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching and waits briefly for the watch thread to exit; pending edits are left to the next reload.
+     */
+    public void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException exception) {
+            plugin.getLogger().log(Level.WARNING, "Failed to close the configuration watcher", exception);
+        }
+        watchService = null;
+        try {
+            thread.join(1000);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Collects changed YAML files until no event arrives for the debounce period, then submits them as one batch; an
+     * overflow, where events were lost, submits a full reload instead.
+     */
+    private void watch(WatchService service, long debounceMillis) {
+        Set<String> pending = new LinkedHashSet<>();
+        boolean overflow = false;
+        try {
+            while (true) {
+                WatchKey key = pending.isEmpty() && !overflow
+                        ? service.take()
+                        : service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    if (overflow) {
+                        plugin.getConfigReloader().reload(null);
+                    } else {
+                        plugin.getConfigReloader().reloadFiles(Set.copyOf(pending));
+                    }
+                    pending.clear();
+                    overflow = false;
+                    continue;
+                }
+                String directory = ((Path) key.watchable()).getFileName().toString();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow = true;
+                    } else if (event.context() instanceof Path file && file.toString().endsWith(".yml")) {
+                        pending.add(directory + "/" + file);
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException exception) {
+            // The watcher was closed by a reload or shutdown.
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.command.CommandSender;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Streams OneBlock records between storage and NDJSON or CSV files in the {@code exports} folder on a background
+ * thread, holding at most one fixed-size chunk of records in memory.
+ */
+public class DataTransferManager {
+    static final int CHUNK_SIZE = 500;
+    private static final int PROGRESS_INTERVAL = 20_000;
+    private static final int MAX_LOGGED_ERRORS = 10;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+    private final KaOneBlock plugin;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "KaOneBlock-Transfer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Path directory;
+
+    public DataTransferManager(KaOneBlock plugin) {
+        this.plugin = plugin;
+        this.directory = plugin.getDataFolder().toPath().resolve("exports");
+    }
+
+    /**
+     * Starts exporting every record in the given format; returns false when another transfer is running.
+     */
+    public boolean startExport(RecordFormat format, CommandSender sender) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                exportRecords(format, sender);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Starts importing a file from the exports folder; returns false when another transfer is running.
+     */
+    public boolean startImport(Path file, RecordFormat format, CommandSender sender) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                importRecords(file, format, sender);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Resolves a plain file name inside the exports folder, rejecting paths that could escape it.
+     */
+    public Optional<Path> resolveImportFile(String fileName) {
+        if (!fileName.matches("[A-Za-z0-9._-]+") || fileName.startsWith(".")) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(fileName);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Lists importable file names for command completion.
+     */
+    public List<String> listImportFiles() {
+        List<String> names = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return names;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (RecordFormat.fromFileName(name).isPresent()) {
+                    names.add(name);
+                }
+            }
+        } catch (IOException exception) {
+            plugin.getLogger().log(Level.WARNING, "Failed to list export files", exception);
+        }
+        names.sort(null);
+        return names;
+    }
+
+    /**
+     * Stops accepting transfers and waits briefly for a running one to finish its current chunk.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out while waiting for a data transfer to finish");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Pages through storage by player key and appends each page to a temporary file that is renamed when complete.
+     */
+    private void exportRecords(RecordFormat format, CommandSender sender) {
+        DatabaseManager database = plugin.getDatabaseManager();
+        String name = "generated_blocks-" + LocalDateTime.now().format(FILE_TIME) + "." + format.extension();
+        Path target = directory.resolve(name);
+        Path partial = directory.resolve(name + ".part");
+        long rows = 0;
+        try {
+            if (!database.flushNow()) {
+                plugin.getLogger().warning("Exporting while some block updates are still waiting to be written");
+            }
+            Files.createDirectories(directory);
+            try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                if (format.header() != null) {
+                    writer.write(format.header());
+                    writer.newLine();
+                }
+                UUID after = null;
+                List<GeneratedBlockRecord> page;
+                do {
+                    page = database.exportPage(after, CHUNK_SIZE);
+                    for (GeneratedBlockRecord record : page) {
+                        writer.write(format.encode(record));
+                        writer.newLine();
+                        after = record.playerId();
+                    }
+                    long previous = rows;
+                    rows += page.size();
+                    reportProgress(sender, previous, rows);
+                } while (page.size() == CHUNK_SIZE);
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            plugin.getLogger().info("Exported " + rows + " block records to " + target);
+            send(sender, "export-complete", Map.of("file", name, "rows", String.valueOf(rows)));
+        } catch (IOException | SQLException | ExecutionException | RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to export block records", exception);
+            deleteQuietly(partial);
+            send(sender, "transfer-failed", Map.of());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            deleteQuietly(partial);
+        }
+    }
+
+    /**
+     * Reads the file line by line, stores each full chunk in its own transaction and rebuilds the location index
+     * once every chunk is stored.
+     */
+    private void importRecords(Path file, RecordFormat format, CommandSender sender) {
+        DatabaseManager database = plugin.getDatabaseManager();
+        long lineNumber = 0;
+        long read = 0;
+        long imported = 0;
+        long invalid = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<GeneratedBlockRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && line.equals(format.header()))) {
+                    continue;
+                }
+                try {
+                    chunk.add(format.decode(line));
+                } catch (IllegalArgumentException exception) {
+                    if (invalid++ < MAX_LOGGED_ERRORS) {
+                        plugin.getLogger().warning("Skipping line " + lineNumber + " of " + file.getFileName() + ": " + exception.getMessage());
+                    }
+                    continue;
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    imported += database.importBatch(chunk);
+                    long previous = read;
+                    read += chunk.size();
+                    reportProgress(sender, previous, read);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                imported += database.importBatch(chunk);
+                read += chunk.size();
+            }
+            int indexed = database.rebuildOwnerIndex();
+            long skipped = read - imported;
+            plugin.getLogger().info("Imported " + imported + " block records from " + file.getFileName() + " (" + skipped
+                    + " skipped, " + invalid + " invalid); " + indexed + " blocks indexed");
+            send(sender, "import-complete", Map.of(
+                    "imported", String.valueOf(imported),
+                    "skipped", String.valueOf(skipped),
+                    "invalid", String.valueOf(invalid)
+            ));
+        } catch (IOException | ExecutionException | RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to import block records from " + file.getFileName()
+                    + " after " + imported + " stored records", exception);
+            send(sender, "transfer-failed", Map.of());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends a progress message whenever the row count crosses another progress interval.
+     */
+    private void reportProgress(CommandSender sender, long previous, long current) {
+        if (previous / PROGRESS_INTERVAL != current / PROGRESS_INTERVAL) {
+            send(sender, "transfer-progress", Map.of("rows", String.valueOf(current)));
+        }
+    }
+
+    /**
+     * Delivers a localized message to the sender on the main thread.
+     */
+    private void send(CommandSender sender, String key, Map<String, String> replacements) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin,
+                    () -> sender.sendMessage(plugin.getLanguageManager().getMessage(sender, key, replacements)));
+        }
+    }
+
+    /**
+     * Removes an incomplete export, logging instead of failing when that is not possible.
+     */
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            plugin.getLogger().log(Level.WARNING, "Failed to remove incomplete export " + file, exception);
+        }
+    }
+}
@@ -1,310 +1,504 @@
 package org.katacr.kaOneBlock;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.katacr.kaOneBlock.storage.BlockStorage;
+import org.katacr.kaOneBlock.storage.MySqlBlockStorage;
+import org.katacr.kaOneBlock.storage.SqliteBlockStorage;
 
 import java.io.File;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.IOException;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
- * Owns the SQLite schema, world-aware in-memory indexes and serialized persistence queue.
+ * Owns the world-aware in-memory indexes, write-ahead journal, break history queue and serialized persistence queue
+ * in front of the configured {@link BlockStorage} backend.
  */
 public class DatabaseManager {
-    private static final String UPSERT_SQL = """
-            INSERT INTO generated_blocks
-                (player_uuid, player_name, world_uuid, world_name, x, y, z, block_type, stage_file, blocks_broken)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            ON CONFLICT(player_uuid) DO UPDATE SET
-                player_name = excluded.player_name,
-                world_uuid = excluded.world_uuid,
-                world_name = excluded.world_name,
-                x = excluded.x,
-                y = excluded.y,
-                z = excluded.z,
-                block_type = excluded.block_type,
-                stage_file = excluded.stage_file,
-                blocks_broken = excluded.blocks_broken
-            """;
+    private static final long MIN_RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 60_000;
+    // 日志用量超过 3/4 时在写入线程上压缩；压缩后仍超过一半说明待写入记录本身很多，再扩容
+    private static final double JOURNAL_COMPACT_USAGE = 0.75;
+    private static final double JOURNAL_GROW_USAGE = 0.5;
 
     private final KaOneBlock plugin;
     private final Map<UUID, GeneratedBlockRecord> recordsByPlayer = new ConcurrentHashMap<>();
-    private final Map<BlockPosition, GeneratedBlockRecord> recordsByPosition = new ConcurrentHashMap<>();
+    private final PositionIndex ownersByPosition = new PositionIndex();
+    // 每个玩家的在线会话数：重复登录时旧会话的退出不会把仍在线的玩家标记为离线
+    private final Map<UUID, Integer> activeSessions = new ConcurrentHashMap<>();
+    private final Set<UUID> pendingCreates = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> pendingDeletes = ConcurrentHashMap.newKeySet();
+    // 创建失败后尚未从存储中删除的记录：删除成功前日志压缩会保留其删除标记
+    private final Set<UUID> pendingRollbacks = ConcurrentHashMap.newKeySet();
     private final Map<UUID, GeneratedBlockRecord> pendingWrites = new ConcurrentHashMap<>();
-    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
-        Thread thread = new Thread(runnable, "KaOneBlock-SQLite");
+    private final ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "KaOneBlock-Storage");
         thread.setDaemon(true);
         return thread;
     });
     private final AtomicBoolean flushScheduled = new AtomicBoolean();
-    private String databaseUrl;
+    private final AtomicBoolean thresholdFlushQueued = new AtomicBoolean();
+    private final AtomicBoolean historyFlushQueued = new AtomicBoolean();
+    private final AtomicBoolean journalMaintenanceQueued = new AtomicBoolean();
+    private final WriteMetrics metrics = new WriteMetrics();
+    private BlockStorage storage;
+    private BlockJournal journal;
+    private boolean lazyLoading;
+    private long evictionDelayMillis;
+    private Durability durability = Durability.IMMEDIATE;
+    private long flushIntervalMillis;
+    private int flushMaxRecords;
+    private HistoryBuffer history;
+    private boolean historyEnabled;
+    private int historyBatchSize;
+    private long historyRetentionMillis;
+    private long rollupRetentionMillis;
+    private int historyPruneBatch;
+    private volatile boolean historyFailing;
+    private volatile long retryDelayMillis;
     private volatile boolean initialized;
     private volatile boolean closed;
 
     public DatabaseManager(KaOneBlock plugin) {
         this.plugin = plugin;
+        writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
     }
 
     /**
-     * Creates or migrates the database and loads all authoritative records into memory.
+     * Creates or migrates the database, replays unflushed journal entries and loads either all records or only the
+     * location index into memory.
      */
     public boolean initialize() {
         try {
-            Class.forName("org.sqlite.JDBC");
-            File databaseFile = new File(plugin.getDataFolder(), "data.db");
-            databaseUrl = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
-
-            try (Connection connection = openConnection()) {
-                connection.setAutoCommit(false);
-                createOrMigrateSchema(connection);
-                if (!migrateLegacyWorld(connection)) {
-                    connection.rollback();
-                    return false;
-                }
-                connection.commit();
-                if (!loadRecords(connection)) {
-                    return false;
-                }
+            lazyLoading = plugin.getConfig().getBoolean("storage.lazy-loading", false);
+            evictionDelayMillis = TimeUnit.SECONDS.toMillis(Math.max(0, plugin.getConfig().getLong("storage.evict-after-seconds", 300)));
+            durability = Durability.parse(plugin.getConfig().getString("storage.durability.mode", "immediate"));
+            flushIntervalMillis = Math.max(0, plugin.getConfig().getLong("storage.durability.interval-ms", 1000));
+            flushMaxRecords = Math.max(1, plugin.getConfig().getInt("storage.durability.max-records", 200));
+            historyEnabled = plugin.getConfig().getBoolean("history.enabled", true);
+            historyBatchSize = Math.max(1, plugin.getConfig().getInt("history.batch-size", 500));
+            history = new HistoryBuffer(plugin.getConfig().getInt("history.max-pending", 50_000));
+            historyRetentionMillis = TimeUnit.DAYS.toMillis(Math.max(0, plugin.getConfig().getLong("history.retention-days", 30)));
+            rollupRetentionMillis = TimeUnit.DAYS.toMillis(Math.max(0, plugin.getConfig().getLong("history.rollup-retention-days", 365)));
+            historyPruneBatch = Math.max(1, plugin.getConfig().getInt("history.prune-batch", 1000));
+            storage = createStorage();
+            journal = BlockJournal.open(new File(plugin.getDataFolder(), "journal").toPath(), BlockJournal.DEFAULT_CAPACITY);
+            Map<UUID, GeneratedBlockRecord> journaled = journal.replay();
+
+            storage.initialize();
+            if (!migrateLegacyWorld()) {
+                return false;
             }
+            storage.applyJournal(journaled);
+            if (!loadRecords()) {
+                return false;
+            }
+            if (!journaled.isEmpty()) {
+                plugin.getLogger().warning("Recovered " + journaled.size() + " unflushed block updates from the journal");
+            }
+            journal.compact(List::of);
 
             initialized = true;
-            plugin.debug("Connected to SQLite database with " + recordsByPlayer.size() + " records");
+            scheduleIncrementalVacuum();
+            scheduleHistory();
+            plugin.debug(DebugTracer.Subsystem.STORAGE, () -> "Connected to " + storageType() + " storage with " + ownersByPosition.size() + " indexed and "
+                    + recordsByPlayer.size() + " resident records");
             return true;
-        } catch (ClassNotFoundException | SQLException | IllegalArgumentException exception) {
+        } catch (SQLException | IOException | RuntimeException exception) {
             plugin.getLogger().log(Level.SEVERE, "Failed to initialize database", exception);
             return false;
         }
     }
 
     /**
-     * Inserts a new block record synchronously so an untracked physical block is never created.
+     * Reserves a new record's owner and position in memory, persists it on the writer and reports the outcome on the
+     * main thread, rolling the reservation back when the write fails; returns false when the reservation is refused.
      */
-    public boolean createBlock(GeneratedBlockRecord record) {
+    public boolean createBlock(GeneratedBlockRecord record, Consumer<Boolean> callback) {
         ensureInitialized();
-        if (recordsByPlayer.containsKey(record.playerId()) || recordsByPosition.containsKey(record.position())) {
+        UUID playerId = record.playerId();
+        if (recordsByPlayer.containsKey(playerId) || ownersByPosition.putIfAbsent(record.position(), playerId) != null) {
             return false;
         }
 
-        try {
-            persistImmediately(record);
-            recordsByPlayer.put(record.playerId(), record);
-            recordsByPosition.put(record.position(), record);
-            return true;
-        } catch (SQLException exception) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to create block record for " + record.playerId(), exception);
-            return false;
-        }
+        recordsByPlayer.put(playerId, record);
+        // 新的创建排在写线程中任何未完成的回滚删除之后，取代该回滚
+        pendingRollbacks.remove(playerId);
+        pendingCreates.add(playerId);
+        journalUpsert(record);
+        writer.execute(() -> {
+            boolean created = persist(() -> storage.upsertAll(List.of(record)), "Failed to create block record for " + playerId);
+            if (created) {
+                metrics.recordTransaction(1);
+            }
+            completeOnMainThread(() -> {
+                pendingCreates.remove(playerId);
+                requestJournalMaintenance();
+                if (!created) {
+                    rollbackCreate(record);
+                }
+                callback.accept(created);
+            });
+        });
+        return true;
     }
 
     /**
-     * Finds the registered block at an exact world-aware Bukkit location.
+     * Finds the owner of a registered block, even when the owner is offline, without allocating when it has none.
      */
-    public Optional<GeneratedBlockRecord> findBlockByLocation(Location location) {
-        if (location.getWorld() == null) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable(recordsByPosition.get(BlockPosition.from(location)));
+    public Optional<UUID> findOwnerAt(Block block) {
+        UUID owner = ownersByPosition.get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        return owner == null ? Optional.empty() : Optional.of(owner);
     }
 
     /**
-     * Finds the single registered block owned by a player.
+     * Finds the single registered block owned by a hydrated player.
      */
     public Optional<GeneratedBlockRecord> findBlockByPlayer(UUID playerId) {
         return Optional.ofNullable(recordsByPlayer.get(playerId));
     }
 
     /**
-     * Reports whether a player already owns a registered OneBlock.
+     * Reports whether a hydrated player already owns a registered OneBlock.
      */
     public boolean hasBlock(UUID playerId) {
         return recordsByPlayer.containsKey(playerId);
     }
 
     /**
-     * Updates cached gameplay state immediately and coalesces its SQLite write off the server thread.
+     * Updates cached gameplay state, journals it and coalesces its storage write off the server thread according to
+     * the configured durability mode.
      */
     public void updateState(UUID playerId, String blockType, String stageFile, int blocksBroken) {
         GeneratedBlockRecord current = recordsByPlayer.get(playerId);
-        if (current == null) {
+        if (current == null || pendingDeletes.contains(playerId)) {
             return;
         }
 
         GeneratedBlockRecord updated = current.withState(blockType, stageFile, blocksBroken);
         recordsByPlayer.put(playerId, updated);
-        recordsByPosition.put(updated.position(), updated);
         pendingWrites.put(playerId, updated);
-        scheduleFlush();
+        journalUpsert(updated);
+        metrics.recordUpdate();
+        switch (durability) {
+            case IMMEDIATE -> scheduleFlush();
+            case PERIODIC -> {
+                if (pendingWrites.size() >= flushMaxRecords) {
+                    requestThresholdFlush();
+                }
+                scheduleFlush();
+            }
+            case SHUTDOWN -> {
+                // Persisted when the player quits or the plugin shuts down.
+            }
+        }
     }
 
     /**
-     * Deletes a player's record after all earlier queued writes and then removes its cache entries.
+     * Deletes a player's record on the writer after all earlier queued writes and reports the outcome on the main
+     * thread; returns false when there is no settled record to delete.
      */
-    public boolean deleteBlock(UUID playerId) {
+    public boolean deleteBlock(UUID playerId, Consumer<Boolean> callback) {
         GeneratedBlockRecord record = recordsByPlayer.get(playerId);
-        if (record == null) {
+        if (record == null || pendingCreates.contains(playerId) || !pendingDeletes.add(playerId)) {
             return false;
         }
 
-        pendingWrites.remove(playerId);
-        try {
-            Future<Boolean> deletion = writer.submit(() -> {
-                try (Connection connection = openConnection();
-                     PreparedStatement statement = connection.prepareStatement("DELETE FROM generated_blocks WHERE player_uuid = ?")) {
-                    statement.setString(1, playerId.toString());
-                    return statement.executeUpdate() > 0;
+        GeneratedBlockRecord unflushed = pendingWrites.remove(playerId);
+        journalDelete(playerId);
+        writer.execute(() -> {
+            AtomicBoolean existed = new AtomicBoolean();
+            boolean deleted = persist(() -> existed.set(storage.delete(playerId)), "Failed to delete block for " + playerId)
+                    && existed.get();
+            if (deleted) {
+                metrics.recordTransaction(1);
+            }
+            completeOnMainThread(() -> {
+                pendingDeletes.remove(playerId);
+                requestJournalMaintenance();
+                if (deleted) {
+                    recordsByPlayer.remove(playerId, record);
+                    ownersByPosition.remove(record.position(), playerId);
+                } else {
+                    restoreAfterFailedDelete(record, unflushed);
                 }
+                callback.accept(deleted);
             });
-            if (!deletion.get()) {
-                return false;
-            }
-            recordsByPlayer.remove(playerId, record);
-            recordsByPosition.remove(record.position(), record);
+        });
+        return true;
+    }
+
+    /**
+     * Marks a connecting player active and, in lazy mode, loads their record through the writer queue so it is
+     * ordered after any pending eviction; returns false when the record could not be read.
+     */
+    public boolean hydrate(UUID playerId) {
+        activeSessions.merge(playerId, 1, Integer::sum);
+        if (!lazyLoading) {
             return true;
+        }
+        try {
+            writer.submit(() -> recordsByPlayer.containsKey(playerId) || loadRecord(playerId)).get();
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
         } catch (Exception exception) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to delete block for " + playerId, exception);
-            return false;
+            plugin.getLogger().log(Level.SEVERE, "Failed to load block record for " + playerId, exception);
         }
+        endSession(playerId);
+        return false;
     }
 
     /**
-     * Returns an immutable snapshot of all persisted player progress for startup hydration.
+     * Ends one session of a player, persists spooled progress in shutdown durability mode and, in lazy mode once no
+     * session of the player remains, schedules the record for eviction after the configured delay.
      */
-    public Map<UUID, StageManager.PlayerStageProgress> loadAllPlayerProgress() {
-        Map<UUID, StageManager.PlayerStageProgress> progress = new HashMap<>();
-        recordsByPlayer.forEach((playerId, record) -> progress.put(
-                playerId,
-                new StageManager.PlayerStageProgress(record.stageFile(), record.blocksBroken())
-        ));
-        return Map.copyOf(progress);
+    public void release(UUID playerId) {
+        boolean offline = endSession(playerId);
+        if (durability == Durability.SHUTDOWN && !pendingWrites.isEmpty()) {
+            scheduleFlush();
+        }
+        if (offline && lazyLoading && !closed) {
+            writer.schedule(() -> evictIfIdle(playerId), evictionDelayMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
-     * Logs the current SQLite columns for the administrative diagnostic command.
+     * Removes one session of a player and reports whether none remains.
      */
-    public void checkTableStructure() {
-        try (Connection connection = openConnection();
-             Statement statement = connection.createStatement();
-             ResultSet result = statement.executeQuery("PRAGMA table_info(generated_blocks)")) {
-            plugin.getLogger().info("Database table structure:");
-            while (result.next()) {
-                plugin.getLogger().info(" - " + result.getString("name") + " (" + result.getString("type") + ")");
-            }
-        } catch (SQLException exception) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to inspect database structure", exception);
-        }
+    private boolean endSession(UUID playerId) {
+        return activeSessions.computeIfPresent(playerId, (id, sessions) -> sessions > 1 ? sessions - 1 : null) == null;
     }
 
     /**
-     * Flushes all coalesced writes and shuts down the dedicated SQLite writer.
+     * Queues what one break produced for the break history; the writer appends queued events in batches.
      */
-    public void close() {
-        if (!initialized || closed) {
+    public void recordOutcome(BreakOutcome outcome) {
+        if (!historyEnabled || !initialized || closed) {
             return;
         }
-        closed = true;
-        try {
-            writer.submit(this::flushPendingWrites).get();
-        } catch (Exception exception) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to flush database writes", exception);
-        }
-        writer.shutdown();
-        try {
-            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
-                plugin.getLogger().warning("Timed out while closing the SQLite writer");
-            }
-        } catch (InterruptedException exception) {
-            Thread.currentThread().interrupt();
+        if (history.offer(outcome) && history.size() >= historyBatchSize) {
+            requestHistoryFlush();
         }
     }
 
     /**
-     * Creates the latest schema while retaining compatible columns from older releases.
+     * Reports whether break outcomes are recorded.
      */
-    private void createOrMigrateSchema(Connection connection) throws SQLException {
-        try (Statement statement = connection.createStatement()) {
-            statement.execute("""
-                    CREATE TABLE IF NOT EXISTS generated_blocks (
-                        id INTEGER PRIMARY KEY AUTOINCREMENT,
-                        player_uuid TEXT NOT NULL UNIQUE,
-                        player_name TEXT NOT NULL,
-                        world_uuid TEXT,
-                        world_name TEXT,
-                        x INTEGER NOT NULL,
-                        y INTEGER NOT NULL,
-                        z INTEGER NOT NULL,
-                        block_type TEXT NOT NULL DEFAULT 'STONE',
-                        stage_file TEXT NOT NULL DEFAULT 'normal.yml',
-                        blocks_broken INTEGER NOT NULL DEFAULT 0,
-                        generated_time DATETIME DEFAULT CURRENT_TIMESTAMP
-                    )
-                    """);
-        }
+    public boolean isHistoryEnabled() {
+        return historyEnabled;
+    }
 
-        Map<String, String> columns = readColumns(connection);
-        addColumnIfMissing(connection, columns, "world_uuid", "TEXT");
-        addColumnIfMissing(connection, columns, "world_name", "TEXT");
-        addColumnIfMissing(connection, columns, "stage_file", "TEXT NOT NULL DEFAULT 'normal.yml'");
-        addColumnIfMissing(connection, columns, "blocks_broken", "INTEGER NOT NULL DEFAULT 0");
-        addColumnIfMissing(connection, columns, "block_type", "TEXT NOT NULL DEFAULT 'STONE'");
+    /**
+     * Sums the hourly break history per outcome since the given time on the writer, after appending every queued
+     * event, and hands the result to the main thread, or an empty optional when the query failed.
+     */
+    public void countOutcomes(String stageFile, long fromMillis, Consumer<Optional<List<OutcomeCount>>> callback) {
+        ensureInitialized();
+        writer.execute(() -> {
+            Optional<List<OutcomeCount>> counts = queryOutcomes(stageFile, fromMillis);
+            completeOnMainThread(() -> callback.accept(counts));
+        });
+    }
 
-        try (Statement statement = connection.createStatement()) {
-            statement.execute("CREATE INDEX IF NOT EXISTS idx_generated_blocks_location ON generated_blocks(world_uuid, x, y, z)");
-        }
+    /**
+     * Returns the active durability mode for progress writes.
+     */
+    public Durability getDurability() {
+        return durability;
     }
 
     /**
-     * Reads the current table columns without relying on localized SQLite error messages.
+     * Returns the number of coalesced records still waiting for a storage write.
      */
-    private Map<String, String> readColumns(Connection connection) throws SQLException {
-        Map<String, String> columns = new HashMap<>();
-        try (Statement statement = connection.createStatement();
-             ResultSet result = statement.executeQuery("PRAGMA table_info(generated_blocks)")) {
-            while (result.next()) {
-                columns.put(result.getString("name"), result.getString("type"));
+    public int getPendingWriteCount() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * Returns write counters and recent rates for the statistics command.
+     */
+    WriteMetrics.Snapshot getWriteMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Persists every coalesced write now on the writer and reports whether storage accepted them, so a following
+     * export sees the latest progress.
+     */
+    boolean flushNow() throws InterruptedException, ExecutionException {
+        ensureInitialized();
+        return writer.submit(this::flushPendingWrites).get();
+    }
+
+    /**
+     * Reads one keyset page of stored records directly from storage without occupying the writer.
+     */
+    List<GeneratedBlockRecord> exportPage(UUID after, int limit) throws SQLException {
+        ensureInitialized();
+        return storage.loadPage(after, limit);
+    }
+
+    /**
+     * Stores one batch of imported records in a single transaction on the writer and returns how many were accepted.
+     *
+     * <p>Records of online players or players with unsettled writes are skipped so live progress is never
+     * overwritten, as are records whose position another owner already holds. Accepted positions are reserved in
+     * the location index before the write and released again when it fails.</p>
+     */
+    int importBatch(List<GeneratedBlockRecord> batch) throws InterruptedException, ExecutionException {
+        ensureInitialized();
+        return writer.submit(() -> {
+            List<GeneratedBlockRecord> accepted = new ArrayList<>(batch.size());
+            List<GeneratedBlockRecord> reserved = new ArrayList<>();
+            Set<UUID> players = new HashSet<>();
+            for (GeneratedBlockRecord record : batch) {
+                UUID playerId = record.playerId();
+                boolean unsettled = activeSessions.containsKey(playerId) || pendingCreates.contains(playerId)
+                        || pendingDeletes.contains(playerId) || pendingWrites.containsKey(playerId);
+                if (unsettled || !players.add(playerId)) {
+                    continue;
+                }
+                UUID owner = ownersByPosition.putIfAbsent(record.position(), playerId);
+                if (owner == null) {
+                    reserved.add(record);
+                } else if (!owner.equals(playerId)) {
+                    continue;
+                }
+                accepted.add(record);
+            }
+
+            try {
+                storage.upsertAll(accepted);
+            } catch (SQLException | RuntimeException exception) {
+                reserved.forEach(record -> ownersByPosition.remove(record.position(), record.playerId()));
+                throw exception;
+            }
+            metrics.recordTransaction(accepted.size());
+            for (GeneratedBlockRecord record : accepted) {
+                if (lazyLoading) {
+                    recordsByPlayer.replace(record.playerId(), record);
+                } else {
+                    recordsByPlayer.put(record.playerId(), record);
+                }
             }
+            return accepted.size();
+        }).get();
+    }
+
+    /**
+     * Rebuilds the location index from storage on the writer after a bulk import moved existing blocks, adding the
+     * fresh entries before removing stale ones so protection never lapses, and returns the indexed block count.
+     */
+    int rebuildOwnerIndex() throws InterruptedException, ExecutionException {
+        ensureInitialized();
+        return writer.submit(() -> {
+            Map<BlockPosition, UUID> rebuilt = new HashMap<>();
+            storage.loadOwners((playerId, position) -> {
+                if (pendingRollbacks.contains(playerId)) {
+                    return true;
+                }
+                UUID previous = rebuilt.putIfAbsent(position, playerId);
+                if (previous != null) {
+                    plugin.getLogger().warning("Duplicate OneBlock location " + position + " for " + previous + " and " + playerId);
+                }
+                return true;
+            });
+            ownersByPosition.putAll(rebuilt);
+            ownersByPosition.removeIf((position, owner) -> !rebuilt.containsKey(position)
+                    && !pendingCreates.contains(owner));
+            return ownersByPosition.size();
+        }).get();
+    }
+
+    /**
+     * Returns the SQLite backend when it is the configured storage, for file-level maintenance such as backups.
+     */
+    Optional<SqliteBlockStorage> getSqliteStorage() {
+        return storage instanceof SqliteBlockStorage sqlite ? Optional.of(sqlite) : Optional.empty();
+    }
+
+    /**
+     * Logs the current storage columns and connection statistics for the administrative diagnostic command.
+     */
+    public void checkTableStructure() {
+        try {
+            Map<String, String> columns = storage.describeColumns();
+            plugin.getLogger().info("Database table structure:");
+            columns.forEach((name, type) -> plugin.getLogger().info(" - " + name + " (" + type + ")"));
+        } catch (SQLException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to inspect database structure", exception);
         }
-        return columns;
+        plugin.getLogger().info("Database connections:");
+        storage.describeConnections().forEach(line -> plugin.getLogger().info(" - " + line));
+        plugin.getLogger().info(" - " + journal.describe() + ", pending=" + pendingWrites.size());
+        plugin.getLogger().info(" - cache: lazy=" + lazyLoading + ", indexed=" + ownersByPosition.size()
+                + ", resident=" + recordsByPlayer.size() + ", active=" + activeSessions.size());
     }
 
     /**
-     * Adds one known schema column when upgrading an older database.
+     * Flushes all coalesced writes, shuts down the dedicated storage writer and closes its connections and journal.
      */
-    private void addColumnIfMissing(Connection connection, Map<String, String> columns, String name, String definition) throws SQLException {
-        if (columns.containsKey(name)) {
+    public void close() {
+        if (closed) {
             return;
         }
-        try (Statement statement = connection.createStatement()) {
-            statement.execute("ALTER TABLE generated_blocks ADD COLUMN " + name + " " + definition);
+        closed = true;
+        if (initialized) {
+            try {
+                if (!writer.submit(this::flushPendingWrites).get()) {
+                    plugin.getLogger().warning("Unflushed block updates remain in the journal and will be replayed on startup");
+                }
+                if (!writer.submit(this::flushHistory).get()) {
+                    plugin.getLogger().warning("Discarded " + history.size() + " break history events that could not be stored");
+                }
+            } catch (Exception exception) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to flush database writes", exception);
+            }
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out while closing the storage writer");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        if (storage != null) {
+            storage.close();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException exception) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to close the block journal", exception);
+            }
         }
     }
 
     /**
      * Backfills legacy rows through an explicit configured world rather than guessing by coordinates.
      */
-    private boolean migrateLegacyWorld(Connection connection) throws SQLException {
-        int missingWorlds;
-        try (Statement statement = connection.createStatement();
-             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM generated_blocks WHERE world_uuid IS NULL OR world_uuid = ''")) {
-            missingWorlds = result.next() ? result.getInt(1) : 0;
-        }
+    private boolean migrateLegacyWorld() throws SQLException {
+        int missingWorlds = storage.countRecordsWithoutWorld();
         if (missingWorlds == 0) {
             return true;
         }
@@ -316,81 +510,271 @@ public class DatabaseManager {
             return false;
         }
 
-        try (PreparedStatement statement = connection.prepareStatement(
-                "UPDATE generated_blocks SET world_uuid = ?, world_name = ? WHERE world_uuid IS NULL OR world_uuid = ''")) {
-            statement.setString(1, legacyWorld.getUID().toString());
-            statement.setString(2, legacyWorld.getName());
-            statement.executeUpdate();
-        }
+        storage.assignLegacyWorld(legacyWorld.getUID(), legacyWorld.getName());
         plugin.getLogger().warning("Migrated " + missingWorlds + " legacy records to world " + legacyWorld.getName());
         return true;
     }
 
     /**
-     * Hydrates both indexes and rejects ambiguous duplicate world positions.
+     * Builds the location index from every record and hydrates either all records or only online players, rejecting
+     * ambiguous duplicate world positions.
      */
-    private boolean loadRecords(Connection connection) throws SQLException {
+    private boolean loadRecords() throws SQLException {
         recordsByPlayer.clear();
-        recordsByPosition.clear();
-        try (Statement statement = connection.createStatement();
-             ResultSet result = statement.executeQuery("SELECT * FROM generated_blocks")) {
-            while (result.next()) {
-                GeneratedBlockRecord record = mapRecord(result);
-                if (recordsByPosition.putIfAbsent(record.position(), record) != null) {
-                    plugin.getLogger().severe("Duplicate OneBlock location detected at " + record.position());
+        ownersByPosition.clear();
+        // 重载插件时已在线的玩家不会再触发登录事件，在这里补记会话
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            activeSessions.putIfAbsent(player.getUniqueId(), 1);
+        }
+        if (!lazyLoading) {
+            return storage.loadAll(record -> {
+                if (!indexOwner(record.playerId(), record.position())) {
                     return false;
                 }
                 recordsByPlayer.put(record.playerId(), record);
-            }
+                return true;
+            });
+        }
+
+        if (!storage.loadOwners(this::indexOwner)) {
+            return false;
+        }
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadRecord(player.getUniqueId());
         }
         return true;
     }
 
     /**
-     * Maps a SQLite row to the typed domain record used by gameplay code.
+     * Adds one owner to the resident location index unless another owner already claims the position.
      */
-    private GeneratedBlockRecord mapRecord(ResultSet result) throws SQLException {
-        UUID playerId = UUID.fromString(result.getString("player_uuid"));
-        UUID worldId = UUID.fromString(result.getString("world_uuid"));
-        String worldName = result.getString("world_name");
-        if (worldName == null || worldName.isBlank()) {
-            worldName = worldId.toString();
+    private boolean indexOwner(UUID playerId, BlockPosition position) {
+        if (ownersByPosition.putIfAbsent(position, playerId) != null) {
+            plugin.getLogger().severe("Duplicate OneBlock location detected at " + position);
+            return false;
         }
-        BlockPosition position = new BlockPosition(worldId, result.getInt("x"), result.getInt("y"), result.getInt("z"));
-        return new GeneratedBlockRecord(
-                playerId,
-                result.getString("player_name"),
-                position,
-                worldName,
-                result.getString("block_type"),
-                result.getString("stage_file"),
-                result.getInt("blocks_broken")
-        );
+        return true;
     }
 
     /**
-     * Schedules a single drain task while allowing later state changes to replace older pending writes.
+     * Reads one player's record into the resident cache unless a newer in-memory state already exists or its row is
+     * still awaiting a rollback delete.
+     */
+    private boolean loadRecord(UUID playerId) throws SQLException {
+        if (pendingRollbacks.contains(playerId)) {
+            return false;
+        }
+        Optional<GeneratedBlockRecord> record = storage.load(playerId);
+        record.ifPresent(loaded -> recordsByPlayer.putIfAbsent(playerId, loaded));
+        return record.isPresent();
+    }
+
+    /**
+     * Drops an offline player's clean record from the resident cache, retrying later while a write is still queued.
+     */
+    private void evictIfIdle(UUID playerId) {
+        if (closed || activeSessions.containsKey(playerId)) {
+            return;
+        }
+        if (pendingWrites.containsKey(playerId) || pendingCreates.contains(playerId) || pendingDeletes.contains(playerId)) {
+            writer.schedule(() -> evictIfIdle(playerId), evictionDelayMillis, TimeUnit.MILLISECONDS);
+            return;
+        }
+        recordsByPlayer.remove(playerId);
+    }
+
+    /**
+     * Creates the backend selected by {@code storage.type}, defaulting to the bundled SQLite file.
+     */
+    private BlockStorage createStorage() {
+        String type = storageType();
+        return switch (type) {
+            case "sqlite" -> new SqliteBlockStorage(new File(plugin.getDataFolder(), "data.db"));
+            case "mysql" -> new MySqlBlockStorage(
+                    plugin.getConfig().getString("storage.mysql.jdbc-url", ""),
+                    plugin.getConfig().getString("storage.mysql.username", ""),
+                    plugin.getConfig().getString("storage.mysql.password", ""),
+                    plugin.getConfig().getInt("storage.mysql.pool-size", 8),
+                    plugin.getConfig().getInt("storage.mysql.batch-size", 100)
+            );
+            default -> throw new IllegalArgumentException("Unknown storage.type: " + type);
+        };
+    }
+
+    /**
+     * Returns the normalized configured backend name.
+     */
+    private String storageType() {
+        return plugin.getConfig().getString("storage.type", "sqlite").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Schedules a single drain task, delayed by the periodic interval or by the current retry backoff while the
+     * storage backend is failing.
      */
     private void scheduleFlush() {
         if (closed || !flushScheduled.compareAndSet(false, true)) {
             return;
         }
-        writer.execute(() -> {
+        long delay = durability == Durability.PERIODIC ? Math.max(retryDelayMillis, flushIntervalMillis) : retryDelayMillis;
+        writer.schedule(() -> {
+            boolean flushed = false;
             try {
-                flushPendingWrites();
+                flushed = flushPendingWrites();
             } finally {
+                updateRetryDelay(flushed);
                 flushScheduled.set(false);
-                if (!pendingWrites.isEmpty()) {
+                if (!pendingWrites.isEmpty() && (!flushed || durability != Durability.SHUTDOWN)) {
                     scheduleFlush();
                 }
             }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Releases free SQLite pages in bounded batches on the writer, so reclaiming space is ordered with writes and
+     * never holds the file for longer than one small batch.
+     */
+    private void scheduleIncrementalVacuum() {
+        long intervalMinutes = plugin.getConfig().getLong("storage.vacuum.interval-minutes", 30);
+        int pages = Math.max(1, plugin.getConfig().getInt("storage.vacuum.pages", 500));
+        if (!(storage instanceof SqliteBlockStorage sqlite) || intervalMinutes <= 0) {
+            return;
+        }
+        writer.scheduleWithFixedDelay(() -> {
+            try {
+                int released = sqlite.incrementalVacuum(pages);
+                if (released > 0) {
+                    plugin.debug(DebugTracer.Subsystem.STORAGE, () -> "Released " + released + " free database pages");
+                }
+            } catch (SQLException | RuntimeException exception) {
+                plugin.getLogger().log(Level.WARNING, "Incremental vacuum failed", exception);
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Appends queued break history on the writer at a fixed interval and prunes expired history in bounded batches.
+     */
+    private void scheduleHistory() {
+        if (!historyEnabled) {
+            return;
+        }
+        long flushMillis = Math.max(100, plugin.getConfig().getLong("history.flush-interval-ms", 5000));
+        writer.scheduleWithFixedDelay(this::flushHistory, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        long pruneMinutes = plugin.getConfig().getLong("history.prune-interval-minutes", 60);
+        if (pruneMinutes > 0 && (historyRetentionMillis > 0 || rollupRetentionMillis > 0)) {
+            writer.scheduleWithFixedDelay(this::pruneHistory, pruneMinutes, pruneMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Appends a full batch of break history ahead of the interval, unless history writes are currently failing.
+     */
+    private void requestHistoryFlush() {
+        if (closed || historyFailing || !historyFlushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        writer.execute(() -> {
+            historyFlushQueued.set(false);
+            flushHistory();
+        });
+    }
+
+    /**
+     * Appends every queued break event in batches, keeping a failed batch queued for the next attempt, and reports
+     * whether the queue was drained.
+     */
+    private boolean flushHistory() {
+        List<BreakOutcome> batch;
+        while (!(batch = history.drain(historyBatchSize)).isEmpty()) {
+            try {
+                storage.appendHistory(batch);
+            } catch (SQLException | RuntimeException exception) {
+                history.restore(batch);
+                historyFailing = true;
+                plugin.getLogger().log(Level.WARNING, "Failed to store " + batch.size() + " break history events", exception);
+                return false;
+            }
+        }
+        historyFailing = false;
+        long dropped = history.takeDropped();
+        if (dropped > 0) {
+            plugin.getLogger().warning("Dropped " + dropped + " break history events while the history queue was full");
+        }
+        return true;
+    }
+
+    /**
+     * Deletes one bounded batch of expired raw events and rollups, queueing the next batch behind other writes
+     * while a full batch was deleted.
+     */
+    private void pruneHistory() {
+        long now = System.currentTimeMillis();
+        try {
+            int events = historyRetentionMillis > 0 ? storage.pruneHistory(now - historyRetentionMillis, historyPruneBatch) : 0;
+            int rollups = rollupRetentionMillis > 0
+                    ? storage.pruneRollups(BreakOutcome.hourStart(now - rollupRetentionMillis), historyPruneBatch)
+                    : 0;
+            if (events > 0 || rollups > 0) {
+                plugin.debug(DebugTracer.Subsystem.STORAGE, () -> "Pruned " + events + " break history events and " + rollups + " hourly rollups");
+            }
+            if (!closed && (events == historyPruneBatch || rollups == historyPruneBatch)) {
+                writer.execute(this::pruneHistory);
+            }
+        } catch (SQLException | RuntimeException exception) {
+            plugin.getLogger().log(Level.WARNING, "Failed to prune break history", exception);
+        }
+    }
+
+    /**
+     * Appends queued events and sums the hourly rollups, logging instead of propagating a failure.
+     */
+    private Optional<List<OutcomeCount>> queryOutcomes(String stageFile, long fromMillis) {
+        flushHistory();
+        try {
+            return Optional.of(storage.countOutcomes(stageFile, fromMillis, Long.MAX_VALUE));
+        } catch (SQLException | RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to read break history", exception);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Flushes ahead of the periodic interval once enough records are pending, unless storage is backing off.
+     */
+    private void requestThresholdFlush() {
+        if (closed || retryDelayMillis > 0 || !thresholdFlushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        writer.execute(() -> {
+            thresholdFlushQueued.set(false);
+            flushPendingWrites();
         });
     }
 
     /**
-     * Persists the latest snapshot for every player in one SQLite transaction.
+     * Resets the backoff after a successful flush or doubles it up to the maximum after a failure.
      */
-    private void flushPendingWrites() {
+    private void updateRetryDelay(boolean flushed) {
+        if (flushed) {
+            if (retryDelayMillis > 0) {
+                plugin.getLogger().info("Storage writes recovered; spooled block updates were persisted");
+            }
+            retryDelayMillis = 0;
+            return;
+        }
+        retryDelayMillis = retryDelayMillis == 0
+                ? MIN_RETRY_DELAY_MILLIS
+                : Math.min(MAX_RETRY_DELAY_MILLIS, retryDelayMillis * 2);
+        plugin.getLogger().warning("Spooling " + pendingWrites.size() + " block updates to the journal; retrying in "
+                + retryDelayMillis + " ms");
+    }
+
+    /**
+     * Persists the latest snapshot for every player in one storage transaction and reports whether it succeeded.
+     */
+    private boolean flushPendingWrites() {
         List<GeneratedBlockRecord> batch = new ArrayList<>();
         pendingWrites.forEach((playerId, record) -> {
             if (pendingWrites.remove(playerId, record)) {
@@ -398,66 +782,157 @@ public class DatabaseManager {
             }
         });
         if (batch.isEmpty()) {
-            return;
+            compactJournalIfNeeded();
+            return true;
         }
 
-        try (Connection connection = openConnection()) {
-            connection.setAutoCommit(false);
-            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
-                for (GeneratedBlockRecord record : batch) {
-                    bindRecord(statement, record);
-                    statement.addBatch();
-                }
-                statement.executeBatch();
-                connection.commit();
-            } catch (SQLException exception) {
-                connection.rollback();
-                throw exception;
-            }
+        try {
+            storage.upsertAll(batch);
+            metrics.recordTransaction(batch.size());
         } catch (SQLException exception) {
             batch.forEach(record -> pendingWrites.putIfAbsent(record.playerId(), record));
             plugin.getLogger().log(Level.SEVERE, "Failed to persist " + batch.size() + " block updates", exception);
+            return false;
+        }
+        compactJournalIfNeeded();
+        return true;
+    }
+
+    /**
+     * Rewrites the journal down to the still-pending records once stale entries fill most of its capacity or
+     * the final shutdown flush has persisted everything, but never while a creation, deletion or rollback is in flight;
+     * reports whether the journal was compacted.
+     */
+    private boolean compactJournalIfNeeded() {
+        boolean mostlyStale = journal.usage() >= JOURNAL_COMPACT_USAGE;
+        boolean cleanShutdown = closed && pendingWrites.isEmpty();
+        boolean settling = !pendingCreates.isEmpty() || !pendingDeletes.isEmpty() || !pendingRollbacks.isEmpty();
+        if ((!mostlyStale && !cleanShutdown) || settling) {
+            return false;
+        }
+        try {
+            journal.compact(() -> List.copyOf(pendingWrites.values()));
+            return true;
+        } catch (IOException | RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to compact the block journal", exception);
+            return false;
+        }
+    }
+
+    /**
+     * Runs one storage write and logs its failure instead of propagating it to the writer thread.
+     */
+    private boolean persist(StorageWrite write, String failureMessage) {
+        try {
+            write.run();
+            return true;
+        } catch (SQLException | RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, failureMessage, exception);
+            return false;
+        }
+    }
+
+    /**
+     * Hands a writer result back to the server thread unless the plugin is already shutting down.
+     */
+    private void completeOnMainThread(Runnable completion) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, completion);
         }
     }
 
     /**
-     * Writes a newly created record before the corresponding block is placed in the world.
+     * Releases a failed creation's reservation and removes any row that a later queued update may have written.
      */
-    private void persistImmediately(GeneratedBlockRecord record) throws SQLException {
-        try (Connection connection = openConnection();
-             PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
-            bindRecord(statement, record);
-            statement.executeUpdate();
+    private void rollbackCreate(GeneratedBlockRecord record) {
+        UUID playerId = record.playerId();
+        recordsByPlayer.remove(playerId);
+        ownersByPosition.remove(record.position(), playerId);
+        pendingWrites.remove(playerId);
+        pendingRollbacks.add(playerId);
+        journalDelete(playerId);
+        writer.execute(() -> deleteRolledBack(playerId, MIN_RETRY_DELAY_MILLIS));
+    }
+
+    /**
+     * Deletes a rolled-back creation's row on the writer, retrying with backoff until it is stored unless a new
+     * creation has superseded it; rollbacks left at shutdown are replayed from the journal on the next start.
+     */
+    private void deleteRolledBack(UUID playerId, long retryDelay) {
+        if (!pendingRollbacks.contains(playerId)) {
+            return;
+        }
+        if (persist(() -> storage.delete(playerId), "Failed to roll back block record for " + playerId)) {
+            pendingRollbacks.remove(playerId);
+            requestJournalMaintenance();
+        } else if (!closed) {
+            writer.schedule(() -> deleteRolledBack(playerId, Math.min(MAX_RETRY_DELAY_MILLIS, retryDelay * 2)),
+                    retryDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Restores cache, pending write and journal state after a deletion could not be persisted.
+     */
+    private void restoreAfterFailedDelete(GeneratedBlockRecord record, GeneratedBlockRecord unflushed) {
+        GeneratedBlockRecord latest = unflushed == null ? record : unflushed;
+        journalUpsert(latest);
+        if (unflushed != null) {
+            pendingWrites.putIfAbsent(unflushed.playerId(), unflushed);
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Journals a record state without letting a journal failure interrupt gameplay.
+     */
+    private void journalUpsert(GeneratedBlockRecord record) {
+        try {
+            journal.appendUpsert(record);
+        } catch (RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to journal block update for " + record.playerId(), exception);
+        }
+        requestJournalMaintenance();
+    }
+
+    /**
+     * Journals a deletion marker without letting a journal failure interrupt gameplay.
+     */
+    private void journalDelete(UUID playerId) {
+        try {
+            journal.appendDelete(playerId);
+        } catch (RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to journal block deletion for " + playerId, exception);
         }
+        requestJournalMaintenance();
     }
 
     /**
-     * Binds all record fields in the canonical upsert order.
+     * Queues journal compaction on the writer once stale entries fill most of the active segment, whatever the
+     * durability mode, so the journal stays bounded even when nothing is flushed and appends never have to remap it.
      */
-    private void bindRecord(PreparedStatement statement, GeneratedBlockRecord record) throws SQLException {
-        statement.setString(1, record.playerId().toString());
-        statement.setString(2, record.playerName());
-        statement.setString(3, record.position().worldId().toString());
-        statement.setString(4, record.worldName());
-        statement.setInt(5, record.position().x());
-        statement.setInt(6, record.position().y());
-        statement.setInt(7, record.position().z());
-        statement.setString(8, record.blockType());
-        statement.setString(9, record.stageFile());
-        statement.setInt(10, record.blocksBroken());
+    private void requestJournalMaintenance() {
+        if (closed || journal.usage() < JOURNAL_COMPACT_USAGE || !journalMaintenanceQueued.compareAndSet(false, true)) {
+            return;
+        }
+        writer.execute(this::maintainJournal);
     }
 
     /**
-     * Opens a configured short-lived connection suitable for serialized SQLite access.
+     * Compacts the journal on the writer thread and grows it only when a real compaction left the still-pending
+     * records filling half of it; a compaction skipped for an in-flight creation or deletion is requested again once
+     * that operation settles.
      */
-    private Connection openConnection() throws SQLException {
-        Connection connection = DriverManager.getConnection(databaseUrl);
-        try (Statement statement = connection.createStatement()) {
-            statement.execute("PRAGMA busy_timeout = 5000");
-            statement.execute("PRAGMA journal_mode = WAL");
-            statement.execute("PRAGMA synchronous = NORMAL");
+    private void maintainJournal() {
+        journalMaintenanceQueued.set(false);
+        if (!compactJournalIfNeeded() || journal.usage() < JOURNAL_GROW_USAGE) {
+            return;
+        }
+        try {
+            journal.grow();
+        } catch (IOException | RuntimeException exception) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to grow the block journal", exception);
         }
-        return connection;
     }
 
     /**
@@ -468,4 +943,34 @@ public class DatabaseManager {
             throw new IllegalStateException("Database is not available");
         }
     }
+
+    /**
+     * Selects when coalesced progress updates are written to storage.
+     */
+    public enum Durability {
+        IMMEDIATE,
+        PERIODIC,
+        SHUTDOWN;
+
+        /**
+         * Parses a configured mode name, accepting on-quit as an alias of shutdown.
+         */
+        static Durability parse(String value) {
+            String normalized = value == null ? "" : value.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+            return switch (normalized) {
+                case "IMMEDIATE" -> IMMEDIATE;
+                case "PERIODIC" -> PERIODIC;
+                case "SHUTDOWN", "ON_QUIT" -> SHUTDOWN;
+                default -> throw new IllegalArgumentException("Unknown storage.durability.mode: " + value);
+            };
+        }
+    }
+
+    /**
+     * Represents one storage write executed on the writer thread.
+     */
+    @FunctionalInterface
+    private interface StorageWrite {
+        void run() throws SQLException;
+    }
 }
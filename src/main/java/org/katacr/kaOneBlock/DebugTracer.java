@@ -0,0 +1,221 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.entity.Player;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Debug output with a level per subsystem, where messages are suppliers that only run once the level check passes,
+ * so disabled output costs one field read.
+ *
+ * <p>Gameplay subsystems can additionally be limited to chosen players and sampled: only one break in every
+ * {@code sample-rate} breaks of those players is traced, and everything that break triggers, including queued block
+ * and chest generation, follows that decision.</p>
+ */
+public final class DebugTracer {
+
+    /**
+     * Areas of the plugin whose output can be tuned separately.
+     */
+    public enum Subsystem {
+        BREAK(true),
+        STAGE(true),
+        CHEST(true),
+        ENTITY(true),
+        CONFIG(false),
+        STORAGE(false);
+
+        private final boolean playerScoped;
+
+        Subsystem(boolean playerScoped) {
+            this.playerScoped = playerScoped;
+        }
+
+        /**
+         * Returns whether this subsystem's output follows player targeting and break sampling.
+         */
+        public boolean isPlayerScoped() {
+            return playerScoped;
+        }
+    }
+
+    /**
+     * Output detail: summaries at {@code DEBUG}, per-slot and per-item detail only at {@code TRACE}.
+     */
+    public enum Level {
+        OFF,
+        DEBUG,
+        TRACE
+    }
+
+    private final Logger logger;
+    private volatile Settings settings;
+    // 以下字段只在主线程上读写：游戏子系统的输出都发生在主线程
+    private boolean suppressed;
+    private long breaks;
+
+    public DebugTracer(Logger logger) {
+        this.logger = logger;
+        configure(false, Level.DEBUG, Map.of(), Set.of(), 1);
+    }
+
+    /**
+     * Replaces the levels, targeted players and sampling interval; players are matched by name or UUID.
+     */
+    public void configure(boolean enabled, Level defaultLevel, Map<Subsystem, Level> overrides, Set<String> players, int sampleRate) {
+        Level[] levels = new Level[Subsystem.values().length];
+        Map<Subsystem, Level> resolved = new EnumMap<>(Subsystem.class);
+        resolved.putAll(overrides);
+        for (Subsystem subsystem : Subsystem.values()) {
+            levels[subsystem.ordinal()] = resolved.getOrDefault(subsystem, defaultLevel);
+        }
+        Set<String> targets = players.stream()
+                .map(player -> player.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        settings = new Settings(enabled, levels, targets, Math.max(1, sampleRate));
+    }
+
+    /**
+     * Turns all output on or off while keeping the configured levels.
+     */
+    public void setEnabled(boolean enabled) {
+        Settings current = settings;
+        settings = new Settings(enabled, current.levels, current.players, current.sampleRate);
+    }
+
+    /**
+     * Returns whether debug output is switched on at all.
+     */
+    public boolean isEnabled() {
+        return settings.enabled;
+    }
+
+    /**
+     * Returns whether a message of this subsystem and level would be written right now.
+     */
+    public boolean isEnabled(Subsystem subsystem, Level level) {
+        Settings current = settings;
+        if (!current.enabled || current.levels[subsystem.ordinal()].compareTo(level) < 0) {
+            return false;
+        }
+        return !subsystem.playerScoped || !suppressed;
+    }
+
+    /**
+     * Writes a summary message, building it only when the subsystem is at debug level or above.
+     */
+    public void debug(Subsystem subsystem, Supplier<String> message) {
+        if (isEnabled(subsystem, Level.DEBUG)) {
+            write(subsystem, message.get());
+        }
+    }
+
+    /**
+     * Writes a detail message, building it only when the subsystem is at trace level.
+     */
+    public void trace(Subsystem subsystem, Supplier<String> message) {
+        if (isEnabled(subsystem, Level.TRACE)) {
+            write(subsystem, message.get());
+        }
+    }
+
+    /**
+     * Writes an already built message for a subsystem whose level the caller has checked.
+     */
+    public void write(Subsystem subsystem, String message) {
+        logger.info("[DEBUG/" + subsystem.name().toLowerCase(Locale.ROOT) + "] " + message);
+    }
+
+    /**
+     * Returns whether output about this player passes the player filter.
+     */
+    public boolean targets(Player player) {
+        return settings.targets(player.getUniqueId(), player.getName());
+    }
+
+    /**
+     * Decides whether one break by this player is traced; each call counts towards the sampling interval.
+     */
+    public boolean sampleBreak(Player player) {
+        return sampleBreak(player.getUniqueId(), player.getName());
+    }
+
+    /**
+     * Decides whether one break by the identified player is traced.
+     */
+    boolean sampleBreak(UUID playerId, String playerName) {
+        Settings current = settings;
+        if (!current.enabled || !current.targets(playerId, playerName)) {
+            return false;
+        }
+        return breaks++ % current.sampleRate == 0;
+    }
+
+    /**
+     * Returns whether gameplay output currently runs unsuppressed, for carrying a break's decision into queued work.
+     */
+    public boolean isTracing() {
+        return !suppressed;
+    }
+
+    /**
+     * Runs work for one break with gameplay output suppressed unless the break was sampled.
+     */
+    public void run(boolean traced, Runnable work) {
+        boolean previous = suppressed;
+        suppressed = !traced;
+        try {
+            work.run();
+        } finally {
+            suppressed = previous;
+        }
+    }
+
+    /**
+     * Runs work that returns a value for one break with gameplay output suppressed unless the break was sampled.
+     */
+    public <T> T call(boolean traced, Supplier<T> work) {
+        boolean previous = suppressed;
+        suppressed = !traced;
+        try {
+            return work.get();
+        } finally {
+            suppressed = previous;
+        }
+    }
+
+    /**
+     * Parses a level name, returning the fallback for unknown names.
+     */
+    public static Level parseLevel(String name, Level fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            return fallback;
+        }
+    }
+
+    /**
+     * One consistent set of options, replaced as a whole so readers on other threads never see a partial update.
+     */
+    private record Settings(boolean enabled, Level[] levels, Set<String> players, int sampleRate) {
+        /**
+         * Returns whether a player passes the filter; an empty filter targets everyone.
+         */
+        boolean targets(UUID playerId, String playerName) {
+            return players.isEmpty()
+                    || players.contains(playerName.toLowerCase(Locale.ROOT))
+                    || players.contains(playerId.toString());
+        }
+    }
+}
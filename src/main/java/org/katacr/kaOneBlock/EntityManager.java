@@ -5,94 +5,61 @@ import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.inventory.EntityEquipment;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 
-import java.io.File;
 import java.util.EnumMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
+import java.util.regex.Pattern;
 
 /**
  * Loads weighted entity packs, applies configured equipment and spawns safe living entities.
  */
 public class EntityManager {
+    private static final Pattern SAFE_PACK_NAME = Pattern.compile("[A-Za-z0-9_-]+");
     private final KaOneBlock plugin;
-    private final Map<String, Map<String, EntityConfig>> entityPackCache = new LinkedHashMap<>();
 
     public EntityManager(KaOneBlock plugin) {
         this.plugin = plugin;
     }
 
     /**
-     * Loads and caches one entity pack from the canonical or legacy data directory.
+     * Parses one entity pack into a frozen weighted pool, returning null when the pack name is not safe.
      */
-    public Map<String, EntityConfig> loadEntityPack(String packName) {
-        if (packName == null || !packName.matches("[A-Za-z0-9_-]+")) {
+    public WeightedRandom<EntityConfig> parseEntityPack(String packName, ConfigurationSection yaml) {
+        if (!SAFE_PACK_NAME.matcher(packName).matches()) {
             plugin.getLogger().warning("非法实体包名称: " + packName);
-            return Map.of();
-        }
-        if (entityPackCache.containsKey(packName)) {
-            return entityPackCache.get(packName);
-        }
-
-        File entityFile = new File(plugin.getDataFolder(), "entities/" + packName + ".yml");
-        if (!entityFile.exists()) {
-            File legacyFile = new File(plugin.getDataFolder(), "entitys/" + packName + ".yml");
-            if (legacyFile.exists()) {
-                entityFile = legacyFile;
-                plugin.getLogger().warning("正在使用旧 entitys 目录，请迁移到 entities: " + legacyFile.getName());
-            }
-        }
-        if (!entityFile.exists()) {
-            plugin.getLogger().warning("实体包文件不存在: " + entityFile.getAbsolutePath());
-            return Map.of();
+            return null;
         }
-
-        FileConfiguration yaml = YamlConfiguration.loadConfiguration(entityFile);
-        Map<String, EntityConfig> configurations = new LinkedHashMap<>();
+        WeightedRandom<EntityConfig> pool = new WeightedRandom<>();
         ConfigurationSection list = yaml.getConfigurationSection("list");
         if (list != null) {
             for (String entityKey : list.getKeys(false)) {
                 ConfigurationSection section = list.getConfigurationSection(entityKey);
                 EntityConfig config = section == null ? null : parseEntity(entityKey, section);
                 if (config != null) {
-                    configurations.put(entityKey, config);
+                    pool.add(config, config.weight());
                 }
             }
         }
-
-        Map<String, EntityConfig> immutable = Map.copyOf(configurations);
-        entityPackCache.put(packName, immutable);
-        return immutable;
+        pool.freeze();
+        return pool;
     }
 
     /**
-     * Selects one entity from a pack according to positive configured weights.
+     * Selects one entity from a pack of the current configuration snapshot according to positive configured weights.
      */
     public EntityConfig getRandomEntity(String packName) {
-        Map<String, EntityConfig> configurations = loadEntityPack(packName);
-        long totalWeight = configurations.values().stream().mapToLong(EntityConfig::weight).sum();
-        if (totalWeight <= 0) {
+        WeightedRandom<EntityConfig> pool = plugin.getConfigSnapshot().entityPacks().get(packName);
+        if (pool == null) {
+            plugin.getLogger().warning("实体包不存在: " + packName);
             return null;
         }
-
-        long roll = ThreadLocalRandom.current().nextLong(totalWeight);
-        long cumulative = 0;
-        for (EntityConfig config : configurations.values()) {
-            cumulative += config.weight();
-            if (roll < cumulative) {
-                return config;
-            }
-        }
-        return null;
+        return pool.getRandom();
     }
 
     /**
@@ -121,13 +88,6 @@ public class EntityManager {
         }
     }
 
-    /**
-     * Clears cached entity packs so edited files are read on the next generation.
-     */
-    public void clearCache() {
-        entityPackCache.clear();
-    }
-
     /**
      * Parses and validates one entity entry from YAML.
      */
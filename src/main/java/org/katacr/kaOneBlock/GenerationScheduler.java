@@ -0,0 +1,161 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs block generation work from one main-thread queue that is drained once per tick under a time budget, so a burst
+ * of breaks spreads over several ticks instead of scheduling one task per break.
+ *
+ * <p>Work submitted during a tick never runs before the next tick, which keeps the one-tick delay generation relies on
+ * for Bukkit to remove the broken block. At least one task runs per tick, so a budget smaller than a single task still
+ * makes progress.</p>
+ */
+public class GenerationScheduler {
+    static final int WINDOW_TICKS = 1200;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final Logger logger;
+    private final LongSupplier nanoClock;
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final long[] windowNanos = new long[WINDOW_TICKS];
+    private final int[] windowDepths = new int[WINDOW_TICKS];
+    private KaOneBlock plugin;
+    private BukkitTask task;
+    private long budgetNanos;
+    private long tick;
+    private long recordedTicks;
+    private long totalTasks;
+    private long deferredTicks;
+    private long failedTasks;
+
+    public GenerationScheduler(KaOneBlock plugin) {
+        this(plugin.getLogger(), System::nanoTime);
+        this.plugin = plugin;
+    }
+
+    GenerationScheduler(Logger logger, LongSupplier nanoClock) {
+        this.logger = logger;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Reads the tick budget and starts draining the queue every tick.
+     */
+    public void start() {
+        loadSettings();
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * Re-reads the tick budget after a configuration reload.
+     */
+    public void loadSettings() {
+        setBudgetMillis(plugin.getConfig().getDouble("generation.tick-budget-ms", 2.0));
+    }
+
+    /**
+     * Sets how long one tick may spend on queued work; values below zero are treated as zero.
+     */
+    void setBudgetMillis(double budgetMillis) {
+        budgetNanos = (long) (Math.max(0, budgetMillis) * NANOS_PER_MILLI);
+    }
+
+    /**
+     * Queues work to run on the main thread in a later tick, in submission order.
+     */
+    public void submit(Runnable work) {
+        queue.addLast(new Entry(work, tick));
+    }
+
+    /**
+     * Runs queued work from earlier ticks until the budget is spent and records the time taken.
+     */
+    void tick() {
+        tick++;
+        long started = nanoClock.getAsLong();
+        long elapsed = 0;
+        int ran = 0;
+        while (!queue.isEmpty() && queue.peekFirst().submittedTick() < tick) {
+            if (ran > 0 && elapsed >= budgetNanos) {
+                deferredTicks++;
+                break;
+            }
+            run(queue.pollFirst().work());
+            ran++;
+            elapsed = nanoClock.getAsLong() - started;
+        }
+        totalTasks += ran;
+        int slot = (int) (recordedTicks++ % WINDOW_TICKS);
+        windowNanos[slot] = elapsed;
+        windowDepths[slot] = queue.size();
+    }
+
+    /**
+     * Stops the timer and runs everything still queued so no broken OneBlock is left without its replacement.
+     */
+    public void close() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        while (!queue.isEmpty()) {
+            run(queue.pollFirst().work());
+        }
+    }
+
+    /**
+     * Returns the queue depth and the time spent per tick over the last minute of ticks.
+     */
+    Snapshot snapshot() {
+        int ticks = (int) Math.min(recordedTicks, WINDOW_TICKS);
+        long total = 0;
+        long max = 0;
+        int peakDepth = 0;
+        for (int index = 0; index < ticks; index++) {
+            total += windowNanos[index];
+            max = Math.max(max, windowNanos[index]);
+            peakDepth = Math.max(peakDepth, windowDepths[index]);
+        }
+        double average = ticks == 0 ? 0 : (double) total / ticks / NANOS_PER_MILLI;
+        return new Snapshot(queue.size(), peakDepth, average, (double) max / NANOS_PER_MILLI,
+                (double) budgetNanos / NANOS_PER_MILLI, totalTasks, deferredTicks, failedTasks);
+    }
+
+    /**
+     * Runs one task and keeps draining when it fails.
+     */
+    private void run(Runnable work) {
+        try {
+            work.run();
+        } catch (RuntimeException exception) {
+            failedTasks++;
+            logger.log(Level.WARNING, "Queued OneBlock generation failed", exception);
+        }
+    }
+
+    /**
+     * One queued task and the tick it was submitted in.
+     */
+    private record Entry(Runnable work, long submittedTick) {
+    }
+
+    /**
+     * Queue depth, per-tick time and totals for diagnostics.
+     */
+    record Snapshot(
+            int queueDepth,
+            int peakDepth,
+            double averageTickMillis,
+            double maxTickMillis,
+            double budgetMillis,
+            long totalTasks,
+            long deferredTicks,
+            long failedTasks
+    ) {
+    }
+}
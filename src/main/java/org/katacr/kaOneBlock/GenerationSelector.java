@@ -32,7 +32,7 @@ public final class GenerationSelector {
     /**
      * Restricts a runtime probability to the valid finite range.
      */
-    private static double clamp(double chance) {
+    static double clamp(double chance) {
         if (!Double.isFinite(chance)) {
             return 0;
         }
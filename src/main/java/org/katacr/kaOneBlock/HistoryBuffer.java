@@ -0,0 +1,75 @@
+package org.katacr.kaOneBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues break history events from the server thread until the storage writer appends them in batches, dropping new
+ * events once the configured capacity is reached so an unavailable database cannot exhaust memory.
+ */
+final class HistoryBuffer {
+    private final ConcurrentLinkedDeque<BreakOutcome> events = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int capacity;
+
+    HistoryBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Queues one event and returns false when the buffer is full and the event was dropped.
+     */
+    boolean offer(BreakOutcome event) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        events.addLast(event);
+        return true;
+    }
+
+    /**
+     * Removes up to {@code limit} of the oldest queued events.
+     */
+    List<BreakOutcome> drain(int limit) {
+        List<BreakOutcome> batch = new ArrayList<>(Math.min(limit, Math.max(0, size.get())));
+        while (batch.size() < limit) {
+            BreakOutcome event = events.pollFirst();
+            if (event == null) {
+                break;
+            }
+            size.decrementAndGet();
+            batch.add(event);
+        }
+        return batch;
+    }
+
+    /**
+     * Puts a drained batch back in front of newer events after a failed write, even beyond the capacity.
+     */
+    void restore(List<BreakOutcome> batch) {
+        for (int index = batch.size() - 1; index >= 0; index--) {
+            events.addFirst(batch.get(index));
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of queued events.
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns and resets the number of events dropped since the last call.
+     */
+    long takeDropped() {
+        return dropped.getAndSet(0);
+    }
+}
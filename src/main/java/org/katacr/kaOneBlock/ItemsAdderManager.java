@@ -4,7 +4,6 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.event.Event;
 import org.bukkit.event.EventPriority;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
@@ -156,7 +155,8 @@ public class ItemsAdderManager {
     }
 
     /**
-     * Registers the optional ItemsAdder load event through Bukkit's dynamic event API.
+     * Registers the optional ItemsAdder load event through Bukkit's dynamic event API, reloading the configuration
+     * every time ItemsAdder (re)loads its data.
      */
     @SuppressWarnings("unchecked")
     private void registerLoadEvent(ClassLoader classLoader) {
@@ -177,10 +177,10 @@ public class ItemsAdderManager {
                         listener,
                         EventPriority.MONITOR,
                         (registered, event) -> {
+                            // ItemsAdder 每次重载数据都会触发，重新编译配置以在主线程重新解析宝箱中的自定义物品
                             loaded = true;
-                            HandlerList.unregisterAll(registered);
-                            if (plugin.getEnhancedChestManager() != null) {
-                                plugin.getEnhancedChestManager().loadChestConfigs();
+                            if (plugin.getConfigReloader() != null) {
+                                plugin.getConfigReloader().reload(null);
                             }
                             plugin.getLogger().info("ItemsAdder data loaded; integration is ready");
                         },
@@ -4,66 +4,54 @@ import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
+import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.katacr.kaOneBlock.chest.EnhancedChestManager;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Boots and coordinates the KaOneBlock gameplay, persistence and optional integrations.
  */
 public final class KaOneBlock extends JavaPlugin {
-    boolean debugMode;
+    private DebugTracer debugTracer;
     private StageManager stageManager;
     private StageConfigManager stageConfigManager;
     private BlockListManager blockListManager;
     private LanguageManager languageManager;
     private BlockGenerator blockGenerator;
     private DatabaseManager databaseManager;
+    private BackupManager backupManager;
+    private DataTransferManager dataTransferManager;
     private EnhancedChestManager enhancedChestManager;
     private LogManager logManager;
     private ItemsAdderManager itemsAdderManager;
     private EntityManager entityManager;
+    private GenerationScheduler generationScheduler;
+    private ConfigReloader configReloader;
+    private ConfigWatcher configWatcher;
+    private volatile ConfigSnapshot configSnapshot = ConfigSnapshot.EMPTY;
+    private final BreakRateLimiter breakRateLimiter = new BreakRateLimiter(System::nanoTime);
 
     /**
-     * Creates common debug placeholders for a location.
+     * Fills the world, coordinate and location placeholders shared by the localized debug messages.
      */
-    public static Map<String, String> createDebugReplacements(Location location) {
-        Map<String, String> replacements = new HashMap<>();
-        if (location != null) {
-            World world = location.getWorld();
-            replacements.put("world", world == null ? "unknown" : world.getName());
-            replacements.put("x", String.valueOf(location.getBlockX()));
-            replacements.put("y", String.valueOf(location.getBlockY()));
-            replacements.put("z", String.valueOf(location.getBlockZ()));
-            replacements.put("location", String.format("(%d, %d, %d)", location.getBlockX(), location.getBlockY(), location.getBlockZ()));
-        }
-        return replacements;
-    }
-
-    /**
-     * Adds a generated block identifier to location debug placeholders.
-     */
-    public static Map<String, String> createDebugReplacements(Location location, String blockType) {
-        Map<String, String> replacements = createDebugReplacements(location);
-        if (blockType != null) {
-            replacements.put("block", blockType);
-        }
-        return replacements;
-    }
-
-    /**
-     * Adds a chest configuration identifier to location and block debug placeholders.
-     */
-    public static Map<String, String> createDebugReplacements(Location location, String blockType, String chestConfig) {
-        Map<String, String> replacements = createDebugReplacements(location, blockType);
-        if (chestConfig != null) {
-            replacements.put("chestConfig", chestConfig);
-        }
-        return replacements;
+    public static MessageTemplate.Renderer withLocation(MessageTemplate.Renderer renderer, Location location) {
+        World world = location.getWorld();
+        return renderer
+                .with("world", world == null ? "unknown" : world.getName())
+                .with("x", location.getBlockX())
+                .with("y", location.getBlockY())
+                .with("z", location.getBlockZ())
+                .with("location", "(" + location.getBlockX() + ", " + location.getBlockY() + ", " + location.getBlockZ() + ")");
     }
 
     @Override
@@ -72,9 +60,10 @@ public final class KaOneBlock extends JavaPlugin {
         saveBundledResources();
         reloadConfig();
 
+        debugTracer = new DebugTracer(getLogger());
+        configureDebug();
         languageManager = new LanguageManager(this);
         languageManager.loadLanguageFiles();
-        debugMode = getConfig().getBoolean("debug", false);
         logManager = new LogManager(this);
 
         databaseManager = new DatabaseManager(this);
@@ -83,17 +72,29 @@ public final class KaOneBlock extends JavaPlugin {
             getServer().getPluginManager().disablePlugin(this);
             return;
         }
+        backupManager = new BackupManager(this);
+        backupManager.start();
+        dataTransferManager = new DataTransferManager(this);
 
         stageConfigManager = new StageConfigManager(this);
         blockListManager = new BlockListManager(this);
         stageManager = new StageManager(this);
         itemsAdderManager = new ItemsAdderManager(this);
         enhancedChestManager = new EnhancedChestManager(this);
+        configureChestLoot();
         entityManager = new EntityManager(this);
+        configReloader = new ConfigReloader(this);
+        applyConfigSnapshot(configReloader.loadInitial());
+        configWatcher = new ConfigWatcher(this);
+        configWatcher.start();
         blockGenerator = new BlockGenerator(this);
+        generationScheduler = new GenerationScheduler(this);
+        generationScheduler.start();
+        configureRateLimiter();
 
         getServer().getPluginManager().registerEvents(new BlockBreakListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerJoinListener(this), this);
+        getServer().getPluginManager().registerEvents(new ChestLootListener(this), this);
 
         PluginCommand command = getCommand("kaoneblock");
         if (command == null) {
@@ -107,6 +108,24 @@ public final class KaOneBlock extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (generationScheduler != null) {
+            generationScheduler.close();
+        }
+        if (enhancedChestManager != null) {
+            enhancedChestManager.getLootPools().close();
+        }
+        if (configWatcher != null) {
+            configWatcher.close();
+        }
+        if (configReloader != null) {
+            configReloader.close();
+        }
+        if (dataTransferManager != null) {
+            dataTransferManager.close();
+        }
+        if (backupManager != null) {
+            backupManager.close();
+        }
         if (databaseManager != null) {
             databaseManager.close();
         }
@@ -119,37 +138,104 @@ public final class KaOneBlock extends JavaPlugin {
     }
 
     /**
-     * Reloads mutable configuration and all file-backed caches without resetting player progress.
+     * Reloads the main configuration and language files immediately and queues a background reload of the stage,
+     * block, entity and chest files, which reports to the sender once it is applied or rejected.
      */
-    public void reloadPlugin() {
+    public void reloadPlugin(CommandSender sender) {
         reloadConfig();
-        debugMode = getConfig().getBoolean("debug", false);
+        configureDebug();
         languageManager.loadLanguageFiles();
-        stageConfigManager.clearCache();
-        blockListManager.clearCache();
-        entityManager.clearCache();
-        enhancedChestManager.loadChestConfigs();
         logManager.setEnabled(getConfig().getBoolean("log", true));
-        getLogger().info(languageManager.getMessage("config-reloaded"));
+        generationScheduler.loadSettings();
+        configureRateLimiter();
+        configureChestLoot();
+        configReloader.reload(sender);
+        configWatcher.start();
     }
 
     /**
-     * Writes a raw debug message only when debug mode is enabled.
+     * Switches gameplay to a fully parsed configuration snapshot, rebinds player stages to its stage graph and
+     * starts pre-rolling its chest loot.
      */
-    public void debug(String message) {
-        if (debugMode) {
-            getLogger().info("[DEBUG] " + message);
+    void applyConfigSnapshot(ConfigSnapshot snapshot) {
+        configSnapshot = snapshot;
+        stageManager.rebindProgress();
+        enhancedChestManager.resolveCustomItems(snapshot.chests());
+        enhancedChestManager.getLootPools().rebuild(snapshot.chests());
+    }
+
+    /**
+     * Applies the pre-rolled loot pool and lazy fill settings for chests from the configuration.
+     */
+    private void configureChestLoot() {
+        enhancedChestManager.getLootPools().configure(
+                getConfig().getBoolean("loot-pool.enabled", true),
+                getConfig().getInt("loot-pool.depth", 8)
+        );
+        enhancedChestManager.setLazyFill(getConfig().getBoolean("chest-fill.lazy", false));
+    }
+
+    /**
+     * Applies the per-player break rate limits from the configuration.
+     */
+    private void configureRateLimiter() {
+        breakRateLimiter.configure(
+                getConfig().getBoolean("rate-limit.enabled", false),
+                getConfig().getDouble("rate-limit.burst", 20),
+                getConfig().getDouble("rate-limit.breaks-per-second", 20)
+        );
+    }
+
+    /**
+     * Applies the debug switch, subsystem levels, player filter and break sampling from the configuration.
+     */
+    private void configureDebug() {
+        DebugTracer.Level defaultLevel = DebugTracer.parseLevel(getConfig().getString("debug-options.level"), DebugTracer.Level.DEBUG);
+        Map<DebugTracer.Subsystem, DebugTracer.Level> overrides = new EnumMap<>(DebugTracer.Subsystem.class);
+        ConfigurationSection subsystems = getConfig().getConfigurationSection("debug-options.subsystems");
+        if (subsystems != null) {
+            for (String name : subsystems.getKeys(false)) {
+                try {
+                    DebugTracer.Subsystem subsystem = DebugTracer.Subsystem.valueOf(name.toUpperCase(Locale.ROOT));
+                    overrides.put(subsystem, DebugTracer.parseLevel(subsystems.getString(name), defaultLevel));
+                } catch (IllegalArgumentException exception) {
+                    getLogger().warning("Unknown debug subsystem: " + name);
+                }
+            }
         }
+        debugTracer.configure(
+                getConfig().getBoolean("debug", false),
+                defaultLevel,
+                overrides,
+                Set.copyOf(getConfig().getStringList("debug-options.players")),
+                getConfig().getInt("debug-options.sample-rate", 1)
+        );
+    }
+
+    /**
+     * Writes a subsystem summary, building the message only when that output is enabled.
+     */
+    public void debug(DebugTracer.Subsystem subsystem, Supplier<String> message) {
+        debugTracer.debug(subsystem, message);
     }
 
     /**
-     * Resolves and formats a localized debug message only when debug mode is enabled.
+     * Writes subsystem detail, building the message only when that subsystem is traced.
      */
-    public void debug(String key, Map<String, String> replacements) {
-        if (!debugMode || languageManager == null) {
+    public void trace(DebugTracer.Subsystem subsystem, Supplier<String> message) {
+        debugTracer.trace(subsystem, message);
+    }
+
+    /**
+     * Resolves a localized debug message in the server language and fills its placeholders only when enabled.
+     */
+    public void debugMessage(DebugTracer.Subsystem subsystem, String key, Consumer<MessageTemplate.Renderer> placeholders) {
+        if (!debugTracer.isEnabled(subsystem, DebugTracer.Level.DEBUG)) {
             return;
         }
-        debug(ChatColor.stripColor(languageManager.getMessage(key, replacements)));
+        MessageTemplate.Renderer renderer = languageManager.message(null, key);
+        placeholders.accept(renderer);
+        debugTracer.write(subsystem, ChatColor.stripColor(renderer.render()));
     }
 
     /**
@@ -204,7 +290,11 @@ public final class KaOneBlock extends JavaPlugin {
     }
 
     public boolean isDebugEnabled() {
-        return debugMode;
+        return debugTracer.isEnabled();
+    }
+
+    public DebugTracer getDebugTracer() {
+        return debugTracer;
     }
 
     public LanguageManager getLanguageManager() {
@@ -219,6 +309,30 @@ public final class KaOneBlock extends JavaPlugin {
         return databaseManager;
     }
 
+    public ConfigSnapshot getConfigSnapshot() {
+        return configSnapshot;
+    }
+
+    public ConfigReloader getConfigReloader() {
+        return configReloader;
+    }
+
+    public GenerationScheduler getGenerationScheduler() {
+        return generationScheduler;
+    }
+
+    BreakRateLimiter getBreakRateLimiter() {
+        return breakRateLimiter;
+    }
+
+    public BackupManager getBackupManager() {
+        return backupManager;
+    }
+
+    public DataTransferManager getDataTransferManager() {
+        return dataTransferManager;
+    }
+
     public boolean isItemsAdderEnabled() {
         return itemsAdderManager != null && itemsAdderManager.isEnabled();
     }
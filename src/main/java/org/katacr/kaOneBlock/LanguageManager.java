@@ -1,18 +1,27 @@
 package org.katacr.kaOneBlock;
 
-import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LanguageManager {
     private final JavaPlugin plugin;
     private final Map<String, FileConfiguration> languages = new HashMap<>();
-    private FileConfiguration currentLang;
+    // 编译后的消息模板，按小写语言代码索引，例如 zh_cn
+    private final Map<String, Map<String, MessageTemplate>> templates = new TreeMap<>();
+    // 客户端语言到已加载语言的解析结果缓存
+    private final Map<String, Map<String, MessageTemplate>> localeTemplates = new ConcurrentHashMap<>();
+    private volatile Map<String, MessageTemplate> currentTemplates = Map.of();
+    private volatile boolean perPlayerLanguage;
 
     public LanguageManager(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -21,6 +30,8 @@ public class LanguageManager {
     public void loadLanguageFiles() {
         // 清空现有语言
         languages.clear();
+        templates.clear();
+        localeTemplates.clear();
 
         // 从lang目录加载所有语言文件
         File langDir = new File(plugin.getDataFolder(), "lang");
@@ -35,6 +46,7 @@ public class LanguageManager {
 
                     FileConfiguration langConfig = YamlConfiguration.loadConfiguration(langFile);
                     languages.put(langCode, langConfig);
+                    templates.put(langCode.toLowerCase(Locale.ROOT), compileTemplates(langConfig));
                     plugin.getLogger().info("Loaded language file: " + fileName + " -> " + langCode);
                 }
             }
@@ -42,42 +54,119 @@ public class LanguageManager {
 
         // 根据配置设置当前语言
         String language = plugin.getConfig().getString("language", "en_US");
+        perPlayerLanguage = plugin.getConfig().getBoolean("per-player-language", true);
         setLanguage(language);
     }
 
+    /**
+     * Compiles every string in a language file into a message template.
+     */
+    private static Map<String, MessageTemplate> compileTemplates(FileConfiguration langConfig) {
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        for (String key : langConfig.getKeys(true)) {
+            if (langConfig.isString(key)) {
+                compiled.put(key, MessageTemplate.compile(langConfig.getString(key)));
+            }
+        }
+        return Map.copyOf(compiled);
+    }
+
     private void setLanguage(String langCode) {
         if (languages.containsKey(langCode)) {
-            currentLang = languages.get(langCode);
-            plugin.getLogger().info(getMessage("language-loaded").replace("%language%", langCode));
+            currentTemplates = templates.get(langCode.toLowerCase(Locale.ROOT));
+            plugin.getLogger().info(message(null, "language-loaded").with("language", langCode).render());
         } else {
             // 如果指定的语言未找到，回退到英语
             if (languages.containsKey("en_US")) {
-                currentLang = languages.get("en_US");
+                currentTemplates = templates.get("en_us");
                 plugin.getLogger().warning("Language '" + langCode + "' not found. Falling back to en_US.");
             } else if (!languages.isEmpty()) {
                 // 回退到任何可用的语言
-                currentLang = languages.values().iterator().next();
+                currentTemplates = templates.values().iterator().next();
                 plugin.getLogger().warning("Language '" + langCode + "' not found. Falling back to first available language.");
             } else {
-                // 未找到语言文件，创建空配置以防止NPE
-                currentLang = new YamlConfiguration();
+                // 未找到语言文件，使用空模板表以防止NPE
+                currentTemplates = Map.of();
                 plugin.getLogger().severe("No language files found! Please check your lang directory.");
             }
         }
     }
 
+    /**
+     * Resolves a localized message in the server language.
+     */
     public String getMessage(String key) {
-        return ChatColor.translateAlternateColorCodes('&', currentLang.getString(key, "Message not found: " + key));
+        return template(currentTemplates, key).render();
     }
 
     /**
      * Resolves a localized message and replaces all named percent placeholders.
      */
     public String getMessage(String key, Map<String, String> replacements) {
-        String message = getMessage(key);
-        for (Map.Entry<String, String> replacement : replacements.entrySet()) {
-            message = message.replace("%" + replacement.getKey() + "%", replacement.getValue());
+        return template(currentTemplates, key).render(replacements);
+    }
+
+    /**
+     * Resolves a localized message in the recipient's client language when it is loaded.
+     */
+    public String getMessage(CommandSender recipient, String key) {
+        return template(templatesFor(recipient), key).render();
+    }
+
+    /**
+     * Resolves a localized message for a recipient and replaces all named percent placeholders.
+     */
+    public String getMessage(CommandSender recipient, String key, Map<String, String> replacements) {
+        return template(templatesFor(recipient), key).render(replacements);
+    }
+
+    /**
+     * Starts rendering a message for a recipient, or in the server language for null, without building a map.
+     */
+    public MessageTemplate.Renderer message(CommandSender recipient, String key) {
+        return template(templatesFor(recipient), key).renderer();
+    }
+
+    /**
+     * Returns the template for a key, falling back to the server language and then to a not-found notice.
+     */
+    private MessageTemplate template(Map<String, MessageTemplate> language, String key) {
+        MessageTemplate template = language.get(key);
+        if (template == null && language != currentTemplates) {
+            template = currentTemplates.get(key);
+        }
+        return template != null ? template : MessageTemplate.compile("Message not found: " + key);
+    }
+
+    /**
+     * Returns the templates of a player's client language, or of the server language for other recipients.
+     */
+    private Map<String, MessageTemplate> templatesFor(CommandSender recipient) {
+        if (!perPlayerLanguage || !(recipient instanceof Player player)) {
+            return currentTemplates;
+        }
+        String locale = player.getLocale();
+        if (locale == null || locale.isEmpty()) {
+            return currentTemplates;
+        }
+        return localeTemplates.computeIfAbsent(locale.toLowerCase(Locale.ROOT), this::resolveLocale);
+    }
+
+    /**
+     * Matches a client locale such as zh_tw to a loaded language, first exactly and then by its language part.
+     */
+    private Map<String, MessageTemplate> resolveLocale(String locale) {
+        Map<String, MessageTemplate> exact = templates.get(locale);
+        if (exact != null) {
+            return exact;
+        }
+        int separator = locale.indexOf('_');
+        String prefix = (separator < 0 ? locale : locale.substring(0, separator)) + "_";
+        for (Map.Entry<String, Map<String, MessageTemplate>> language : templates.entrySet()) {
+            if (language.getKey().startsWith(prefix)) {
+                return language.getValue();
+            }
         }
-        return message;
+        return currentTemplates;
     }
 }
@@ -0,0 +1,167 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A language message compiled once on load: color codes are already translated and the text is split into literal
+ * segments around its {@code %name%} placeholders, so rendering only concatenates.
+ *
+ * <p>Placeholders without a value are rendered as written, which matches the old replace-based behavior.</p>
+ */
+public final class MessageTemplate {
+    private static final ThreadLocal<Renderer> RENDERERS = ThreadLocal.withInitial(Renderer::new);
+
+    private final String[] literals;
+    private final String[] placeholders;
+    private final String text;
+
+    private MessageTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.text = placeholders.length == 0 ? literals[0] : null;
+    }
+
+    /**
+     * Translates the {@code &} color codes of a raw message and tokenizes its placeholders.
+     */
+    public static MessageTemplate compile(String raw) {
+        String translated = ChatColor.translateAlternateColorCodes('&', raw);
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        while (index < translated.length()) {
+            char character = translated.charAt(index);
+            int end = character == '%' ? placeholderEnd(translated, index) : -1;
+            if (end < 0) {
+                literal.append(character);
+                index++;
+                continue;
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            placeholders.add(translated.substring(index + 1, end));
+            index = end + 1;
+        }
+        literals.add(literal.toString());
+        return new MessageTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the index of the percent sign closing a placeholder opened at {@code start}, or -1 when none follows.
+     */
+    private static int placeholderEnd(String text, int start) {
+        int index = start + 1;
+        while (index < text.length()) {
+            char character = text.charAt(index);
+            if (character == '%') {
+                return index > start + 1 ? index : -1;
+            }
+            if (!Character.isLetterOrDigit(character) && character != '_' && character != '-') {
+                return -1;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the message with every placeholder left as written.
+     */
+    public String render() {
+        return text != null ? text : renderer().render();
+    }
+
+    /**
+     * Returns the message with the placeholders named in the map replaced.
+     */
+    public String render(Map<String, String> replacements) {
+        if (text != null) {
+            return text;
+        }
+        Renderer renderer = renderer();
+        for (Map.Entry<String, String> replacement : replacements.entrySet()) {
+            renderer.with(replacement.getKey(), replacement.getValue());
+        }
+        return renderer.render();
+    }
+
+    /**
+     * Starts filling this template's placeholders with the calling thread's reusable renderer.
+     */
+    public Renderer renderer() {
+        Renderer renderer = RENDERERS.get();
+        if (renderer.template != null) {
+            // A value is itself being rendered; leave the outer renderer untouched.
+            renderer = new Renderer();
+        }
+        renderer.begin(this);
+        return renderer;
+    }
+
+    /**
+     * Collects placeholder values for one template and renders them into a reused buffer; it is released for the
+     * next message when {@link #render()} returns.
+     */
+    public static final class Renderer {
+        private final StringBuilder builder = new StringBuilder(128);
+        private String[] values = new String[4];
+        private MessageTemplate template;
+
+        /**
+         * Binds this renderer to a template with no values set.
+         */
+        private void begin(MessageTemplate template) {
+            this.template = template;
+            if (values.length < template.placeholders.length) {
+                values = new String[template.placeholders.length];
+            }
+        }
+
+        /**
+         * Sets every occurrence of a placeholder to the value's string form; unknown names are ignored.
+         */
+        public Renderer with(String name, Object value) {
+            String[] names = template.placeholders;
+            String text = String.valueOf(value);
+            for (int index = 0; index < names.length; index++) {
+                if (names[index].equals(name)) {
+                    values[index] = text;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Renders the message and releases this renderer.
+         */
+        public String render() {
+            MessageTemplate current = template;
+            if (current.text != null) {
+                template = null;
+                return current.text;
+            }
+            int count = current.placeholders.length;
+            try {
+                builder.setLength(0);
+                for (int index = 0; index < count; index++) {
+                    builder.append(current.literals[index]);
+                    if (values[index] != null) {
+                        builder.append(values[index]);
+                    } else {
+                        builder.append('%').append(current.placeholders[index]).append('%');
+                    }
+                }
+                return builder.append(current.literals[count]).toString();
+            } finally {
+                Arrays.fill(values, 0, count, null);
+                template = null;
+            }
+        }
+    }
+}
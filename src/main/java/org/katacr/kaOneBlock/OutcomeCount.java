@@ -0,0 +1,7 @@
+package org.katacr.kaOneBlock;
+
+/**
+ * Sums the rolled-up break history of one outcome over a queried period.
+ */
+public record OutcomeCount(GenerationSelector.OutcomeType outcomeType, String outcomeId, long count) {
+}
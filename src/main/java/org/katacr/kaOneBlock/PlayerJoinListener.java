@@ -1,8 +1,11 @@
 package org.katacr.kaOneBlock;
 
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 public class PlayerJoinListener implements Listener {
     private final KaOneBlock plugin;
@@ -11,8 +14,42 @@ public class PlayerJoinListener implements Listener {
         this.plugin = plugin;
     }
 
+    /**
+     * Prefetches the connecting player's record off the server thread and refuses the login when it cannot be read.
+     */
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+        if (!plugin.getDatabaseManager().hydrate(event.getUniqueId())) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    plugin.getLanguageManager().getMessage("database-error"));
+        }
+    }
+
+    /**
+     * Releases a prefetched record when a later listener refused the login.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLoginResult(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            plugin.getDatabaseManager().release(event.getUniqueId());
+        }
+    }
+
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         plugin.getStageManager().onPlayerJoin(event.getPlayer());
     }
-}
\ No newline at end of file
+
+    /**
+     * Drops the player's stage and rate limit state and lets the record cache evict the offline player later.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        plugin.getStageManager().onPlayerQuit(event.getPlayer().getUniqueId());
+        plugin.getBreakRateLimiter().forget(event.getPlayer().getUniqueId());
+        plugin.getDatabaseManager().release(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,404 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.World;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiPredicate;
+
+/**
+ * Maps OneBlock positions to their owners with one open-addressing table per world keyed by packed coordinates, so
+ * looking up a broken block allocates nothing and hashes no UUID.
+ *
+ * <p>Each world also keeps a counting filter over chunk keys: one counter slot per hashed chunk, incremented per
+ * registered block. A break in a chunk whose slot is zero is rejected after that single probe, which is the common
+ * case for survival worlds sharing the server with OneBlock islands. Counters support removal, so the filter never
+ * needs a rebuild to stay exact about empty slots; it only grows with the number of blocks to keep collisions
+ * rare.</p>
+ *
+ * <p>Lookups are optimistic and take no lock. The rare changes from the server thread and the storage writer are
+ * serialized by a {@link StampedLock}, and a lookup that overlapped a change is repeated under the read lock.</p>
+ */
+final class PositionIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_FILTER_SLOTS = 1024;
+    private static final int FILTER_SLOTS_PER_BLOCK = 4;
+    private static final Reference<World> UNBOUND = new WeakReference<>(null);
+
+    private final StampedLock lock = new StampedLock();
+    private volatile WorldTable[] tables = new WorldTable[0];
+    private volatile int size;
+
+    /**
+     * Returns the owner of the block at the given coordinates of a loaded world, or null when none is registered.
+     */
+    UUID get(World world, int x, int y, int z) {
+        long stamp = lock.tryOptimisticRead();
+        UUID owner = find(table(world), x, y, z);
+        if (lock.validate(stamp)) {
+            return owner;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(table(world), x, y, z);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the owner of the block at the given coordinates of a world id, or null when none is registered.
+     */
+    UUID get(UUID worldId, int x, int y, int z) {
+        long stamp = lock.tryOptimisticRead();
+        UUID owner = find(table(worldId), x, y, z);
+        if (lock.validate(stamp)) {
+            return owner;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(table(worldId), x, y, z);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the owner registered at a position, or null when none is registered.
+     */
+    UUID get(BlockPosition position) {
+        return get(position.worldId(), position.x(), position.y(), position.z());
+    }
+
+    /**
+     * Reports whether any owner is registered at a position.
+     */
+    boolean containsKey(BlockPosition position) {
+        return get(position) != null;
+    }
+
+    /**
+     * Registers an owner unless the position is taken and returns the previous owner, or null when it was free.
+     */
+    UUID putIfAbsent(BlockPosition position, UUID owner) {
+        long stamp = lock.writeLock();
+        try {
+            return insert(position, owner, false);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Registers an owner, replacing any previous owner of the position.
+     */
+    void put(BlockPosition position, UUID owner) {
+        long stamp = lock.writeLock();
+        try {
+            insert(position, owner, true);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Registers every entry of a map, replacing previous owners.
+     */
+    void putAll(Map<BlockPosition, UUID> owners) {
+        long stamp = lock.writeLock();
+        try {
+            owners.forEach((position, owner) -> insert(position, owner, true));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a position only while it is still registered to the given owner.
+     */
+    boolean remove(BlockPosition position, UUID owner) {
+        long stamp = lock.writeLock();
+        try {
+            return delete(table(position.worldId()), position.packed(), owner);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every entry the filter accepts; intended for rare maintenance, as it creates one position per entry.
+     */
+    void removeIf(BiPredicate<BlockPosition, UUID> filter) {
+        long stamp = lock.writeLock();
+        try {
+            for (WorldTable table : tables) {
+                Slots slots = table.slots;
+                List<Long> expired = new ArrayList<>();
+                for (int index = 0; index < slots.owners.length; index++) {
+                    UUID owner = slots.owners[index];
+                    if (owner != null && filter.test(BlockPosition.unpack(table.worldId, slots.keys[index]), owner)) {
+                        expired.add(slots.keys[index]);
+                    }
+                }
+                for (long key : expired) {
+                    delete(table, key, null);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of registered positions across all worlds.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes every registered position.
+     */
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            tables = new WorldTable[0];
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds the table of a loaded world by identity, binding the world object to its table on first sight.
+     */
+    private WorldTable table(World world) {
+        WorldTable[] current = tables;
+        for (WorldTable table : current) {
+            if (table.boundWorld.get() == world) {
+                return table;
+            }
+        }
+        UUID worldId = world.getUID();
+        for (WorldTable table : current) {
+            if (table.worldId.equals(worldId)) {
+                table.boundWorld = new WeakReference<>(world);
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the table of a world id without hashing it; servers only have a handful of worlds.
+     */
+    private WorldTable table(UUID worldId) {
+        for (WorldTable table : tables) {
+            if (table.worldId.equals(worldId)) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rejects blocks in chunks without any registered block after one filter probe, then probes the table for the
+     * packed coordinates, bounded by the table length so a concurrent change cannot trap the probe.
+     */
+    private static UUID find(WorldTable table, int x, int y, int z) {
+        if (table == null) {
+            return null;
+        }
+        int[] filter = table.chunkFilter;
+        if (filter[chunkHash(x >> 4, z >> 4) & (filter.length - 1)] == 0) {
+            return null;
+        }
+        long key = BlockPosition.pack(x, y, z);
+        Slots slots = table.slots;
+        long[] keys = slots.keys;
+        UUID[] owners = slots.owners;
+        int mask = owners.length - 1;
+        int index = hash(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            UUID owner = owners[index];
+            if (owner == null) {
+                return null;
+            }
+            if (keys[index] == key) {
+                return owner;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Inserts or optionally replaces one entry under the write lock and returns the previous owner.
+     */
+    private UUID insert(BlockPosition position, UUID owner, boolean replace) {
+        WorldTable table = table(position.worldId());
+        if (table == null) {
+            table = new WorldTable(position.worldId());
+            WorldTable[] grown = Arrays.copyOf(tables, tables.length + 1);
+            grown[grown.length - 1] = table;
+            tables = grown;
+        }
+        long key = position.packed();
+        Slots slots = table.slots;
+        int mask = slots.owners.length - 1;
+        int index = hash(key) & mask;
+        while (slots.owners[index] != null) {
+            if (slots.keys[index] == key) {
+                UUID previous = slots.owners[index];
+                if (replace) {
+                    slots.owners[index] = owner;
+                }
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        if ((table.size + 1) * 2 > slots.owners.length) {
+            table.slots = slots = slots.grow();
+            mask = slots.owners.length - 1;
+            index = hash(key) & mask;
+            while (slots.owners[index] != null) {
+                index = (index + 1) & mask;
+            }
+        }
+        slots.keys[index] = key;
+        slots.owners[index] = owner;
+        table.size++;
+        size++;
+        if ((long) table.size * FILTER_SLOTS_PER_BLOCK > table.chunkFilter.length) {
+            table.chunkFilter = table.buildFilter(table.chunkFilter.length * 2);
+        } else {
+            table.chunkFilter[chunkSlot(key, table.chunkFilter)]++;
+        }
+        return null;
+    }
+
+    /**
+     * Deletes one entry under the write lock, optionally only for an expected owner, and shifts later entries of the
+     * same probe run back so lookups never need tombstones.
+     */
+    private boolean delete(WorldTable table, long key, UUID expectedOwner) {
+        if (table == null) {
+            return false;
+        }
+        Slots slots = table.slots;
+        int mask = slots.owners.length - 1;
+        int hole = hash(key) & mask;
+        while (slots.owners[hole] != null && slots.keys[hole] != key) {
+            hole = (hole + 1) & mask;
+        }
+        if (slots.owners[hole] == null || (expectedOwner != null && !expectedOwner.equals(slots.owners[hole]))) {
+            return false;
+        }
+        int next = (hole + 1) & mask;
+        while (slots.owners[next] != null) {
+            int home = hash(slots.keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots.keys[hole] = slots.keys[next];
+                slots.owners[hole] = slots.owners[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots.owners[hole] = null;
+        table.size--;
+        size--;
+        table.chunkFilter[chunkSlot(key, table.chunkFilter)]--;
+        return true;
+    }
+
+    /**
+     * Spreads packed coordinates, whose low bits are mostly the y level, across the table.
+     */
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    /**
+     * Hashes chunk coordinates for the chunk filter.
+     */
+    private static int chunkHash(int chunkX, int chunkZ) {
+        return hash(((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Returns the chunk filter slot of packed block coordinates.
+     */
+    private static int chunkSlot(long key, int[] filter) {
+        return chunkHash(BlockPosition.unpackX(key) >> 4, BlockPosition.unpackZ(key) >> 4) & (filter.length - 1);
+    }
+
+    /**
+     * Holds the entries and chunk filter of one world and the last world object seen for it.
+     */
+    private static final class WorldTable {
+        private final UUID worldId;
+        private volatile Reference<World> boundWorld = UNBOUND;
+        private volatile Slots slots = new Slots(INITIAL_CAPACITY);
+        private volatile int[] chunkFilter = new int[MIN_FILTER_SLOTS];
+        private int size;
+
+        private WorldTable(UUID worldId) {
+            this.worldId = worldId;
+        }
+
+        /**
+         * Counts every registered block into a new chunk filter with the given number of slots.
+         */
+        private int[] buildFilter(int length) {
+            int[] filter = new int[length];
+            Slots current = slots;
+            for (int index = 0; index < current.owners.length; index++) {
+                if (current.owners[index] != null) {
+                    filter[chunkSlot(current.keys[index], filter)]++;
+                }
+            }
+            return filter;
+        }
+    }
+
+    /**
+     * Parallel key and owner arrays of one table generation, replaced as a unit when the table grows so a lookup
+     * always reads arrays of the same length.
+     */
+    private static final class Slots {
+        private final long[] keys;
+        private final UUID[] owners;
+
+        private Slots(int capacity) {
+            keys = new long[capacity];
+            owners = new UUID[capacity];
+        }
+
+        /**
+         * Returns a table of twice the capacity holding the same entries.
+         */
+        private Slots grow() {
+            Slots grown = new Slots(owners.length * 2);
+            int mask = grown.owners.length - 1;
+            for (int index = 0; index < owners.length; index++) {
+                if (owners[index] == null) {
+                    continue;
+                }
+                int target = hash(keys[index]) & mask;
+                while (grown.owners[target] != null) {
+                    target = (target + 1) & mask;
+                }
+                grown.keys[target] = keys[index];
+                grown.owners[target] = owners[index];
+            }
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package org.katacr.kaOneBlock;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Line-oriented file formats for exporting and importing OneBlock records one row at a time.
+ */
+public enum RecordFormat {
+    NDJSON("ndjson") {
+        @Override
+        String header() {
+            return null;
+        }
+
+        @Override
+        String encode(GeneratedBlockRecord record) {
+            JsonObject json = new JsonObject();
+            json.addProperty("player_uuid", record.playerId().toString());
+            json.addProperty("player_name", record.playerName());
+            json.addProperty("world_uuid", record.position().worldId().toString());
+            json.addProperty("world_name", record.worldName());
+            json.addProperty("x", record.position().x());
+            json.addProperty("y", record.position().y());
+            json.addProperty("z", record.position().z());
+            json.addProperty("block_type", record.blockType());
+            json.addProperty("stage_file", record.stageFile());
+            json.addProperty("blocks_broken", record.blocksBroken());
+            return json.toString();
+        }
+
+        @Override
+        GeneratedBlockRecord decode(String line) {
+            try {
+                JsonElement element = JsonParser.parseString(line);
+                if (!element.isJsonObject()) {
+                    throw new IllegalArgumentException("Expected a JSON object");
+                }
+                JsonObject json = element.getAsJsonObject();
+                List<String> values = new ArrayList<>(COLUMNS.size());
+                for (String column : COLUMNS) {
+                    JsonElement value = json.get(column);
+                    if (value == null || value.isJsonNull()) {
+                        throw new IllegalArgumentException("Missing " + column);
+                    }
+                    values.add(value.getAsString());
+                }
+                return toRecord(values);
+            } catch (JsonParseException | UnsupportedOperationException exception) {
+                throw new IllegalArgumentException("Invalid JSON: " + exception.getMessage(), exception);
+            }
+        }
+    },
+    CSV("csv") {
+        @Override
+        String header() {
+            return String.join(",", COLUMNS);
+        }
+
+        @Override
+        String encode(GeneratedBlockRecord record) {
+            return String.join(",",
+                    record.playerId().toString(),
+                    quote(record.playerName()),
+                    record.position().worldId().toString(),
+                    quote(record.worldName()),
+                    String.valueOf(record.position().x()),
+                    String.valueOf(record.position().y()),
+                    String.valueOf(record.position().z()),
+                    quote(record.blockType()),
+                    quote(record.stageFile()),
+                    String.valueOf(record.blocksBroken()));
+        }
+
+        @Override
+        GeneratedBlockRecord decode(String line) {
+            List<String> values = split(line);
+            if (values.size() != COLUMNS.size()) {
+                throw new IllegalArgumentException("Expected " + COLUMNS.size() + " columns but found " + values.size());
+            }
+            return toRecord(values);
+        }
+    };
+
+    private static final List<String> COLUMNS = List.of("player_uuid", "player_name", "world_uuid", "world_name",
+            "x", "y", "z", "block_type", "stage_file", "blocks_broken");
+
+    private final String extension;
+
+    RecordFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the header line written before the first record, or null when the format has none.
+     */
+    abstract String header();
+
+    /**
+     * Encodes one record as a single line without a line terminator.
+     */
+    abstract String encode(GeneratedBlockRecord record);
+
+    /**
+     * Decodes one line, throwing {@link IllegalArgumentException} with a short reason when it is invalid.
+     */
+    abstract GeneratedBlockRecord decode(String line);
+
+    /**
+     * Returns the file extension used for exports in this format.
+     */
+    String extension() {
+        return extension;
+    }
+
+    /**
+     * Resolves a format from a command argument such as {@code csv}.
+     */
+    static Optional<RecordFormat> fromName(String name) {
+        String normalized = name.toLowerCase(Locale.ROOT);
+        for (RecordFormat format : values()) {
+            if (format.extension.equals(normalized)) {
+                return Optional.of(format);
+            }
+        }
+        return normalized.equals("jsonl") ? Optional.of(NDJSON) : Optional.empty();
+    }
+
+    /**
+     * Resolves a format from a file name's extension.
+     */
+    static Optional<RecordFormat> fromFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? Optional.empty() : fromName(fileName.substring(dot + 1));
+    }
+
+    /**
+     * Builds a validated record from values in column order.
+     */
+    private static GeneratedBlockRecord toRecord(List<String> values) {
+        try {
+            UUID playerId = UUID.fromString(values.get(0));
+            UUID worldId = UUID.fromString(values.get(2));
+            BlockPosition position = new BlockPosition(worldId,
+                    Integer.parseInt(values.get(4)), Integer.parseInt(values.get(5)), Integer.parseInt(values.get(6)));
+            int blocksBroken = Integer.parseInt(values.get(9));
+            if (blocksBroken < 0) {
+                throw new IllegalArgumentException("blocks_broken must not be negative");
+            }
+            return new GeneratedBlockRecord(playerId, requireText(values.get(1), "player_name"), position,
+                    requireText(values.get(3), "world_name"), requireText(values.get(7), "block_type"),
+                    requireText(values.get(8), "stage_file"), blocksBroken);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid number: " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Rejects blank text values.
+     */
+    private static String requireText(String value, String column) {
+        if (value.isBlank()) {
+            throw new IllegalArgumentException("Missing " + column);
+        }
+        return value;
+    }
+
+    /**
+     * Quotes a CSV field when it contains a separator, quote or line break.
+     */
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Splits one CSV line, honoring quoted fields and doubled quotes.
+     */
+    private static List<String> split(String line) {
+        List<String> values = new ArrayList<>(COLUMNS.size());
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int index = 0; index < line.length(); index++) {
+            char character = line.charAt(index);
+            if (quoted) {
+                if (character != '"') {
+                    value.append(character);
+                } else if (index + 1 < line.length() && line.charAt(index + 1) == '"') {
+                    value.append('"');
+                    index++;
+                } else {
+                    quoted = false;
+                }
+            } else if (character == '"') {
+                quoted = true;
+            } else if (character == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(character);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
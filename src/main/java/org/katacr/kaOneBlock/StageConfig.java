@@ -10,4 +10,5 @@ public class StageConfig {
     public Map<String, Double> chestChances = new LinkedHashMap<>();
     public String entityPack = "";  // 实体包名称
     public double entityChance = 0.05;  // 实体生成概率 (5%)
+    public StageOutcomeTable outcomes;  // 加载时编译的实体、宝箱和方块结果表
 }
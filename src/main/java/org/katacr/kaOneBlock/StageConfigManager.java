@@ -1,49 +1,47 @@
 package org.katacr.kaOneBlock;
 
+import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 
-import java.io.File;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
 
 public class StageConfigManager {
     private static final Pattern SAFE_STAGE_NAME = Pattern.compile("[A-Za-z0-9_-]+(?:\\.yml)?");
     private final KaOneBlock plugin;
-    private final Map<String, StageConfig> configCache = new HashMap<>();
 
     public StageConfigManager(KaOneBlock plugin) {
         this.plugin = plugin;
     }
 
     /**
-     * 加载阶段配置
+     * 判断 blocks 目录中的文件名是否可作为阶段
      */
-    public StageConfig loadStageConfig(String fileName) {
-        try {
-            fileName = normalizeStageFile(fileName);
-        } catch (IllegalArgumentException exception) {
-            plugin.getLogger().warning("非法阶段文件名: " + fileName);
-            return null;
-        }
-
-        // 检查缓存
-        if (configCache.containsKey(fileName)) {
-            return configCache.get(fileName);
-        }
-
-        File configFile = new File(plugin.getDataFolder(), "blocks/" + fileName);
-        plugin.debug("加载阶段配置: " + configFile.getAbsolutePath());
+    public static boolean isStageFile(String fileName) {
+        return fileName.endsWith(".yml") && SAFE_STAGE_NAME.matcher(fileName).matches();
+    }
 
-        if (!configFile.exists()) {
-            plugin.getLogger().warning("阶段配置文件不存在: " + configFile.getAbsolutePath());
-            return null;
+    /**
+     * 将已解析的阶段编译为阶段图，报告无效链接和循环
+     */
+    public StageGraph compileGraph(Map<String, StageConfig> configs) {
+        StageGraph graph = StageGraph.compile(configs);
+        for (StageGraph.Issue issue : graph.issues()) {
+            switch (issue.kind()) {
+                case INVALID_NEXT -> plugin.getLogger().warning("阶段 " + issue.stageFile() + " 的下一阶段文件名无效: " + issue.detail() + "，已作为最终阶段");
+                case MISSING_NEXT -> plugin.getLogger().warning("阶段 " + issue.stageFile() + " 的下一阶段不存在: " + issue.detail() + "，已作为最终阶段");
+                case CYCLE -> plugin.getLogger().warning("阶段形成循环: " + issue.detail());
+            }
         }
+        plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "编译阶段图: " + graph.size() + " 个阶段");
+        return graph;
+    }
 
-        FileConfiguration yaml = YamlConfiguration.loadConfiguration(configFile);
+    /**
+     * 解析一个阶段配置，并用其方块列表编译结果表
+     */
+    public StageConfig parseStageConfig(String fileName, ConfigurationSection yaml, WeightedRandom<Object> blocks) {
         StageConfig config = new StageConfig();
 
         // 加载基本配置
@@ -95,19 +93,16 @@ public class StageConfigManager {
         }
 
         config.chestChances = Collections.unmodifiableMap(config.chestChances);
-
-        // 缓存配置
-        configCache.put(fileName, config);
-        plugin.debug("加载阶段配置: " + fileName);
+        config.outcomes = compileOutcomes(config, blocks);
+        plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "加载阶段配置: " + fileName);
         return config;
     }
 
     /**
-     * 清除缓存
+     * 编译阶段的实体、宝箱和方块结果表，方块列表缺失时使用石头
      */
-    public void clearCache() {
-        configCache.clear();
-        plugin.debug("Cleared stage config cache");
+    static StageOutcomeTable compileOutcomes(StageConfig config, WeightedRandom<Object> blocks) {
+        return StageOutcomeTable.compile(config.entityChance, config.chestChances, blocks, Material.STONE);
     }
 
     /**
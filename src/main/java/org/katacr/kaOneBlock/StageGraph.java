@@ -0,0 +1,150 @@
+package org.katacr.kaOneBlock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable stage graph compiled from every stage file: stages get dense integer ids in file name order and each
+ * stage links directly to its next stage's id, so advancing a player is an array read.
+ *
+ * <p>Compilation reports next links that are not valid stage names or point to missing stages, which are treated as
+ * final stages, and cycles, which are kept because a looping progression may be intended.</p>
+ */
+public final class StageGraph {
+    public static final int NO_STAGE = -1;
+    static final StageGraph EMPTY = compile(Map.of());
+
+    private final Stage[] stages;
+    private final Map<String, Integer> idsByFile;
+    private final List<Issue> issues;
+
+    private StageGraph(Stage[] stages, Map<String, Integer> idsByFile, List<Issue> issues) {
+        this.stages = stages;
+        this.idsByFile = idsByFile;
+        this.issues = issues;
+    }
+
+    /**
+     * Compiles stage configurations keyed by normalized file name.
+     */
+    public static StageGraph compile(Map<String, StageConfig> configs) {
+        Map<String, StageConfig> ordered = new TreeMap<>(configs);
+        Map<String, Integer> idsByFile = new HashMap<>();
+        for (String file : ordered.keySet()) {
+            idsByFile.put(file, idsByFile.size());
+        }
+
+        List<Issue> issues = new ArrayList<>();
+        Stage[] stages = new Stage[ordered.size()];
+        for (Map.Entry<String, StageConfig> entry : ordered.entrySet()) {
+            int id = idsByFile.get(entry.getKey());
+            stages[id] = new Stage(id, entry.getKey(), entry.getValue(), resolveNext(entry.getKey(), entry.getValue(), idsByFile, issues));
+        }
+        findCycles(stages, issues);
+        return new StageGraph(stages, Map.copyOf(idsByFile), List.copyOf(issues));
+    }
+
+    /**
+     * Returns the stage with an id, or null for {@link #NO_STAGE} or an id from another graph's range.
+     */
+    public Stage stage(int id) {
+        return id >= 0 && id < stages.length ? stages[id] : null;
+    }
+
+    /**
+     * Returns the id of a normalized stage file, or {@link #NO_STAGE} when it is not part of the graph.
+     */
+    public int idOf(String stageFile) {
+        Integer id = idsByFile.get(stageFile);
+        return id == null ? NO_STAGE : id;
+    }
+
+    /**
+     * Returns the number of stages.
+     */
+    public int size() {
+        return stages.length;
+    }
+
+    /**
+     * Returns the problems found while compiling.
+     */
+    List<Issue> issues() {
+        return issues;
+    }
+
+    /**
+     * Resolves a stage's next link to an id, recording a problem and ending the progression when it is broken.
+     */
+    private static int resolveNext(String file, StageConfig config, Map<String, Integer> idsByFile, List<Issue> issues) {
+        if (config.nextStage == null || config.nextStage.isBlank()) {
+            return NO_STAGE;
+        }
+        String next;
+        try {
+            next = StageConfigManager.normalizeStageFile(config.nextStage);
+        } catch (IllegalArgumentException exception) {
+            issues.add(new Issue(IssueKind.INVALID_NEXT, file, config.nextStage));
+            return NO_STAGE;
+        }
+        Integer id = idsByFile.get(next);
+        if (id == null) {
+            issues.add(new Issue(IssueKind.MISSING_NEXT, file, next));
+            return NO_STAGE;
+        }
+        return id;
+    }
+
+    /**
+     * Reports each cycle once; every stage has at most one next link, so following links from each unvisited stage
+     * finds all of them in linear time.
+     */
+    private static void findCycles(Stage[] stages, List<Issue> issues) {
+        int[] walk = new int[stages.length];
+        for (int start = 0; start < stages.length; start++) {
+            if (walk[start] != 0) {
+                continue;
+            }
+            int current = start;
+            while (current != NO_STAGE && walk[current] == 0) {
+                walk[current] = start + 1;
+                current = stages[current].nextId();
+            }
+            if (current != NO_STAGE && walk[current] == start + 1) {
+                StringBuilder path = new StringBuilder(stages[current].file());
+                int member = stages[current].nextId();
+                while (member != current) {
+                    path.append(" -> ").append(stages[member].file());
+                    member = stages[member].nextId();
+                }
+                path.append(" -> ").append(stages[current].file());
+                issues.add(new Issue(IssueKind.CYCLE, stages[current].file(), path.toString()));
+            }
+        }
+    }
+
+    /**
+     * One compiled stage: its id, normalized file, loaded configuration with the fused outcome table, and the id of
+     * the stage that follows it or {@link #NO_STAGE} for a final stage.
+     */
+    public record Stage(int id, String file, StageConfig config, int nextId) {
+    }
+
+    /**
+     * One problem found while compiling, with the stage it belongs to and the offending link or cycle.
+     */
+    record Issue(IssueKind kind, String stageFile, String detail) {
+    }
+
+    /**
+     * The kinds of problems compilation reports.
+     */
+    enum IssueKind {
+        INVALID_NEXT,
+        MISSING_NEXT,
+        CYCLE
+    }
+}
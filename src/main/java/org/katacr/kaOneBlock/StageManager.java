@@ -13,26 +13,28 @@ import java.util.UUID;
 public class StageManager {
     private final KaOneBlock plugin;
     private final Map<UUID, PlayerStageProgress> playerProgress = new HashMap<>();
+    private StageGraph graph = StageGraph.EMPTY;
 
     public StageManager(KaOneBlock plugin) {
         this.plugin = plugin;
-        loadAllPlayerProgress();
     }
 
     /**
-     * Hydrates the stage cache from the database's world-aware record cache.
+     * Switches to the stage graph of the current configuration snapshot and rebinds every cached progress entry to
+     * its stage ids.
      */
-    public void loadAllPlayerProgress() {
-        playerProgress.clear();
-        playerProgress.putAll(plugin.getDatabaseManager().loadAllPlayerProgress());
+    void rebindProgress() {
+        graph = plugin.getConfigSnapshot().stages();
+        for (PlayerStageProgress progress : playerProgress.values()) {
+            progress.stageId = graph.idOf(progress.stageFile);
+        }
     }
 
     /**
-     * Initializes a player's stage from persisted state or the configured starting stage.
+     * Initializes a player's stage from their hydrated record or the configured starting stage.
      */
     public PlayerStageProgress initPlayerProgress(Player player) {
-        return playerProgress.computeIfAbsent(player.getUniqueId(), ignored ->
-                new PlayerStageProgress(getStartingStageFile(), 0));
+        return playerProgress.computeIfAbsent(player.getUniqueId(), this::deriveProgress);
     }
 
     /**
@@ -42,13 +44,23 @@ public class StageManager {
         initPlayerProgress(player);
     }
 
+    /**
+     * Drops a leaving player's stage state; it is derived from their record again on the next join.
+     */
+    public void onPlayerQuit(UUID playerId) {
+        playerProgress.remove(playerId);
+    }
+
     /**
      * Increments progress, performs at most one stage transition and returns the resulting state.
      */
     public PlayerStageProgress incrementBlocksBroken(Player player) {
         PlayerStageProgress progress = initPlayerProgress(player);
         progress.blocksBroken++;
-        plugin.debug("玩家 " + player.getName() + " 破坏方块数: " + progress.blocksBroken);
+        DebugTracer tracer = plugin.getDebugTracer();
+        if (tracer.isEnabled(DebugTracer.Subsystem.STAGE, DebugTracer.Level.TRACE)) {
+            tracer.write(DebugTracer.Subsystem.STAGE, "玩家 " + player.getName() + " 破坏方块数: " + progress.blocksBroken);
+        }
         checkStageAdvancement(player, progress);
         return progress;
     }
@@ -57,7 +69,7 @@ public class StageManager {
      * Returns the current stage filename, falling back to the configured starting stage.
      */
     public String getCurrentStageFile(UUID playerId) {
-        PlayerStageProgress progress = playerProgress.get(playerId);
+        PlayerStageProgress progress = getPlayerProgress(playerId);
         return progress == null ? getStartingStageFile() : progress.stageFile;
     }
 
@@ -65,7 +77,15 @@ public class StageManager {
      * Returns the current stage configuration for a player when it is valid.
      */
     public StageConfig getCurrentStageConfig(UUID playerId) {
-        return plugin.getStageConfigManager().loadStageConfig(getCurrentStageFile(playerId));
+        PlayerStageProgress progress = getPlayerProgress(playerId);
+        return progress == null ? configOf(graph.idOf(getStartingStageFile())) : stageConfig(progress);
+    }
+
+    /**
+     * Returns the compiled configuration of a progress entry's stage, or null when its stage file is not loaded.
+     */
+    public StageConfig stageConfig(PlayerStageProgress progress) {
+        return configOf(progress.stageId);
     }
 
     /**
@@ -111,42 +131,51 @@ public class StageManager {
      * Restores a previous persisted snapshot when a scheduled world replacement cannot complete.
      */
     public void restoreProgress(UUID playerId, String stageFile, int blocksBroken) {
-        playerProgress.put(playerId, new PlayerStageProgress(stageFile, blocksBroken));
+        playerProgress.put(playerId, new PlayerStageProgress(graph.idOf(stageFile), stageFile, blocksBroken));
     }
 
     /**
-     * Returns the mutable main-thread stage state used by the gameplay pipeline.
+     * Returns the mutable main-thread stage state used by the gameplay pipeline, deriving it from a hydrated record.
      */
     public PlayerStageProgress getPlayerProgress(UUID playerId) {
-        return playerProgress.get(playerId);
+        PlayerStageProgress progress = playerProgress.get(playerId);
+        if (progress != null) {
+            return progress;
+        }
+        return plugin.getDatabaseManager().findBlockByPlayer(playerId).map(record -> {
+            PlayerStageProgress derived = new PlayerStageProgress(graph.idOf(record.stageFile()), record.stageFile(), record.blocksBroken());
+            playerProgress.put(playerId, derived);
+            return derived;
+        }).orElse(null);
     }
 
     /**
-     * Advances to a configured next stage and treats a blank next value as a terminal stage.
+     * Creates stage state from the player's persisted record or the configured starting stage.
      */
-    private void checkStageAdvancement(Player player, PlayerStageProgress progress) {
-        StageConfig current = plugin.getStageConfigManager().loadStageConfig(progress.stageFile);
-        if (current == null || progress.blocksBroken < current.amount || current.nextStage.isBlank()) {
-            return;
-        }
+    private PlayerStageProgress deriveProgress(UUID playerId) {
+        return plugin.getDatabaseManager().findBlockByPlayer(playerId)
+                .map(record -> new PlayerStageProgress(graph.idOf(record.stageFile()), record.stageFile(), record.blocksBroken()))
+                .orElseGet(() -> {
+                    String startingStage = getStartingStageFile();
+                    return new PlayerStageProgress(graph.idOf(startingStage), startingStage, 0);
+                });
+    }
 
-        String nextStage;
-        try {
-            nextStage = StageConfigManager.normalizeStageFile(current.nextStage);
-        } catch (IllegalArgumentException exception) {
-            plugin.getLogger().warning("下一阶段文件名无效: " + current.nextStage);
-            return;
-        }
-        StageConfig next = plugin.getStageConfigManager().loadStageConfig(nextStage);
-        if (next == null) {
-            plugin.getLogger().warning("下一阶段配置无效: " + nextStage);
+    /**
+     * Advances along the compiled next link; broken links were resolved to final stages when the graph was compiled.
+     */
+    private void checkStageAdvancement(Player player, PlayerStageProgress progress) {
+        StageGraph.Stage current = graph.stage(progress.stageId);
+        if (current == null || progress.blocksBroken < current.config().amount || current.nextId() == StageGraph.NO_STAGE) {
             return;
         }
 
-        progress.stageFile = nextStage;
+        StageGraph.Stage next = graph.stage(current.nextId());
+        progress.stageId = next.id();
+        progress.stageFile = next.file();
         progress.blocksBroken = 0;
-        sendStageMessage(player, next);
-        plugin.debug("玩家 " + player.getName() + " 进入阶段: " + nextStage);
+        sendStageMessage(player, next.config());
+        plugin.debug(DebugTracer.Subsystem.STAGE, () -> "玩家 " + player.getName() + " 进入阶段: " + next.file());
     }
 
     /**
@@ -159,15 +188,17 @@ public class StageManager {
         } catch (IllegalArgumentException exception) {
             return false;
         }
-        StageConfig config = plugin.getStageConfigManager().loadStageConfig(normalized);
-        if (config == null) {
+        int stageId = graph.idOf(normalized);
+        if (stageId == StageGraph.NO_STAGE) {
             return false;
         }
+        StageConfig config = configOf(stageId);
 
         PlayerStageProgress progress = playerProgress.computeIfAbsent(
                 player.getUniqueId(),
-                ignored -> new PlayerStageProgress(normalized, 0)
+                ignored -> new PlayerStageProgress(stageId, normalized, 0)
         );
+        progress.stageId = stageId;
         progress.stageFile = normalized;
         progress.blocksBroken = 0;
 
@@ -181,6 +212,14 @@ public class StageManager {
         return true;
     }
 
+    /**
+     * Returns the configuration of a compiled stage id, or null for {@link StageGraph#NO_STAGE}.
+     */
+    private StageConfig configOf(int stageId) {
+        StageGraph.Stage stage = graph.stage(stageId);
+        return stage == null ? null : stage.config();
+    }
+
     /**
      * Sends a translated stage message when the stage defines one.
      */
@@ -204,17 +243,27 @@ public class StageManager {
     }
 
     /**
-     * Mutable main-thread state for a player's current stage and progress counter.
+     * Mutable main-thread state for a player's current stage and progress counter; the stage id drives gameplay and
+     * the filename is kept for persistence and for rebinding after the graph is recompiled.
      */
     public static class PlayerStageProgress {
+        private int stageId;
         private String stageFile;
         private int blocksBroken;
 
-        public PlayerStageProgress(String stageFile, int blocksBroken) {
+        public PlayerStageProgress(int stageId, String stageFile, int blocksBroken) {
+            this.stageId = stageId;
             this.stageFile = stageFile;
             this.blocksBroken = blocksBroken;
         }
 
+        /**
+         * Returns the compiled id of the current stage, or {@link StageGraph#NO_STAGE} when its file is not loaded.
+         */
+        public int stageId() {
+            return stageId;
+        }
+
         /**
          * Returns the normalized current stage filename.
          */
@@ -0,0 +1,116 @@
+package org.katacr.kaOneBlock;
+
+import org.katacr.kaOneBlock.GenerationSelector.OutcomeType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Resolves the complete result of one break, including the entity or chest roll and the replacement block, from a
+ * single random draw over one flat table compiled when the stage is loaded.
+ *
+ * <p>The table holds one entry per entity and block pair, one per chest configuration and one per plain block, with
+ * the same probabilities as {@link GenerationSelector#select} followed by an independent weighted block roll: an
+ * entity outcome still places a block beneath the entity, while a chest replaces the block.</p>
+ */
+public final class StageOutcomeTable {
+    private final double[] chances;
+    private final Outcome[] outcomes;
+    private final AliasTable table;
+
+    private StageOutcomeTable(double[] chances, Outcome[] outcomes) {
+        this.chances = chances;
+        this.outcomes = outcomes;
+        this.table = new AliasTable(chances);
+    }
+
+    /**
+     * Compiles a stage's entity chance, ordered chest chances and block weights, using the fallback block when the
+     * block list is missing or empty.
+     */
+    public static StageOutcomeTable compile(double entityChance, Map<String, Double> chestChances,
+                                            WeightedRandom<?> blocks, Object fallbackBlock) {
+        List<Object> blockItems = new ArrayList<>();
+        List<Double> blockWeights = new ArrayList<>();
+        if (blocks != null) {
+            blocks.forEachWeight((block, weight) -> {
+                blockItems.add(block);
+                blockWeights.add(weight);
+            });
+        }
+        if (blockItems.isEmpty()) {
+            blockItems.add(fallbackBlock);
+            blockWeights.add(1.0);
+        }
+        double totalWeight = blockWeights.stream().mapToDouble(Double::doubleValue).sum();
+
+        List<Outcome> outcomes = new ArrayList<>();
+        List<Double> chances = new ArrayList<>();
+        double entity = GenerationSelector.clamp(entityChance);
+        double cumulative = entity;
+        for (int index = 0; index < blockItems.size(); index++) {
+            add(outcomes, chances, new Outcome(OutcomeType.ENTITY, null, blockItems.get(index)),
+                    entity * blockWeights.get(index) / totalWeight);
+        }
+        for (Map.Entry<String, Double> entry : chestChances.entrySet()) {
+            double next = Math.min(1, cumulative + GenerationSelector.clamp(entry.getValue()));
+            add(outcomes, chances, new Outcome(OutcomeType.CHEST, entry.getKey(), null), next - cumulative);
+            cumulative = next;
+        }
+        double remainder = 1 - cumulative;
+        for (int index = 0; index < blockItems.size(); index++) {
+            add(outcomes, chances, new Outcome(OutcomeType.BLOCK, null, blockItems.get(index)),
+                    remainder * blockWeights.get(index) / totalWeight);
+        }
+
+        return new StageOutcomeTable(chances.stream().mapToDouble(Double::doubleValue).toArray(),
+                outcomes.toArray(Outcome[]::new));
+    }
+
+    /**
+     * Selects one outcome with a single random double in constant time through the table's alias columns.
+     */
+    public Outcome select(RandomGenerator random) {
+        return outcomes[table.sample(random)];
+    }
+
+    /**
+     * Returns the number of entries with a positive chance.
+     */
+    int size() {
+        return outcomes.length;
+    }
+
+    /**
+     * Returns the entry at an index in table order.
+     */
+    Outcome outcome(int index) {
+        return outcomes[index];
+    }
+
+    /**
+     * Returns the chance of the entry at an index.
+     */
+    double chance(int index) {
+        return chances[index];
+    }
+
+    /**
+     * Appends an entry unless it can never be selected.
+     */
+    private static void add(List<Outcome> outcomes, List<Double> chances, Outcome outcome, double chance) {
+        if (chance > 0) {
+            outcomes.add(outcome);
+            chances.add(chance);
+        }
+    }
+
+    /**
+     * One precompiled break result: the outcome type, the chest configuration of a chest and the block placed by an
+     * entity or block outcome.
+     */
+    public record Outcome(OutcomeType type, String chestConfig, Object block) {
+    }
+}
@@ -3,42 +3,93 @@ package org.katacr.kaOneBlock;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ObjDoubleConsumer;
+import java.util.random.RandomGenerator;
 
 /**
  * 权重随机选择器
- * 用于根据权重随机选择元素
+ * 用于根据权重随机选择元素；添加完成后冻结为别名表，之后每次选择都是 O(1)
  */
 public class WeightedRandom<T> {
     private final List<Entry<T>> entries = new ArrayList<>();
     private double totalWeight = 0;
+    private AliasTable table;
+    private Object[] items;
 
     /**
      * 添加带权重的元素
      *
      * @param item   元素
      * @param weight 权重
+     * @throws IllegalStateException 已冻结时抛出
      */
     public void add(T item, double weight) {
+        if (table != null) {
+            throw new IllegalStateException("WeightedRandom is frozen");
+        }
         double updatedTotal = totalWeight + weight;
         if (!Double.isFinite(weight) || weight <= 0 || !Double.isFinite(updatedTotal)) return;
         totalWeight = updatedTotal;
-        entries.add(new Entry<>(item, totalWeight));
+        entries.add(new Entry<>(item, weight));
+    }
+
+    /**
+     * 冻结元素列表并构建别名表；首次随机选择时也会自动冻结
+     */
+    public void freeze() {
+        if (table != null || entries.isEmpty()) {
+            return;
+        }
+        double[] weights = new double[entries.size()];
+        Object[] frozenItems = new Object[entries.size()];
+        for (int index = 0; index < weights.length; index++) {
+            weights[index] = entries.get(index).weight;
+            frozenItems[index] = entries.get(index).item;
+        }
+        items = frozenItems;
+        table = new AliasTable(weights);
+    }
+
+    /**
+     * 按添加顺序遍历有效元素及其原始权重
+     *
+     * @param action 接收元素和权重的回调
+     */
+    public void forEachWeight(ObjDoubleConsumer<T> action) {
+        for (Entry<T> entry : entries) {
+            action.accept(entry.item, entry.weight);
+        }
+    }
+
+    /**
+     * 返回有效元素数量
+     *
+     * @return 元素数量
+     */
+    public int size() {
+        return entries.size();
     }
 
     /**
      * 随机选择一个元素
      *
-     * @return 随机选择的元素
+     * @return 随机选择的元素，列表为空时返回 null
      */
     public T getRandom() {
+        return getRandom(ThreadLocalRandom.current());
+    }
+
+    /**
+     * 使用指定随机数生成器选择一个元素
+     *
+     * @param random 随机数生成器
+     * @return 随机选择的元素，列表为空时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public T getRandom(RandomGenerator random) {
         if (entries.isEmpty()) return null;
-        double value = ThreadLocalRandom.current().nextDouble(totalWeight);
-        for (Entry<T> entry : entries) {
-            if (value < entry.cumulativeWeight) {
-                return entry.item;
-            }
-        }
-        return entries.get(entries.size() - 1).item;
+        freeze();
+        return (T) items[table.sample(random)];
     }
 
     /**
@@ -48,11 +99,11 @@ public class WeightedRandom<T> {
      */
     private static class Entry<T> {
         final T item;
-        final double cumulativeWeight;
+        final double weight;
 
-        Entry(T item, double cumulativeWeight) {
+        Entry(T item, double weight) {
             this.item = item;
-            this.cumulativeWeight = cumulativeWeight;
+            this.weight = weight;
         }
     }
 }
@@ -0,0 +1,98 @@
+package org.katacr.kaOneBlock;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Counts state updates and the storage transactions they produce, both in total and over a sliding one-minute window.
+ */
+final class WriteMetrics {
+    static final int WINDOW_SECONDS = 60;
+
+    private final LongSupplier clockMillis;
+    private final long startedAtMillis;
+    private final long[] bucketSeconds = new long[WINDOW_SECONDS];
+    private final long[] bucketUpdates = new long[WINDOW_SECONDS];
+    private final long[] bucketTransactions = new long[WINDOW_SECONDS];
+    private final long[] bucketRecords = new long[WINDOW_SECONDS];
+    private long totalUpdates;
+    private long totalTransactions;
+    private long totalRecords;
+
+    WriteMetrics() {
+        this(System::currentTimeMillis);
+    }
+
+    WriteMetrics(LongSupplier clockMillis) {
+        this.clockMillis = clockMillis;
+        this.startedAtMillis = clockMillis.getAsLong();
+    }
+
+    /**
+     * Counts one gameplay state change that must eventually reach storage.
+     */
+    synchronized void recordUpdate() {
+        int bucket = bucket();
+        bucketUpdates[bucket]++;
+        totalUpdates++;
+    }
+
+    /**
+     * Counts one committed storage transaction and the number of rows it wrote.
+     */
+    synchronized void recordTransaction(int records) {
+        int bucket = bucket();
+        bucketTransactions[bucket]++;
+        bucketRecords[bucket] += records;
+        totalTransactions++;
+        totalRecords += records;
+    }
+
+    /**
+     * Returns totals and per-second rates averaged over the window, or over the uptime while it is shorter.
+     */
+    synchronized Snapshot snapshot() {
+        long now = clockMillis.getAsLong();
+        long currentSecond = now / 1000;
+        long updates = 0;
+        long transactions = 0;
+        long records = 0;
+        for (int index = 0; index < WINDOW_SECONDS; index++) {
+            if (currentSecond - bucketSeconds[index] < WINDOW_SECONDS) {
+                updates += bucketUpdates[index];
+                transactions += bucketTransactions[index];
+                records += bucketRecords[index];
+            }
+        }
+        double seconds = Math.max(1, Math.min(WINDOW_SECONDS, (now - startedAtMillis) / 1000.0));
+        return new Snapshot(totalUpdates, totalTransactions, totalRecords,
+                updates / seconds, transactions / seconds, records / seconds);
+    }
+
+    /**
+     * Selects the bucket for the current second, clearing it when it still holds an older second.
+     */
+    private int bucket() {
+        long second = clockMillis.getAsLong() / 1000;
+        int index = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+        if (bucketSeconds[index] != second) {
+            bucketSeconds[index] = second;
+            bucketUpdates[index] = 0;
+            bucketTransactions[index] = 0;
+            bucketRecords[index] = 0;
+        }
+        return index;
+    }
+
+    /**
+     * Immutable write counters and recent rates.
+     */
+    record Snapshot(
+            long totalUpdates,
+            long totalTransactions,
+            long totalRecords,
+            double updatesPerSecond,
+            double transactionsPerSecond,
+            double recordsPerSecond
+    ) {
+    }
+}
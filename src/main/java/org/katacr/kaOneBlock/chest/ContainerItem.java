@@ -2,36 +2,42 @@ package org.katacr.kaOneBlock.chest;
 
 import org.bukkit.Material;
 import org.bukkit.inventory.ItemStack;
-import org.katacr.kaOneBlock.KaOneBlock;
+import org.katacr.kaOneBlock.ItemsAdderManager;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 /**
- * Builds one validated vanilla or lazily resolved ItemsAdder loot entry.
+ * Builds one validated vanilla or ItemsAdder loot entry; ItemsAdder entries are resolved on the server thread and
+ * cached, so items can be built on any thread.
  */
 public class ContainerItem {
-    private final KaOneBlock plugin;
     private final ItemStack templateItem;
     private final String customItemId;
+    private final Consumer<ItemStack> customOptions;
+    private volatile ItemStack resolvedItem;
     private final int slot;
     private final int min;
     private final int max;
 
-    public ContainerItem(KaOneBlock plugin, ItemStack templateItem, int slot, int min, int max) {
-        this(plugin, templateItem.clone(), null, slot, min, max);
+    public ContainerItem(ItemStack templateItem, int slot, int min, int max) {
+        this(templateItem.clone(), null, null, slot, min, max);
     }
 
     /**
-     * Creates an ItemsAdder loot entry that is resolved only when a chest is generated.
+     * Creates an ItemsAdder loot entry that builds nothing until {@link #resolve} finds the item, applying the
+     * configured options to it once.
      */
-    public static ContainerItem custom(KaOneBlock plugin, String customItemId, int slot, int min, int max) {
-        return new ContainerItem(plugin, null, customItemId, slot, min, max);
+    public static ContainerItem custom(String customItemId, int slot, int min, int max,
+                                       Consumer<ItemStack> options) {
+        return new ContainerItem(null, customItemId, options, slot, min, max);
     }
 
-    private ContainerItem(KaOneBlock plugin, ItemStack templateItem, String customItemId, int slot, int min, int max) {
-        this.plugin = plugin;
+    private ContainerItem(ItemStack templateItem, String customItemId, Consumer<ItemStack> customOptions,
+                          int slot, int min, int max) {
         this.templateItem = templateItem;
         this.customItemId = customItemId;
+        this.customOptions = customOptions;
         this.slot = slot;
         this.min = Math.max(1, Math.min(64, min));
         this.max = Math.max(this.min, Math.min(64, max));
@@ -52,15 +58,29 @@ public class ContainerItem {
     }
 
     /**
-     * Resolves and clones the item with a valid random stack amount.
+     * Looks up an ItemsAdder entry's item and caches it with its options applied; must run on the server thread,
+     * where ItemsAdder rebuilds its registry.
+     */
+    public void resolve(ItemsAdderManager itemsAdder) {
+        if (customItemId == null) {
+            return;
+        }
+        ItemStack item = itemsAdder.getCustomItemSilently(customItemId);
+        if (item != null) {
+            customOptions.accept(item);
+        }
+        resolvedItem = item;
+    }
+
+    /**
+     * Clones the template or cached ItemsAdder item with a valid random stack amount.
      */
     public ItemStack buildItem() {
-        ItemStack itemStack = customItemId == null
-                ? templateItem.clone()
-                : plugin.getItemsAdderManager().getCustomItemSilently(customItemId);
-        if (itemStack == null || itemStack.getType() == Material.AIR) {
+        ItemStack source = customItemId == null ? templateItem : resolvedItem;
+        if (source == null || source.getType() == Material.AIR) {
             return null;
         }
+        ItemStack itemStack = source.clone();
 
         int amount = max > min ? ThreadLocalRandom.current().nextInt(min, max + 1) : min;
         itemStack.setAmount(Math.min(amount, itemStack.getMaxStackSize()));
@@ -1,13 +1,10 @@
 package org.katacr.kaOneBlock.chest;
 
 import org.bukkit.Material;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
+import org.katacr.kaOneBlock.DebugTracer;
 import org.katacr.kaOneBlock.KaOneBlock;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class ContainerPoll {
@@ -23,32 +20,31 @@ public class ContainerPoll {
         this.items = items;
     }
 
-    public void run(Inventory inventory, ThreadLocalRandom random) {
+    /**
+     * Places the rolled number of items into slots the allocator still has free, honoring fixed slots; it touches no
+     * live inventory, so loot can be rolled off the server thread with tracing disabled.
+     */
+    public void run(ItemStack[] contents, SlotAllocator slots, ThreadLocalRandom random, boolean tracing) {
         // 确定要放置的物品数量
         int itemsToPlace = min;
         if (max > min) {
             itemsToPlace = random.nextInt(min, max + 1);
         }
 
-        plugin.debug("Attempting to place " + itemsToPlace + " items in chest");
-
-        // 收集所有空槽位
-        List<Integer> emptySlots = new ArrayList<>();
-        for (int i = 0; i < inventory.getSize(); i++) {
-            if (inventory.getItem(i) == null || inventory.getItem(i).getType() == Material.AIR) {
-                emptySlots.add(i);
-            }
+        // 逐格调试信息只在宝箱子系统为 trace 级别时拼接
+        DebugTracer tracer = tracing ? plugin.getDebugTracer() : null;
+        if (tracing) {
+            tracer.write(DebugTracer.Subsystem.CHEST, "Attempting to place " + itemsToPlace + " items in chest");
+            tracer.write(DebugTracer.Subsystem.CHEST, "Found " + slots.freeSlots() + " empty slots");
         }
 
-        plugin.debug("Found " + emptySlots.size() + " empty slots");
-
         // 随机打乱空槽位
-        Collections.shuffle(emptySlots);
+        slots.shuffle(random);
 
         // 放置物品
         int placedItems = 0;
         for (ContainerItem containerItem : items) {
-            if (placedItems >= itemsToPlace || emptySlots.isEmpty()) {
+            if (placedItems >= itemsToPlace || slots.freeSlots() == 0) {
                 break;
             }
 
@@ -56,58 +52,37 @@ public class ContainerPoll {
 
             // 跳过无效物品
             if (itemStack == null || itemStack.getType() == Material.AIR) {
-                plugin.debug("Skipping invalid item: " + (itemStack == null ? "null" : "AIR"));
+                if (tracing) {
+                    tracer.write(DebugTracer.Subsystem.CHEST, "Skipping invalid item: " + (itemStack == null ? "null" : "AIR"));
+                }
                 continue;
             }
 
-            // 获取槽位
+            // 获取槽位：指定槽位可用时占用它，否则取下一个随机空槽位
             int slot;
             if (containerItem.hasSlot()) {
-                slot = containerItem.getSlot();
-                plugin.debug("Using specified slot: " + slot);
-
-                // 检查槽位是否可用
-                if (slot < 0 || slot >= inventory.getSize()) {
-                    plugin.debug("Specified slot is out of range: " + slot);
-                    slot = emptySlots.isEmpty() ? -1 : emptySlots.remove(0);
-                } else if (inventory.getItem(slot) != null && inventory.getItem(slot).getType() != Material.AIR) {
-                    plugin.debug("Specified slot is occupied: " + slot);
-                    slot = emptySlots.isEmpty() ? -1 : emptySlots.remove(0);
-                } else {
-                    emptySlots.remove(Integer.valueOf(slot));
+                int requested = containerItem.getSlot();
+                slot = slots.claim(requested);
+                if (tracing) {
+                    tracer.write(DebugTracer.Subsystem.CHEST, "Using specified slot: " + requested);
+                    if (slot != requested) {
+                        tracer.write(DebugTracer.Subsystem.CHEST, (requested < 0 || requested >= contents.length
+                                ? "Specified slot is out of range: " : "Specified slot is occupied: ") + requested);
+                    }
                 }
             } else {
-                slot = emptySlots.isEmpty() ? -1 : emptySlots.remove(0);
+                slot = slots.next();
             }
 
-            // 如果槽位有效，放置物品
-            if (slot >= 0 && slot < inventory.getSize()) {
-                plugin.debug("Placing " + itemStack.getType() + " at slot " + slot);
-                inventory.setItem(slot, itemStack);
-                placedItems++;
-
-                // 立即验证物品是否被放置
-                ItemStack placedItem = inventory.getItem(slot);
-                if (placedItem == null || placedItem.getType() == Material.AIR) {
-                    plugin.debug("ERROR: Item not placed at slot " + slot);
-                } else {
-                    plugin.debug("Confirmed: " + placedItem.getType() + " x" + placedItem.getAmount() + " at slot " + slot);
-
-                    // 添加持久化检查
-                    if (!isItemPersistent(placedItem, slot, inventory)) {
-                        plugin.debug("WARNING: Item may not be persistent at slot " + slot);
-                    }
-                }
+            if (tracing) {
+                tracer.write(DebugTracer.Subsystem.CHEST, "Placing " + itemStack.getType() + " x" + itemStack.getAmount() + " at slot " + slot);
             }
+            contents[slot] = itemStack;
+            placedItems++;
         }
 
-        plugin.debug("Successfully placed " + placedItems + " items in chest");
-    }
-
-    private boolean isItemPersistent(ItemStack item, int slot, Inventory inventory) {
-        // 检查物品是否真的被保存到库存中
-        ItemStack slotItem = inventory.getItem(slot);
-        return slotItem != null && slotItem.getType() == item.getType() && slotItem.getAmount() == item.getAmount();
+        if (tracing) {
+            tracer.write(DebugTracer.Subsystem.CHEST, "Placed " + placedItems + " items");
+        }
     }
-
 }
@@ -3,134 +3,139 @@ package org.katacr.kaOneBlock.chest;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.EnchantmentStorageMeta;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.PotionMeta;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.potion.PotionData;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 import org.bukkit.potion.PotionType;
+import org.katacr.kaOneBlock.DebugTracer;
 import org.katacr.kaOneBlock.KaOneBlock;
 import org.katacr.kaOneBlock.WeightedRandom;
 
-import java.io.File;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 
 public class EnhancedChestManager {
     private final KaOneBlock plugin;
-    private final Map<String, ChestConfig> chestConfigs = new HashMap<>();
     private final Random random = new Random();
+    private final LootPools lootPools;
+    private final NamespacedKey deferredLootKey;
+    private volatile boolean lazyFill;
 
     public EnhancedChestManager(KaOneBlock plugin) {
         this.plugin = plugin;
-        loadChestConfigs();
+        this.lootPools = new LootPools(plugin, this);
+        this.deferredLootKey = new NamespacedKey(plugin, "deferred-loot");
     }
 
-    public void loadChestConfigs() {
-        chestConfigs.clear();
-        File chestsDir = new File(plugin.getDataFolder(), "chests");
+    /**
+     * Resolves every ItemsAdder loot entry of a snapshot on the server thread, so rolling loot on the worker only
+     * clones cached items and never calls into ItemsAdder.
+     */
+    public void resolveCustomItems(Map<String, ChestConfig> chestConfigs) {
+        for (ChestConfig config : chestConfigs.values()) {
+            for (ChestGroup group : config.groups().values()) {
+                group.weightedItems().forEachWeight((item, weight) -> item.resolve(plugin.getItemsAdderManager()));
+            }
+        }
+    }
 
-        if (chestsDir.exists() && chestsDir.isDirectory()) {
-            File[] chestFiles = chestsDir.listFiles((dir, name) -> name.endsWith(".yml"));
+    /**
+     * Returns the background pools of pre-rolled chest contents.
+     */
+    public LootPools getLootPools() {
+        return lootPools;
+    }
 
-            if (chestFiles != null) {
-                for (File chestFile : chestFiles) {
-                    try {
-                        String fileName = chestFile.getName().replace(".yml", "");
-                        FileConfiguration config = YamlConfiguration.loadConfiguration(chestFile);
-
-                        ChestConfig chestConfig = new ChestConfig();
-                        chestConfig.name = config.getString("name", "宝箱");
-
-                        // 加载全局物品数量设置
-                        if (config.isConfigurationSection("amount")) {
-                            ConfigurationSection amountSection = config.getConfigurationSection("amount");
-                            if (amountSection != null) {
-                                chestConfig.globalMinItems = normalizeItemCount(amountSection.getInt("min", 3));
-                                chestConfig.globalMaxItems = Math.max(
-                                        chestConfig.globalMinItems,
-                                        normalizeItemCount(amountSection.getInt("max", 6))
-                                );
-                            }
-                        } else {
-                            // 默认值
-                            chestConfig.globalMinItems = 3;
-                            chestConfig.globalMaxItems = 6;
-                        }
+    /**
+     * Sets whether generated chests record their configuration and roll loot only when first opened or broken.
+     */
+    public void setLazyFill(boolean lazyFill) {
+        this.lazyFill = lazyFill;
+    }
 
-                        // 加载物品组
-                        ConfigurationSection groupsSection = config.getConfigurationSection("groups");
-                        if (groupsSection != null) {
-                            for (String groupKey : groupsSection.getKeys(false)) {
-                                ConfigurationSection groupSection = groupsSection.getConfigurationSection(groupKey);
-                                if (groupSection != null) {
-                                    ChestGroup group = new ChestGroup();
-                                    group.minItems = normalizeItemCount(groupSection.getInt("min", chestConfig.globalMinItems));
-                                    group.maxItems = Math.max(
-                                            group.minItems,
-                                            normalizeItemCount(groupSection.getInt("max", chestConfig.globalMaxItems))
-                                    );
-
-                                    // 加载组内物品
-                                    ConfigurationSection itemsSection = groupSection.getConfigurationSection("items");
-                                    if (itemsSection != null) {
-                                        for (String itemKey : itemsSection.getKeys(false)) {
-                                            ConfigurationSection itemSection = itemsSection.getConfigurationSection(itemKey);
-                                            if (itemSection != null) {
-                                                ContainerItem containerItem = parseContainerItem(itemSection);
-                                                if (containerItem != null) {
-                                                    double weight = itemSection.getDouble("weight", 1.0);
-                                                    group.weightedItems.add(containerItem, weight);
-                                                }
-                                            }
-                                        }
-                                    }
-                                    chestConfig.groups.put(groupKey, group);
-                                }
-                            }
-                        }
+    /**
+     * Returns whether generated chests defer their loot until first opened or broken.
+     */
+    public boolean isLazyFill() {
+        return lazyFill;
+    }
 
-                        // 加载全局物品
-                        ConfigurationSection itemsSection = config.getConfigurationSection("items");
-                        if (itemsSection != null) {
-                            ChestGroup globalGroup = new ChestGroup();
-                            globalGroup.minItems = chestConfig.globalMinItems;
-                            globalGroup.maxItems = chestConfig.globalMaxItems;
-
-                            for (String itemKey : itemsSection.getKeys(false)) {
-                                ConfigurationSection itemSection = itemsSection.getConfigurationSection(itemKey);
-                                if (itemSection != null) {
-                                    ContainerItem containerItem = parseContainerItem(itemSection);
-                                    if (containerItem != null) {
-                                        double weight = itemSection.getDouble("weight", 1.0);
-                                        globalGroup.weightedItems.add(containerItem, weight);
-                                    }
-                                }
-                            }
-                            chestConfig.groups.put("global", globalGroup);
-                        }
+    /**
+     * Parses one chest file into an immutable loot table, recording the file and returning null when it fails.
+     */
+    public ChestConfig parseChestConfig(String file, ConfigurationSection config, List<String> failedFiles) {
+        try {
+            String name = config.getString("name", "宝箱");
+            int globalMinItems = 3;
+            int globalMaxItems = 6;
+            Map<String, ChestGroup> groups = new LinkedHashMap<>();
+
+            // 加载全局物品数量设置
+            ConfigurationSection amountSection = config.getConfigurationSection("amount");
+            if (amountSection != null) {
+                globalMinItems = normalizeItemCount(amountSection.getInt("min", 3));
+                globalMaxItems = Math.max(globalMinItems, normalizeItemCount(amountSection.getInt("max", 6)));
+            }
 
-                        chestConfigs.put(fileName, chestConfig);
-                        plugin.getLogger().info("Loaded enhanced chest config: " + fileName + " with " + chestConfig.groups.size() + " groups");
-                    } catch (Exception e) {
-                        plugin.getLogger().log(Level.SEVERE, "Failed to load enhanced chest config: " + chestFile.getName(), e);
+            // 加载物品组
+            ConfigurationSection groupsSection = config.getConfigurationSection("groups");
+            if (groupsSection != null) {
+                for (String groupKey : groupsSection.getKeys(false)) {
+                    ConfigurationSection groupSection = groupsSection.getConfigurationSection(groupKey);
+                    if (groupSection != null) {
+                        int minItems = normalizeItemCount(groupSection.getInt("min", globalMinItems));
+                        int maxItems = Math.max(minItems, normalizeItemCount(groupSection.getInt("max", globalMaxItems)));
+                        groups.put(groupKey, new ChestGroup(minItems, maxItems,
+                                parseItems(groupSection.getConfigurationSection("items"))));
                     }
                 }
             }
+
+            // 加载全局物品
+            ConfigurationSection itemsSection = config.getConfigurationSection("items");
+            if (itemsSection != null) {
+                groups.put("global", new ChestGroup(globalMinItems, globalMaxItems, parseItems(itemsSection)));
+            }
+
+            plugin.getLogger().info("Loaded enhanced chest config: " + file + " with " + groups.size() + " groups");
+            return new ChestConfig(name, Collections.unmodifiableMap(groups));
+        } catch (Exception e) {
+            failedFiles.add("chests/" + file);
+            plugin.getLogger().log(Level.SEVERE, "Failed to load enhanced chest config: " + file, e);
+            return null;
         }
+    }
 
-        if (!chestConfigs.containsKey("fallback")) {
-            createFallbackConfig();
+    /**
+     * Parses one items section into a frozen weighted selector; a missing section yields an empty one.
+     */
+    private WeightedRandom<ContainerItem> parseItems(ConfigurationSection itemsSection) {
+        WeightedRandom<ContainerItem> weightedItems = new WeightedRandom<>();
+        if (itemsSection != null) {
+            for (String itemKey : itemsSection.getKeys(false)) {
+                ConfigurationSection itemSection = itemsSection.getConfigurationSection(itemKey);
+                if (itemSection != null) {
+                    ContainerItem containerItem = parseContainerItem(itemSection);
+                    if (containerItem != null) {
+                        weightedItems.add(containerItem, itemSection.getDouble("weight", 1.0));
+                    }
+                }
+            }
         }
+        weightedItems.freeze();
+        return weightedItems;
     }
 
     /**
@@ -152,25 +157,27 @@ public class EnhancedChestManager {
         int slot = itemSection.getInt("slot", -1);
         int min = itemSection.getInt("min", 1);
         int max = itemSection.getInt("max", min);
-        ItemStack itemStack;
-        Material material = null;
-
         if (materialName.regionMatches(true, 0, "IA:", 0, 3)) {
-            String customItemId = materialName.substring(3);
-            itemStack = plugin.getItemsAdderManager().getCustomItemSilently(customItemId);
-            if (itemStack == null) {
-                return ContainerItem.custom(plugin, customItemId, slot, min, max);
-            }
-        } else {
-            // 原版物品
-            material = Material.matchMaterial(materialName);
-            if (material == null || material == Material.AIR) {
-                plugin.getLogger().warning("Invalid material: " + materialName);
-                return null;
-            }
-            itemStack = new ItemStack(material);
+            // ItemsAdder 物品在主线程应用配置快照时解析，解析后再应用下面的名称、附魔等选项
+            return ContainerItem.custom(materialName.substring(3), slot, min, max,
+                    item -> applyItemOptions(item, itemSection));
+        }
+
+        // 原版物品
+        Material material = Material.matchMaterial(materialName);
+        if (material == null || material == Material.AIR) {
+            plugin.getLogger().warning("Invalid material: " + materialName);
+            return null;
         }
+        ItemStack itemStack = new ItemStack(material);
+        applyItemOptions(itemStack, itemSection);
+        return new ContainerItem(itemStack, slot, min, max);
+    }
 
+    /**
+     * Applies the configured name, lore, enchantments and potion settings of a loot entry to its item.
+     */
+    private void applyItemOptions(ItemStack itemStack, ConfigurationSection itemSection) {
         // 应用自定义名称和描述
         if (itemSection.isString("name")) {
             ItemMeta meta = itemStack.getItemMeta();
@@ -207,7 +214,7 @@ public class EnhancedChestManager {
                             NamespacedKey key = NamespacedKey.minecraft(enchantName.toLowerCase());
                             enchant = Enchantment.getByKey(key);
                         } catch (Exception e) {
-                            plugin.debug("Failed to get enchantment by key for: " + enchantName);
+                            plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "Failed to get enchantment by key for: " + enchantName);
                         }
                         
                         // 如果仍然找不到，尝试直接查找（避免已弃用的getByName和getName）
@@ -233,7 +240,7 @@ public class EnhancedChestManager {
         }
 
         // 处理附魔书
-        if (material == Material.ENCHANTED_BOOK && itemSection.isConfigurationSection("stored-enchantments")) {
+        if (itemStack.getType() == Material.ENCHANTED_BOOK && itemSection.isConfigurationSection("stored-enchantments")) {
             ItemMeta meta = itemStack.getItemMeta();
             if (meta instanceof EnchantmentStorageMeta enchantMeta) {
                 ConfigurationSection enchantsSection = itemSection.getConfigurationSection("stored-enchantments");
@@ -300,7 +307,6 @@ public class EnhancedChestManager {
                 itemStack.setItemMeta(potionMeta);
             }
         }
-        return new ContainerItem(plugin, itemStack, slot, min, max);
     }
 
     // 辅助方法：获取附魔
@@ -313,7 +319,7 @@ public class EnhancedChestManager {
                 return enchant;
             }
         } catch (Exception e) {
-            plugin.debug("Failed to get enchantment by key for: " + name);
+            plugin.debug(DebugTracer.Subsystem.CONFIG, () -> "Failed to get enchantment by key for: " + name);
         }
         
         // 如果失败，使用流式API查找匹配的附魔（避免已弃用的getByName）
@@ -324,112 +330,250 @@ public class EnhancedChestManager {
             .orElse(null);
     }
 
-    private void createFallbackConfig() {
-        ChestConfig fallback = new ChestConfig();
-        fallback.name = "&6默认宝箱";
-        fallback.globalMinItems = 3;
-        fallback.globalMaxItems = 6;
-
-        // 添加全局组
-        ChestGroup globalGroup = new ChestGroup();
-        globalGroup.minItems = fallback.globalMinItems;
-        globalGroup.maxItems = fallback.globalMaxItems;
-
+    /**
+     * Builds the built-in loot table used when no chest file is named {@code fallback}.
+     */
+    public ChestConfig createFallbackConfig() {
         // 添加默认物品
-        globalGroup.weightedItems.add(new ContainerItem(plugin, new ItemStack(Material.STONE), -1, 1, 5), 10);
-        globalGroup.weightedItems.add(new ContainerItem(plugin, new ItemStack(Material.DIRT), -1, 3, 7), 8);
-        globalGroup.weightedItems.add(new ContainerItem(plugin, new ItemStack(Material.COAL), -1, 1, 3), 5);
-        globalGroup.weightedItems.add(new ContainerItem(plugin, new ItemStack(Material.IRON_INGOT), -1, 1, 1), 3);
-        globalGroup.weightedItems.add(new ContainerItem(plugin, new ItemStack(Material.GOLD_INGOT), -1, 1, 1), 2);
-        globalGroup.weightedItems.add(new ContainerItem(plugin, new ItemStack(Material.DIAMOND), -1, 1, 1), 1);
+        WeightedRandom<ContainerItem> items = new WeightedRandom<>();
+        items.add(new ContainerItem(new ItemStack(Material.STONE), -1, 1, 5), 10);
+        items.add(new ContainerItem(new ItemStack(Material.DIRT), -1, 3, 7), 8);
+        items.add(new ContainerItem(new ItemStack(Material.COAL), -1, 1, 3), 5);
+        items.add(new ContainerItem(new ItemStack(Material.IRON_INGOT), -1, 1, 1), 3);
+        items.add(new ContainerItem(new ItemStack(Material.GOLD_INGOT), -1, 1, 1), 2);
+        items.add(new ContainerItem(new ItemStack(Material.DIAMOND), -1, 1, 1), 1);
+        items.freeze();
 
-        fallback.groups.put("global", globalGroup);
-
-        chestConfigs.put("fallback", fallback);
+        // 添加全局组
+        return new ChestConfig("&6默认宝箱", Map.of("global", new ChestGroup(3, 6, items)));
     }
 
+    /**
+     * Fills a generated chest from its configuration's pre-rolled pool, rolling on this thread only when the pool
+     * has nothing ready.
+     */
     public void fillChest(org.bukkit.block.Chest chest, String chestConfigName) {
-        ChestConfig config = chestConfigs.get(chestConfigName);
-
         if (chest == null) {
-            plugin.debug("Cannot fill chest: chest is null");
+            plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Cannot fill chest: chest is null");
             return;
         }
-        if (config == null) {
-            plugin.getLogger().warning("Enhanced chest config '" + chestConfigName + "' not found!");
-            config = chestConfigs.get("fallback");
-            if (config == null) {
-                plugin.getLogger().severe("Fallback enhanced chest config also not found!");
-                return;
-            }
+        Map<String, ChestConfig> chestConfigs = plugin.getConfigSnapshot().chests();
+        String configName = resolveConfigName(chestConfigs, chestConfigName);
+        if (configName == null) {
+            return;
         }
+        ChestConfig config = chestConfigs.get(configName);
 
         // 设置宝箱名称
-        if (config.name != null && !config.name.isEmpty()) {
-            String displayName = ChatColor.translateAlternateColorCodes('&', config.name);
+        if (config.name() != null && !config.name().isEmpty()) {
+            String displayName = ChatColor.translateAlternateColorCodes('&', config.name());
             chest.setCustomName(displayName);
-            plugin.debug("Set enhanced chest custom name to: " + displayName);
+            plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Set enhanced chest custom name to: " + displayName);
         }
 
         // 确保箱子仍然存在
         if (chest.getBlock().getType() != Material.CHEST) {
-            plugin.debug("Chest no longer exists at " + chest.getLocation());
+            plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Chest no longer exists at " + chest.getLocation());
             return;
         }
 
+        // 新放置的宝箱是空的，整箱内容一次写入
+        Inventory inventory = chest.getBlockInventory();
+        inventory.setContents(takeOrRoll(configName, config, inventory.getSize()));
+        debugPlacedItems(inventory);
 
-        Inventory inventory = chest.getInventory();
-        ThreadLocalRandom threadRandom = ThreadLocalRandom.current();
+        // 安全更新宝箱
+        safeUpdateChestWithoutLock(chest);
+        plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Enhanced chest filled with " + config.groups().size() + " groups");
+    }
 
-        // 处理所有组
-        for (Map.Entry<String, ChestGroup> groupEntry : config.groups.entrySet()) {
-            ChestGroup group = groupEntry.getValue();
-            int itemsAmount = group.minItems >= group.maxItems ? group.minItems : threadRandom.nextInt(group.minItems, group.maxItems + 1);
+    /**
+     * Returns whether a hopper below would pull from a chest at this block; such chests are filled right away
+     * because hoppers skip empty containers.
+     */
+    public boolean feedsHopper(Block block) {
+        return block.getRelative(BlockFace.DOWN).getType() == Material.HOPPER;
+    }
 
-            plugin.debug("Generating " + itemsAmount + " items for group: " + groupEntry.getKey());
+    /**
+     * Names a generated chest and records its configuration in the chest's persistent data, leaving the loot to be
+     * rolled when a player first opens or breaks it.
+     */
+    public void markForLazyFill(org.bukkit.block.Chest chest, String chestConfigName) {
+        if (chest == null) {
+            plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Cannot mark chest: chest is null");
+            return;
+        }
+        Map<String, ChestConfig> chestConfigs = plugin.getConfigSnapshot().chests();
+        String configName = resolveConfigName(chestConfigs, chestConfigName);
+        if (configName == null) {
+            return;
+        }
+        ChestConfig config = chestConfigs.get(configName);
 
-            List<ContainerItem> selectedItems = new ArrayList<>();
-            for (int i = 0; i < itemsAmount; i++) {
-                ContainerItem item = group.weightedItems.getRandom();
-                if (item != null) {
-                    selectedItems.add(item);
-                    plugin.debug("Selected item: " + item.describeType());
-                }
+        BlockState state = chest.getBlock().getState();
+        if (!(state instanceof org.bukkit.block.Chest chestState)) {
+            plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Chest no longer exists at " + chest.getLocation());
+            return;
+        }
+        if (config.name() != null && !config.name().isEmpty()) {
+            chestState.setCustomName(ChatColor.translateAlternateColorCodes('&', config.name()));
+        }
+        chestState.getPersistentDataContainer().set(deferredLootKey, PersistentDataType.STRING, configName);
+        chestState.update(true, false);
+        plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Deferred loot of chest config " + configName + " until first open");
+    }
+
+    /**
+     * Rolls the recorded loot into a chest that has not been opened yet, returning false for chests without
+     * deferred loot.
+     */
+    public boolean fillDeferred(org.bukkit.block.Chest chest) {
+        String configName = chest.getPersistentDataContainer().get(deferredLootKey, PersistentDataType.STRING);
+        if (configName == null || !(chest.getBlock().getState() instanceof org.bukkit.block.Chest chestState)) {
+            return false;
+        }
+        // 先清除标记再写入物品：更新方块状态会用快照覆盖箱子内容
+        chestState.getPersistentDataContainer().remove(deferredLootKey);
+        chestState.update(true, false);
+
+        Inventory inventory = chestState.getBlockInventory();
+        ItemStack[] contents = rollDeferred(configName, inventory.getSize());
+        if (contents == null) {
+            return true;
+        }
+        // 漏斗等在打开前放入的物品保留在原位
+        ItemStack[] existing = inventory.getContents();
+        for (int slot = 0; slot < contents.length; slot++) {
+            if (existing[slot] != null) {
+                contents[slot] = existing[slot];
             }
+        }
+        inventory.setContents(contents);
+        plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Rolled deferred loot of chest config " + configName + " on first open");
+        debugPlacedItems(inventory);
+        return true;
+    }
+
+    /**
+     * Rolls the drops of a chest broken before anyone opened it, or returns null for chests without deferred loot.
+     */
+    public ItemStack[] rollDeferredDrops(org.bukkit.block.Chest chest) {
+        String configName = chest.getPersistentDataContainer().get(deferredLootKey, PersistentDataType.STRING);
+        if (configName == null) {
+            return null;
+        }
+        plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Rolling drops of unopened chest config " + configName);
+        ItemStack[] drops = rollDeferred(configName, LootPools.CHEST_SIZE);
+        return drops == null ? new ItemStack[0] : drops;
+    }
+
+    /**
+     * Resolves a recorded configuration against the current snapshot and takes or rolls its contents.
+     */
+    private ItemStack[] rollDeferred(String chestConfigName, int size) {
+        Map<String, ChestConfig> chestConfigs = plugin.getConfigSnapshot().chests();
+        String configName = resolveConfigName(chestConfigs, chestConfigName);
+        return configName == null ? null : takeOrRoll(configName, chestConfigs.get(configName), size);
+    }
 
-            // 创建容器轮询
-            ContainerItem[] itemsArray = selectedItems.toArray(new ContainerItem[0]);
-            ContainerPoll poll = new ContainerPoll(plugin, selectedItems.size(), selectedItems.size(), itemsArray);
-            poll.run(inventory, threadRandom);
+    /**
+     * Returns the configuration name to use, falling back to the built-in fallback table when it is missing, or
+     * null when neither exists.
+     */
+    private String resolveConfigName(Map<String, ChestConfig> chestConfigs, String chestConfigName) {
+        if (chestConfigs.containsKey(chestConfigName)) {
+            return chestConfigName;
         }
+        plugin.getLogger().warning("Enhanced chest config '" + chestConfigName + "' not found!");
+        if (!chestConfigs.containsKey("fallback")) {
+            plugin.getLogger().severe("Fallback enhanced chest config also not found!");
+            return null;
+        }
+        return "fallback";
+    }
 
-        // 记录实际放置的物品数量
+    /**
+     * Takes pre-rolled contents from the configuration's pool, rolling on this thread only when the pool has
+     * nothing ready.
+     */
+    private ItemStack[] takeOrRoll(String configName, ChestConfig config, int size) {
+        // 优先使用后台预生成的战利品，池为空时在主线程现场生成
+        ItemStack[] contents = lootPools.take(configName);
+        if (contents == null || contents.length != size) {
+            return rollContents(config, size, true);
+        }
+        plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Using pre-rolled loot for chest config: " + configName);
+        return contents;
+    }
+
+    /**
+     * Logs the number of filled slots and, at trace level, each of them; the inventory is only walked when the
+     * output is enabled.
+     */
+    private void debugPlacedItems(Inventory inventory) {
+        DebugTracer tracer = plugin.getDebugTracer();
+        if (!tracer.isEnabled(DebugTracer.Subsystem.CHEST, DebugTracer.Level.DEBUG)) {
+            return;
+        }
+        boolean tracing = tracer.isEnabled(DebugTracer.Subsystem.CHEST, DebugTracer.Level.TRACE);
         int placedItems = 0;
-        for (ItemStack item : inventory.getContents()) {
+        for (int i = 0; i < inventory.getSize(); i++) {
+            ItemStack item = inventory.getItem(i);
             if (item != null && item.getType() != Material.AIR) {
                 placedItems++;
+                if (tracing) {
+                    tracer.write(DebugTracer.Subsystem.CHEST, "Final slot " + i + ": " + item.getType() + " x" + item.getAmount());
+                }
             }
         }
-        plugin.debug("Total placed items: " + placedItems);
+        tracer.write(DebugTracer.Subsystem.CHEST, "Total placed items: " + placedItems);
+    }
 
-        // 记录最终库存状态
-        if (plugin.isDebugEnabled()) {
-            for (int i = 0; i < inventory.getSize(); i++) {
-                ItemStack item = inventory.getItem(i);
-                if (item != null && item.getType() != Material.AIR) {
-                    plugin.debug("Final slot " + i + ": " + item.getType() + " x" + item.getAmount());
+    /**
+     * Rolls every group of a chest configuration into a new contents array; it only reads the immutable loot table,
+     * so the loot pools call it on their worker thread with debug output off.
+     */
+    ItemStack[] rollContents(ChestConfig config, int size, boolean debug) {
+        ItemStack[] contents = new ItemStack[size];
+        SlotAllocator slots = new SlotAllocator(size);
+        ThreadLocalRandom threadRandom = ThreadLocalRandom.current();
+        DebugTracer tracer = plugin.getDebugTracer();
+        boolean summaries = debug && tracer.isEnabled(DebugTracer.Subsystem.CHEST, DebugTracer.Level.DEBUG);
+        boolean tracing = debug && tracer.isEnabled(DebugTracer.Subsystem.CHEST, DebugTracer.Level.TRACE);
+
+        // 处理所有组
+        for (Map.Entry<String, ChestGroup> groupEntry : config.groups().entrySet()) {
+            ChestGroup group = groupEntry.getValue();
+            int itemsAmount = group.minItems() >= group.maxItems() ? group.minItems() : threadRandom.nextInt(group.minItems(), group.maxItems() + 1);
+
+            if (summaries) {
+                tracer.write(DebugTracer.Subsystem.CHEST, "Generating " + itemsAmount + " items for group: " + groupEntry.getKey());
+            }
+
+            ContainerItem[] selectedItems = new ContainerItem[itemsAmount];
+            int selected = 0;
+            for (int i = 0; i < itemsAmount; i++) {
+                ContainerItem item = group.weightedItems().getRandom(threadRandom);
+                if (item != null) {
+                    selectedItems[selected++] = item;
+                    if (tracing) {
+                        tracer.write(DebugTracer.Subsystem.CHEST, "Selected item: " + item.describeType());
+                    }
                 }
             }
-        }
 
-        // 安全更新宝箱
-        safeUpdateChestWithoutLock(chest);
-        plugin.debug("Enhanced chest filled with " + config.groups.size() + " groups");
+            // 创建容器轮询，各组共用同一个槽位占用掩码
+            ContainerItem[] itemsArray = selected == itemsAmount ? selectedItems : Arrays.copyOf(selectedItems, selected);
+            ContainerPoll poll = new ContainerPoll(plugin, selected, selected, itemsArray);
+            poll.run(contents, slots, threadRandom, tracing);
+        }
+        return contents;
     }
 
     private void safeUpdateChestWithoutLock(org.bukkit.block.Chest chest) {
         if (chest == null) {
-            plugin.debug("Cannot update chest: chest is null");
+            plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Cannot update chest: chest is null");
             return;
         }
 
@@ -439,9 +583,9 @@ public class EnhancedChestManager {
             if (state instanceof org.bukkit.block.Chest chestState) {
                 chestState.setCustomName(chest.getCustomName());
                 chestState.update(true, false);
-                plugin.debug("Chest updated safely without lock");
+                plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Chest updated safely without lock");
             } else {
-                plugin.debug("Block is no longer a chest, cannot update");
+                plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Block is no longer a chest, cannot update");
             }
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to safely update chest", e);
@@ -449,6 +593,7 @@ public class EnhancedChestManager {
     }
 
     public String getRandomChestConfig() {
+        Map<String, ChestConfig> chestConfigs = plugin.getConfigSnapshot().chests();
         if (chestConfigs.isEmpty()) {
             return "fallback";
         }
@@ -459,41 +604,44 @@ public class EnhancedChestManager {
 
     public void debugChestContents(org.bukkit.block.Chest chest) {
         if (chest == null) {
-            plugin.debug("Chest is null");
+            plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Chest is null");
             return;
         }
 
         // 确保箱子仍然存在
         if (chest.getBlock().getType() != Material.CHEST) {
-            plugin.debug("Chest no longer exists at " + chest.getLocation());
+            plugin.debug(DebugTracer.Subsystem.CHEST, () -> "Chest no longer exists at " + chest.getLocation());
             return;
         }
 
+        DebugTracer tracer = plugin.getDebugTracer();
+        if (!tracer.isEnabled(DebugTracer.Subsystem.CHEST, DebugTracer.Level.DEBUG)) {
+            return;
+        }
         Inventory inventory = chest.getInventory();
-        plugin.debug("Debugging chest contents at " + chest.getLocation());
+        tracer.write(DebugTracer.Subsystem.CHEST, "Debugging chest contents at " + chest.getLocation());
 
         int itemCount = 0;
         for (int i = 0; i < inventory.getSize(); i++) {
             ItemStack item = inventory.getItem(i);
             if (item != null && item.getType() != Material.AIR) {
                 itemCount++;
-                plugin.debug("Slot " + i + ": " + item.getType() + " x" + item.getAmount());
+                tracer.write(DebugTracer.Subsystem.CHEST, "Slot " + i + ": " + item.getType() + " x" + item.getAmount());
             }
         }
 
-        plugin.debug("Chest contains " + itemCount + " items");
+        tracer.write(DebugTracer.Subsystem.CHEST, "Chest contains " + itemCount + " items");
     }
 
-    private static class ChestConfig {
-        public String name = "宝箱";
-        public int globalMinItems = 3;
-        public int globalMaxItems = 6;
-        public Map<String, ChestGroup> groups = new LinkedHashMap<>();
+    /**
+     * Immutable loot table of one chest configuration: its display name and item groups in configuration order.
+     */
+    public record ChestConfig(String name, Map<String, ChestGroup> groups) {
     }
 
-    private static class ChestGroup {
-        public int minItems = 1;
-        public int maxItems = 1;
-        public WeightedRandom<ContainerItem> weightedItems = new WeightedRandom<>();
+    /**
+     * Immutable item group rolled between its minimum and maximum item count from frozen weighted items.
+     */
+    public record ChestGroup(int minItems, int maxItems, WeightedRandom<ContainerItem> weightedItems) {
     }
 }
@@ -0,0 +1,220 @@
+package org.katacr.kaOneBlock.chest;
+
+import org.bukkit.inventory.ItemStack;
+import org.katacr.kaOneBlock.KaOneBlock;
+import org.katacr.kaOneBlock.chest.EnhancedChestManager.ChestConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Keeps a small queue of pre-rolled chest contents per chest configuration, rolled on a worker thread and topped up
+ * in the background once a queue falls to half its depth, so filling a chest only copies a ready array.
+ *
+ * <p>Each configuration snapshot gets fresh pools; results still being rolled for a replaced configuration are
+ * discarded with their pool. A chest that finds its pool empty is rolled on the server thread as before.</p>
+ */
+public class LootPools {
+    static final int CHEST_SIZE = 27;
+    private static final int WINDOW_SECONDS = 60;
+
+    private final KaOneBlock plugin;
+    private final EnhancedChestManager chests;
+    private final ExecutorService executor;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long[] bucketSeconds = new long[WINDOW_SECONDS];
+    private final long[] bucketRolls = new long[WINDOW_SECONDS];
+    private final long startedAtMillis = System.currentTimeMillis();
+    private Map<String, ChestConfig> configs = Map.of();
+    private volatile Map<String, Pool> pools = Map.of();
+    private volatile boolean enabled;
+    private volatile int depth;
+
+    public LootPools(KaOneBlock plugin, EnhancedChestManager chests) {
+        this.plugin = plugin;
+        this.chests = chests;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "KaOneBlock-LootRoller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Applies the pool settings, starting over with empty pools when they changed.
+     */
+    public void configure(boolean enabled, int depth) {
+        int normalizedDepth = Math.max(1, depth);
+        if (this.enabled == enabled && this.depth == normalizedDepth) {
+            return;
+        }
+        this.enabled = enabled;
+        this.depth = normalizedDepth;
+        rebuild(configs);
+    }
+
+    /**
+     * Replaces every pool with an empty one for the chest configurations of a new snapshot and starts rolling them.
+     */
+    public void rebuild(Map<String, ChestConfig> chestConfigs) {
+        configs = chestConfigs;
+        if (!enabled) {
+            pools = Map.of();
+            return;
+        }
+        Map<String, Pool> rebuilt = new HashMap<>();
+        for (Map.Entry<String, ChestConfig> entry : chestConfigs.entrySet()) {
+            rebuilt.put(entry.getKey(), new Pool(entry.getKey(), entry.getValue()));
+        }
+        pools = Map.copyOf(rebuilt);
+        for (Pool pool : pools.values()) {
+            refill(pool);
+        }
+    }
+
+    /**
+     * Takes one pre-rolled chest for a configuration, or returns null when none is ready; either way a drained
+     * pool is topped up in the background.
+     */
+    public ItemStack[] take(String configName) {
+        Pool pool = pools.get(configName);
+        if (pool == null) {
+            return null;
+        }
+        ItemStack[] contents = pool.ready.poll();
+        if (contents != null) {
+            pool.size.decrementAndGet();
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        if (pool.size.get() <= depth / 2) {
+            refill(pool);
+        }
+        return contents;
+    }
+
+    /**
+     * Stops rolling; queued results are dropped with the plugin.
+     */
+    public void close() {
+        pools = Map.of();
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns how many chests are ready, the pool capacity and the refill rate over the last minute.
+     */
+    public Snapshot snapshot() {
+        Map<String, Pool> current = pools;
+        int ready = 0;
+        for (Pool pool : current.values()) {
+            ready += pool.size.get();
+        }
+        return new Snapshot(current.size(), ready, current.size() * depth, rollsPerSecond(),
+                hits.sum(), misses.sum());
+    }
+
+    /**
+     * Schedules a worker pass that rolls until the pool is full, unless one is already scheduled for it.
+     */
+    private void refill(Pool pool) {
+        if (!pool.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> fill(pool));
+        } catch (RejectedExecutionException exception) {
+            // The plugin is shutting down.
+            pool.scheduled.set(false);
+        }
+    }
+
+    /**
+     * Rolls chests into the pool until it reaches the configured depth or is replaced by a newer snapshot.
+     */
+    private void fill(Pool pool) {
+        try {
+            while (pool.size.get() < depth && pools.get(pool.name) == pool && !Thread.currentThread().isInterrupted()) {
+                pool.ready.offer(chests.rollContents(pool.config, CHEST_SIZE, false));
+                pool.size.incrementAndGet();
+                recordRoll();
+            }
+        } catch (RuntimeException exception) {
+            plugin.getLogger().log(Level.WARNING, "Failed to pre-roll loot for chest config " + pool.name, exception);
+            return;
+        } finally {
+            pool.scheduled.set(false);
+        }
+        // A chest taken after the loop saw a full pool would otherwise wait for the next take.
+        if (pool.size.get() <= depth / 2 && pools.get(pool.name) == pool) {
+            refill(pool);
+        }
+    }
+
+    /**
+     * Counts one rolled chest in the current second's bucket.
+     */
+    private synchronized void recordRoll() {
+        long second = System.currentTimeMillis() / 1000;
+        int index = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+        if (bucketSeconds[index] != second) {
+            bucketSeconds[index] = second;
+            bucketRolls[index] = 0;
+        }
+        bucketRolls[index]++;
+    }
+
+    /**
+     * Returns rolled chests per second averaged over the window, or over the uptime while it is shorter.
+     */
+    private synchronized double rollsPerSecond() {
+        long now = System.currentTimeMillis();
+        long currentSecond = now / 1000;
+        long rolls = 0;
+        for (int index = 0; index < WINDOW_SECONDS; index++) {
+            if (currentSecond - bucketSeconds[index] < WINDOW_SECONDS) {
+                rolls += bucketRolls[index];
+            }
+        }
+        return rolls / Math.max(1, Math.min(WINDOW_SECONDS, (now - startedAtMillis) / 1000.0));
+    }
+
+    /**
+     * Pre-rolled contents of one chest configuration with a guard against scheduling two refills at once.
+     */
+    private static final class Pool {
+        private final String name;
+        private final ChestConfig config;
+        private final Queue<ItemStack[]> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Pool(String name, ChestConfig config) {
+            this.name = name;
+            this.config = config;
+        }
+    }
+
+    /**
+     * Pool depth, refill rate and how often a chest found its pool ready.
+     */
+    public record Snapshot(int pools, int ready, int capacity, double rollsPerSecond, long hits, long misses) {
+    }
+}
@@ -0,0 +1,84 @@
+package org.katacr.kaOneBlock.chest;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Plans item placement in a chest of at most 32 slots with an occupancy bit mask: fixed slots are claimed by setting
+ * their bit, and random placement walks a Fisher-Yates shuffle of the free slots, skipping any claimed since.
+ */
+final class SlotAllocator {
+    static final int MAX_SLOTS = Integer.SIZE;
+
+    private final int size;
+    private final int allSlots;
+    private final int[] order;
+    private int occupied;
+    private int available;
+    private int cursor;
+
+    SlotAllocator(int size) {
+        if (size < 0 || size > MAX_SLOTS) {
+            throw new IllegalArgumentException("Unsupported chest size: " + size);
+        }
+        this.size = size;
+        this.allSlots = size == MAX_SLOTS ? -1 : (1 << size) - 1;
+        this.order = new int[size];
+    }
+
+    /**
+     * Shuffles the slots that are free right now into the order used by {@link #next()}.
+     */
+    void shuffle(RandomGenerator random) {
+        int count = 0;
+        for (int free = ~occupied & allSlots; free != 0; free &= free - 1) {
+            order[count++] = Integer.numberOfTrailingZeros(free);
+        }
+        for (int index = count - 1; index > 0; index--) {
+            int swap = random.nextInt(index + 1);
+            int slot = order[index];
+            order[index] = order[swap];
+            order[swap] = slot;
+        }
+        available = count;
+        cursor = 0;
+    }
+
+    /**
+     * Claims the requested slot when it exists and is free, otherwise the next shuffled free slot; -1 when full.
+     */
+    int claim(int requested) {
+        if (requested >= 0 && requested < size && (occupied & (1 << requested)) == 0) {
+            occupied |= 1 << requested;
+            return requested;
+        }
+        return next();
+    }
+
+    /**
+     * Claims the next free slot in shuffled order, or returns -1 when none is left.
+     */
+    int next() {
+        while (cursor < available) {
+            int slot = order[cursor++];
+            if ((occupied & (1 << slot)) == 0) {
+                occupied |= 1 << slot;
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the slot has been claimed.
+     */
+    boolean isOccupied(int slot) {
+        return (occupied & (1 << slot)) != 0;
+    }
+
+    /**
+     * Returns the number of slots not yet claimed.
+     */
+    int freeSlots() {
+        return size - Integer.bitCount(occupied);
+    }
+}
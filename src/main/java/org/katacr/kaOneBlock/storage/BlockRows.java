@@ -0,0 +1,67 @@
+package org.katacr.kaOneBlock.storage;
+
+import org.katacr.kaOneBlock.BlockPosition;
+import org.katacr.kaOneBlock.GeneratedBlockRecord;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Maps the dialect-independent generated_blocks columns to typed records.
+ */
+final class BlockRows {
+    static final String COLUMNS = "player_uuid, player_name, world_uuid, world_name, x, y, z, block_type, stage_file, blocks_broken";
+    static final String PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final int COLUMN_COUNT = 10;
+    static final String OWNER_COLUMNS = "player_uuid, world_uuid, x, y, z";
+
+    private BlockRows() {
+    }
+
+    /**
+     * Maps one row to the typed domain record used by gameplay code.
+     */
+    static GeneratedBlockRecord map(ResultSet result) throws SQLException {
+        UUID playerId = UUID.fromString(result.getString("player_uuid"));
+        UUID worldId = UUID.fromString(result.getString("world_uuid"));
+        String worldName = result.getString("world_name");
+        if (worldName == null || worldName.isBlank()) {
+            worldName = worldId.toString();
+        }
+        return new GeneratedBlockRecord(
+                playerId,
+                result.getString("player_name"),
+                position(result),
+                worldName,
+                result.getString("block_type"),
+                result.getString("stage_file"),
+                result.getInt("blocks_broken")
+        );
+    }
+
+    /**
+     * Maps the world-aware position of one row selected with at least {@link #OWNER_COLUMNS}.
+     */
+    static BlockPosition position(ResultSet result) throws SQLException {
+        return new BlockPosition(UUID.fromString(result.getString("world_uuid")),
+                result.getInt("x"), result.getInt("y"), result.getInt("z"));
+    }
+
+    /**
+     * Binds all record fields in canonical column order starting after the given parameter offset.
+     */
+    static void bind(PreparedStatement statement, int offset, GeneratedBlockRecord record) throws SQLException {
+        statement.setString(offset + 1, record.playerId().toString());
+        statement.setString(offset + 2, record.playerName());
+        statement.setString(offset + 3, record.position().worldId().toString());
+        statement.setString(offset + 4, record.worldName());
+        statement.setInt(offset + 5, record.position().x());
+        statement.setInt(offset + 6, record.position().y());
+        statement.setInt(offset + 7, record.position().z());
+        statement.setString(offset + 8, record.blockType());
+        statement.setString(offset + 9, record.stageFile());
+        statement.setInt(offset + 10, record.blocksBroken());
+    }
+}
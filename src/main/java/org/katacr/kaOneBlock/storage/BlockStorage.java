@@ -0,0 +1,126 @@
+package org.katacr.kaOneBlock.storage;
+
+import org.katacr.kaOneBlock.BlockPosition;
+import org.katacr.kaOneBlock.BreakOutcome;
+import org.katacr.kaOneBlock.GeneratedBlockRecord;
+import org.katacr.kaOneBlock.OutcomeCount;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persists authoritative OneBlock records without exposing a SQL dialect to gameplay code.
+ *
+ * <p>Write operations are issued by a single writer thread. Implementations must still tolerate concurrent
+ * read-only diagnostics from other threads.</p>
+ */
+public interface BlockStorage {
+    /**
+     * Creates the latest schema or migrates an older one in place.
+     */
+    void initialize() throws SQLException;
+
+    /**
+     * Counts records created by releases that did not store a world.
+     */
+    int countRecordsWithoutWorld() throws SQLException;
+
+    /**
+     * Assigns an explicit world to every record that has none.
+     */
+    void assignLegacyWorld(UUID worldId, String worldName) throws SQLException;
+
+    /**
+     * Streams every stored record to a visitor and stops early when the visitor rejects one.
+     */
+    boolean loadAll(RecordVisitor visitor) throws SQLException;
+
+    /**
+     * Streams only the owner and position of every stored record for the resident location index.
+     */
+    boolean loadOwners(OwnerVisitor visitor) throws SQLException;
+
+    /**
+     * Loads one player's full record by primary key.
+     */
+    Optional<GeneratedBlockRecord> load(UUID playerId) throws SQLException;
+
+    /**
+     * Loads up to {@code limit} records ordered by player key and following {@code after}, or from the start when it
+     * is null, so callers can page through the table in short independent reads.
+     */
+    List<GeneratedBlockRecord> loadPage(UUID after, int limit) throws SQLException;
+
+    /**
+     * Inserts or replaces all records in one transaction.
+     */
+    void upsertAll(Collection<GeneratedBlockRecord> records) throws SQLException;
+
+    /**
+     * Deletes one player's record and reports whether a row existed.
+     */
+    boolean delete(UUID playerId) throws SQLException;
+
+    /**
+     * Applies recovered journal state in one transaction, where a null record deletes the player's row.
+     */
+    void applyJournal(Map<UUID, GeneratedBlockRecord> entries) throws SQLException;
+
+    /**
+     * Appends break events to the raw history and adds them to the hourly rollup in one transaction.
+     */
+    void appendHistory(List<BreakOutcome> events) throws SQLException;
+
+    /**
+     * Deletes at most {@code limit} raw history events that occurred before the cutoff and returns how many were
+     * deleted, so retention never holds a long write lock.
+     */
+    int pruneHistory(long beforeMillis, int limit) throws SQLException;
+
+    /**
+     * Deletes at most {@code limit} hourly rollup rows whose hour started before the cutoff and returns how many were
+     * deleted.
+     */
+    int pruneRollups(long beforeMillis, int limit) throws SQLException;
+
+    /**
+     * Sums the hourly rollups whose hour starts within {@code [fromMillis, toMillis)} per outcome, optionally limited
+     * to one stage file, ordered by descending count.
+     */
+    List<OutcomeCount> countOutcomes(String stageFile, long fromMillis, long toMillis) throws SQLException;
+
+    /**
+     * Returns the stored column names and types in table order.
+     */
+    Map<String, String> describeColumns() throws SQLException;
+
+    /**
+     * Returns one diagnostic line per connection or pool.
+     */
+    List<String> describeConnections();
+
+    /**
+     * Closes all connections held by this storage.
+     */
+    void close();
+
+    /**
+     * Receives one stored record during a streaming load.
+     */
+    @FunctionalInterface
+    interface RecordVisitor {
+        boolean visit(GeneratedBlockRecord record) throws SQLException;
+    }
+
+    /**
+     * Receives one owner and position during a streaming index load.
+     */
+    @FunctionalInterface
+    interface OwnerVisitor {
+        boolean visit(UUID playerId, BlockPosition position) throws SQLException;
+    }
+}
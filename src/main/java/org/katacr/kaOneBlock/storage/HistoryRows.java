@@ -0,0 +1,59 @@
+package org.katacr.kaOneBlock.storage;
+
+import org.katacr.kaOneBlock.BreakOutcome;
+import org.katacr.kaOneBlock.GenerationSelector.OutcomeType;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shares the dialect-independent parts of the break history tables: stable outcome type codes and the per-batch
+ * hourly rollup.
+ */
+final class HistoryRows {
+    private HistoryRows() {
+    }
+
+    /**
+     * Returns the stored code of an outcome type, independent of the enum's declaration order.
+     */
+    static int typeCode(OutcomeType type) {
+        return switch (type) {
+            case BLOCK -> 0;
+            case CHEST -> 1;
+            case ENTITY -> 2;
+        };
+    }
+
+    /**
+     * Maps a stored code back to its outcome type.
+     */
+    static OutcomeType type(int code) throws SQLException {
+        return switch (code) {
+            case 0 -> OutcomeType.BLOCK;
+            case 1 -> OutcomeType.CHEST;
+            case 2 -> OutcomeType.ENTITY;
+            default -> throw new SQLException("Unknown outcome type code " + code);
+        };
+    }
+
+    /**
+     * Counts a batch of events per hour, stage and outcome so each rollup row is updated once per batch.
+     */
+    static Map<HourlyKey, Long> rollup(Collection<BreakOutcome> events) {
+        Map<HourlyKey, Long> counts = new LinkedHashMap<>();
+        for (BreakOutcome event : events) {
+            HourlyKey key = new HourlyKey(event.hourStart(), event.stageFile(), event.outcomeType(), event.outcomeId());
+            counts.merge(key, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Identifies one hourly rollup row.
+     */
+    record HourlyKey(long hourStart, String stageFile, OutcomeType outcomeType, String outcomeId) {
+    }
+}
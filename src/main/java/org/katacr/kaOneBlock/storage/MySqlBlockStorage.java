@@ -0,0 +1,509 @@
+package org.katacr.kaOneBlock.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.katacr.kaOneBlock.BreakOutcome;
+import org.katacr.kaOneBlock.GeneratedBlockRecord;
+import org.katacr.kaOneBlock.OutcomeCount;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+/**
+ * Stores records in a networked MySQL or MariaDB database through a bounded connection pool.
+ */
+public class MySqlBlockStorage implements BlockStorage {
+    private static final String TABLE = "generated_blocks";
+    private static final String LOCATION_INDEX = "idx_generated_blocks_location";
+    private static final String UPSERT_SUFFIX = """
+             ON DUPLICATE KEY UPDATE
+                player_name = VALUES(player_name),
+                world_uuid = VALUES(world_uuid),
+                world_name = VALUES(world_name),
+                x = VALUES(x),
+                y = VALUES(y),
+                z = VALUES(z),
+                block_type = VALUES(block_type),
+                stage_file = VALUES(stage_file),
+                blocks_broken = VALUES(blocks_broken)
+            """;
+    private static final String HISTORY_COLUMNS = "player_uuid, stage_file, outcome_type, outcome_id, occurred_at";
+    private static final int HISTORY_COLUMN_COUNT = 5;
+    private static final String ROLLUP_COLUMNS = "hour_start, stage_file, outcome_type, outcome_id, event_count";
+    private static final String ROLLUP_SUFFIX = " ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)";
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final int poolSize;
+    private final int batchSize;
+    private HikariDataSource dataSource;
+
+    public MySqlBlockStorage(String jdbcUrl, String username, String password, int poolSize, int batchSize) {
+        if (jdbcUrl == null || jdbcUrl.isBlank()) {
+            throw new IllegalArgumentException("storage.mysql.jdbc-url must be set");
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.poolSize = Math.max(1, poolSize);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void initialize() throws SQLException {
+        // 重复初始化时沿用已打开的连接池，只重新检查表结构
+        if (dataSource == null || dataSource.isClosed()) {
+            dataSource = openPool();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            Transactions.run(connection, () -> {
+                createSchema(connection);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Creates the Hikari pool with batched, server-side prepared statements.
+     */
+    private HikariDataSource openPool() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("KaOneBlock-MySQL");
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(1);
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        try {
+            return new HikariDataSource(config);
+        } catch (RuntimeException exception) {
+            throw new SQLException("Failed to open the MySQL connection pool", exception);
+        }
+    }
+
+    @Override
+    public int countRecordsWithoutWorld() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM generated_blocks WHERE world_uuid IS NULL OR world_uuid = ''")) {
+            return result.next() ? result.getInt(1) : 0;
+        }
+    }
+
+    @Override
+    public void assignLegacyWorld(UUID worldId, String worldName) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE generated_blocks SET world_uuid = ?, world_name = ? WHERE world_uuid IS NULL OR world_uuid = ''")) {
+            statement.setString(1, worldId.toString());
+            statement.setString(2, worldName);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public boolean loadAll(RecordVisitor visitor) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT " + BlockRows.COLUMNS + " FROM generated_blocks")) {
+            while (result.next()) {
+                if (!visitor.visit(BlockRows.map(result))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean loadOwners(OwnerVisitor visitor) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT " + BlockRows.OWNER_COLUMNS + " FROM generated_blocks")) {
+            while (result.next()) {
+                if (!visitor.visit(UUID.fromString(result.getString("player_uuid")), BlockRows.position(result))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<GeneratedBlockRecord> load(UUID playerId) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT " + BlockRows.COLUMNS + " FROM generated_blocks WHERE player_uuid = ?")) {
+            statement.setString(1, playerId.toString());
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? Optional.of(BlockRows.map(result)) : Optional.empty();
+            }
+        }
+    }
+
+    @Override
+    public List<GeneratedBlockRecord> loadPage(UUID after, int limit) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT " + BlockRows.COLUMNS
+                     + " FROM generated_blocks WHERE player_uuid > ? ORDER BY player_uuid LIMIT ?")) {
+            statement.setString(1, after == null ? "" : after.toString());
+            statement.setInt(2, limit);
+            List<GeneratedBlockRecord> records = new ArrayList<>(limit);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    records.add(BlockRows.map(result));
+                }
+            }
+            return records;
+        }
+    }
+
+    @Override
+    public void upsertAll(Collection<GeneratedBlockRecord> records) throws SQLException {
+        if (records.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            Transactions.run(connection, () -> {
+                upsertChunked(connection, List.copyOf(records));
+                return true;
+            });
+        }
+    }
+
+    @Override
+    public boolean delete(UUID playerId) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM generated_blocks WHERE player_uuid = ?")) {
+            statement.setString(1, playerId.toString());
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    @Override
+    public void applyJournal(Map<UUID, GeneratedBlockRecord> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<GeneratedBlockRecord> upserts = new ArrayList<>();
+        List<UUID> deletes = new ArrayList<>();
+        entries.forEach((playerId, record) -> {
+            if (record == null) {
+                deletes.add(playerId);
+            } else {
+                upserts.add(record);
+            }
+        });
+        try (Connection connection = dataSource.getConnection()) {
+            Transactions.run(connection, () -> {
+                upsertChunked(connection, upserts);
+                try (PreparedStatement statement = connection.prepareStatement("DELETE FROM generated_blocks WHERE player_uuid = ?")) {
+                    for (UUID playerId : deletes) {
+                        statement.setString(1, playerId.toString());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                return true;
+            });
+        }
+    }
+
+    /**
+     * Sends the raw events and the per-batch hourly counts as multi-row statements of at most one batch each.
+     */
+    @Override
+    public void appendHistory(List<BreakOutcome> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<HistoryRows.HourlyKey, Long>> rollups = List.copyOf(HistoryRows.rollup(events).entrySet());
+        try (Connection connection = dataSource.getConnection()) {
+            Transactions.run(connection, () -> {
+                writeChunked(connection, events, HISTORY_COLUMN_COUNT, MySqlBlockStorage::historySql, MySqlBlockStorage::bindHistory);
+                writeChunked(connection, rollups, HISTORY_COLUMN_COUNT, MySqlBlockStorage::rollupSql, MySqlBlockStorage::bindRollup);
+                return true;
+            });
+        }
+    }
+
+    @Override
+    public int pruneHistory(long beforeMillis, int limit) throws SQLException {
+        return deleteBefore("DELETE FROM break_history WHERE occurred_at < ? LIMIT ?", beforeMillis, limit);
+    }
+
+    @Override
+    public int pruneRollups(long beforeMillis, int limit) throws SQLException {
+        return deleteBefore("DELETE FROM break_history_hourly WHERE hour_start < ? LIMIT ?", beforeMillis, limit);
+    }
+
+    @Override
+    public List<OutcomeCount> countOutcomes(String stageFile, long fromMillis, long toMillis) throws SQLException {
+        String sql = "SELECT outcome_type, outcome_id, SUM(event_count) AS total FROM break_history_hourly "
+                + "WHERE hour_start >= ? AND hour_start < ? " + (stageFile == null ? "" : "AND stage_file = ? ")
+                + "GROUP BY outcome_type, outcome_id ORDER BY total DESC";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, fromMillis);
+            statement.setLong(2, toMillis);
+            if (stageFile != null) {
+                statement.setString(3, stageFile);
+            }
+            List<OutcomeCount> counts = new ArrayList<>();
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    counts.add(new OutcomeCount(HistoryRows.type(result.getInt(1)), result.getString(2), result.getLong(3)));
+                }
+            }
+            return counts;
+        }
+    }
+
+    @Override
+    public Map<String, String> describeColumns() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            Map<String, String> columns = readColumns(connection, TABLE);
+            return columns.isEmpty() ? readColumns(connection, TABLE.toUpperCase(Locale.ROOT)) : columns;
+        }
+    }
+
+    @Override
+    public List<String> describeConnections() {
+        HikariDataSource source = dataSource;
+        HikariPoolMXBean pool = source == null ? null : source.getHikariPoolMXBean();
+        if (pool == null) {
+            return List.of("pool: closed");
+        }
+        return List.of("pool: size=" + poolSize
+                + ", active=" + pool.getActiveConnections()
+                + ", idle=" + pool.getIdleConnections()
+                + ", waiting=" + pool.getThreadsAwaitingConnection()
+                + ", batchSize=" + batchSize);
+    }
+
+    @Override
+    public void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * Creates the table and its location index, both of which are idempotent across restarts.
+     */
+    private void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS generated_blocks (
+                        id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                        player_uuid VARCHAR(36) NOT NULL UNIQUE,
+                        player_name VARCHAR(32) NOT NULL,
+                        world_uuid VARCHAR(36),
+                        world_name VARCHAR(255),
+                        x INT NOT NULL,
+                        y INT NOT NULL,
+                        z INT NOT NULL,
+                        block_type VARCHAR(255) NOT NULL DEFAULT 'STONE',
+                        stage_file VARCHAR(255) NOT NULL DEFAULT 'normal.yml',
+                        blocks_broken INT NOT NULL DEFAULT 0,
+                        generated_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                    )
+                    """);
+            if (!hasIndex(connection, LOCATION_INDEX)) {
+                statement.execute("CREATE INDEX " + LOCATION_INDEX + " ON generated_blocks (world_uuid, x, y, z)");
+            }
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS break_history (
+                        id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                        player_uuid VARCHAR(36) NOT NULL,
+                        stage_file VARCHAR(128) NOT NULL,
+                        outcome_type TINYINT NOT NULL,
+                        outcome_id VARCHAR(128) NOT NULL,
+                        occurred_at BIGINT NOT NULL
+                    )
+                    """);
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS break_history_hourly (
+                        hour_start BIGINT NOT NULL,
+                        stage_file VARCHAR(128) NOT NULL,
+                        outcome_type TINYINT NOT NULL,
+                        outcome_id VARCHAR(128) NOT NULL,
+                        event_count BIGINT NOT NULL,
+                        PRIMARY KEY (hour_start, stage_file, outcome_type, outcome_id)
+                    )
+                    """);
+        }
+    }
+
+    /**
+     * Runs one bounded retention delete and returns the number of deleted rows.
+     */
+    private int deleteBefore(String sql, long beforeMillis, int limit) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, beforeMillis);
+            statement.setInt(2, limit);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Checks index metadata because MySQL has no portable CREATE INDEX IF NOT EXISTS.
+     */
+    private boolean hasIndex(Connection connection, String name) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String table : List.of(TABLE, TABLE.toUpperCase(Locale.ROOT))) {
+            try (ResultSet result = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+                while (result.next()) {
+                    if (name.equalsIgnoreCase(result.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads column names and types from JDBC metadata so diagnostics work on any MySQL-compatible server.
+     */
+    private Map<String, String> readColumns(Connection connection, String table) throws SQLException {
+        Map<String, String> columns = new LinkedHashMap<>();
+        try (ResultSet result = connection.getMetaData().getColumns(connection.getCatalog(), null, table, null)) {
+            while (result.next()) {
+                columns.put(result.getString("COLUMN_NAME").toLowerCase(Locale.ROOT), result.getString("TYPE_NAME"));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Sends records as multi-row upserts of at most one batch each.
+     */
+    private void upsertChunked(Connection connection, List<GeneratedBlockRecord> records) throws SQLException {
+        writeChunked(connection, records, BlockRows.COLUMN_COUNT, MySqlBlockStorage::upsertSql, BlockRows::bind);
+    }
+
+    /**
+     * Sends rows as multi-row statements of at most one batch each, reusing the statement for full batches.
+     */
+    private <T> void writeChunked(Connection connection, List<T> rows, int columns, IntFunction<String> sql,
+                                  RowBinder<T> binder) throws SQLException {
+        int fullChunks = rows.size() / batchSize;
+        if (fullChunks > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(sql.apply(batchSize))) {
+                for (int chunk = 0; chunk < fullChunks; chunk++) {
+                    bindChunk(statement, rows, chunk * batchSize, batchSize, columns, binder);
+                    statement.executeUpdate();
+                }
+            }
+        }
+        int remainder = rows.size() - fullChunks * batchSize;
+        if (remainder > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(sql.apply(remainder))) {
+                bindChunk(statement, rows, fullChunks * batchSize, remainder, columns, binder);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Binds consecutive rows into the value groups of one multi-row statement.
+     */
+    private static <T> void bindChunk(PreparedStatement statement, List<T> rows, int start, int count, int columns,
+                                      RowBinder<T> binder) throws SQLException {
+        for (int row = 0; row < count; row++) {
+            binder.bind(statement, row * columns, rows.get(start + row));
+        }
+    }
+
+    /**
+     * Builds the given number of placeholder groups with the given number of columns each.
+     */
+    static String valueGroups(int rows, int columns) {
+        String group = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        return String.join(", ", Collections.nCopies(rows, group));
+    }
+
+    /**
+     * Builds a raw history insert with the given number of value groups.
+     */
+    static String historySql(int rows) {
+        return "INSERT INTO break_history (" + HISTORY_COLUMNS + ") VALUES " + valueGroups(rows, HISTORY_COLUMN_COUNT);
+    }
+
+    /**
+     * Builds an hourly rollup upsert with the given number of value groups that adds to existing counts.
+     */
+    static String rollupSql(int rows) {
+        return "INSERT INTO break_history_hourly (" + ROLLUP_COLUMNS + ") VALUES " + valueGroups(rows, HISTORY_COLUMN_COUNT)
+                + ROLLUP_SUFFIX;
+    }
+
+    /**
+     * Binds one raw history event after the given parameter offset.
+     */
+    private static void bindHistory(PreparedStatement statement, int offset, BreakOutcome event) throws SQLException {
+        statement.setString(offset + 1, event.playerId().toString());
+        statement.setString(offset + 2, event.stageFile());
+        statement.setInt(offset + 3, HistoryRows.typeCode(event.outcomeType()));
+        statement.setString(offset + 4, event.outcomeId());
+        statement.setLong(offset + 5, event.occurredAtMillis());
+    }
+
+    /**
+     * Binds one hourly count after the given parameter offset.
+     */
+    private static void bindRollup(PreparedStatement statement, int offset, Map.Entry<HistoryRows.HourlyKey, Long> rollup)
+            throws SQLException {
+        HistoryRows.HourlyKey key = rollup.getKey();
+        statement.setLong(offset + 1, key.hourStart());
+        statement.setString(offset + 2, key.stageFile());
+        statement.setInt(offset + 3, HistoryRows.typeCode(key.outcomeType()));
+        statement.setString(offset + 4, key.outcomeId());
+        statement.setLong(offset + 5, rollup.getValue());
+    }
+
+    /**
+     * Builds an upsert with the given number of value groups.
+     */
+    static String upsertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO generated_blocks (")
+                .append(BlockRows.COLUMNS)
+                .append(") VALUES ");
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) {
+                sql.append(", ");
+            }
+            sql.append(BlockRows.PLACEHOLDERS);
+        }
+        return sql.append(UPSERT_SUFFIX).toString();
+    }
+
+    /**
+     * Binds one row's values after the given parameter offset.
+     */
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(PreparedStatement statement, int offset, T row) throws SQLException;
+    }
+}
@@ -0,0 +1,145 @@
+package org.katacr.kaOneBlock.storage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps one configured SQLite connection and its prepared statements open across serialized operations.
+ */
+final class PersistentConnection {
+    private final String role;
+    private final String databaseUrl;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private Connection connection;
+    private long openedAtMillis;
+    private long opens;
+    private long reuses;
+    private long statementReuses;
+
+    PersistentConnection(String role, String databaseUrl) {
+        this.role = role;
+        this.databaseUrl = databaseUrl;
+    }
+
+    /**
+     * Runs one operation on the shared connection and discards the connection when the operation fails.
+     */
+    synchronized <T> T execute(Operation<T> operation) throws SQLException {
+        acquire();
+        try {
+            return operation.run(this);
+        } catch (SQLException | RuntimeException exception) {
+            invalidate();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns the open connection for use inside {@link #execute(Operation)}.
+     */
+    Connection connection() {
+        if (connection == null) {
+            throw new IllegalStateException("Connection is only available inside execute");
+        }
+        return connection;
+    }
+
+    /**
+     * Returns a cached prepared statement, preparing it once per physical connection.
+     */
+    PreparedStatement statement(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            statementReuses++;
+            return statement;
+        }
+        statement = connection().prepareStatement(sql);
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Summarizes connection age and reuse counters for administrative diagnostics.
+     */
+    synchronized String describe() {
+        String age = connection == null ? "closed" : formatAge(System.currentTimeMillis() - openedAtMillis);
+        return role + ": age=" + age
+                + ", opens=" + opens
+                + ", reuses=" + reuses
+                + ", cachedStatements=" + statements.size()
+                + ", statementReuses=" + statementReuses;
+    }
+
+    /**
+     * Closes all cached statements and the physical connection.
+     */
+    synchronized void close() {
+        invalidate();
+    }
+
+    /**
+     * Opens and configures a new physical connection when none is usable.
+     */
+    private void acquire() throws SQLException {
+        if (connection != null && !connection.isClosed()) {
+            reuses++;
+            return;
+        }
+        statements.clear();
+        Connection opened = DriverManager.getConnection(databaseUrl);
+        try (Statement statement = opened.createStatement()) {
+            statement.execute("PRAGMA busy_timeout = 5000");
+            statement.execute("PRAGMA journal_mode = WAL");
+            statement.execute("PRAGMA synchronous = NORMAL");
+        } catch (SQLException exception) {
+            opened.close();
+            throw exception;
+        }
+        connection = opened;
+        openedAtMillis = System.currentTimeMillis();
+        opens++;
+    }
+
+    /**
+     * Drops the physical connection so the next operation reconnects from a clean state.
+     */
+    private void invalidate() {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // The connection is discarded below.
+            }
+        }
+        statements.clear();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // A broken connection cannot be reused either way.
+            }
+        }
+        connection = null;
+    }
+
+    /**
+     * Formats a connection age as compact hours, minutes and seconds.
+     */
+    private static String formatAge(long millis) {
+        long seconds = Math.max(0, millis / 1000);
+        return String.format("%dh%02dm%02ds", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+
+    /**
+     * Represents one database operation executed while holding the connection.
+     */
+    @FunctionalInterface
+    interface Operation<T> {
+        T run(PersistentConnection session) throws SQLException;
+    }
+}
@@ -0,0 +1,679 @@
+package org.katacr.kaOneBlock.storage;
+
+import org.katacr.kaOneBlock.BlockPosition;
+import org.katacr.kaOneBlock.BreakOutcome;
+import org.katacr.kaOneBlock.GeneratedBlockRecord;
+import org.katacr.kaOneBlock.OutcomeCount;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * Stores records in the plugin's local SQLite file through one persistent writer and one reader connection.
+ *
+ * <p>Schema version 2 keys rows by 16-byte UUID blobs in a WITHOUT ROWID table, packs coordinates into one integer
+ * and references interned world, block type and stage dictionaries. Version 1 text tables are converted in place.
+ * Break history rows reference the same stage dictionary and an outcome dictionary.</p>
+ */
+public class SqliteBlockStorage implements BlockStorage {
+    static final int SCHEMA_VERSION = 2;
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+    private static final int SQLITE_OK = 0;
+    private static final int SQLITE_DONE = 101;
+    private static final String COLUMNS = "player_uuid, player_name, world_id, packed_xyz, block_type_id, stage_id, blocks_broken";
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM generated_blocks WHERE player_uuid = ?";
+    private static final String PAGE_SQL = "SELECT " + COLUMNS + " FROM generated_blocks WHERE player_uuid > ? ORDER BY player_uuid LIMIT ?";
+    private static final String DELETE_SQL = "DELETE FROM generated_blocks WHERE player_uuid = ?";
+    private static final String UPSERT_SQL = """
+            INSERT INTO generated_blocks
+                (player_uuid, player_name, world_id, packed_xyz, block_type_id, stage_id, blocks_broken)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT(player_uuid) DO UPDATE SET
+                player_name = excluded.player_name,
+                world_id = excluded.world_id,
+                packed_xyz = excluded.packed_xyz,
+                block_type_id = excluded.block_type_id,
+                stage_id = excluded.stage_id,
+                blocks_broken = excluded.blocks_broken
+            """;
+    private static final String HISTORY_INSERT_SQL =
+            "INSERT INTO break_history (player_uuid, stage_id, outcome_type, outcome_id, occurred_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String ROLLUP_UPSERT_SQL = """
+            INSERT INTO break_history_hourly (hour_start, stage_id, outcome_type, outcome_id, event_count)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT(hour_start, stage_id, outcome_type, outcome_id) DO UPDATE SET
+                event_count = event_count + excluded.event_count
+            """;
+    private static final String HISTORY_PRUNE_SQL = "DELETE FROM break_history WHERE id IN "
+            + "(SELECT id FROM break_history WHERE occurred_at < ? ORDER BY id LIMIT ?)";
+    private static final String ROLLUP_PRUNE_SQL = "DELETE FROM break_history_hourly "
+            + "WHERE (hour_start, stage_id, outcome_type, outcome_id) IN "
+            + "(SELECT hour_start, stage_id, outcome_type, outcome_id FROM break_history_hourly WHERE hour_start < ? LIMIT ?)";
+    private static final String COUNT_OUTCOMES_SQL = "SELECT outcome_type, outcome_id, SUM(event_count) AS total "
+            + "FROM break_history_hourly WHERE hour_start >= ? AND hour_start < ? ";
+    private static final String COUNT_OUTCOMES_GROUPING = "GROUP BY outcome_type, outcome_id ORDER BY total DESC";
+
+    private final String databaseUrl;
+    private final PersistentConnection writerConnection;
+    private final PersistentConnection readConnection;
+    private final SqliteDictionaries dictionaries = new SqliteDictionaries();
+    private volatile int schemaVersion;
+
+    public SqliteBlockStorage(File databaseFile) {
+        databaseUrl = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+        writerConnection = new PersistentConnection("writer", databaseUrl);
+        readConnection = new PersistentConnection("reader", databaseUrl);
+    }
+
+    /**
+     * Creates the compact schema, or upgrades a version 1 table once every legacy row has a world.
+     */
+    @Override
+    public void initialize() throws SQLException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException exception) {
+            throw new SQLException("SQLite JDBC driver is unavailable", exception);
+        }
+        writerConnection.execute(session -> {
+            Connection connection = session.connection();
+            enableIncrementalVacuum(connection);
+            if (readUserVersion(connection) < SCHEMA_VERSION && tableExists(connection, "generated_blocks")) {
+                Transactions.run(connection, () -> {
+                    migrateTextColumns(connection);
+                    return true;
+                });
+                schemaVersion = 1;
+                if (countTextRecordsWithoutWorld(connection) == 0) {
+                    convertToCompactSchema(connection);
+                }
+                return null;
+            }
+            Transactions.run(connection, () -> {
+                SqliteDictionaries.createTables(connection);
+                createCompactTable(connection, "generated_blocks");
+                createHistoryTables(connection);
+                setUserVersion(connection, SCHEMA_VERSION);
+                return true;
+            });
+            dictionaries.load(connection);
+            schemaVersion = SCHEMA_VERSION;
+            return null;
+        });
+    }
+
+    @Override
+    public int countRecordsWithoutWorld() throws SQLException {
+        if (schemaVersion >= SCHEMA_VERSION) {
+            return 0;
+        }
+        return writerConnection.execute(session -> countTextRecordsWithoutWorld(session.connection()));
+    }
+
+    /**
+     * Backfills the world of version 1 rows and then completes the deferred compact schema conversion.
+     */
+    @Override
+    public void assignLegacyWorld(UUID worldId, String worldName) throws SQLException {
+        if (schemaVersion >= SCHEMA_VERSION) {
+            return;
+        }
+        writerConnection.execute(session -> {
+            try (PreparedStatement statement = session.connection().prepareStatement(
+                    "UPDATE generated_blocks SET world_uuid = ?, world_name = ? WHERE world_uuid IS NULL OR world_uuid = ''")) {
+                statement.setString(1, worldId.toString());
+                statement.setString(2, worldName);
+                statement.executeUpdate();
+            }
+            convertToCompactSchema(session.connection());
+            return null;
+        });
+    }
+
+    @Override
+    public boolean loadAll(RecordVisitor visitor) throws SQLException {
+        requireCompactSchema();
+        return writerConnection.execute(session -> {
+            try (Statement statement = session.connection().createStatement();
+                 ResultSet result = statement.executeQuery("SELECT " + COLUMNS + " FROM generated_blocks")) {
+                while (result.next()) {
+                    if (!visitor.visit(map(result))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public boolean loadOwners(OwnerVisitor visitor) throws SQLException {
+        requireCompactSchema();
+        return readConnection.execute(session -> {
+            try (Statement statement = session.connection().createStatement();
+                 ResultSet result = statement.executeQuery("SELECT player_uuid, world_id, packed_xyz FROM generated_blocks")) {
+                while (result.next()) {
+                    BlockPosition position = BlockPosition.unpack(dictionaries.world(result.getInt(2)).uuid(), result.getLong(3));
+                    if (!visitor.visit(UuidBytes.fromBytes(result.getBytes(1)), position)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public Optional<GeneratedBlockRecord> load(UUID playerId) throws SQLException {
+        requireCompactSchema();
+        return readConnection.execute(session -> {
+            PreparedStatement statement = session.statement(SELECT_SQL);
+            statement.setBytes(1, UuidBytes.toBytes(playerId));
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? Optional.of(map(result)) : Optional.empty();
+            }
+        });
+    }
+
+    @Override
+    public List<GeneratedBlockRecord> loadPage(UUID after, int limit) throws SQLException {
+        requireCompactSchema();
+        return readConnection.execute(session -> {
+            PreparedStatement statement = session.statement(PAGE_SQL);
+            statement.setBytes(1, after == null ? new byte[0] : UuidBytes.toBytes(after));
+            statement.setInt(2, limit);
+            List<GeneratedBlockRecord> records = new ArrayList<>(limit);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    records.add(map(result));
+                }
+            }
+            return records;
+        });
+    }
+
+    @Override
+    public void upsertAll(Collection<GeneratedBlockRecord> records) throws SQLException {
+        if (records.isEmpty()) {
+            return;
+        }
+        requireCompactSchema();
+        writerConnection.execute(session -> {
+            intern(session.connection(), records);
+            return Transactions.run(session.connection(), () -> {
+                PreparedStatement statement = session.statement(UPSERT_SQL);
+                for (GeneratedBlockRecord record : records) {
+                    bind(statement, record);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                return true;
+            });
+        });
+    }
+
+    @Override
+    public boolean delete(UUID playerId) throws SQLException {
+        requireCompactSchema();
+        return writerConnection.execute(session -> {
+            PreparedStatement statement = session.statement(DELETE_SQL);
+            statement.setBytes(1, UuidBytes.toBytes(playerId));
+            return statement.executeUpdate() > 0;
+        });
+    }
+
+    @Override
+    public void applyJournal(Map<UUID, GeneratedBlockRecord> entries) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        requireCompactSchema();
+        writerConnection.execute(session -> {
+            intern(session.connection(), entries.values().stream().filter(Objects::nonNull).toList());
+            return Transactions.run(session.connection(), () -> {
+                PreparedStatement upsert = session.statement(UPSERT_SQL);
+                PreparedStatement delete = session.statement(DELETE_SQL);
+                for (Map.Entry<UUID, GeneratedBlockRecord> entry : entries.entrySet()) {
+                    if (entry.getValue() == null) {
+                        delete.setBytes(1, UuidBytes.toBytes(entry.getKey()));
+                        delete.addBatch();
+                    } else {
+                        bind(upsert, entry.getValue());
+                        upsert.addBatch();
+                    }
+                }
+                upsert.executeBatch();
+                delete.executeBatch();
+                return true;
+            });
+        });
+    }
+
+    /**
+     * Inserts the raw events through one cached batch statement and updates each touched rollup row once, referencing
+     * stage and outcome dictionary ids interned before the transaction.
+     */
+    @Override
+    public void appendHistory(List<BreakOutcome> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        requireCompactSchema();
+        writerConnection.execute(session -> {
+            Connection connection = session.connection();
+            for (BreakOutcome event : events) {
+                dictionaries.stages().intern(connection, event.stageFile());
+                dictionaries.outcomes().intern(connection, event.outcomeId());
+            }
+            return Transactions.run(connection, () -> {
+                PreparedStatement insert = session.statement(HISTORY_INSERT_SQL);
+                for (BreakOutcome event : events) {
+                    insert.setBytes(1, UuidBytes.toBytes(event.playerId()));
+                    insert.setInt(2, dictionaries.stages().id(event.stageFile()));
+                    insert.setInt(3, HistoryRows.typeCode(event.outcomeType()));
+                    insert.setInt(4, dictionaries.outcomes().id(event.outcomeId()));
+                    insert.setLong(5, event.occurredAtMillis());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+
+                PreparedStatement rollup = session.statement(ROLLUP_UPSERT_SQL);
+                for (Map.Entry<HistoryRows.HourlyKey, Long> entry : HistoryRows.rollup(events).entrySet()) {
+                    HistoryRows.HourlyKey key = entry.getKey();
+                    rollup.setLong(1, key.hourStart());
+                    rollup.setInt(2, dictionaries.stages().id(key.stageFile()));
+                    rollup.setInt(3, HistoryRows.typeCode(key.outcomeType()));
+                    rollup.setInt(4, dictionaries.outcomes().id(key.outcomeId()));
+                    rollup.setLong(5, entry.getValue());
+                    rollup.addBatch();
+                }
+                rollup.executeBatch();
+                return true;
+            });
+        });
+    }
+
+    @Override
+    public int pruneHistory(long beforeMillis, int limit) throws SQLException {
+        return deleteBefore(HISTORY_PRUNE_SQL, beforeMillis, limit);
+    }
+
+    @Override
+    public int pruneRollups(long beforeMillis, int limit) throws SQLException {
+        return deleteBefore(ROLLUP_PRUNE_SQL, beforeMillis, limit);
+    }
+
+    @Override
+    public List<OutcomeCount> countOutcomes(String stageFile, long fromMillis, long toMillis) throws SQLException {
+        requireCompactSchema();
+        OptionalInt stageId = stageFile == null ? OptionalInt.empty() : dictionaries.stages().find(stageFile);
+        if (stageFile != null && stageId.isEmpty()) {
+            return List.of();
+        }
+        String sql = COUNT_OUTCOMES_SQL + (stageId.isPresent() ? "AND stage_id = ? " : "") + COUNT_OUTCOMES_GROUPING;
+        return readConnection.execute(session -> {
+            PreparedStatement statement = session.statement(sql);
+            statement.setLong(1, fromMillis);
+            statement.setLong(2, toMillis);
+            if (stageId.isPresent()) {
+                statement.setInt(3, stageId.getAsInt());
+            }
+            List<OutcomeCount> counts = new ArrayList<>();
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    counts.add(new OutcomeCount(HistoryRows.type(result.getInt(1)),
+                            dictionaries.outcomes().value(result.getInt(2)), result.getLong(3)));
+                }
+            }
+            return counts;
+        });
+    }
+
+    @Override
+    public Map<String, String> describeColumns() throws SQLException {
+        return readConnection.execute(session -> readColumns(session.connection()));
+    }
+
+    @Override
+    public List<String> describeConnections() {
+        return List.of(writerConnection.describe() + ", schema=v" + schemaVersion, readConnection.describe());
+    }
+
+    @Override
+    public void close() {
+        writerConnection.close();
+        readConnection.close();
+    }
+
+    /**
+     * Copies a consistent snapshot to the target file with SQLite's online backup API on a dedicated connection,
+     * a bounded number of pages per step, and returns the number of pages copied.
+     *
+     * <p>Each step only holds a short read lock, so the writer keeps committing between steps; a commit from the
+     * writer makes SQLite restart the copy from the first page.</p>
+     */
+    public int backupTo(Path target, int pagesPerStep, int busyRetryMillis) throws SQLException {
+        int[] pageCount = new int[1];
+        DB.ProgressObserver observer = (remaining, pages) -> pageCount[0] = pages;
+        try (Connection connection = DriverManager.getConnection(databaseUrl)) {
+            DB database = connection.unwrap(SQLiteConnection.class).getDatabase();
+            int result = database.backup("main", target.toAbsolutePath().toString(), observer,
+                    Math.max(1, busyRetryMillis), 100, pagesPerStep > 0 ? pagesPerStep : -1);
+            if (result != SQLITE_OK && result != SQLITE_DONE) {
+                throw new SQLException("SQLite backup failed with result code " + result);
+            }
+        }
+        return pageCount[0];
+    }
+
+    /**
+     * Checks a backup file with SQLite's quick integrity check.
+     */
+    public static boolean verifyBackup(Path file) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath());
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA quick_check")) {
+            return result.next() && "ok".equalsIgnoreCase(result.getString(1));
+        }
+    }
+
+    /**
+     * Returns up to the given number of free pages to the file system on the writer connection and reports how
+     * many were released.
+     */
+    public int incrementalVacuum(int maxPages) throws SQLException {
+        return writerConnection.execute(session -> {
+            Connection connection = session.connection();
+            int before = readPragmaInt(connection, "freelist_count");
+            int released = 0;
+            while (released < maxPages && released < before) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA incremental_vacuum(" + (maxPages - released) + ")");
+                }
+                int freed = before - readPragmaInt(connection, "freelist_count");
+                if (freed <= released) {
+                    break;
+                }
+                released = freed;
+            }
+            return released;
+        });
+    }
+
+    /**
+     * Maps one compact row back to the domain record through the dictionary caches.
+     */
+    private GeneratedBlockRecord map(ResultSet result) throws SQLException {
+        SqliteDictionaries.World world = dictionaries.world(result.getInt(3));
+        return new GeneratedBlockRecord(
+                UuidBytes.fromBytes(result.getBytes(1)),
+                result.getString(2),
+                BlockPosition.unpack(world.uuid(), result.getLong(4)),
+                world.name(),
+                dictionaries.blockTypes().value(result.getInt(5)),
+                dictionaries.stages().value(result.getInt(6)),
+                result.getInt(7)
+        );
+    }
+
+    /**
+     * Binds one record in compact column order using dictionary ids interned before the transaction.
+     */
+    private void bind(PreparedStatement statement, GeneratedBlockRecord record) throws SQLException {
+        statement.setBytes(1, UuidBytes.toBytes(record.playerId()));
+        statement.setString(2, record.playerName());
+        statement.setInt(3, dictionaries.worldId(record.position().worldId()));
+        statement.setLong(4, record.position().packed());
+        statement.setInt(5, dictionaries.blockTypes().id(record.blockType()));
+        statement.setInt(6, dictionaries.stages().id(record.stageFile()));
+        statement.setInt(7, record.blocksBroken());
+    }
+
+    /**
+     * Interns every dictionary value referenced by the records so the row transaction only reads cached ids.
+     */
+    private void intern(Connection connection, Collection<GeneratedBlockRecord> records) throws SQLException {
+        for (GeneratedBlockRecord record : records) {
+            UUID worldId = record.position().worldId();
+            dictionaries.internWorld(connection, worldId, Objects.requireNonNullElse(record.worldName(), worldId.toString()));
+            dictionaries.blockTypes().intern(connection, record.blockType());
+            dictionaries.stages().intern(connection, record.stageFile());
+        }
+    }
+
+    /**
+     * Rejects row access while a version 1 table still waits for its legacy world assignment.
+     */
+    private void requireCompactSchema() {
+        if (schemaVersion < SCHEMA_VERSION) {
+            throw new IllegalStateException("SQLite schema has not been converted to version " + SCHEMA_VERSION);
+        }
+    }
+
+    /**
+     * Converts a version 1 text table to the compact schema in one transaction and reclaims the freed pages.
+     */
+    private void convertToCompactSchema(Connection connection) throws SQLException {
+        SqliteDictionaries.createTables(connection);
+        createHistoryTables(connection);
+        dictionaries.load(connection);
+        try {
+            Transactions.run(connection, () -> copyTextRows(connection));
+        } catch (SQLException | RuntimeException exception) {
+            dictionaries.load(connection);
+            throw exception;
+        }
+        schemaVersion = SCHEMA_VERSION;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM");
+        }
+    }
+
+    /**
+     * Streams version 1 rows into a fresh compact table and swaps it in; dictionary ids interned here roll back with
+     * the rows, so callers reload the caches on failure.
+     */
+    private boolean copyTextRows(Connection connection) throws SQLException {
+        createCompactTable(connection, "generated_blocks_compact");
+        try (Statement select = connection.createStatement();
+             ResultSet result = select.executeQuery("SELECT " + BlockRows.COLUMNS + " FROM generated_blocks");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO generated_blocks_compact (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            int batched = 0;
+            while (result.next()) {
+                GeneratedBlockRecord record = BlockRows.map(result);
+                intern(connection, List.of(record));
+                bind(insert, record);
+                insert.addBatch();
+                if (++batched % MIGRATION_BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE generated_blocks");
+            statement.execute("ALTER TABLE generated_blocks_compact RENAME TO generated_blocks");
+        }
+        setUserVersion(connection, SCHEMA_VERSION);
+        return true;
+    }
+
+    /**
+     * Creates one compact record table under the given name.
+     */
+    private void createCompactTable(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "player_uuid BLOB NOT NULL PRIMARY KEY, "
+                    + "player_name TEXT NOT NULL, "
+                    + "world_id INTEGER NOT NULL REFERENCES worlds (id), "
+                    + "packed_xyz INTEGER NOT NULL, "
+                    + "block_type_id INTEGER NOT NULL REFERENCES block_types (id), "
+                    + "stage_id INTEGER NOT NULL REFERENCES stages (id), "
+                    + "blocks_broken INTEGER NOT NULL DEFAULT 0"
+                    + ") WITHOUT ROWID");
+        }
+    }
+
+    /**
+     * Creates the append-only break history and its hourly rollup.
+     *
+     * <p>Raw events carry no secondary index, so appends stay cheap; retention walks them in rowid order, which is
+     * also their insertion order. Queries only read the rollup, keyed by hour first.</p>
+     */
+    private void createHistoryTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS break_history ("
+                    + "id INTEGER PRIMARY KEY, "
+                    + "player_uuid BLOB NOT NULL, "
+                    + "stage_id INTEGER NOT NULL REFERENCES stages (id), "
+                    + "outcome_type INTEGER NOT NULL, "
+                    + "outcome_id INTEGER NOT NULL REFERENCES outcomes (id), "
+                    + "occurred_at INTEGER NOT NULL"
+                    + ")");
+            statement.execute("CREATE TABLE IF NOT EXISTS break_history_hourly ("
+                    + "hour_start INTEGER NOT NULL, "
+                    + "stage_id INTEGER NOT NULL REFERENCES stages (id), "
+                    + "outcome_type INTEGER NOT NULL, "
+                    + "outcome_id INTEGER NOT NULL REFERENCES outcomes (id), "
+                    + "event_count INTEGER NOT NULL, "
+                    + "PRIMARY KEY (hour_start, stage_id, outcome_type, outcome_id)"
+                    + ") WITHOUT ROWID");
+        }
+    }
+
+    /**
+     * Runs one bounded retention delete on the writer and returns the number of deleted rows.
+     */
+    private int deleteBefore(String sql, long beforeMillis, int limit) throws SQLException {
+        requireCompactSchema();
+        return writerConnection.execute(session -> {
+            PreparedStatement statement = session.statement(sql);
+            statement.setLong(1, beforeMillis);
+            statement.setInt(2, limit);
+            return statement.executeUpdate();
+        });
+    }
+
+    /**
+     * Adds columns that older releases of the version 1 text schema did not have yet.
+     */
+    private void migrateTextColumns(Connection connection) throws SQLException {
+        Map<String, String> columns = readColumns(connection);
+        addColumnIfMissing(connection, columns, "world_uuid", "TEXT");
+        addColumnIfMissing(connection, columns, "world_name", "TEXT");
+        addColumnIfMissing(connection, columns, "stage_file", "TEXT NOT NULL DEFAULT 'normal.yml'");
+        addColumnIfMissing(connection, columns, "blocks_broken", "INTEGER NOT NULL DEFAULT 0");
+        addColumnIfMissing(connection, columns, "block_type", "TEXT NOT NULL DEFAULT 'STONE'");
+    }
+
+    /**
+     * Counts version 1 rows created before records stored their world.
+     */
+    private int countTextRecordsWithoutWorld(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM generated_blocks WHERE world_uuid IS NULL OR world_uuid = ''")) {
+            return result.next() ? result.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Reads the current table columns without relying on localized SQLite error messages.
+     */
+    private Map<String, String> readColumns(Connection connection) throws SQLException {
+        Map<String, String> columns = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA table_info(generated_blocks)")) {
+            while (result.next()) {
+                columns.put(result.getString("name"), result.getString("type"));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Adds one known schema column when upgrading an older database.
+     */
+    private void addColumnIfMissing(Connection connection, Map<String, String> columns, String name, String definition) throws SQLException {
+        if (columns.containsKey(name)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE generated_blocks ADD COLUMN " + name + " " + definition);
+        }
+    }
+
+    /**
+     * Reports whether a table exists in the main schema.
+     */
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            statement.setString(1, table);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+
+    /**
+     * Switches the file to incremental auto-vacuum, rebuilding it once when it already holds data, so freed pages
+     * can later be released in small steps instead of a blocking full VACUUM.
+     */
+    private static void enableIncrementalVacuum(Connection connection) throws SQLException {
+        if (readPragmaInt(connection, "auto_vacuum") == AUTO_VACUUM_INCREMENTAL) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            if (readPragmaInt(connection, "page_count") > 0) {
+                statement.execute("VACUUM");
+            }
+        }
+    }
+
+    /**
+     * Reads the schema version stored in the database header.
+     */
+    private static int readUserVersion(Connection connection) throws SQLException {
+        return readPragmaInt(connection, "user_version");
+    }
+
+    /**
+     * Reads one integer-valued pragma.
+     */
+    private static int readPragmaInt(Connection connection, String pragma) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA " + pragma)) {
+            return result.next() ? result.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Stores the schema version in the database header as part of the current transaction.
+     */
+    private static void setUserVersion(Connection connection, int version) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA user_version = " + version);
+        }
+    }
+}
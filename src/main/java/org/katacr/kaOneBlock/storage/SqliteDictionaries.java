@@ -0,0 +1,230 @@
+package org.katacr.kaOneBlock.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns world, block type, stage and history outcome values of the compact SQLite schema and caches both lookup
+ * directions.
+ *
+ * <p>New values are inserted in their own auto-commit statements before the rows that use them, so the caches
+ * never hold an id whose insert could still be rolled back.</p>
+ */
+final class SqliteDictionaries {
+    private final Map<UUID, World> worldsByUuid = new ConcurrentHashMap<>();
+    private final Map<Integer, World> worldsById = new ConcurrentHashMap<>();
+    private final Interned blockTypes = new Interned("block_types");
+    private final Interned stages = new Interned("stages");
+    private final Interned outcomes = new Interned("outcomes");
+
+    /**
+     * Creates the dictionary tables when they do not exist yet.
+     */
+    static void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS worlds (id INTEGER PRIMARY KEY, uuid BLOB NOT NULL UNIQUE, name TEXT NOT NULL)");
+            statement.execute("CREATE TABLE IF NOT EXISTS block_types (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+            statement.execute("CREATE TABLE IF NOT EXISTS stages (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+            statement.execute("CREATE TABLE IF NOT EXISTS outcomes (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+        }
+    }
+
+    /**
+     * Replaces all cached entries with the committed dictionary contents.
+     */
+    void load(Connection connection) throws SQLException {
+        worldsByUuid.clear();
+        worldsById.clear();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT id, uuid, name FROM worlds")) {
+            while (result.next()) {
+                cacheWorld(new World(result.getInt(1), UuidBytes.fromBytes(result.getBytes(2)), result.getString(3)));
+            }
+        }
+        blockTypes.load(connection);
+        stages.load(connection);
+        outcomes.load(connection);
+    }
+
+    /**
+     * Returns the id of a world, inserting it or refreshing its display name when needed.
+     */
+    int internWorld(Connection connection, UUID uuid, String name) throws SQLException {
+        World cached = worldsByUuid.get(uuid);
+        if (cached != null && cached.name().equals(name)) {
+            return cached.id();
+        }
+        if (cached != null) {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE worlds SET name = ? WHERE id = ?")) {
+                statement.setString(1, name);
+                statement.setInt(2, cached.id());
+                statement.executeUpdate();
+            }
+            cacheWorld(new World(cached.id(), uuid, name));
+            return cached.id();
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO worlds (uuid, name) VALUES (?, ?)");
+             PreparedStatement select = connection.prepareStatement("SELECT id, name FROM worlds WHERE uuid = ?")) {
+            byte[] bytes = UuidBytes.toBytes(uuid);
+            insert.setBytes(1, bytes);
+            insert.setString(2, name);
+            insert.executeUpdate();
+            select.setBytes(1, bytes);
+            try (ResultSet result = select.executeQuery()) {
+                if (!result.next()) {
+                    throw new SQLException("Failed to intern world " + uuid);
+                }
+                World world = new World(result.getInt(1), uuid, result.getString(2));
+                cacheWorld(world);
+                return world.name().equals(name) ? world.id() : internWorld(connection, uuid, name);
+            }
+        }
+    }
+
+    /**
+     * Returns the cached id of an already interned world.
+     */
+    int worldId(UUID uuid) throws SQLException {
+        World world = worldsByUuid.get(uuid);
+        if (world == null) {
+            throw new SQLException("World " + uuid + " was not interned");
+        }
+        return world.id();
+    }
+
+    /**
+     * Returns the cached world for a stored id.
+     */
+    World world(int id) throws SQLException {
+        World world = worldsById.get(id);
+        if (world == null) {
+            throw new SQLException("Unknown world id " + id);
+        }
+        return world;
+    }
+
+    /**
+     * Returns the interned block type dictionary.
+     */
+    Interned blockTypes() {
+        return blockTypes;
+    }
+
+    /**
+     * Returns the interned stage file dictionary.
+     */
+    Interned stages() {
+        return stages;
+    }
+
+    /**
+     * Returns the interned break history outcome dictionary.
+     */
+    Interned outcomes() {
+        return outcomes;
+    }
+
+    /**
+     * Publishes one world in both lookup directions.
+     */
+    private void cacheWorld(World world) {
+        worldsByUuid.put(world.uuid(), world);
+        worldsById.put(world.id(), world);
+    }
+
+    /**
+     * One interned world and its last known display name.
+     */
+    record World(int id, UUID uuid, String name) {
+    }
+
+    /**
+     * Interns the distinct strings of one single-column dictionary table.
+     */
+    static final class Interned {
+        private final String table;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+        private Interned(String table) {
+            this.table = table;
+        }
+
+        /**
+         * Returns the id of a value, inserting it in its own statement when it is new.
+         */
+        int intern(Connection connection, String value) throws SQLException {
+            Integer cached = ids.get(value);
+            if (cached != null) {
+                return cached;
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO " + table + " (name) VALUES (?)");
+                 PreparedStatement select = connection.prepareStatement("SELECT id FROM " + table + " WHERE name = ?")) {
+                insert.setString(1, value);
+                insert.executeUpdate();
+                select.setString(1, value);
+                try (ResultSet result = select.executeQuery()) {
+                    if (!result.next()) {
+                        throw new SQLException("Failed to intern " + value + " into " + table);
+                    }
+                    int id = result.getInt(1);
+                    values.put(id, value);
+                    ids.put(value, id);
+                    return id;
+                }
+            }
+        }
+
+        /**
+         * Returns the cached id of an already interned value.
+         */
+        int id(String value) throws SQLException {
+            Integer id = ids.get(value);
+            if (id == null) {
+                throw new SQLException(value + " was not interned into " + table);
+            }
+            return id;
+        }
+
+        /**
+         * Returns the cached id of a value, or empty when it was never interned.
+         */
+        OptionalInt find(String value) {
+            Integer id = ids.get(value);
+            return id == null ? OptionalInt.empty() : OptionalInt.of(id);
+        }
+
+        /**
+         * Returns the cached value for a stored id.
+         */
+        String value(int id) throws SQLException {
+            String value = values.get(id);
+            if (value == null) {
+                throw new SQLException("Unknown " + table + " id " + id);
+            }
+            return value;
+        }
+
+        /**
+         * Replaces the cache with the committed table contents.
+         */
+        private void load(Connection connection) throws SQLException {
+            ids.clear();
+            values.clear();
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT id, name FROM " + table)) {
+                while (result.next()) {
+                    values.put(result.getInt(1), result.getString(2));
+                    ids.put(result.getString(2), result.getInt(1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.katacr.kaOneBlock.storage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Runs JDBC work in an explicit transaction and restores auto-commit afterwards.
+ */
+final class Transactions {
+    private Transactions() {
+    }
+
+    /**
+     * Commits when the work succeeds, rolls back when it fails or reports an unsuccessful result.
+     */
+    static boolean run(Connection connection, Work work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            if (work.run()) {
+                connection.commit();
+                return true;
+            }
+            connection.rollback();
+            return false;
+        } catch (SQLException | RuntimeException exception) {
+            connection.rollback();
+            throw exception;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Represents transactional work whose result decides between commit and rollback.
+     */
+    @FunctionalInterface
+    interface Work {
+        boolean run() throws SQLException;
+    }
+}
@@ -0,0 +1,33 @@
+package org.katacr.kaOneBlock.storage;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Converts UUIDs to and from their 16-byte big-endian binary form.
+ */
+final class UuidBytes {
+    private UuidBytes() {
+    }
+
+    /**
+     * Encodes a UUID as its most significant long followed by its least significant long.
+     */
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Decodes a UUID written by {@link #toBytes(UUID)}.
+     */
+    static UUID fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != 16) {
+            throw new IllegalArgumentException("UUID blob must be 16 bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
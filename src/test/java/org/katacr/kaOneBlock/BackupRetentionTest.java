@@ -0,0 +1,64 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies which database snapshots the retention rules delete.
+ */
+class BackupRetentionTest {
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long NOW = 100 * DAY;
+
+    /**
+     * Confirms only the newest snapshots survive the count limit regardless of input order.
+     */
+    @Test
+    void keepsNewestByCount() {
+        BackupRetention retention = new BackupRetention(2, 0);
+        List<Path> expired = retention.expired(List.of(snapshot("b", NOW - 2 * DAY), snapshot("d", NOW),
+                snapshot("a", NOW - 3 * DAY), snapshot("c", NOW - DAY)), NOW);
+        assertEquals(List.of(Path.of("b"), Path.of("a")), expired);
+    }
+
+    /**
+     * Confirms snapshots older than the age limit are deleted even within the count limit.
+     */
+    @Test
+    void deletesByAge() {
+        BackupRetention retention = new BackupRetention(10, 7 * DAY);
+        List<Path> expired = retention.expired(List.of(snapshot("new", NOW - DAY), snapshot("old", NOW - 8 * DAY)), NOW);
+        assertEquals(List.of(Path.of("old")), expired);
+    }
+
+    /**
+     * Confirms the newest snapshot is kept even when every rule would expire it.
+     */
+    @Test
+    void alwaysKeepsNewest() {
+        BackupRetention retention = new BackupRetention(1, DAY);
+        List<Path> expired = retention.expired(List.of(snapshot("older", NOW - 20 * DAY), snapshot("newest", NOW - 10 * DAY)), NOW);
+        assertEquals(List.of(Path.of("older")), expired);
+    }
+
+    /**
+     * Confirms zero disables both rules.
+     */
+    @Test
+    void zeroDisablesRules() {
+        BackupRetention retention = new BackupRetention(0, 0);
+        assertEquals(List.of(), retention.expired(List.of(snapshot("a", 0), snapshot("b", NOW)), NOW));
+    }
+
+    /**
+     * Creates a snapshot with a relative path.
+     */
+    private static BackupRetention.Snapshot snapshot(String name, long createdMillis) {
+        return new BackupRetention.Snapshot(Path.of(name), createdMillis);
+    }
+}
@@ -0,0 +1,163 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies crash recovery and compaction of the memory-mapped block journal.
+ */
+class BlockJournalTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Confirms the latest upsert or deletion per player survives reopening the journal.
+     */
+    @Test
+    void replaysLatestStatePerPlayerAfterReopen() throws IOException {
+        UUID kept = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            journal.appendUpsert(record(kept, 1));
+            journal.appendUpsert(record(deleted, 1));
+            journal.appendUpsert(record(kept, 2));
+            journal.appendDelete(deleted);
+        }
+
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            Map<UUID, GeneratedBlockRecord> replayed = journal.replay();
+            assertEquals(2, replayed.get(kept).blocksBroken());
+            assertTrue(replayed.containsKey(deleted));
+            assertNull(replayed.get(deleted));
+        }
+    }
+
+    /**
+     * Confirms a torn trailing entry is ignored instead of corrupting earlier entries.
+     */
+    @Test
+    void ignoresTornTrailingEntry() throws IOException {
+        UUID playerId = UUID.randomUUID();
+        int end;
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            journal.appendUpsert(record(playerId, 7));
+            end = journal.size();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("journal-0.dat").toFile(), "rw")) {
+            file.seek(end);
+            file.writeInt(40);
+            file.writeInt(12345);
+        }
+
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            assertEquals(Map.of(playerId, record(playerId, 7)), journal.replay());
+            assertEquals(end, journal.size());
+        }
+    }
+
+    /**
+     * Confirms compaction keeps only pending records and later appends land in the new segment.
+     */
+    @Test
+    void compactsToPendingRecords() throws IOException {
+        UUID flushed = UUID.randomUUID();
+        UUID pending = UUID.randomUUID();
+        UUID later = UUID.randomUUID();
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            journal.appendUpsert(record(flushed, 3));
+            journal.appendUpsert(record(pending, 4));
+            journal.compact(() -> List.of(record(pending, 4)));
+            journal.appendUpsert(record(later, 5));
+        }
+
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            assertEquals(Map.of(pending, record(pending, 4), later, record(later, 5)), journal.replay());
+        }
+    }
+
+    /**
+     * Confirms an update appended while the pending records are being rewritten is carried into the new segment.
+     */
+    @Test
+    void keepsAppendsMadeDuringCompaction() throws IOException {
+        UUID pending = UUID.randomUUID();
+        UUID concurrent = UUID.randomUUID();
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            journal.appendUpsert(record(pending, 1));
+            journal.compact(() -> new AbstractList<>() {
+                @Override
+                public GeneratedBlockRecord get(int index) {
+                    // 重写期间不持有日志锁，这里的追加模拟服务器线程的并发写入
+                    journal.appendUpsert(record(concurrent, 2));
+                    return record(pending, 1);
+                }
+
+                @Override
+                public int size() {
+                    return 1;
+                }
+            });
+            assertEquals(Map.of(pending, record(pending, 1), concurrent, record(concurrent, 2)), journal.replay());
+        }
+
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            assertEquals(Map.of(pending, record(pending, 1), concurrent, record(concurrent, 2)), journal.replay());
+        }
+    }
+
+    /**
+     * Confirms appends beyond the initial mapping grow the segment rather than failing.
+     */
+    @Test
+    void growsBeyondInitialCapacity() throws IOException {
+        try (BlockJournal journal = BlockJournal.open(directory, 256)) {
+            for (int index = 0; index < 100; index++) {
+                journal.appendUpsert(record(UUID.randomUUID(), index));
+            }
+            assertEquals(100, journal.replay().size());
+            assertTrue(journal.capacity() > 256);
+        }
+    }
+
+    /**
+     * Confirms growing ahead of need doubles the mapping while keeping existing and later entries.
+     */
+    @Test
+    void growsAheadOfAppends() throws IOException {
+        UUID before = UUID.randomUUID();
+        UUID after = UUID.randomUUID();
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            journal.appendUpsert(record(before, 1));
+            double usage = journal.usage();
+            journal.grow();
+            assertEquals(2048, journal.capacity());
+            assertEquals(usage / 2, journal.usage());
+            journal.appendUpsert(record(after, 2));
+        }
+
+        try (BlockJournal journal = BlockJournal.open(directory, 1024)) {
+            assertEquals(Map.of(before, record(before, 1), after, record(after, 2)), journal.replay());
+        }
+    }
+
+    /**
+     * Creates a record whose only varying state is its broken-block counter.
+     */
+    private static GeneratedBlockRecord record(UUID playerId, int blocksBroken) {
+        UUID worldId = new UUID(1, 2);
+        return new GeneratedBlockRecord(playerId, "Player", new BlockPosition(worldId, 10, 64, -20),
+                "world", "STONE", "normal.yml", blocksBroken);
+    }
+}
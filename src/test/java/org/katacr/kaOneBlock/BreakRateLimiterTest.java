@@ -0,0 +1,99 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies the per-player token buckets, rejection notices and the throttled player view.
+ */
+class BreakRateLimiterTest {
+    private static final UUID MINER = new UUID(0, 1);
+    private static final UUID MACRO = new UUID(0, 2);
+    private static final long TICK_NANOS = 50_000_000L;
+
+    private long nanos;
+
+    /**
+     * Confirms a full bucket allows the burst and then only the sustained rate.
+     */
+    @Test
+    void allowsBurstThenSustainedRate() {
+        BreakRateLimiter limiter = limiter(true, 3, 2);
+        assertEquals(BreakRateLimiter.Decision.ALLOWED, limiter.acquire(MINER));
+        assertEquals(BreakRateLimiter.Decision.ALLOWED, limiter.acquire(MINER));
+        assertEquals(BreakRateLimiter.Decision.ALLOWED, limiter.acquire(MINER));
+        assertEquals(BreakRateLimiter.Decision.REJECTED_NOTIFY, limiter.acquire(MINER));
+
+        int allowed = 0;
+        for (int tick = 0; tick < 200; tick++) {
+            nanos += TICK_NANOS;
+            if (limiter.acquire(MINER) == BreakRateLimiter.Decision.ALLOWED) {
+                allowed++;
+            }
+        }
+        assertEquals(20, allowed);
+    }
+
+    /**
+     * Confirms notices are rate limited too, and that buckets are independent per player.
+     */
+    @Test
+    void notifiesSparinglyAndPerPlayer() {
+        BreakRateLimiter limiter = limiter(true, 1, 1);
+        limiter.acquire(MACRO);
+        assertEquals(BreakRateLimiter.Decision.REJECTED_NOTIFY, limiter.acquire(MACRO));
+        assertEquals(BreakRateLimiter.Decision.REJECTED, limiter.acquire(MACRO));
+        assertEquals(BreakRateLimiter.Decision.ALLOWED, limiter.acquire(MINER));
+
+        nanos += 3_000_000_000L;
+        limiter.acquire(MACRO);
+        assertEquals(BreakRateLimiter.Decision.REJECTED_NOTIFY, limiter.acquire(MACRO));
+    }
+
+    /**
+     * Confirms the throttled view lists recent rejections, most first, and forgets them after a minute or on quit.
+     */
+    @Test
+    void listsRecentlyThrottledPlayers() {
+        BreakRateLimiter limiter = limiter(true, 1, 1);
+        for (int attempt = 0; attempt < 5; attempt++) {
+            limiter.acquire(MACRO);
+        }
+        limiter.acquire(MINER);
+        limiter.acquire(MINER);
+
+        assertEquals(List.of(
+                new BreakRateLimiter.Throttled(MACRO, 4, 4),
+                new BreakRateLimiter.Throttled(MINER, 1, 1)
+        ), limiter.throttled(10));
+
+        limiter.forget(MINER);
+        assertEquals(List.of(MACRO), limiter.throttled(10).stream().map(BreakRateLimiter.Throttled::playerId).toList());
+        nanos += BreakRateLimiter.WINDOW_NANOS + 1;
+        assertEquals(List.of(), limiter.throttled(10));
+    }
+
+    /**
+     * Confirms a disabled limiter allows everything.
+     */
+    @Test
+    void allowsEverythingWhenDisabled() {
+        BreakRateLimiter limiter = limiter(false, 1, 0);
+        for (int attempt = 0; attempt < 100; attempt++) {
+            assertEquals(BreakRateLimiter.Decision.ALLOWED, limiter.acquire(MACRO));
+        }
+    }
+
+    /**
+     * Creates a limiter on the fake clock.
+     */
+    private BreakRateLimiter limiter(boolean enabled, double burst, double breaksPerSecond) {
+        BreakRateLimiter limiter = new BreakRateLimiter(() -> nanos);
+        limiter.configure(enabled, burst, breaksPerSecond);
+        return limiter;
+    }
+}
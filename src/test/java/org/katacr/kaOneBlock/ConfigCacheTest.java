@@ -0,0 +1,150 @@
+package org.katacr.kaOneBlock;
+
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.bukkit.inventory.EquipmentSlot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that compiled stage files and entity packs survive the binary cache and that stale caches are ignored.
+ */
+class ConfigCacheTest {
+    private static final Logger LOGGER = Logger.getLogger(ConfigCacheTest.class.getName());
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Confirms stage settings, tagged block weights and entity equipment round-trip with their source keys.
+     */
+    @Test
+    void roundTripsCompiledFiles() {
+        byte[] source = "amount: 20".getBytes(StandardCharsets.UTF_8);
+        ConfigCache.Contents contents = ConfigCache.Contents.empty();
+        contents.stageFiles().put("blocks/normal.yml",
+                new ConfigCache.Cached<>(source.length, ConfigCache.checksum(source), new ConfigCache.StageFile(blocks(), stage())));
+        contents.stageFiles().put("blocks/parts.yml", new ConfigCache.Cached<>(1, 2, new ConfigCache.StageFile(null, null)));
+        contents.entityPacks().put("entities/normal_entity.yml", new ConfigCache.Cached<>(3, 4, pack()));
+        cache("1.0").save(contents);
+
+        ConfigCache.Contents loaded = cache("1.0").load();
+        ConfigCache.Cached<ConfigCache.StageFile> normal = loaded.stageFiles().get("blocks/normal.yml");
+        assertTrue(normal.matches(source.length, ConfigCache.checksum(source)));
+        assertFalse(normal.matches(source.length, ConfigCache.checksum("amount: 21".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(List.of(Material.STONE, 8.0, "IA:ns:block", 2.0), weights(normal.value().blocks()));
+
+        StageConfig stage = normal.value().stage();
+        assertEquals(20, stage.amount);
+        assertEquals("nether", stage.nextStage);
+        assertEquals("&aHi", stage.message);
+        assertEquals("normal_entity", stage.entityPack);
+        assertEquals(0.1, stage.entityChance);
+        assertEquals(List.of("common_chest", "end_chest"), List.copyOf(stage.chestChances.keySet()));
+        assertNotNull(stage.outcomes);
+
+        ConfigCache.StageFile parts = loaded.stageFiles().get("blocks/parts.yml").value();
+        assertNull(parts.blocks());
+        assertNull(parts.stage());
+
+        List<Object> entities = weights(loaded.entityPacks().get("entities/normal_entity.yml").value());
+        EntityManager.EntityConfig zombie = (EntityManager.EntityConfig) entities.get(0);
+        assertEquals("&cZombie", zombie.nameTag());
+        assertEquals(EntityType.ZOMBIE, zombie.type());
+        assertEquals(Map.of(EquipmentSlot.HEAD, Material.DIAMOND), zombie.equipment());
+        assertEquals(5.0, entities.get(1));
+    }
+
+    /**
+     * Confirms a cache written for another plugin or server version, a corrupt cache and a missing one all load empty.
+     */
+    @Test
+    void ignoresStaleCorruptAndMissingCaches() throws IOException {
+        assertTrue(cache("1.0").load().stageFiles().isEmpty());
+
+        ConfigCache.Contents contents = ConfigCache.Contents.empty();
+        contents.stageFiles().put("blocks/normal.yml", new ConfigCache.Cached<>(1, 2, new ConfigCache.StageFile(blocks(), stage())));
+        cache("1.0").save(contents);
+        assertTrue(cache("1.1").load().stageFiles().isEmpty());
+
+        Path file = directory.resolve("content.bin");
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertTrue(cache("1.0").load().stageFiles().isEmpty());
+    }
+
+    /**
+     * Creates a cache in the temporary directory for an environment string.
+     */
+    private ConfigCache cache(String environment) {
+        return new ConfigCache(directory.resolve("content.bin"), environment, LOGGER);
+    }
+
+    /**
+     * Creates a frozen block list with a vanilla and an ItemsAdder block.
+     */
+    private static WeightedRandom<Object> blocks() {
+        WeightedRandom<Object> blocks = new WeightedRandom<>();
+        blocks.add(Material.STONE, 8);
+        blocks.add("IA:ns:block", 2);
+        blocks.freeze();
+        return blocks;
+    }
+
+    /**
+     * Creates stage settings with every cached field set.
+     */
+    private static StageConfig stage() {
+        StageConfig stage = new StageConfig();
+        stage.amount = 20;
+        stage.nextStage = "nether";
+        stage.message = "&aHi";
+        stage.entityPack = "normal_entity";
+        stage.entityChance = 0.1;
+        Map<String, Double> chests = new LinkedHashMap<>();
+        chests.put("common_chest", 0.05);
+        chests.put("end_chest", 0.01);
+        stage.chestChances = chests;
+        return stage;
+    }
+
+    /**
+     * Creates an entity pack with one equipped entity.
+     */
+    private static WeightedRandom<EntityManager.EntityConfig> pack() {
+        WeightedRandom<EntityManager.EntityConfig> pack = new WeightedRandom<>();
+        pack.add(new EntityManager.EntityConfig("zombie", "&cZombie", EntityType.ZOMBIE, 5,
+                Map.of(EquipmentSlot.HEAD, Material.DIAMOND)), 5);
+        pack.freeze();
+        return pack;
+    }
+
+    /**
+     * Flattens a weighted list into alternating items and weights.
+     */
+    private static <T> List<Object> weights(WeightedRandom<T> random) {
+        List<Object> flattened = new ArrayList<>();
+        random.forEachWeight((item, weight) -> {
+            flattened.add(item);
+            flattened.add(weight);
+        });
+        return flattened;
+    }
+}
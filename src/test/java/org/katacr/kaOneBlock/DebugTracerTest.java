@@ -0,0 +1,99 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies subsystem levels, lazy message building, player targeting and break sampling of the debug tracer.
+ */
+class DebugTracerTest {
+    private final List<String> lines = new ArrayList<>();
+    private final DebugTracer tracer = new DebugTracer(capturingLogger());
+
+    /**
+     * Confirms suppliers run only for enabled subsystems and levels.
+     */
+    @Test
+    void buildsMessagesOnlyWhenEnabled() {
+        tracer.debug(DebugTracer.Subsystem.CONFIG, () -> {
+            throw new AssertionError("built while disabled");
+        });
+
+        tracer.configure(true, DebugTracer.Level.DEBUG,
+                Map.of(DebugTracer.Subsystem.CHEST, DebugTracer.Level.TRACE, DebugTracer.Subsystem.STORAGE, DebugTracer.Level.OFF),
+                Set.of(), 1);
+        tracer.debug(DebugTracer.Subsystem.CONFIG, () -> "config summary");
+        tracer.trace(DebugTracer.Subsystem.CONFIG, () -> "config detail");
+        tracer.trace(DebugTracer.Subsystem.CHEST, () -> "chest detail");
+        tracer.debug(DebugTracer.Subsystem.STORAGE, () -> "storage summary");
+        assertEquals(List.of("[DEBUG/config] config summary", "[DEBUG/chest] chest detail"), lines);
+
+        tracer.setEnabled(false);
+        assertFalse(tracer.isEnabled(DebugTracer.Subsystem.CHEST, DebugTracer.Level.DEBUG));
+        tracer.setEnabled(true);
+        assertTrue(tracer.isEnabled(DebugTracer.Subsystem.CHEST, DebugTracer.Level.TRACE));
+    }
+
+    /**
+     * Confirms only targeted players are sampled, one break in every interval, and unsampled work stays silent
+     * for gameplay subsystems only.
+     */
+    @Test
+    void samplesTargetedBreaks() {
+        UUID alex = UUID.randomUUID();
+        UUID steve = UUID.randomUUID();
+        tracer.configure(true, DebugTracer.Level.DEBUG, Map.of(), Set.of("Alex", steve.toString()), 3);
+
+        assertFalse(tracer.sampleBreak(UUID.randomUUID(), "Notch"));
+        List<Boolean> decisions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            decisions.add(tracer.sampleBreak(alex, "alex"));
+            decisions.add(tracer.sampleBreak(steve, "Steve"));
+        }
+        assertEquals(List.of(true, false, false, true, false, false), decisions);
+
+        tracer.run(false, () -> {
+            assertFalse(tracer.isTracing());
+            tracer.debug(DebugTracer.Subsystem.STAGE, () -> "skipped");
+            tracer.debug(DebugTracer.Subsystem.STORAGE, () -> "storage");
+            tracer.run(true, () -> tracer.debug(DebugTracer.Subsystem.STAGE, () -> "sampled"));
+        });
+        assertTrue(tracer.isTracing());
+        assertEquals(List.of("[DEBUG/storage] storage", "[DEBUG/stage] sampled"), lines);
+    }
+
+    /**
+     * Creates a logger that records each message instead of printing it.
+     */
+    private Logger capturingLogger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                lines.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        return logger;
+    }
+}
@@ -37,4 +37,20 @@ class GeneratedBlockRecordTest {
         assertEquals(position, updated.position());
         assertEquals(owner, updated.playerId());
     }
+
+    /**
+     * Confirms packed coordinates round-trip across the full world border and build height range.
+     */
+    @Test
+    void packsCoordinatesLosslessly() {
+        UUID world = UUID.randomUUID();
+        for (BlockPosition position : new BlockPosition[]{
+                new BlockPosition(world, 0, 0, 0),
+                new BlockPosition(world, -30_000_000, -64, 30_000_000),
+                new BlockPosition(world, 30_000_000, 319, -30_000_000),
+                new BlockPosition(world, -1, -1, -1)
+        }) {
+            assertEquals(position, BlockPosition.unpack(world, position.packed()));
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies ordering, the per-tick budget and the diagnostics of the generation queue.
+ */
+class GenerationSchedulerTest {
+    private long nanos;
+
+    /**
+     * Confirms work submitted in a tick runs in the next tick, including work submitted by queued work.
+     */
+    @Test
+    void runsWorkNoEarlierThanTheNextTick() {
+        GenerationScheduler scheduler = scheduler(2.0);
+        List<String> ran = new ArrayList<>();
+        scheduler.submit(() -> {
+            ran.add("replace");
+            scheduler.submit(() -> ran.add("fill"));
+        });
+
+        assertEquals(List.of(), ran);
+        scheduler.tick();
+        assertEquals(List.of("replace"), ran);
+        scheduler.tick();
+        assertEquals(List.of("replace", "fill"), ran);
+    }
+
+    /**
+     * Confirms a tick stops once its budget is spent and carries the rest over in order.
+     */
+    @Test
+    void carriesWorkBeyondTheBudgetOver() {
+        GenerationScheduler scheduler = scheduler(2.0);
+        List<Integer> ran = new ArrayList<>();
+        for (int index = 0; index < 5; index++) {
+            int task = index;
+            scheduler.submit(() -> {
+                nanos += 1_000_000;
+                ran.add(task);
+            });
+        }
+
+        scheduler.tick();
+        assertEquals(List.of(0, 1), ran);
+        scheduler.tick();
+        scheduler.tick();
+        assertEquals(List.of(0, 1, 2, 3, 4), ran);
+
+        GenerationScheduler.Snapshot snapshot = scheduler.snapshot();
+        assertEquals(0, snapshot.queueDepth());
+        assertEquals(3, snapshot.peakDepth());
+        assertEquals(2, snapshot.deferredTicks());
+        assertEquals(5, snapshot.totalTasks());
+        assertEquals(2.0, snapshot.maxTickMillis());
+        assertEquals(5.0 / 3, snapshot.averageTickMillis(), 1e-9);
+    }
+
+    /**
+     * Confirms one task runs per tick even when it alone exceeds the budget.
+     */
+    @Test
+    void alwaysRunsOneTaskPerTick() {
+        GenerationScheduler scheduler = scheduler(0);
+        List<Integer> ran = new ArrayList<>();
+        scheduler.submit(() -> ran.add(0));
+        scheduler.submit(() -> ran.add(1));
+
+        scheduler.tick();
+        assertEquals(List.of(0), ran);
+        scheduler.tick();
+        assertEquals(List.of(0, 1), ran);
+    }
+
+    /**
+     * Confirms a failing task is counted and does not stop later work.
+     */
+    @Test
+    void keepsDrainingAfterAFailure() {
+        GenerationScheduler scheduler = scheduler(2.0);
+        List<Integer> ran = new ArrayList<>();
+        scheduler.submit(() -> {
+            throw new IllegalStateException("expected");
+        });
+        scheduler.submit(() -> ran.add(1));
+
+        scheduler.tick();
+        assertEquals(List.of(1), ran);
+        assertEquals(1, scheduler.snapshot().failedTasks());
+    }
+
+    /**
+     * Creates a scheduler on the fake clock with a silent logger.
+     */
+    private GenerationScheduler scheduler(double budgetMillis) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        GenerationScheduler scheduler = new GenerationScheduler(logger, () -> nanos);
+        scheduler.setBudgetMillis(budgetMillis);
+        return scheduler;
+    }
+}
@@ -0,0 +1,81 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies batching, capacity and retry ordering of the break history queue.
+ */
+class HistoryBufferTest {
+    private static final UUID PLAYER = new UUID(0, 1);
+
+    /**
+     * Confirms events drain oldest first in batches of at most the requested size.
+     */
+    @Test
+    void drainsOldestFirstInBatches() {
+        HistoryBuffer buffer = new HistoryBuffer(10);
+        for (int index = 0; index < 5; index++) {
+            assertTrue(buffer.offer(event(index)));
+        }
+
+        assertEquals(List.of(event(0), event(1), event(2)), buffer.drain(3));
+        assertEquals(List.of(event(3), event(4)), buffer.drain(3));
+        assertTrue(buffer.drain(3).isEmpty());
+        assertEquals(0, buffer.size());
+    }
+
+    /**
+     * Confirms a full buffer drops and counts new events instead of growing.
+     */
+    @Test
+    void dropsEventsBeyondCapacity() {
+        HistoryBuffer buffer = new HistoryBuffer(2);
+        assertTrue(buffer.offer(event(0)));
+        assertTrue(buffer.offer(event(1)));
+        assertFalse(buffer.offer(event(2)));
+
+        assertEquals(2, buffer.size());
+        assertEquals(1, buffer.takeDropped());
+        assertEquals(0, buffer.takeDropped());
+    }
+
+    /**
+     * Confirms a restored batch is retried before events queued after it was drained.
+     */
+    @Test
+    void restoresFailedBatchAheadOfNewerEvents() {
+        HistoryBuffer buffer = new HistoryBuffer(2);
+        buffer.offer(event(0));
+        buffer.offer(event(1));
+        List<BreakOutcome> batch = buffer.drain(2);
+        buffer.offer(event(2));
+        buffer.restore(batch);
+
+        assertEquals(3, buffer.size());
+        assertEquals(List.of(event(0), event(1), event(2)), buffer.drain(5));
+    }
+
+    /**
+     * Confirms timestamps fall into the hourly bucket that starts at or before them, including before the epoch.
+     */
+    @Test
+    void truncatesToHourStart() {
+        assertEquals(0, BreakOutcome.hourStart(BreakOutcome.HOUR_MILLIS - 1));
+        assertEquals(BreakOutcome.HOUR_MILLIS, BreakOutcome.hourStart(BreakOutcome.HOUR_MILLIS));
+        assertEquals(-BreakOutcome.HOUR_MILLIS, BreakOutcome.hourStart(-1));
+    }
+
+    /**
+     * Creates an event identified by its timestamp.
+     */
+    private static BreakOutcome event(long occurredAt) {
+        return new BreakOutcome(PLAYER, "normal.yml", GenerationSelector.OutcomeType.BLOCK, "STONE", occurredAt);
+    }
+}
@@ -0,0 +1,47 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies placeholder tokenization and rendering of compiled language messages.
+ */
+class MessageTemplateTest {
+
+    /**
+     * Confirms named placeholders are replaced everywhere they occur while stray percent signs stay literal.
+     */
+    @Test
+    void replacesPlaceholdersAndKeepsLiteralPercents() {
+        MessageTemplate template = MessageTemplate.compile("%player% reached 100% of %stage% (%player%) %%");
+
+        assertEquals("Steve reached 100% of nether (Steve) %%", template.renderer()
+                .with("player", "Steve")
+                .with("stage", "nether")
+                .render());
+        assertEquals("%player% reached 100% of end (%player%) %%", template.render(Map.of("stage", "end")));
+        assertEquals("%player% reached 100% of %stage% (%player%) %%", template.render());
+        assertEquals("plain", MessageTemplate.compile("plain").render(Map.of("unused", "value")));
+    }
+
+    /**
+     * Confirms a renderer starts clean after use and a message rendered while filling another does not disturb it.
+     */
+    @Test
+    void reusesRenderersWithoutLeakingValues() {
+        MessageTemplate outer = MessageTemplate.compile("[%inner%|%count%]");
+        MessageTemplate inner = MessageTemplate.compile("<%value%>");
+
+        assertEquals("[<a>|3]", outer.renderer()
+                .with("inner", inner.renderer().with("value", "a").render())
+                .with("count", 3)
+                .render());
+        MessageTemplate.Renderer outerRenderer = outer.renderer().with("count", 4);
+        String nested = inner.renderer().with("value", "b").render();
+        assertEquals("[<b>|4]", outerRenderer.with("inner", nested).render());
+        assertEquals("[%inner%|%count%]", outer.render());
+    }
+}
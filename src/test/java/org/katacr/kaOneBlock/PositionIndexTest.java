@@ -0,0 +1,136 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies the packed per-world position index against a plain map.
+ */
+class PositionIndexTest {
+    private static final UUID OVERWORLD = new UUID(1, 1);
+    private static final UUID NETHER = new UUID(1, 2);
+    private static final UUID ALICE = new UUID(2, 1);
+    private static final UUID BOB = new UUID(2, 2);
+
+    /**
+     * Confirms equal coordinates in different worlds and negative coordinates are kept apart.
+     */
+    @Test
+    void separatesWorldsAndSigns() {
+        PositionIndex index = new PositionIndex();
+        index.put(new BlockPosition(OVERWORLD, -5, -64, 7), ALICE);
+        index.put(new BlockPosition(NETHER, -5, -64, 7), BOB);
+
+        assertEquals(ALICE, index.get(OVERWORLD, -5, -64, 7));
+        assertEquals(BOB, index.get(NETHER, -5, -64, 7));
+        assertNull(index.get(OVERWORLD, 5, -64, 7));
+        assertNull(index.get(new UUID(1, 3), -5, -64, 7));
+        assertEquals(2, index.size());
+    }
+
+    /**
+     * Confirms reservations keep the first owner and removal only succeeds for the registered owner.
+     */
+    @Test
+    void reservesAndRemovesByOwner() {
+        PositionIndex index = new PositionIndex();
+        BlockPosition position = new BlockPosition(OVERWORLD, 0, 64, 0);
+
+        assertNull(index.putIfAbsent(position, ALICE));
+        assertEquals(ALICE, index.putIfAbsent(position, BOB));
+        assertFalse(index.remove(position, BOB));
+        assertTrue(index.containsKey(position));
+        assertTrue(index.remove(position, ALICE));
+        assertFalse(index.containsKey(position));
+        assertEquals(0, index.size());
+    }
+
+    /**
+     * Confirms random inserts and removals across several resizes, including removals from the middle of probe runs,
+     * leave the index equal to a plain map.
+     */
+    @Test
+    void matchesMapThroughGrowthAndRemovals() {
+        PositionIndex index = new PositionIndex();
+        Map<BlockPosition, UUID> expected = new HashMap<>();
+        List<BlockPosition> inserted = new ArrayList<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 20_000; step++) {
+            if (!inserted.isEmpty() && random.nextInt(3) == 0) {
+                BlockPosition position = inserted.remove(random.nextInt(inserted.size()));
+                assertEquals(expected.remove(position) != null, index.remove(position, new UUID(2, position.x())));
+            } else {
+                int x = random.nextInt(64) - 32;
+                BlockPosition position = new BlockPosition(random.nextBoolean() ? OVERWORLD : NETHER, x,
+                        random.nextInt(16), random.nextInt(64) - 32);
+                UUID owner = new UUID(2, x);
+                if (expected.putIfAbsent(position, owner) == null) {
+                    inserted.add(position);
+                }
+                index.putIfAbsent(position, owner);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (int x = -32; x < 32; x++) {
+            for (int y = 0; y < 16; y++) {
+                for (int z = -32; z < 32; z++) {
+                    BlockPosition position = new BlockPosition(OVERWORLD, x, y, z);
+                    assertEquals(expected.get(position), index.get(position));
+                }
+            }
+        }
+    }
+
+    /**
+     * Confirms the chunk filter keeps neighbouring chunks findable while blocks are added and removed across chunk
+     * borders and the filter grows.
+     */
+    @Test
+    void keepsChunkFilterInStepAcrossBorders() {
+        PositionIndex index = new PositionIndex();
+        for (int chunk = 0; chunk < 1000; chunk++) {
+            index.put(new BlockPosition(OVERWORLD, chunk * 16 - 1, 64, -chunk * 16), ALICE);
+            index.put(new BlockPosition(OVERWORLD, chunk * 16, 64, -chunk * 16), BOB);
+        }
+        for (int chunk = 0; chunk < 1000; chunk += 2) {
+            assertTrue(index.remove(new BlockPosition(OVERWORLD, chunk * 16 - 1, 64, -chunk * 16), ALICE));
+        }
+
+        for (int chunk = 0; chunk < 1000; chunk++) {
+            assertEquals(chunk % 2 == 0 ? null : ALICE, index.get(OVERWORLD, chunk * 16 - 1, 64, -chunk * 16));
+            assertEquals(BOB, index.get(OVERWORLD, chunk * 16, 64, -chunk * 16));
+            assertNull(index.get(OVERWORLD, chunk * 16 + 1, 64, -chunk * 16));
+        }
+        assertEquals(1500, index.size());
+    }
+
+    /**
+     * Confirms filtered removal sees unpacked positions and keeps rejected entries.
+     */
+    @Test
+    void removesFilteredEntries() {
+        PositionIndex index = new PositionIndex();
+        for (int x = 0; x < 100; x++) {
+            index.put(new BlockPosition(OVERWORLD, x, -10, -x), x % 2 == 0 ? ALICE : BOB);
+        }
+
+        index.removeIf((position, owner) -> owner.equals(BOB) || position.x() >= 90);
+
+        assertEquals(45, index.size());
+        assertEquals(ALICE, index.get(OVERWORLD, 88, -10, -88));
+        assertNull(index.get(OVERWORLD, 90, -10, -90));
+        assertNull(index.get(OVERWORLD, 1, -10, -1));
+    }
+}
@@ -0,0 +1,70 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that export lines round-trip and that malformed import lines are rejected.
+ */
+class RecordFormatTest {
+    private static final GeneratedBlockRecord RECORD = new GeneratedBlockRecord(
+            UUID.fromString("00000000-0000-0000-0000-00000000000a"),
+            "Alex",
+            new BlockPosition(UUID.fromString("00000000-0000-0000-0000-000000000001"), -120, -64, 3500),
+            "sky, \"main\"",
+            "minecraft:stone",
+            "normal.yml",
+            42
+    );
+
+    /**
+     * Confirms every format decodes exactly what it encodes, including CSV separators and quotes in text fields.
+     */
+    @Test
+    void roundTripsRecords() {
+        for (RecordFormat format : RecordFormat.values()) {
+            assertEquals(RECORD, format.decode(format.encode(RECORD)), format.name());
+        }
+    }
+
+    /**
+     * Confirms CSV quotes only fields that need it and doubles embedded quotes.
+     */
+    @Test
+    void quotesCsvFields() {
+        String line = RecordFormat.CSV.encode(RECORD);
+        assertEquals("00000000-0000-0000-0000-00000000000a,Alex,00000000-0000-0000-0000-000000000001,"
+                + "\"sky, \"\"main\"\"\",-120,-64,3500,minecraft:stone,normal.yml,42", line);
+    }
+
+    /**
+     * Confirms malformed lines raise a descriptive argument error instead of producing a record.
+     */
+    @Test
+    void rejectsMalformedLines() {
+        assertThrows(IllegalArgumentException.class, () -> RecordFormat.CSV.decode("a,b,c"));
+        assertThrows(IllegalArgumentException.class, () -> RecordFormat.CSV.decode(
+                "not-a-uuid,Alex,00000000-0000-0000-0000-000000000001,world,0,64,0,STONE,normal.yml,0"));
+        assertThrows(IllegalArgumentException.class, () -> RecordFormat.CSV.decode(
+                "00000000-0000-0000-0000-00000000000a,\"Alex,00000000-0000-0000-0000-000000000001,world,0,64,0,STONE,normal.yml,0"));
+        assertThrows(IllegalArgumentException.class, () -> RecordFormat.NDJSON.decode("{\"player_uuid\":"));
+        assertThrows(IllegalArgumentException.class, () -> RecordFormat.NDJSON.decode("[1,2]"));
+        assertThrows(IllegalArgumentException.class, () -> RecordFormat.NDJSON.decode(
+                RecordFormat.NDJSON.encode(RECORD).replace("\"blocks_broken\":42", "\"blocks_broken\":-1")));
+    }
+
+    /**
+     * Confirms formats resolve from command arguments and file extensions.
+     */
+    @Test
+    void resolvesFormats() {
+        assertEquals(Optional.of(RecordFormat.CSV), RecordFormat.fromName("CSV"));
+        assertEquals(Optional.of(RecordFormat.NDJSON), RecordFormat.fromFileName("generated_blocks-20240101-000000.jsonl"));
+        assertEquals(Optional.empty(), RecordFormat.fromFileName("data.db"));
+    }
+}
@@ -0,0 +1,86 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Verifies stage id assignment, next link resolution and the problems reported while compiling the stage graph.
+ */
+class StageGraphTest {
+
+    /**
+     * Confirms ids follow file name order and next links resolve with or without the yml suffix.
+     */
+    @Test
+    void resolvesNextLinksToIds() {
+        StageConfig normal = stage("nether");
+        StageConfig nether = stage("end.yml");
+        StageConfig end = stage("");
+        StageGraph graph = StageGraph.compile(Map.of("normal.yml", normal, "nether.yml", nether, "end.yml", end));
+
+        assertEquals(3, graph.size());
+        assertEquals(0, graph.idOf("end.yml"));
+        assertEquals(StageGraph.NO_STAGE, graph.idOf("missing.yml"));
+
+        StageGraph.Stage first = graph.stage(graph.idOf("normal.yml"));
+        assertSame(normal, first.config());
+        StageGraph.Stage second = graph.stage(first.nextId());
+        assertEquals("nether.yml", second.file());
+        assertEquals("end.yml", graph.stage(second.nextId()).file());
+        assertEquals(StageGraph.NO_STAGE, graph.stage(second.nextId()).nextId());
+        assertNull(graph.stage(StageGraph.NO_STAGE));
+        assertEquals(List.of(), graph.issues());
+    }
+
+    /**
+     * Confirms invalid and missing next stages are reported and turned into final stages.
+     */
+    @Test
+    void reportsDeadEndsAsFinalStages() {
+        StageGraph graph = StageGraph.compile(Map.of(
+                "a.yml", stage("../secret"),
+                "b.yml", stage("gone")
+        ));
+
+        assertEquals(StageGraph.NO_STAGE, graph.stage(graph.idOf("a.yml")).nextId());
+        assertEquals(StageGraph.NO_STAGE, graph.stage(graph.idOf("b.yml")).nextId());
+        assertEquals(List.of(
+                new StageGraph.Issue(StageGraph.IssueKind.INVALID_NEXT, "a.yml", "../secret"),
+                new StageGraph.Issue(StageGraph.IssueKind.MISSING_NEXT, "b.yml", "gone.yml")
+        ), graph.issues());
+    }
+
+    /**
+     * Confirms each cycle is reported once with its full path, while its links are kept.
+     */
+    @Test
+    void reportsCyclesOnce() {
+        StageGraph graph = StageGraph.compile(Map.of(
+                "a.yml", stage("b"),
+                "b.yml", stage("c"),
+                "c.yml", stage("b"),
+                "d.yml", stage("d")
+        ));
+
+        assertEquals(List.of(
+                new StageGraph.Issue(StageGraph.IssueKind.CYCLE, "b.yml", "b.yml -> c.yml -> b.yml"),
+                new StageGraph.Issue(StageGraph.IssueKind.CYCLE, "d.yml", "d.yml -> d.yml")
+        ), graph.issues());
+        assertEquals(graph.idOf("b.yml"), graph.stage(graph.idOf("c.yml")).nextId());
+    }
+
+    /**
+     * Creates a stage configuration with a next link.
+     */
+    private static StageConfig stage(String next) {
+        StageConfig config = new StageConfig();
+        config.nextStage = next;
+        return config;
+    }
+}
@@ -0,0 +1,142 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+import org.katacr.kaOneBlock.GenerationSelector.OutcomeType;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that the fused stage table reproduces the separate outcome and block rolls it replaces.
+ */
+class StageOutcomeTableTest {
+    private static final int SAMPLES = 400_000;
+    private static final double CHI_SQUARED_CRITICAL_5_DF = 20.515;
+
+    /**
+     * Confirms each entry's chance is the outcome chance multiplied by the block's share of the block weights.
+     */
+    @Test
+    void combinesOutcomeAndBlockChances() {
+        StageOutcomeTable table = StageOutcomeTable.compile(0.05, chests(), blocks(), "FALLBACK");
+
+        assertEquals(List.of(
+                new StageOutcomeTable.Outcome(OutcomeType.ENTITY, null, "STONE"),
+                new StageOutcomeTable.Outcome(OutcomeType.ENTITY, null, "DIRT"),
+                new StageOutcomeTable.Outcome(OutcomeType.CHEST, "common", null),
+                new StageOutcomeTable.Outcome(OutcomeType.CHEST, "rare", null),
+                new StageOutcomeTable.Outcome(OutcomeType.BLOCK, null, "STONE"),
+                new StageOutcomeTable.Outcome(OutcomeType.BLOCK, null, "DIRT")
+        ), outcomes(table));
+        double[] expected = {0.0375, 0.0125, 0.03, 0.01, 0.6675, 0.2225};
+        for (int index = 0; index < expected.length; index++) {
+            assertEquals(expected[index], table.chance(index), 1e-12);
+        }
+    }
+
+    /**
+     * Confirms chances beyond one are clamped in configuration order like the cumulative selector, and that entries
+     * which can never be selected are left out.
+     */
+    @Test
+    void clampsLikeTheCumulativeSelector() {
+        Map<String, Double> chests = new LinkedHashMap<>();
+        chests.put("first", 0.5);
+        chests.put("second", 0.5);
+        StageOutcomeTable table = StageOutcomeTable.compile(0.7, chests, null, "FALLBACK");
+
+        assertEquals(List.of(
+                new StageOutcomeTable.Outcome(OutcomeType.ENTITY, null, "FALLBACK"),
+                new StageOutcomeTable.Outcome(OutcomeType.CHEST, "first", null)
+        ), outcomes(table));
+        assertEquals(0.7, table.chance(0), 1e-12);
+        assertEquals(0.3, table.chance(1), 1e-12);
+    }
+
+    /**
+     * Confirms with a chi-squared goodness-of-fit test that single draws match the chances of the former two rolls.
+     */
+    @Test
+    void sampledFrequenciesMatchSeparateRolls() {
+        StageOutcomeTable table = StageOutcomeTable.compile(0.05, chests(), blocks(), "FALLBACK");
+        double[] expected = {0.0375, 0.0125, 0.03, 0.01, 0.6675, 0.2225};
+        List<StageOutcomeTable.Outcome> entries = outcomes(table);
+        long[] observed = new long[entries.size()];
+        SplittableRandom random = new SplittableRandom(20240601L);
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            observed[entries.indexOf(table.select(random))]++;
+        }
+
+        double chiSquared = 0;
+        for (int index = 0; index < expected.length; index++) {
+            double expectedCount = expected[index] * SAMPLES;
+            chiSquared += Math.pow(observed[index] - expectedCount, 2) / expectedCount;
+        }
+        assertTrue(chiSquared < CHI_SQUARED_CRITICAL_5_DF, "chi-squared " + chiSquared);
+    }
+
+    /**
+     * Confirms rolls at the edges of the unit interval still select a valid entry.
+     */
+    @Test
+    void coversTheWholeUnitInterval() {
+        StageOutcomeTable table = StageOutcomeTable.compile(0.05, chests(), blocks(), "FALLBACK");
+        List<StageOutcomeTable.Outcome> entries = outcomes(table);
+
+        assertTrue(entries.contains(table.select(new FixedDoubleRandom(0))));
+        assertTrue(entries.contains(table.select(new FixedDoubleRandom(Math.nextDown(1.0)))));
+    }
+
+    /**
+     * Returns the chest chances used by the fixed stage.
+     */
+    private static Map<String, Double> chests() {
+        Map<String, Double> chests = new LinkedHashMap<>();
+        chests.put("common", 0.03);
+        chests.put("rare", 0.01);
+        return chests;
+    }
+
+    /**
+     * Returns the block weights used by the fixed stage.
+     */
+    private static WeightedRandom<Object> blocks() {
+        WeightedRandom<Object> blocks = new WeightedRandom<>();
+        blocks.add("STONE", 3);
+        blocks.add("DIRT", 1);
+        return blocks;
+    }
+
+    /**
+     * Lists a table's entries in order.
+     */
+    private static List<StageOutcomeTable.Outcome> outcomes(StageOutcomeTable table) {
+        StageOutcomeTable.Outcome[] outcomes = new StageOutcomeTable.Outcome[table.size()];
+        for (int index = 0; index < outcomes.length; index++) {
+            outcomes[index] = table.outcome(index);
+        }
+        return List.of(outcomes);
+    }
+
+    /**
+     * Supplies an exact random double.
+     */
+    private static final class FixedDoubleRandom extends Random {
+        private final double value;
+
+        private FixedDoubleRandom(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double nextDouble() {
+            return value;
+        }
+    }
+}
@@ -2,7 +2,12 @@ package org.katacr.kaOneBlock;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.SplittableRandom;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Verifies the weighted selector's boundary behavior independently of Bukkit.
@@ -23,4 +28,45 @@ class WeightedRandomTest {
             assertEquals("valid", random.getRandom());
         }
     }
+
+    /**
+     * Confirms alias sampling matches skewed weights with a chi-squared goodness-of-fit test.
+     */
+    @Test
+    void samplesInProportionToWeights() {
+        double[] weights = {50, 0.5, 20, 1, 7.5, 3, 12, 6};
+        WeightedRandom<Integer> random = new WeightedRandom<>();
+        double total = 0;
+        for (int index = 0; index < weights.length; index++) {
+            random.add(index, weights[index]);
+            total += weights[index];
+        }
+        int samples = 400_000;
+        long[] observed = new long[weights.length];
+        SplittableRandom generator = new SplittableRandom(99);
+        for (int sample = 0; sample < samples; sample++) {
+            observed[random.getRandom(generator)]++;
+        }
+
+        double chiSquared = 0;
+        for (int index = 0; index < weights.length; index++) {
+            double expected = weights[index] / total * samples;
+            chiSquared += Math.pow(observed[index] - expected, 2) / expected;
+        }
+        assertTrue(chiSquared < 24.322, "chi-squared " + chiSquared);
+    }
+
+    /**
+     * Confirms an empty selector returns null and a frozen one rejects new entries.
+     */
+    @Test
+    void rejectsEntriesAfterFreezing() {
+        WeightedRandom<String> random = new WeightedRandom<>();
+        assertNull(random.getRandom());
+        random.add("first", 1);
+        random.freeze();
+
+        assertThrows(IllegalStateException.class, () -> random.add("second", 1));
+        assertEquals("first", random.getRandom());
+    }
 }
@@ -0,0 +1,61 @@
+package org.katacr.kaOneBlock;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies write counters, sliding-window rates and durability mode parsing.
+ */
+class WriteMetricsTest {
+    /**
+     * Confirms rates are averaged over the elapsed time until a full window has passed.
+     */
+    @Test
+    void averagesOverUptimeBeforeWindowFills() {
+        AtomicLong clock = new AtomicLong(100_000);
+        WriteMetrics metrics = new WriteMetrics(clock::get);
+        for (int index = 0; index < 20; index++) {
+            metrics.recordUpdate();
+        }
+        metrics.recordTransaction(20);
+        clock.addAndGet(10_000);
+
+        WriteMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2.0, snapshot.updatesPerSecond(), 1e-9);
+        assertEquals(0.1, snapshot.transactionsPerSecond(), 1e-9);
+        assertEquals(2.0, snapshot.recordsPerSecond(), 1e-9);
+    }
+
+    /**
+     * Confirms activity older than the window leaves the rates but stays in the totals.
+     */
+    @Test
+    void dropsExpiredActivityFromRates() {
+        AtomicLong clock = new AtomicLong(100_000);
+        WriteMetrics metrics = new WriteMetrics(clock::get);
+        metrics.recordUpdate();
+        metrics.recordTransaction(1);
+        clock.addAndGet(WriteMetrics.WINDOW_SECONDS * 1000L + 5_000);
+        metrics.recordUpdate();
+
+        WriteMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1.0 / WriteMetrics.WINDOW_SECONDS, snapshot.updatesPerSecond(), 1e-9);
+        assertEquals(0.0, snapshot.transactionsPerSecond(), 1e-9);
+        assertEquals(2, snapshot.totalUpdates());
+        assertEquals(1, snapshot.totalTransactions());
+    }
+
+    /**
+     * Confirms configured durability names are case-insensitive and reject unknown modes.
+     */
+    @Test
+    void parsesDurabilityModes() {
+        assertEquals(DatabaseManager.Durability.PERIODIC, DatabaseManager.Durability.parse(" Periodic "));
+        assertEquals(DatabaseManager.Durability.SHUTDOWN, DatabaseManager.Durability.parse("on-quit"));
+        assertThrows(IllegalArgumentException.class, () -> DatabaseManager.Durability.parse("sometimes"));
+    }
+}
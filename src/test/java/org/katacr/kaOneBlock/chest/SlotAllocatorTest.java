@@ -0,0 +1,62 @@
+package org.katacr.kaOneBlock.chest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies fixed-slot claims, random placement and exhaustion of the chest slot allocator.
+ */
+class SlotAllocatorTest {
+
+    /**
+     * Confirms a free requested slot is used as is, while occupied or out-of-range requests fall back to a free one.
+     */
+    @Test
+    void honoursFreeRequestedSlots() {
+        SlotAllocator slots = new SlotAllocator(LootPools.CHEST_SIZE);
+        slots.shuffle(new SplittableRandom(1));
+
+        assertEquals(4, slots.claim(4));
+        int fallback = slots.claim(4);
+        assertTrue(fallback >= 0 && fallback != 4);
+        int outOfRange = slots.claim(40);
+        assertTrue(outOfRange >= 0 && outOfRange < LootPools.CHEST_SIZE && outOfRange != fallback && outOfRange != 4);
+        assertTrue(slots.isOccupied(4));
+        assertEquals(LootPools.CHEST_SIZE - 3, slots.freeSlots());
+    }
+
+    /**
+     * Confirms every slot is handed out exactly once across groups, skipping slots claimed after a shuffle.
+     */
+    @Test
+    void handsOutEachSlotOnce() {
+        SplittableRandom random = new SplittableRandom(7);
+        SlotAllocator slots = new SlotAllocator(LootPools.CHEST_SIZE);
+        Set<Integer> claimed = new HashSet<>();
+        slots.shuffle(random);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(claimed.add(slots.next()));
+        }
+        slots.shuffle(random);
+        for (int slot = 0; slot < LootPools.CHEST_SIZE; slot += 5) {
+            if (!slots.isOccupied(slot)) {
+                assertTrue(claimed.add(slots.claim(slot)));
+            }
+        }
+        while (slots.freeSlots() > 0) {
+            assertTrue(claimed.add(slots.next()));
+        }
+
+        assertEquals(LootPools.CHEST_SIZE, claimed.size());
+        assertEquals(-1, slots.next());
+        assertEquals(-1, slots.claim(0));
+        assertFalse(claimed.contains(-1));
+    }
+}
@@ -0,0 +1,268 @@
+package org.katacr.kaOneBlock.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.katacr.kaOneBlock.BlockPosition;
+import org.katacr.kaOneBlock.BreakOutcome;
+import org.katacr.kaOneBlock.GeneratedBlockRecord;
+import org.katacr.kaOneBlock.GenerationSelector.OutcomeType;
+import org.katacr.kaOneBlock.OutcomeCount;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies behaviour every storage backend must share so gameplay code never depends on the dialect.
+ */
+abstract class BlockStorageContractTest {
+    private static final UUID WORLD = new UUID(1, 2);
+
+    private BlockStorage storage;
+
+    /**
+     * Creates a fresh, uninitialized backend backed by an isolated database.
+     */
+    abstract BlockStorage createStorage() throws Exception;
+
+    /**
+     * Opens and migrates a fresh backend before every test.
+     */
+    @BeforeEach
+    void openStorage() throws Exception {
+        storage = createStorage();
+        storage.initialize();
+    }
+
+    /**
+     * Closes the backend after every test.
+     */
+    @AfterEach
+    void closeStorage() {
+        storage.close();
+    }
+
+    /**
+     * Confirms initialization can run again against an existing schema without losing stored rows.
+     */
+    @Test
+    void initializesIdempotently() throws SQLException {
+        UUID playerId = UUID.randomUUID();
+        storage.upsertAll(List.of(record(playerId, 1)));
+        storage.initialize();
+        assertTrue(storage.describeColumns().containsKey("blocks_broken"));
+        assertFalse(storage.describeConnections().isEmpty());
+        assertEquals(Map.of(playerId, record(playerId, 1)), loadAll());
+    }
+
+    /**
+     * Confirms a second upsert replaces the stored state of the same player.
+     */
+    @Test
+    void upsertReplacesExistingPlayerState() throws SQLException {
+        UUID playerId = UUID.randomUUID();
+        storage.upsertAll(List.of(record(playerId, 1)));
+        storage.upsertAll(List.of(record(playerId, 2)));
+
+        assertEquals(Map.of(playerId, record(playerId, 2)), loadAll());
+    }
+
+    /**
+     * Confirms batches larger than one statement chunk are stored completely.
+     */
+    @Test
+    void storesBatchesSpanningSeveralChunks() throws SQLException {
+        List<GeneratedBlockRecord> records = new ArrayList<>();
+        for (int index = 0; index < 250; index++) {
+            records.add(record(UUID.randomUUID(), index));
+        }
+        storage.upsertAll(records);
+
+        Map<UUID, GeneratedBlockRecord> loaded = loadAll();
+        assertEquals(records.size(), loaded.size());
+        records.forEach(record -> assertEquals(record, loaded.get(record.playerId())));
+    }
+
+    /**
+     * Confirms deletion reports whether a row existed.
+     */
+    @Test
+    void deleteReportsWhetherRowExisted() throws SQLException {
+        UUID playerId = UUID.randomUUID();
+        storage.upsertAll(List.of(record(playerId, 3)));
+
+        assertTrue(storage.delete(playerId));
+        assertFalse(storage.delete(playerId));
+        assertTrue(loadAll().isEmpty());
+    }
+
+    /**
+     * Confirms journal recovery applies upserts and null deletion markers together.
+     */
+    @Test
+    void appliesJournalUpsertsAndDeletions() throws SQLException {
+        UUID kept = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        storage.upsertAll(List.of(record(kept, 1), record(deleted, 1)));
+
+        Map<UUID, GeneratedBlockRecord> journal = new HashMap<>();
+        journal.put(kept, record(kept, 9));
+        journal.put(deleted, null);
+        storage.applyJournal(journal);
+
+        assertEquals(Map.of(kept, record(kept, 9)), loadAll());
+    }
+
+    /**
+     * Confirms keyset pages visit every record exactly once.
+     */
+    @Test
+    void pagesThroughEveryRecordOnce() throws SQLException {
+        List<GeneratedBlockRecord> records = new ArrayList<>();
+        for (int index = 0; index < 25; index++) {
+            records.add(record(UUID.randomUUID(), index));
+        }
+        storage.upsertAll(records);
+
+        Map<UUID, GeneratedBlockRecord> paged = new HashMap<>();
+        UUID after = null;
+        List<GeneratedBlockRecord> page;
+        do {
+            page = storage.loadPage(after, 10);
+            for (GeneratedBlockRecord record : page) {
+                assertNull(paged.put(record.playerId(), record));
+                after = record.playerId();
+            }
+        } while (page.size() == 10);
+        assertEquals(loadAll(), paged);
+    }
+
+    /**
+     * Confirms a visitor rejection stops the streaming load.
+     */
+    @Test
+    void stopsLoadingWhenVisitorRejects() throws SQLException {
+        storage.upsertAll(List.of(record(UUID.randomUUID(), 1), record(UUID.randomUUID(), 2)));
+        List<GeneratedBlockRecord> visited = new ArrayList<>();
+
+        assertFalse(storage.loadAll(record -> {
+            visited.add(record);
+            return false;
+        }));
+        assertEquals(1, visited.size());
+    }
+
+    /**
+     * Confirms single-record loads and the owner index agree with the stored rows.
+     */
+    @Test
+    void loadsSingleRecordsAndOwnerIndex() throws SQLException {
+        UUID playerId = UUID.randomUUID();
+        storage.upsertAll(List.of(record(playerId, 5)));
+
+        assertEquals(Optional.of(record(playerId, 5)), storage.load(playerId));
+        assertEquals(Optional.empty(), storage.load(UUID.randomUUID()));
+
+        Map<BlockPosition, UUID> owners = new HashMap<>();
+        assertTrue(storage.loadOwners((owner, position) -> owners.put(position, owner) == null));
+        assertEquals(Map.of(record(playerId, 5).position(), playerId), owners);
+    }
+
+    /**
+     * Confirms appended events are rolled up per hour and outcome and can be filtered by stage and time.
+     */
+    @Test
+    void rollsUpHistoryByHourAndOutcome() throws SQLException {
+        UUID playerId = UUID.randomUUID();
+        long hour = BreakOutcome.HOUR_MILLIS * 480_000;
+        storage.appendHistory(List.of(
+                outcome(playerId, "nether.yml", OutcomeType.CHEST, "rare", hour + 5),
+                outcome(playerId, "nether.yml", OutcomeType.CHEST, "rare", hour + 10),
+                outcome(playerId, "nether.yml", OutcomeType.BLOCK, "NETHERRACK", hour + 20),
+                outcome(playerId, "normal.yml", OutcomeType.CHEST, "rare", hour + 30)
+        ));
+        storage.appendHistory(List.of(
+                outcome(playerId, "nether.yml", OutcomeType.CHEST, "rare", hour + BreakOutcome.HOUR_MILLIS),
+                outcome(playerId, "nether.yml", OutcomeType.ENTITY, "BLAZE", hour + BreakOutcome.HOUR_MILLIS + 1)
+        ));
+
+        assertEquals(List.of(
+                new OutcomeCount(OutcomeType.CHEST, "rare", 3),
+                new OutcomeCount(OutcomeType.ENTITY, "BLAZE", 1),
+                new OutcomeCount(OutcomeType.BLOCK, "NETHERRACK", 1)
+        ), sortByCount(storage.countOutcomes("nether.yml", hour, Long.MAX_VALUE)));
+        assertEquals(List.of(new OutcomeCount(OutcomeType.CHEST, "rare", 3), new OutcomeCount(OutcomeType.BLOCK, "NETHERRACK", 1)),
+                sortByCount(storage.countOutcomes(null, hour, hour + BreakOutcome.HOUR_MILLIS)));
+        assertTrue(storage.countOutcomes("missing.yml", 0, Long.MAX_VALUE).isEmpty());
+    }
+
+    /**
+     * Confirms retention deletes old rows in bounded batches and that pruning raw events keeps the hourly totals.
+     */
+    @Test
+    void prunesHistoryInBoundedBatches() throws SQLException {
+        UUID playerId = UUID.randomUUID();
+        List<BreakOutcome> events = new ArrayList<>();
+        for (int index = 0; index < 5; index++) {
+            events.add(outcome(playerId, "normal.yml", OutcomeType.BLOCK, "STONE", index * BreakOutcome.HOUR_MILLIS));
+        }
+        storage.appendHistory(events);
+
+        long cutoff = 4 * BreakOutcome.HOUR_MILLIS;
+        assertEquals(3, storage.pruneHistory(cutoff, 3));
+        assertEquals(1, storage.pruneHistory(cutoff, 3));
+        assertEquals(0, storage.pruneHistory(cutoff, 3));
+        assertEquals(List.of(new OutcomeCount(OutcomeType.BLOCK, "STONE", 5)), storage.countOutcomes(null, 0, Long.MAX_VALUE));
+
+        assertEquals(2, storage.pruneRollups(cutoff, 2));
+        assertEquals(2, storage.pruneRollups(cutoff, 2));
+        assertEquals(0, storage.pruneRollups(cutoff, 2));
+        assertEquals(List.of(new OutcomeCount(OutcomeType.BLOCK, "STONE", 1)), storage.countOutcomes(null, 0, Long.MAX_VALUE));
+    }
+
+    /**
+     * Collects every stored record by player.
+     */
+    private Map<UUID, GeneratedBlockRecord> loadAll() throws SQLException {
+        Map<UUID, GeneratedBlockRecord> records = new HashMap<>();
+        assertTrue(storage.loadAll(record -> records.put(record.playerId(), record) == null));
+        return records;
+    }
+
+    /**
+     * Orders outcome counts by descending count and then by type and id, so ties compare deterministically.
+     */
+    private static List<OutcomeCount> sortByCount(List<OutcomeCount> counts) {
+        List<OutcomeCount> sorted = new ArrayList<>(counts);
+        sorted.sort(Comparator.comparingLong(OutcomeCount::count).reversed()
+                .thenComparing(OutcomeCount::outcomeType)
+                .thenComparing(OutcomeCount::outcomeId));
+        return sorted;
+    }
+
+    /**
+     * Creates one break history event.
+     */
+    private static BreakOutcome outcome(UUID playerId, String stageFile, OutcomeType type, String outcomeId, long occurredAt) {
+        return new BreakOutcome(playerId, stageFile, type, outcomeId, occurredAt);
+    }
+
+    /**
+     * Creates a record whose position is derived from its broken-block counter to keep positions distinct.
+     */
+    private static GeneratedBlockRecord record(UUID playerId, int blocksBroken) {
+        return new GeneratedBlockRecord(playerId, "Player", new BlockPosition(WORLD, blocksBroken, 64, -20),
+                "world", "STONE", "normal.yml", blocksBroken);
+    }
+}
@@ -0,0 +1,53 @@
+package org.katacr.kaOneBlock.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the storage contract against an embedded H2 database in MySQL compatibility mode.
+ */
+class MySqlBlockStorageTest extends BlockStorageContractTest {
+    @Override
+    BlockStorage createStorage() {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        return new MySqlBlockStorage(url, "sa", "", 2, 32);
+    }
+
+    /**
+     * Confirms initializing again reuses the open pool instead of starting a second one.
+     */
+    @Test
+    void reusesPoolWhenInitializedAgain() throws SQLException {
+        BlockStorage storage = createStorage();
+        try {
+            storage.initialize();
+            long pools = countPoolThreads();
+            storage.initialize();
+            assertEquals(pools, countPoolThreads());
+        } finally {
+            storage.close();
+        }
+    }
+
+    /**
+     * Counts live Hikari housekeeper threads of the plugin's pool, one per open pool.
+     */
+    private static long countPoolThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("KaOneBlock-MySQL housekeeper"))
+                .count();
+    }
+
+    /**
+     * Confirms multi-row upserts carry one placeholder group per record.
+     */
+    @Test
+    void buildsOneValueGroupPerRow() {
+        String sql = MySqlBlockStorage.upsertSql(3);
+        assertEquals(3 * BlockRows.COLUMN_COUNT, sql.chars().filter(character -> character == '?').count());
+    }
+}
@@ -0,0 +1,170 @@
+package org.katacr.kaOneBlock.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.katacr.kaOneBlock.BlockPosition;
+import org.katacr.kaOneBlock.GeneratedBlockRecord;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the storage contract against a temporary SQLite file and checks the compact schema conversion.
+ */
+class SqliteBlockStorageTest extends BlockStorageContractTest {
+    private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID LEGACY_PLAYER = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final UUID WORLD = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @TempDir
+    Path directory;
+
+    @Override
+    BlockStorage createStorage() {
+        return new SqliteBlockStorage(directory.resolve("data.db").toFile());
+    }
+
+    /**
+     * Confirms a version 1 text table is converted to the compact schema without losing any field.
+     */
+    @Test
+    void convertsTextSchema() throws SQLException {
+        File file = directory.resolve("legacy.db").toFile();
+        createTextSchema(file, "'" + WORLD + "', 'world'");
+
+        SqliteBlockStorage storage = new SqliteBlockStorage(file);
+        try {
+            storage.initialize();
+            assertEquals(0, storage.countRecordsWithoutWorld());
+            assertEquals(List.of(new GeneratedBlockRecord(PLAYER, "Alex", new BlockPosition(WORLD, -30000000, -64, 29999999),
+                    "world", "DIRT", "nether.yml", 42)), loadAll(storage));
+            assertFalse(storage.describeColumns().containsKey("world_uuid"));
+        } finally {
+            storage.close();
+        }
+        assertEquals(SqliteBlockStorage.SCHEMA_VERSION, userVersion(file));
+    }
+
+    /**
+     * Confirms rows without a world defer the conversion until the legacy world is assigned.
+     */
+    @Test
+    void defersConversionUntilLegacyWorldIsAssigned() throws SQLException {
+        File file = directory.resolve("legacy.db").toFile();
+        createTextSchema(file, "NULL, NULL");
+
+        SqliteBlockStorage storage = new SqliteBlockStorage(file);
+        try {
+            storage.initialize();
+            assertEquals(2, storage.countRecordsWithoutWorld());
+            storage.assignLegacyWorld(WORLD, "world");
+            assertEquals(0, storage.countRecordsWithoutWorld());
+            List<GeneratedBlockRecord> records = loadAll(storage);
+            assertEquals(2, records.size());
+            assertTrue(records.stream().allMatch(record -> record.position().worldId().equals(WORLD)));
+            assertEquals(LEGACY_PLAYER, storage.load(LEGACY_PLAYER).orElseThrow().playerId());
+        } finally {
+            storage.close();
+        }
+    }
+
+    /**
+     * Confirms an online backup produces a verified copy holding the same records and that freed pages can be
+     * released incrementally.
+     */
+    @Test
+    void backsUpAndReleasesFreePages() throws SQLException {
+        SqliteBlockStorage storage = new SqliteBlockStorage(directory.resolve("live.db").toFile());
+        Path copy = directory.resolve("copy.db");
+        try {
+            storage.initialize();
+            List<GeneratedBlockRecord> records = new ArrayList<>();
+            for (int index = 0; index < 2000; index++) {
+                records.add(new GeneratedBlockRecord(new UUID(7, index), "Player" + index,
+                        new BlockPosition(WORLD, index, 64, -index), "world", "STONE", "normal.yml", index));
+            }
+            storage.upsertAll(records);
+
+            assertTrue(storage.backupTo(copy, 4, 10) > 0);
+            assertTrue(SqliteBlockStorage.verifyBackup(copy));
+
+            for (GeneratedBlockRecord record : records) {
+                storage.delete(record.playerId());
+            }
+            assertTrue(storage.incrementalVacuum(10_000) > 0);
+        } finally {
+            storage.close();
+        }
+
+        SqliteBlockStorage restored = new SqliteBlockStorage(copy.toFile());
+        try {
+            restored.initialize();
+            assertEquals(2000, loadAll(restored).size());
+        } finally {
+            restored.close();
+        }
+    }
+
+    /**
+     * Writes a version 1 table holding two rows in the given world columns.
+     */
+    private static void createTextSchema(File file, String worldValues) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE generated_blocks (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        player_uuid TEXT NOT NULL UNIQUE,
+                        player_name TEXT NOT NULL,
+                        world_uuid TEXT,
+                        world_name TEXT,
+                        x INTEGER NOT NULL,
+                        y INTEGER NOT NULL,
+                        z INTEGER NOT NULL,
+                        block_type TEXT NOT NULL DEFAULT 'STONE',
+                        stage_file TEXT NOT NULL DEFAULT 'normal.yml',
+                        blocks_broken INTEGER NOT NULL DEFAULT 0,
+                        generated_time DATETIME DEFAULT CURRENT_TIMESTAMP
+                    )
+                    """);
+            statement.execute("INSERT INTO generated_blocks (player_uuid, player_name, world_uuid, world_name, x, y, z, block_type, stage_file, blocks_broken) "
+                    + "VALUES ('" + PLAYER + "', 'Alex', " + worldValues + ", -30000000, -64, 29999999, 'DIRT', 'nether.yml', 42)");
+            if (worldValues.startsWith("NULL")) {
+                statement.execute("INSERT INTO generated_blocks (player_uuid, player_name, world_uuid, world_name, x, y, z) "
+                        + "VALUES ('" + LEGACY_PLAYER + "', 'Steve', '', NULL, 0, 64, 0)");
+            }
+        }
+    }
+
+    /**
+     * Collects every stored record.
+     */
+    private static List<GeneratedBlockRecord> loadAll(BlockStorage storage) throws SQLException {
+        List<GeneratedBlockRecord> records = new ArrayList<>();
+        storage.loadAll(records::add);
+        return records;
+    }
+
+    /**
+     * Reads the schema version from the database header.
+     */
+    private static int userVersion(File file) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA user_version")) {
+            return result.getInt(1);
+        }
+    }
+}